@@ -1,5 +1,7 @@
 package mn.astvision.filterflow;
 
+import mn.astvision.filterflow.builders.BatchQueryBuilder;
+import mn.astvision.filterflow.builders.CrossSearchBuilder;
 import mn.astvision.filterflow.builders.base.DefaultFilterFlowBuilder;
 import mn.astvision.filterflow.component.FilterContextHolder;
 import mn.astvision.filterflow.component.factory.FilterExecutorFactory;
@@ -30,5 +32,31 @@ public class FilterFlow {
             throw new IllegalStateException("Spring context is not initialized. Cannot access FilterExecutorFactory.", e);
         }
     }
-}
 
+    /**
+     * Collects independent queries and runs them concurrently, see {@link BatchQueryBuilder}.
+     *
+     * @return batch builder
+     */
+    public static BatchQueryBuilder batch() {
+        try {
+            return new BatchQueryBuilder(FilterContextHolder.getBean(FilterExecutorFactory.class));
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("Spring context is not initialized. Cannot access FilterExecutorFactory.", e);
+        }
+    }
+
+    /**
+     * Searches {@code keyword} in several entities with one {@code $unionWith} aggregation, see {@link CrossSearchBuilder}.
+     *
+     * @param keyword global search keyword
+     * @return cross-entity search builder
+     */
+    public static CrossSearchBuilder searchAcross(String keyword) {
+        try {
+            return new CrossSearchBuilder(FilterContextHolder.getBean(FilterExecutorFactory.class), keyword);
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("Spring context is not initialized. Cannot access FilterExecutorFactory.", e);
+        }
+    }
+}
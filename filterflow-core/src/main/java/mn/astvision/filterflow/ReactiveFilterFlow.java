@@ -0,0 +1,33 @@
+package mn.astvision.filterflow;
+
+import mn.astvision.filterflow.builders.base.ReactiveFilterFlowBuilder;
+import mn.astvision.filterflow.component.FilterContextHolder;
+import mn.astvision.filterflow.component.factory.ReactiveFilterExecutorFactory;
+
+/// @author zorigtbaatar
+
+/**
+ * Reactive counterpart of {@link FilterFlow}. Kept in its own class so that {@link FilterFlow} never links the
+ * reactive types, which are only on the classpath of applications using the reactive MongoDB starter.
+ */
+public class ReactiveFilterFlow {
+    private ReactiveFilterFlow() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Starts a builder chain executed on {@code ReactiveMongoTemplate}, returning {@code Flux}/{@code Mono}.
+     *
+     * @param clazz Mongo entity class
+     * @param <T>   entity type
+     * @return fluent reactive builder
+     */
+    public static <T> ReactiveFilterFlowBuilder<T> ofType(Class<T> clazz) {
+        try {
+            ReactiveFilterExecutorFactory factory = FilterContextHolder.getBean(ReactiveFilterExecutorFactory.class);
+            return new ReactiveFilterFlowBuilder<>(factory, clazz);
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("Spring context is not initialized. Cannot access ReactiveFilterExecutorFactory.", e);
+        }
+    }
+}
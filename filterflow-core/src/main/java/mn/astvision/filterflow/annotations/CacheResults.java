@@ -0,0 +1,23 @@
+package mn.astvision.filterflow.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Entity дээр тавибал тухайн entity-ийн page / count / exists / summary үр дүнг
+ * {@link mn.astvision.filterflow.util.cache.QueryResultCache}-д хадгална.
+ * <p>
+ * Collection-д save/delete event гарахад кэш автоматаар цэвэрлэгдэнэ. {@code updateMulti}, bulk write зэрэг
+ * event үүсгэдэггүй бичилтийн дараа {@code QueryResultCache.invalidate(...)}-г гараар дуудна.
+ *
+ * @author zorigtbaatar
+ */
+
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheResults {
+    /**
+     * Хадгалах хугацаа (секунд)
+     */
+    long ttlSeconds() default 60;
+}
@@ -0,0 +1,18 @@
+package mn.astvision.filterflow.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * String талбарын жижиг үсэгтэй хуулбарыг ({@code _lower.<field>}) save хийх үед хадгалж,
+ * {@code EQUALS_IGNORE_CASE}, {@code STARTS_WITH}, {@code STARTS_WITH_CI}-г уг хуулбар дээрх case-sensitive
+ * (index range scan хийгдэх) нөхцөл болгоно. Одоо байгаа өгөгдөлд {@code SearchKeyUtil.backfill(...)}-г дуудна.
+ * Зөвхөн entity-ийн шууд (nested биш) String талбар дээр ажиллана.
+ *
+ * @author zorigtbaatar
+ */
+
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface IgnoreCaseIndexed {
+}
@@ -0,0 +1,24 @@
+package mn.astvision.filterflow.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Entity дээр тавибал SUM / AVG / COUNT / MIN / MAX summary-г
+ * {@link mn.astvision.filterflow.util.cache.MaterializedSummaryCache}-д хадгалж, save/delete event бүрээр
+ * delta-гаар шинэчилнэ (MIN/MAX-ийн хязгаар утга устсан үед дараагийн уншилтад дахин тооцоолно).
+ * <p>
+ * Кэштэй collection-д бичих бүрд {@code _id}-аар хоёр жижиг aggregation нэмэгдэнэ. {@code updateMulti}, bulk write
+ * зэрэг event үүсгэдэггүй бичилтийн дараа {@code MaterializedSummaryCache.invalidate(...)}-г гараар дуудна.
+ *
+ * @author zorigtbaatar
+ */
+
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaterializedSummaries {
+    /**
+     * Delta-гаар шинэчлэгдсэн ч энэ хугацааны (секунд) дараа бүтнээр дахин тооцоолно
+     */
+    long maxStalenessSeconds() default 300;
+}
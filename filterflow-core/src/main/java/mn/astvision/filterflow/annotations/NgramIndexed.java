@@ -0,0 +1,35 @@
+package mn.astvision.filterflow.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Entity-ийн текст талбаруудын trigram-уудыг {@code <collection>_ngrams} туслах collection-д хадгалж,
+ * GLOBAL хайлтыг ({@code globalSearchMode = NGRAM / AUTO}) хэсэгчилсэн болон алдаатай бичсэн үгээр хайх боломжтой болгоно.
+ * <p>
+ * Save/delete event-ээр индекс шинэчлэгдэнэ. Event үүсгэдэггүй бичилтийн ({@code updateMulti}, bulk write) дараа
+ * {@code NgramIndexUtil.rebuild(...)}-г дуудна.
+ *
+ * @author zorigtbaatar
+ */
+
+@Documented
+@Inherited
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface NgramIndexed {
+    /**
+     * Индекслэх талбарууд (Java нэр, цэгээр nested). Хоосон бол хайх боломжтой бүх String талбар.
+     */
+    String[] fields() default {};
+
+    /**
+     * Хайлтын trigram-уудын хэдэн хувь нь документод байх ёстой (0..1)
+     */
+    double minSimilarity() default 0.6;
+
+    /**
+     * Үндсэн query-д {@code _id $in}-ээр дамжуулах хамгийн их id-ийн тоо (хамгийн төстэй нь эхэндээ). Бусад filter-ээс
+     * өмнө хязгаарлагддаг тул тасарсан эсэхийг {@code FilterExecutionStats#isNgramCandidatesTruncated()} харуулна
+     */
+    int maxCandidates() default 1_000;
+}
@@ -0,0 +1,21 @@
+package mn.astvision.filterflow.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * String талбарын хайлтын түлхүүрийг ({@code _searchKeys.<field>}, үгийн эхлэлүүд нь {@code _searchKeyWords.<field>})
+ * хадгалж, {@code LIKE}, {@code STARTS_WITH}, GLOBAL хайлтыг индекс ашигладаг anchored prefix хайлт болгоно.
+ * <p>
+ * Түлхүүр нь жижиг үсгээр, diacritic-гүй, Кирилл үсгийг латин болгосон хэлбэр тул "Улаанбаатар", "ulaanbaatar",
+ * "Ulaanbaatar" гурав адил олдоно. Save хийх үед түлхүүр шинэчлэгдэнэ; event үүсгэдэггүй бичилтийн
+ * ({@code updateMulti}, bulk write) дараа болон анх тэмдэглэхдээ {@code SearchKeyUtil.backfill(...)}-г дуудна.
+ * Зөвхөн entity-ийн шууд (nested биш) String талбар дээр ажиллана.
+ *
+ * @author zorigtbaatar
+ */
+
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SearchKey {
+}
@@ -0,0 +1,18 @@
+package mn.astvision.filterflow.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Эрэмбэлсэн GLOBAL хайлтад ({@code globalSearchRanked}) тухайн талбарын оноог үржүүлэх жин.
+ * Тэмдэглээгүй талбарын жин 1, 0 бол оноонд оролцохгүй (шүүлтэд оролцсоор байна).
+ * {@code FilterOptions.searchFieldWeights}-д өгсөн жин энэ утгыг дарна.
+ *
+ * @author zorigtbaatar
+ */
+
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SearchWeight {
+    double value();
+}
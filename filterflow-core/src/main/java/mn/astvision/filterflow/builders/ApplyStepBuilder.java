@@ -154,6 +154,20 @@ public class ApplyStepBuilder<T> {
         applyStepExecutor.clearApplySteps();
     }
 
+    /**
+     * Lazy variant of {@link #execute(Stream)}: steps run as elements are pulled, the steps are cleared on close.
+     */
+    public Stream<T> applyLazily(Stream<T> items) {
+        prepareApplyStepBuilderLogging();
+        debug("Applying lazily on stream", "Apply step count: ", applyStepExecutor.getApplySteps().size());
+
+        //@formatter:off
+        return applyStepExecutor.withErrorHandler(errorHandler)
+                .withOptions(options)
+                .applyLazily(items)
+                .onClose(applyStepExecutor::clearApplySteps);
+        //@formatter:on
+    }
 
     public ApplyStats getStats() {
         return applyStepExecutor.getApplyStats();
@@ -0,0 +1,248 @@
+package mn.astvision.filterflow.builders;
+
+import mn.astvision.filterflow.builders.base.BaseFilterFlowBuilder;
+import mn.astvision.filterflow.component.executors.BatchFacetExecutor;
+import mn.astvision.filterflow.component.executors.SummaryExecutor;
+import mn.astvision.filterflow.component.factory.FilterExecutorFactory;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.BatchKey;
+import mn.astvision.filterflow.model.BatchResult;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.util.PredicatePushdownUtil;
+import mn.astvision.filterflow.util.VirtualFieldResolverUtil;
+import mn.astvision.filterflow.util.VirtualThreadUtil;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import mn.astvision.filterflow.util.search.IgnoreCaseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent queries side by side on virtual threads, see {@link mn.astvision.filterflow.FilterFlow#batch()}.
+ * <pre>{@code
+ * BatchResult result = FilterFlow.batch()
+ *         .maxConcurrency(4)
+ *         .deadline(Duration.ofSeconds(2))
+ *         .page(ORDERS, FilterFlow.ofType(Order.class).withFilter(filters).withPage(pageable))
+ *         .count(ACTIVE_USERS, FilterFlow.ofType(User.class).withFilter(active))
+ *         .exists(HAS_BLOCKED, FilterFlow.ofType(User.class).withFilter(blocked))
+ *         .execute();
+ * }</pre>
+ * Count, exists and summary queries on the same entity whose filters only read stored fields (and that carry no
+ * custom aggregation operations) are merged into one {@code $facet} aggregation.
+ * Each query needs its own flow builder: builders are not thread-safe.
+ *
+ * @author zorigtbaatar
+ */
+
+public class BatchQueryBuilder {
+    private static final Logger log = LoggerFactory.getLogger(BatchQueryBuilder.class);
+    private static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+    private final FilterExecutorFactory factory;
+    private final Map<String, Supplier<?>> standalone = new LinkedHashMap<>();
+    private final Map<Class<?>, List<BatchFacetExecutor.FacetQuery>> facetCandidates = new LinkedHashMap<>();
+    private final Map<String, Supplier<?>> facetFallbacks = new HashMap<>();
+    private final Set<String> names = new LinkedHashSet<>();
+
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private Duration deadline;
+    private boolean mergeFacets = true;
+
+    public BatchQueryBuilder(FilterExecutorFactory factory) {
+        this.factory = factory;
+    }
+
+    public BatchQueryBuilder maxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) throw new FilterException("maxConcurrency must be at least 1, got " + maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * Queries still running when the deadline passes are cancelled and reported as failed.
+     */
+    public BatchQueryBuilder deadline(Duration deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    public BatchQueryBuilder mergeFacets(boolean mergeFacets) {
+        this.mergeFacets = mergeFacets;
+        return this;
+    }
+
+    // --- Queries ---
+    public <T> BatchQueryBuilder page(BatchKey<Page<T>> key, BaseFilterFlowBuilder<T, ?> flow) {
+        return query(key, flow::execute);
+    }
+
+    public <T> BatchQueryBuilder count(BatchKey<Long> key, BaseFilterFlowBuilder<T, ?> flow) {
+        return facetQuery(key, flow, BatchFacetExecutor.Kind.COUNT, null, flow::count);
+    }
+
+    public <T> BatchQueryBuilder exists(BatchKey<Boolean> key, BaseFilterFlowBuilder<T, ?> flow) {
+        return facetQuery(key, flow, BatchFacetExecutor.Kind.EXISTS, null, () -> flow.exists(flow.getFilterGroup()));
+    }
+
+    public <T> BatchQueryBuilder summary(BatchKey<Map<String, Map<String, BigDecimal>>> key, BaseFilterFlowBuilder<T, ?> flow,
+                                         Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps) {
+        return facetQuery(key, flow, BatchFacetExecutor.Kind.SUMMARY, fieldOps, () -> flow.summarize(fieldOps));
+    }
+
+    public <T> BatchQueryBuilder suggestion(BatchKey<Set<Object>> key, BaseFilterFlowBuilder<T, ?> flow, String field) {
+        return query(key, () -> flow.suggestion(field).withOptions(flow.getOptions()).execute());
+    }
+
+    /**
+     * Any other blocking call, e.g. a custom aggregation.
+     */
+    public <R> BatchQueryBuilder query(BatchKey<R> key, Supplier<R> query) {
+        register(key);
+        standalone.put(key.name(), query);
+        return this;
+    }
+
+    private <T> BatchQueryBuilder facetQuery(BatchKey<?> key, BaseFilterFlowBuilder<T, ?> flow, BatchFacetExecutor.Kind kind,
+                                             Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps, Supplier<?> fallback) {
+        register(key);
+        FilterGroup filters = flow.getFilterGroup();
+        flow.getOptions().extractFromFilterGroup(filters);
+
+        boolean sketched = fieldOps != null && flow.getOptions().isApproximateSummaries()
+                && fieldOps.values().stream().flatMap(Set::stream).anyMatch(SummaryExecutor.AggregateOp::isSketched);
+        if (sketched || !mergeable(flow)) {
+            standalone.put(key.name(), fallback);
+            return this;
+        }
+
+        facetCandidates.computeIfAbsent(flow.getTargetType(), k -> new ArrayList<>())
+                .add(new BatchFacetExecutor.FacetQuery(key.name(), kind, filters, flow.getOptions(), fieldOps));
+        facetFallbacks.put(key.name(), fallback);
+        return this;
+    }
+
+    // virtual-field stages are one-to-one, so they only matter when a filter reads them;
+    // a query collation belongs to the whole aggregation, so such queries run on their own;
+    // approximate summaries stream documents instead of aggregating, so they cannot join a $facet either;
+    // an unfiltered query would drop the leading $match and turn every merged branch into a collection scan,
+    // and $text cannot be one clause of that $match's $or
+    private static boolean mergeable(BaseFilterFlowBuilder<?, ?> flow) {
+        if (!flow.getAggregationOperations().isEmpty()) return false;
+        FilterGroup filters = flow.getFilterGroup();
+        if (filters == null || filters.getComponents().isEmpty()) return false;
+        if (GlobalSearchResolver.usesTextSearch(filters, flow.getOptions(), flow.getTargetType())) return false;
+        if (IgnoreCaseUtil.collationOf(flow.getFilterGroup(), flow.getOptions(), flow.getTargetType()) != null) return false;
+        Set<String> virtualPaths = VirtualFieldResolverUtil.resolveVirtualPaths(flow.getTargetType());
+        return !PredicatePushdownUtil.touchesVirtual(flow.getFilterGroup(), virtualPaths);
+    }
+
+    private void register(BatchKey<?> key) {
+        if (!names.add(key.name())) {
+            throw new FilterException("Duplicate batch key '%s'".formatted(key));
+        }
+    }
+
+    // --- Execution ---
+    public BatchResult execute() {
+        long batchStart = System.nanoTime();
+        List<Task> tasks = plan();
+        Semaphore permits = new Semaphore(maxConcurrency);
+
+        List<Callable<Map<String, BatchResult.Outcome>>> callables = tasks.stream()
+                .<Callable<Map<String, BatchResult.Outcome>>>map(task -> () -> runWithPermit(task, permits))
+                .toList();
+
+        List<Future<Map<String, BatchResult.Outcome>>> futures;
+        try {
+            futures = deadline != null
+                    ? VirtualThreadUtil.executor().invokeAll(callables, deadline.toNanos(), TimeUnit.NANOSECONDS)
+                    : VirtualThreadUtil.executor().invokeAll(callables);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FilterException("Interrupted while waiting for batch queries", e);
+        }
+
+        Map<String, BatchResult.Outcome> outcomes = new HashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            outcomes.putAll(collect(tasks.get(i), futures.get(i)));
+        }
+
+        // registration order
+        Map<String, BatchResult.Outcome> ordered = new LinkedHashMap<>();
+        names.forEach(name -> ordered.put(name, outcomes.get(name)));
+
+        return new BatchResult(ordered, Duration.ofNanos(System.nanoTime() - batchStart));
+    }
+
+    private List<Task> plan() {
+        List<Task> tasks = new ArrayList<>();
+        standalone.forEach((name, query) -> tasks.add(new Task(List.of(name), () -> Map.of(name, Optional.ofNullable(query.get())), false)));
+
+        facetCandidates.forEach((type, queries) -> {
+            if (!mergeFacets || queries.size() < 2) {
+                queries.forEach(q -> {
+                    Supplier<?> fallback = facetFallbacks.get(q.name());
+                    tasks.add(new Task(List.of(q.name()), () -> Map.of(q.name(), Optional.ofNullable(fallback.get())), false));
+                });
+                return;
+            }
+
+            List<String> merged = queries.stream().map(BatchFacetExecutor.FacetQuery::name).toList();
+            tasks.add(new Task(merged, () -> {
+                Map<String, Optional<?>> values = new HashMap<>();
+                factory.forBatchFacet(type).execute(queries).forEach((name, value) -> values.put(name, Optional.ofNullable(value)));
+                return values;
+            }, true));
+        });
+
+        return tasks;
+    }
+
+    private static Map<String, BatchResult.Outcome> runWithPermit(Task task, Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        long start = System.nanoTime();
+        try {
+            Map<String, Optional<?>> values = task.body().get();
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            Map<String, BatchResult.Outcome> outcomes = new HashMap<>();
+            task.names().forEach(name -> outcomes.put(name, new BatchResult.Outcome(values.getOrDefault(name, Optional.empty()).orElse(null), null, elapsed, task.merged())));
+            return outcomes;
+        } catch (RuntimeException e) {
+            return failed(task, e, Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Map<String, BatchResult.Outcome> collect(Task task, Future<Map<String, BatchResult.Outcome>> future) {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            log.warn("Batch queries {} did not finish within {}", task.names(), deadline);
+            return failed(task, new FilterException("Batch query did not finish within the deadline of %s".formatted(deadline), e), deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(task, new FilterException("Interrupted while waiting for batch query", e), Duration.ZERO);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return failed(task, cause, Duration.ZERO);
+        }
+    }
+
+    private static Map<String, BatchResult.Outcome> failed(Task task, Throwable error, Duration elapsed) {
+        Map<String, BatchResult.Outcome> outcomes = new HashMap<>();
+        task.names().forEach(name -> outcomes.put(name, new BatchResult.Outcome(null, error, elapsed, task.merged())));
+        return outcomes;
+    }
+
+    private record Task(List<String> names, Supplier<Map<String, Optional<?>>> body, boolean merged) {
+    }
+}
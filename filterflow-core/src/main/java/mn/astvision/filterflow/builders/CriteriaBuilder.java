@@ -1,5 +1,6 @@
 package mn.astvision.filterflow.builders;
 
+import mn.astvision.filterflow.util.PatternCacheUtil;
 import org.springframework.data.mongodb.core.query.Criteria;
 
 import java.util.ArrayList;
@@ -61,7 +62,7 @@ public class CriteriaBuilder {
     }
 
     public CriteriaBuilder regex(String pattern) {
-        current = current.regex(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE));
+        current = current.regex(PatternCacheUtil.get(pattern, Pattern.CASE_INSENSITIVE));
         andCriteria.add(current);
         return this;
     }
@@ -0,0 +1,83 @@
+package mn.astvision.filterflow.builders;
+
+import mn.astvision.filterflow.component.executors.CrossSearchExecutor;
+import mn.astvision.filterflow.component.factory.FilterExecutorFactory;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.CrossSearchHit;
+import mn.astvision.filterflow.model.FilterOptions;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One ranked, mixed result list for a keyword searched in several entities, see
+ * {@link mn.astvision.filterflow.FilterFlow#searchAcross(String)}.
+ * <pre>{@code
+ * List<CrossSearchHit> hits = FilterFlow.searchAcross(q)
+ *         .include(Asset.class, 20)
+ *         .include(Employee.class, 20)
+ *         .include(Contract.class)
+ *         .limit(30)
+ *         .execute();
+ * }</pre>
+ * The options (search depth, mode, field weights ...) apply to every entity.
+ *
+ * @author zorigtbaatar
+ */
+
+public class CrossSearchBuilder {
+    private final FilterExecutorFactory factory;
+    private final String keyword;
+    private final Map<String, CrossSearchExecutor.Source> sources = new LinkedHashMap<>();
+
+    private FilterOptions options = FilterOptions.defaults();
+    private int limit;
+
+    public CrossSearchBuilder(FilterExecutorFactory factory, String keyword) {
+        this.factory = factory;
+        this.keyword = keyword;
+    }
+
+    public CrossSearchBuilder include(Class<?> type) {
+        return include(type, 0);
+    }
+
+    /**
+     * @param limit best rows taken from this entity, 0 for all
+     */
+    public CrossSearchBuilder include(Class<?> type, int limit) {
+        return include(type, type.getSimpleName(), limit);
+    }
+
+    /**
+     * @param tag value of {@link CrossSearchHit#type()} for rows of this entity
+     */
+    public CrossSearchBuilder include(Class<?> type, String tag, int limit) {
+        if (limit < 0) throw new FilterException("Cross search limit must not be negative, got " + limit);
+        if (sources.containsKey(tag)) {
+            throw new FilterException("Duplicate cross search type '%s'".formatted(tag), type, "pass a distinct tag with include(type, tag, limit)");
+        }
+        sources.put(tag, new CrossSearchExecutor.Source(type, tag, limit));
+        return this;
+    }
+
+    public CrossSearchBuilder withOptions(FilterOptions options) {
+        this.options = options != null ? options : FilterOptions.defaults();
+        return this;
+    }
+
+    /**
+     * @param limit rows of the merged list, 0 for all
+     */
+    public CrossSearchBuilder limit(int limit) {
+        if (limit < 0) throw new FilterException("Cross search limit must not be negative, got " + limit);
+        this.limit = limit;
+        return this;
+    }
+
+    public List<CrossSearchHit> execute() {
+        List<CrossSearchExecutor.Source> list = List.copyOf(sources.values());
+        return factory.forCrossSearch(list.stream().map(CrossSearchExecutor.Source::type).toList()).execute(keyword, list, options, limit);
+    }
+}
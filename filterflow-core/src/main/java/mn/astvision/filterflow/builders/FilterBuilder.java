@@ -5,13 +5,12 @@ import lombok.extern.slf4j.Slf4j;
 import mn.astvision.filterflow.model.FilterOptions;
 import mn.astvision.filterflow.model.FilterRequest;
 import mn.astvision.filterflow.model.enums.FilterOperator;
-import org.apache.commons.lang3.reflect.FieldUtils;
+import mn.astvision.filterflow.util.metadata.EntityMetadataRegistry;
 import org.springframework.data.annotation.Transient;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -227,6 +226,14 @@ public class FilterBuilder<T> {
         return addFilterInternal(field, FilterOperator.STARTS_WITH, value);
     }
 
+    public FilterBuilder<T> startsWithIgnoreCase(String field, String value) {
+        return addFilterInternal(field, FilterOperator.STARTS_WITH_CI, value);
+    }
+
+    public FilterBuilder<T> equalsIgnoreCase(String field, String value) {
+        return addFilterInternal(field, FilterOperator.EQUALS_IGNORE_CASE, value);
+    }
+
     public FilterBuilder<T> endsWith(String field, String value) {
         return addFilterInternal(field, FilterOperator.ENDS_WITH, value);
     }
@@ -273,8 +280,7 @@ public class FilterBuilder<T> {
 
     private boolean isFieldValid(String fieldName) {
         try {
-            Field field = FieldUtils.getField(type, fieldName, true);
-            return field != null;
+            return EntityMetadataRegistry.of(type).field(fieldName) != null;
         } catch (Exception e) {
             log.warn("Field {} is not valid for global search. Error: {}", fieldName, e.getMessage());
             return false;
@@ -285,6 +291,26 @@ public class FilterBuilder<T> {
         return global(value);
     }
 
+    /**
+     * GLOBAL search ordered by relevance (exact > prefix > substring, times the field weight), see {@code RelevanceScoreUtil}.
+     */
+    public FilterBuilder<T> rankedSearch(String value) {
+        addFilterInternal(FilterOptions.Fields.globalSearchRanked, FilterOperator.CONTROL, true);
+        return global(value);
+    }
+
+    /**
+     * @param topK only the {@code topK} best matches are sorted and returned, 0 for all
+     */
+    public FilterBuilder<T> rankedSearch(String value, int topK) {
+        addFilterInternal(FilterOptions.Fields.searchTopK, FilterOperator.CONTROL, topK);
+        return rankedSearch(value);
+    }
+
+    public FilterBuilder<T> searchWeights(Map<String, Double> fieldWeights) {
+        return addFilterInternal(FilterOptions.Fields.searchFieldWeights, FilterOperator.CONTROL, fieldWeights);
+    }
+
     public FilterBuilder<T> in(String field, List<?> values) {
         return addFilterInternal(field, FilterOperator.IN, values);
     }
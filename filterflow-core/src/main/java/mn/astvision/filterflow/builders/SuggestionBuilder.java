@@ -4,6 +4,7 @@ import mn.astvision.filterflow.component.executors.FilterExecutor;
 import mn.astvision.filterflow.model.FilterGroup;
 import mn.astvision.filterflow.model.FilterOptions;
 import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.ValueFrequency;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -92,5 +93,27 @@ public class SuggestionBuilder<T> {
         return builder.withFilters(filterGroup).executeSuggestionByField(field, PageRequest.of(0, limit));
     }
 
+    /**
+     * Typeahead: first {@code limit} values starting with {@code prefix} and their count in one round-trip.
+     */
+    public Page<Object> autocomplete(String prefix, int limit) {
+        return autocomplete(prefix, limit, false);
+    }
+
+    /**
+     * The {@code k} most frequent values with the number of documents carrying each, for filter drop-downs.
+     */
+    public List<ValueFrequency> topByFrequency(int k) {
+        FilterExecutor.Builder<T> withFilters = builder.withFilters(filterGroup);
+        if (options != null) withFilters.withOptions(options);
+        return withFilters.executeSuggestionTopByFrequency(field, k);
+    }
+
+    public Page<Object> autocomplete(String prefix, int limit, boolean ignoreCase) {
+        FilterExecutor.Builder<T> withFilters = builder.withFilters(filterGroup);
+        if (options != null) withFilters.withOptions(options);
+        return withFilters.executeAutocomplete(field, prefix, limit, ignoreCase);
+    }
+
 
 }
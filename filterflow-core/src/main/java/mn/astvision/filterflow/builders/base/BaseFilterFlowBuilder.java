@@ -13,6 +13,7 @@ import mn.astvision.filterflow.component.factory.FilterExecutorFactory;
 import mn.astvision.filterflow.model.FilterGroup;
 import mn.astvision.filterflow.model.FilterOptions;
 import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.PageWithSummary;
 import org.slf4j.Logger;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -148,6 +149,13 @@ public abstract class BaseFilterFlowBuilder<T, SELF extends BaseFilterFlowBuilde
     }
 
 
+    /**
+     * Current page plus the summaries registered with {@code withSummary}/{@code withSummaries}, in one round-trip.
+     */
+    public PageWithSummary<T> executeWithSummary() {
+        return executePageWithSummary(filterGroup, pageable, summaryOps);
+    }
+
     public SuggestionBuilder<T> suggestion(String field) {
         return new SuggestionBuilder<T>(field, filterGroup, execBuilder);
     }
@@ -2,9 +2,13 @@ package mn.astvision.filterflow.builders.base;
 
 import mn.astvision.filterflow.builders.ApplyStepBuilder;
 import mn.astvision.filterflow.component.executors.FilterExecutor;
+import mn.astvision.filterflow.component.executors.SummaryExecutor;
 import mn.astvision.filterflow.model.FilterGroup;
 import mn.astvision.filterflow.model.FilterOptions;
 import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.PageWithSummary;
+import mn.astvision.filterflow.model.SeekSlice;
+import mn.astvision.filterflow.model.SeekToken;
 import org.slf4j.Logger;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,10 +17,13 @@ import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public interface IExecutorFlow<T> extends IFilterContext<T> {
     List<String> getProjectionFields();
@@ -87,6 +94,82 @@ public interface IExecutorFlow<T> extends IFilterContext<T> {
         }
     }
 
+    /**
+     * Page content, total count and {@code summaryOps} of the whole filtered set from one {@code $facet} aggregation;
+     * apply steps run on the page content.
+     */
+    default PageWithSummary<T> executePageWithSummary(FilterGroup filters, Pageable pageable, Map<String, Set<SummaryExecutor.AggregateOp>> summaryOps) {
+        return runWithHandling("executePageWithSummary", () -> {
+            getOptions().extractFromFilterGroup(filters);
+
+            //@formatter:off
+            PageWithSummary<T> page = timed("executePageWithSummary", () -> getExecBuilder().withFilters(filters)
+                    .withPageable(pageable)
+                    .withAggregationOperations(getAggregationOperations())
+                    .withExcludeFields(getExcludeFields())
+                    .withProjection(getProjectionFields())
+                    .withOptions(getOptions())
+                    .executePageWithSummary(summaryOps));
+            //@formatter:on
+
+            timed("applyStepBuilder", () -> getApplyStepBuilder().execute(page.getContent()));
+            return page;
+        });
+    }
+
+    /**
+     * Lazily streams the whole filtered result from a MongoDB cursor; apply steps run per element as it is consumed.
+     * The returned stream holds an open cursor and must be closed, e.g. with try-with-resources.
+     */
+    default Stream<T> executeStream() {
+        return runWithHandling("executeStream", () -> {
+            getOptions().extractFromFilterGroup(getFilterGroup());
+
+            //@formatter:off
+            Stream<T> stream = getExecBuilder().withFilters(getFilterGroup())
+                    .withPageable(getPageable())
+                    .withAggregationOperations(getAggregationOperations())
+                    .withExcludeFields(getExcludeFields())
+                    .withProjection(getProjectionFields())
+                    .withOptions(getOptions())
+                    .executeStream();
+            //@formatter:on
+
+            return getApplyStepBuilder().applyLazily(stream);
+        });
+    }
+
+    /**
+     * Keyset pagination ordered by {@link #getPageable()}'s sort plus an {@code _id} tiebreaker.
+     *
+     * @param after token from the previous slice's {@link SeekSlice#getNextToken()}, null for the first slice
+     */
+    default SeekSlice<T> executeSlice(SeekToken after, int size) {
+        return runWithHandling("executeSlice", () -> {
+            getOptions().extractFromFilterGroup(getFilterGroup());
+
+            //@formatter:off
+            SeekSlice<T> slice = timed("executeSlice", () -> getExecBuilder().withFilters(getFilterGroup())
+                    .withPageable(getPageable())
+                    .withAggregationOperations(getAggregationOperations())
+                    .withExcludeFields(getExcludeFields())
+                    .withProjection(getProjectionFields())
+                    .withOptions(getOptions())
+                    .executeSlice(after, size));
+            //@formatter:on
+
+            timed("applyStepBuilder", () -> getApplyStepBuilder().execute(slice.getContent()));
+            return slice;
+        });
+    }
+
+    /**
+     * @param cursor encoded token, see {@link SeekSlice#getNextCursor()}
+     */
+    default SeekSlice<T> executeSlice(String cursor, int size) {
+        return executeSlice(SeekToken.decode(cursor), size);
+    }
+
     default long executeCount(FilterGroup group) {
         try {
             //@formatter:off
@@ -1,8 +1,14 @@
 package mn.astvision.filterflow.builders.base;
 
 import mn.astvision.filterflow.component.executors.SummaryExecutor;
+import mn.astvision.filterflow.model.GroupedSummary;
+import mn.astvision.filterflow.model.HistogramBucket;
+import mn.astvision.filterflow.model.enums.HistogramUnit;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +50,52 @@ public interface ISummaryFlow<T, SELF> extends IFilterContext<T> {
         return summaryExecutor().executeMany(converted, getFilterGroup());
     }
 
+    /**
+     * One summary row per distinct value combination of {@code groupFields}, computed in a single aggregation.
+     */
+    default List<GroupedSummary> summarizeBy(List<String> groupFields, Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps) {
+        return summarizeBy(groupFields, fieldOps, Sort.unsorted(), 0);
+    }
+
+    /**
+     * @param sort  by group fields, {@code <field>_<op>} (e.g. {@code amount_sum}) or {@code count}
+     * @param limit top-N groups after sorting, 0 for all
+     */
+    default List<GroupedSummary> summarizeBy(List<String> groupFields, Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps, Sort sort, int limit) {
+        return summaryExecutor().executeGrouped(groupFields, fieldOps, getFilterGroup(), sort, limit);
+    }
+
+    /**
+     * Date histogram in one aggregation ({@code $dateTrunc}), empty buckets filled between the first and last
+     * non-empty one.
+     */
+    default List<HistogramBucket> histogram(String dateField, HistogramUnit unit, ZoneId zone, Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps) {
+        return histogram(dateField, unit, zone, null, null, fieldOps);
+    }
+
+    /**
+     * @param from inclusive start of the chart, null for the first non-empty bucket
+     * @param to   exclusive end of the chart, null for the end of the last non-empty bucket
+     */
+    default List<HistogramBucket> histogram(String dateField, HistogramUnit unit, ZoneId zone, Instant from, Instant to,
+                                            Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps) {
+        return summaryExecutor().executeDateHistogram(dateField, unit, zone, from, to, fieldOps, getFilterGroup());
+    }
+
+    /**
+     * Numeric histogram ({@code $bucket}) over ascending {@code boundaries}, e.g. {@code List.of(0, 100, 500, 1000)}.
+     */
+    default List<HistogramBucket> histogram(String field, List<? extends Number> boundaries, Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps) {
+        return summaryExecutor().executeBucketHistogram(field, boundaries, fieldOps, getFilterGroup());
+    }
+
+    /**
+     * {@code $bucketAuto}: up to {@code buckets} evenly filled buckets when the boundaries are not known upfront.
+     */
+    default List<HistogramBucket> histogramAuto(String field, int buckets, Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps) {
+        return summaryExecutor().executeAutoHistogram(field, buckets, fieldOps, getFilterGroup());
+    }
+
     // --- Chainable Summary Config ---
     default SELF withSummaries(Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps) {
         Map<String, Set<SummaryExecutor.AggregateOp>> ops = getSummaryOps();
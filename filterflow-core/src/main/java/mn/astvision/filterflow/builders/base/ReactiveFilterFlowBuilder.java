@@ -0,0 +1,198 @@
+package mn.astvision.filterflow.builders.base;
+
+import lombok.Getter;
+import mn.astvision.filterflow.builders.FilterBuilder;
+import mn.astvision.filterflow.component.executors.ReactiveFilterExecutor;
+import mn.astvision.filterflow.component.executors.SummaryExecutor;
+import mn.astvision.filterflow.component.factory.ReactiveFilterExecutorFactory;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.ValueFrequency;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Fluent builder for the reactive executors, see {@link mn.astvision.filterflow.ReactiveFilterFlow#ofType(Class)}.
+ * Apply steps are not supported here: they are blocking callbacks, map the returned {@link Flux} instead.
+ *
+ * @author zorigtbaatar
+ */
+
+@Getter
+public class ReactiveFilterFlowBuilder<T> implements IOptionFlow<ReactiveFilterFlowBuilder<T>>, IFieldSelectionFlow<ReactiveFilterFlowBuilder<T>> {
+    private final ReactiveFilterExecutorFactory factory;
+    private final Class<T> targetType;
+
+    private final List<String> projectionFields = new ArrayList<>();
+    private final List<String> excludeFields = new ArrayList<>();
+    private final List<AggregationOperation> aggregationOperations = new ArrayList<>();
+    private FilterOptions options = FilterOptions.defaults();
+    private FilterGroup filterGroup = new FilterGroup();
+    private Pageable pageable = Pageable.unpaged();
+
+    public ReactiveFilterFlowBuilder(ReactiveFilterExecutorFactory factory, Class<T> targetType) {
+        this.factory = factory;
+        this.targetType = targetType;
+    }
+
+    // --- Chainable methods ---
+    public ReactiveFilterFlowBuilder<T> withAggregationOperations(List<AggregationOperation> operations) {
+        if (operations != null) this.aggregationOperations.addAll(operations);
+        return this;
+    }
+
+    public ReactiveFilterFlowBuilder<T> filterBuilder(Consumer<FilterBuilder<T>> builderConsumer) {
+        FilterBuilder<T> builder = FilterBuilder.ofType(targetType);
+        builderConsumer.accept(builder);
+        this.filterGroup.addComponent(builder.build());
+        return this;
+    }
+
+    public ReactiveFilterFlowBuilder<T> withFilter(List<FilterRequest> filters) {
+        if (filters != null) {
+            this.filterGroup.clear();
+            this.filterGroup.addComponent(filters);
+        }
+        return this;
+    }
+
+    public ReactiveFilterFlowBuilder<T> withFilter(FilterGroup filters) {
+        if (filters != null) {
+            this.filterGroup.clear();
+            this.filterGroup.addComponent(filters);
+        }
+        return this;
+    }
+
+    public ReactiveFilterFlowBuilder<T> addFilter(List<FilterRequest> filters) {
+        if (filters != null) filterGroup.addComponent(filters);
+        return this;
+    }
+
+    public ReactiveFilterFlowBuilder<T> addFilter(FilterRequest filter) {
+        if (filter != null) filterGroup.addComponent(filter);
+        return this;
+    }
+
+    public ReactiveFilterFlowBuilder<T> withOption(FilterOptions options) {
+        if (options != null) this.options = options;
+        return this;
+    }
+
+    public ReactiveFilterFlowBuilder<T> withPage(Pageable pageable) {
+        this.pageable = pageable != null ? pageable : Pageable.unpaged();
+        return this;
+    }
+
+    public ReactiveFilterFlowBuilder<T> withSort(Sort sort) {
+        if (sort == null || sort.isUnsorted()) return this;
+
+        if (this.pageable.isUnpaged()) {
+            this.pageable = PageRequest.of(0, Integer.MAX_VALUE, sort); // fallback: unpaged but sorted
+        } else {
+            this.pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+        }
+        return this;
+    }
+
+    public ReactiveFilterFlowBuilder<T> withLimit(int limit) {
+        this.pageable = Pageable.ofSize(limit);
+        return this;
+    }
+
+    // --- Execution ---
+    private ReactiveFilterExecutor.Builder<T> execBuilder() {
+        options.extractFromFilterGroup(filterGroup);
+
+        //@formatter:off
+        return factory.forType(targetType)
+                .withFilters(filterGroup)
+                .withPageable(pageable)
+                .withAggregationOperations(aggregationOperations)
+                .withExcludeFields(excludeFields)
+                .withProjection(projectionFields)
+                .withOptions(options);
+        //@formatter:on
+    }
+
+    /**
+     * Streams the matching documents; demand is propagated to the driver cursor.
+     */
+    public Flux<T> executeFlux() {
+        return Flux.defer(() -> execBuilder().executeFlux());
+    }
+
+    public Mono<Page<T>> execute() {
+        return Mono.defer(() -> execBuilder().executePage());
+    }
+
+    public Mono<Long> count() {
+        return Mono.defer(() -> execBuilder().executeCount());
+    }
+
+    public Mono<Boolean> exists() {
+        return Mono.defer(() -> execBuilder().exists());
+    }
+
+    public Mono<T> executeSingleResult(Sort sort) {
+        return Mono.defer(() -> execBuilder().executeSingleResult(sort));
+    }
+
+    public Mono<T> executeSingleResult() {
+        return executeSingleResult(Sort.unsorted());
+    }
+
+    // --- Summary / suggestion ---
+    public Mono<BigDecimal> sum(String field) {
+        return Mono.defer(() -> factory.forSummaryType(targetType, options).execute(field, SummaryExecutor.AggregateOp.SUM, filterGroup));
+    }
+
+    public Mono<BigDecimal> min(String field) {
+        return Mono.defer(() -> factory.forSummaryType(targetType, options).execute(field, SummaryExecutor.AggregateOp.MIN, filterGroup));
+    }
+
+    public Mono<BigDecimal> max(String field) {
+        return Mono.defer(() -> factory.forSummaryType(targetType, options).execute(field, SummaryExecutor.AggregateOp.MAX, filterGroup));
+    }
+
+    public Mono<BigDecimal> avg(String field) {
+        return Mono.defer(() -> factory.forSummaryType(targetType, options).execute(field, SummaryExecutor.AggregateOp.AVG, filterGroup));
+    }
+
+    public Mono<Map<String, Map<String, BigDecimal>>> summarize(Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps) {
+        return Mono.defer(() -> factory.forSummaryType(targetType, options).executeMany(fieldOps, filterGroup));
+    }
+
+    public Flux<Object> suggest(String field) {
+        return Flux.defer(() -> factory.forSuggestionType(targetType, options).suggestByField(field, 0, 0, Sort.unsorted(), filterGroup));
+    }
+
+    public Mono<Page<Object>> suggest(String field, Pageable pageable) {
+        return Mono.defer(() -> factory.forSuggestionType(targetType, options).suggestByField(field, pageable, filterGroup));
+    }
+
+    public Flux<ValueFrequency> suggestTopByFrequency(String field, int k) {
+        return Flux.defer(() -> factory.forSuggestionType(targetType, options).suggestTopByFrequency(field, k, filterGroup));
+    }
+
+    public Mono<Page<Object>> autocomplete(String field, String prefix, int limit) {
+        return autocomplete(field, prefix, limit, false);
+    }
+
+    public Mono<Page<Object>> autocomplete(String field, String prefix, int limit, boolean ignoreCase) {
+        return Mono.defer(() -> factory.forSuggestionType(targetType, options).autocomplete(field, prefix, limit, ignoreCase, filterGroup));
+    }
+}
@@ -0,0 +1,59 @@
+package mn.astvision.filterflow.component;
+
+import mn.astvision.filterflow.model.enums.CountStrategy;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters of which count strategy actually ran and how long the counts took.
+ *
+ * @author zorigtbaatar
+ */
+
+public class CountStrategyMetrics {
+    private static final Map<CountStrategy, LongAdder> RUNS = new EnumMap<>(CountStrategy.class);
+    private static final Map<CountStrategy, LongAdder> NANOS = new EnumMap<>(CountStrategy.class);
+
+    static {
+        for (CountStrategy strategy : CountStrategy.values()) {
+            RUNS.put(strategy, new LongAdder());
+            NANOS.put(strategy, new LongAdder());
+        }
+    }
+
+    public static void record(CountStrategy strategy, long startNanos) {
+        RUNS.get(strategy).increment();
+        NANOS.get(strategy).add(System.nanoTime() - startNanos);
+    }
+
+    public static long getRuns(CountStrategy strategy) {
+        return RUNS.get(strategy).sum();
+    }
+
+    public static double getAverageMillis(CountStrategy strategy) {
+        long runs = getRuns(strategy);
+        return runs == 0 ? 0d : NANOS.get(strategy).sum() / 1_000_000d / runs;
+    }
+
+    public static Map<CountStrategy, Long> snapshot() {
+        Map<CountStrategy, Long> snapshot = new EnumMap<>(CountStrategy.class);
+        RUNS.forEach((strategy, runs) -> snapshot.put(strategy, runs.sum()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public static void reset() {
+        RUNS.values().forEach(LongAdder::reset);
+        NANOS.values().forEach(LongAdder::reset);
+    }
+
+    public static String generateMetricsString() {
+        StringBuilder sb = new StringBuilder("🔢 Count Strategy Metrics:\n");
+        for (CountStrategy strategy : CountStrategy.values()) {
+            sb.append("  %s -> %d runs, avg %.2f ms%n".formatted(strategy, getRuns(strategy), getAverageMillis(strategy)));
+        }
+        return sb.toString();
+    }
+}
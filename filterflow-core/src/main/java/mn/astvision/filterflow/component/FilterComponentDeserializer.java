@@ -59,7 +59,7 @@ public class FilterComponentDeserializer extends JsonDeserializer<FilterComponen
                     - EQUALS, NOT_EQUALS, GREATER_THAN, GREATER_THAN_EQUAL, LESS_THAN, LESS_THAN_EQUAL, BETWEEN, NOT_BETWEEN
                 
                 🔠 String Matching:
-                    - CONTAINS_WORD, STARTS_WITH, ENDS_WITH, LIKE, REGEX
+                    - CONTAINS_WORD, STARTS_WITH, STARTS_WITH_CI, EQUALS_IGNORE_CASE, ENDS_WITH, LIKE, REGEX
                 
                 📦 Collections:
                     - IN, NOT_IN
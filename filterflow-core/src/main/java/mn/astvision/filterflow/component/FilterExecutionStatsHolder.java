@@ -1,6 +1,7 @@
 package mn.astvision.filterflow.component;
 
 import mn.astvision.filterflow.model.FilterExecutionStats;
+import mn.astvision.filterflow.model.enums.CountStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
@@ -31,11 +32,15 @@ public class FilterExecutionStatsHolder {
                                   🔢 Filters: %d
                                   📄 Page Size: %s
                                   📊 Total Elements: %d
+                                  🔢 Count Strategy: %s
+                                  ✂️ NGRAM Candidates Truncated: %s
                                 """,
                 filterStats.getDurationMillis(),
                 filterStats.getFilterCount(),
                 filterStats.getPageSize() != 0 ? filterStats.getPageSize() : "N/A",
-                filterStats.getResultCount()
+                filterStats.getResultCount(),
+                filterStats.getCountStrategy() != null ? filterStats.getCountStrategy() : "N/A",
+                filterStats.isNgramCandidatesTruncated()
         )
                 : "📭 No FilterExecutionStats found in context.";
 
@@ -51,7 +56,16 @@ public class FilterExecutionStatsHolder {
     }
 
     public static void createStats(long start, long size, boolean usingAggregation, int filterCount, Pageable pageable) {
-        FilterExecutionStats filterExecutionStats = FilterExecutionStats.create(start, filterCount, pageable, size, usingAggregation);
+        createStats(start, size, usingAggregation, filterCount, pageable, null);
+    }
+
+    public static void createStats(long start, long size, boolean usingAggregation, int filterCount, Pageable pageable, CountStrategy countStrategy) {
+        createStats(start, size, usingAggregation, filterCount, pageable, countStrategy, false);
+    }
+
+    public static void createStats(long start, long size, boolean usingAggregation, int filterCount, Pageable pageable, CountStrategy countStrategy,
+                                   boolean ngramCandidatesTruncated) {
+        FilterExecutionStats filterExecutionStats = FilterExecutionStats.create(start, filterCount, pageable, size, usingAggregation, countStrategy, ngramCandidatesTruncated);
         setStats(filterExecutionStats);
     }
 }
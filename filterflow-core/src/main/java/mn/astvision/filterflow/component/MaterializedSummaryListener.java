@@ -0,0 +1,36 @@
+package mn.astvision.filterflow.component;
+
+import mn.astvision.filterflow.util.cache.MaterializedSummaryCache;
+import org.springframework.data.mongodb.core.mapping.event.*;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link MaterializedSummaryCache} entries in step with saves and deletes done through {@code MongoTemplate} /
+ * repositories; the before-events capture the stored document so the after-events can apply the difference.
+ *
+ * @author zorigtbaatar
+ */
+
+@Component
+public class MaterializedSummaryListener extends AbstractMongoEventListener<Object> {
+
+    @Override
+    public void onBeforeSave(BeforeSaveEvent<Object> event) {
+        MaterializedSummaryCache.beforeSave(event.getCollectionName(), event.getDocument());
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        MaterializedSummaryCache.afterSave(event.getCollectionName(), event.getDocument());
+    }
+
+    @Override
+    public void onBeforeDelete(BeforeDeleteEvent<Object> event) {
+        MaterializedSummaryCache.beforeDelete(event.getCollectionName(), event.getDocument());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        MaterializedSummaryCache.afterDelete(event.getCollectionName(), event.getDocument());
+    }
+}
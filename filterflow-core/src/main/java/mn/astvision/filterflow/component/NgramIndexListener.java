@@ -0,0 +1,51 @@
+package mn.astvision.filterflow.component;
+
+import lombok.extern.slf4j.Slf4j;
+import mn.astvision.filterflow.annotations.NgramIndexed;
+import mn.astvision.filterflow.util.search.NgramIndexUtil;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the trigram index of {@link NgramIndexed} entities in step with saves and deletes made through
+ * {@code MongoTemplate} / repositories. A failed index write is logged and never fails the save itself.
+ *
+ * @author zorigtbaatar
+ */
+
+@Slf4j
+@Component
+public class NgramIndexListener extends AbstractMongoEventListener<Object> {
+    // MongoTemplate нь event publish хийдэг тул шууд inject хийвэл эргэлтэт хамаарал үүсэж болзошгүй
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+
+    public NgramIndexListener(ObjectProvider<MongoTemplate> mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (!NgramIndexUtil.isIndexed(event.getSource().getClass()) || event.getDocument() == null) return;
+
+        try {
+            NgramIndexUtil.index(mongoTemplate.getObject(), event.getCollectionName(), event.getDocument().get("_id"), event.getSource());
+        } catch (RuntimeException e) {
+            log.warn("ngram index of {} could not be updated: {}", event.getCollectionName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if (event.getType() == null || !NgramIndexUtil.isIndexed(event.getType())) return;
+
+        try {
+            NgramIndexUtil.remove(mongoTemplate.getObject(), event.getCollectionName(), event.getSource());
+        } catch (RuntimeException e) {
+            log.warn("ngram index of {} could not be updated: {}", event.getCollectionName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package mn.astvision.filterflow.component;
+
+import mn.astvision.filterflow.util.cache.AutocompleteCache;
+import mn.astvision.filterflow.util.cache.QueryResultCache;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached results of a collection, and those joining it through virtual-field lookups, after it is saved to or
+ * deleted from through {@code MongoTemplate} / repositories. Cached autocomplete pages of the collection go with them.
+ *
+ * @author zorigtbaatar
+ */
+
+@Component
+public class ResultCacheInvalidationListener extends AbstractMongoEventListener<Object> {
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        QueryResultCache.invalidate(event.getCollectionName());
+        AutocompleteCache.invalidate(event.getCollectionName());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        QueryResultCache.invalidate(event.getCollectionName());
+        AutocompleteCache.invalidate(event.getCollectionName());
+    }
+}
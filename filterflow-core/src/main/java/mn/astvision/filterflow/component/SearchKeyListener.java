@@ -0,0 +1,24 @@
+package mn.astvision.filterflow.component;
+
+import mn.astvision.filterflow.annotations.SearchKey;
+import mn.astvision.filterflow.util.search.SearchKeyUtil;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the {@link SearchKey} keys to the document right before it is written, so a save through
+ * {@code MongoTemplate} / repositories costs no extra round-trip.
+ *
+ * @author zorigtbaatar
+ */
+
+@Component
+public class SearchKeyListener extends AbstractMongoEventListener<Object> {
+
+    @Override
+    public void onBeforeSave(BeforeSaveEvent<Object> event) {
+        if (event.getDocument() == null || !SearchKeyUtil.isKeyed(event.getSource().getClass())) return;
+        SearchKeyUtil.apply(event.getSource().getClass(), event.getDocument());
+    }
+}
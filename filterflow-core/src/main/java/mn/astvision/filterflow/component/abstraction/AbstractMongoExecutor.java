@@ -4,20 +4,25 @@ import mn.astvision.filterflow.exception.FilterException;
 import mn.astvision.filterflow.handlers.DbExplainHandler;
 import mn.astvision.filterflow.model.FilterGroup;
 import mn.astvision.filterflow.model.FilterOptions;
-import mn.astvision.filterflow.util.CriteriaBuilderUtil;
+import mn.astvision.filterflow.util.CriteriaPlanCache;
+import mn.astvision.filterflow.util.metadata.EntityMetadataRegistry;
+import mn.astvision.filterflow.util.search.IgnoreCaseUtil;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mapping.PersistentEntity;
-import org.springframework.data.mapping.SimplePropertyHandler;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Collation;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * @author zorigtbaatar
@@ -41,10 +46,29 @@ public abstract class AbstractMongoExecutor<T> {
 
     protected Criteria buildCriteria(FilterGroup filterGroup) {
         return (filterGroup != null && !filterGroup.getComponents().isEmpty())
-                ? CriteriaBuilderUtil.buildGroupCriteria(filterGroup, options, targetType)
+                ? CriteriaPlanCache.buildCriteria(filterGroup, options, targetType)
                 : new Criteria();
     }
 
+    /**
+     * Adds the case-insensitive collation {@code filterGroup} needs, see {@link IgnoreCaseUtil#collationOf}.
+     */
+    protected Query collated(Query query, FilterGroup filterGroup) {
+        Collation collation = IgnoreCaseUtil.collationOf(filterGroup, options, targetType);
+        return collation != null ? query.collation(collation) : query;
+    }
+
+    /**
+     * Same as {@link #collated(Query, FilterGroup)}, keeping the other options of {@code aggregation}.
+     */
+    @SuppressWarnings("unchecked")
+    protected <A extends Aggregation> A collated(A aggregation, FilterGroup filterGroup) {
+        Collation collation = IgnoreCaseUtil.collationOf(filterGroup, options, targetType);
+        if (collation == null) return aggregation;
+        Document merged = aggregation.getOptions().toDocument().append("collation", collation.toDocument());
+        return (A) aggregation.withOptions(AggregationOptions.fromDocument(merged));
+    }
+
     protected PersistentEntity<?, ?> getPersistentEntityOrThrow() {
         PersistentEntity<?, ?> entity = mongoTemplate.getConverter().getMappingContext().getPersistentEntity(targetType);
         if (entity == null) {
@@ -55,26 +79,11 @@ public abstract class AbstractMongoExecutor<T> {
     }
 
     protected Set<String> getAllMappedFieldNames(PersistentEntity<?, ?> entity) {
-        Set<String> fields = new TreeSet<>();
-        collectFields(entity, "", fields);
-        return fields;
-    }
-
-    private void collectFields(PersistentEntity<?, ?> entity, String prefix, Set<String> fields) {
-        entity.doWithProperties((SimplePropertyHandler) property -> {
-            String fieldName = prefix.isEmpty() ? property.getName() : prefix + "." + property.getName();
-            fields.add(fieldName);
-            Class<?> type = property.getType();
-            if (!isSimpleType(type)) {
-                PersistentEntity<?, ?> nested = mongoTemplate.getConverter().getMappingContext().getPersistentEntity(type);
-                if (nested != null) collectFields(nested, fieldName, fields);
-            }
-        });
+        return EntityMetadataRegistry.mappedPaths(entity, mongoTemplate.getConverter().getMappingContext());
     }
 
-    protected boolean isSimpleType(Class<?> type) {
-        return org.springframework.data.mapping.model.SimpleTypeHolder.DEFAULT.isSimpleType(type)
-                || type.getPackageName().startsWith("java.");
+    protected static boolean isSimpleType(Class<?> type) {
+        return EntityMetadataRegistry.isSimpleType(type);
     }
 
     private void logTimeIfNeeded(String method, Instant start) {
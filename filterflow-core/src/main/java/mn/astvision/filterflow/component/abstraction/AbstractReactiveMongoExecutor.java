@@ -0,0 +1,92 @@
+package mn.astvision.filterflow.component.abstraction;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.util.CriteriaPlanCache;
+import mn.astvision.filterflow.util.metadata.EntityMetadataRegistry;
+import mn.astvision.filterflow.util.search.IgnoreCaseUtil;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Reactive counterpart of {@link AbstractMongoExecutor}. Criteria are built by the same {@link CriteriaPlanCache},
+ * only the template differs.
+ *
+ * @author zorigtbaatar
+ */
+
+public abstract class AbstractReactiveMongoExecutor<T> {
+    protected final ReactiveMongoTemplate mongoTemplate;
+    protected final Class<T> targetType;
+    protected final FilterOptions options;
+    protected final Logger log = LoggerFactory.getLogger(getClass());
+
+    protected AbstractReactiveMongoExecutor(ReactiveMongoTemplate mongoTemplate, FilterOptions options, Class<T> targetType) {
+        if (mongoTemplate == null) throw new FilterException("ReactiveMongoTemplate must not be null");
+
+        this.mongoTemplate = mongoTemplate;
+        this.targetType = Objects.requireNonNull(targetType);
+        this.options = options != null ? options : FilterOptions.defaults();
+    }
+
+    protected Criteria buildCriteria(FilterGroup filterGroup) {
+        return (filterGroup != null && !filterGroup.getComponents().isEmpty())
+                ? CriteriaPlanCache.buildCriteria(filterGroup, options, targetType)
+                : new Criteria();
+    }
+
+    /**
+     * Adds the case-insensitive collation {@code filterGroup} needs, see {@link IgnoreCaseUtil#collationOf}.
+     */
+    protected Query collated(Query query, FilterGroup filterGroup) {
+        Collation collation = IgnoreCaseUtil.collationOf(filterGroup, options, targetType);
+        return collation != null ? query.collation(collation) : query;
+    }
+
+    /**
+     * Same as {@link #collated(Query, FilterGroup)}, keeping the other options of {@code aggregation}.
+     */
+    @SuppressWarnings("unchecked")
+    protected <A extends Aggregation> A collated(A aggregation, FilterGroup filterGroup) {
+        Collation collation = IgnoreCaseUtil.collationOf(filterGroup, options, targetType);
+        if (collation == null) return aggregation;
+        Document merged = aggregation.getOptions().toDocument().append("collation", collation.toDocument());
+        return (A) aggregation.withOptions(AggregationOptions.fromDocument(merged));
+    }
+
+    protected PersistentEntity<?, ?> getPersistentEntityOrThrow() {
+        PersistentEntity<?, ?> entity = mongoTemplate.getConverter().getMappingContext().getPersistentEntity(targetType);
+        if (entity == null) {
+            throw new FilterException("Invalid entity: %s".formatted(targetType.getSimpleName()), targetType,
+                    "Ensure the entity is registered in ReactiveMongoTemplate's MappingContext");
+        }
+        return entity;
+    }
+
+    protected Set<String> getAllMappedFieldNames(PersistentEntity<?, ?> entity) {
+        return EntityMetadataRegistry.mappedPaths(entity, mongoTemplate.getConverter().getMappingContext());
+    }
+
+    protected String getCollectionName() {
+        return mongoTemplate.getCollectionName(targetType);
+    }
+
+    protected void debug(String msg, Object... args) {
+        if (!options.isDebug()) return;
+        if (args.length > 0) log.info("[DEBUG] {} - {}", msg, Arrays.toString(args));
+        else log.info("[DEBUG] {}", msg);
+    }
+}
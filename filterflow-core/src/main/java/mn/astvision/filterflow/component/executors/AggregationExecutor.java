@@ -1,25 +1,44 @@
 package mn.astvision.filterflow.component.executors;
 
 import mn.astvision.commontools.monitoring.MemoryUtils;
+import mn.astvision.filterflow.component.CountStrategyMetrics;
 import mn.astvision.filterflow.component.abstraction.AbstractMongoExecutor;
 import mn.astvision.filterflow.exception.FilterException;
 import mn.astvision.filterflow.model.FilterGroup;
 import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.PageWithSummary;
+import mn.astvision.filterflow.model.SeekSlice;
+import mn.astvision.filterflow.model.SeekToken;
+import mn.astvision.filterflow.model.enums.CountStrategy;
+import mn.astvision.filterflow.util.PredicatePushdownUtil;
+import mn.astvision.filterflow.util.SeekPaginationUtil;
+import mn.astvision.filterflow.util.VirtualFieldResolverUtil;
+import mn.astvision.filterflow.util.VirtualThreadUtil;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import mn.astvision.filterflow.util.search.RelevanceScoreUtil;
 import org.bson.Document;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentEntity;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.*;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.util.CollectionUtils;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -28,11 +47,17 @@ import java.util.stream.Stream;
 
 public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
     private static final String FIELD_TOTAL = "aggregateTotalCount";
+    private static final String FACET_CONTENT = "content";
+    private static final String FACET_TOTAL = "total";
+    private static final String FACET_SUMMARY = "summary";
     private final String collectionName;
+    private final List<AggregationOperation> virtualFieldOperations;
+    private CountStrategy usedCountStrategy;
 
     private AggregationExecutor(Builder<T> builder) {
         super(builder.mongoTemplate, builder.filterOptions, builder.targetType);
         this.collectionName = builder.collectionName;
+        this.virtualFieldOperations = builder.virtualFieldOperations;
     }
 
     public static <T> Builder<T> forType(Class<T> targetType) {
@@ -46,6 +71,7 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
                 .withMongoTemplate(tBuilder.getMongoTemplate())
                 .filterOptions(tBuilder.getFilterOptions())
                 .operations(tBuilder.getAggregationOperations())
+                .virtualFieldOperations(tBuilder.getVirtualFieldOperations())
                 .projectOperations(tBuilder.getProjectOperations())
                 .filters(tBuilder.getFilterGroup())
                 .page(tBuilder.getPageable());
@@ -53,33 +79,87 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
     }
 
     public Page<T> executePage(FilterGroup filters, List<AggregationOperation> operations, List<AggregationOperation> projOps, Pageable pageable) {
+        return executePage(filters, operations, projOps, pageable, targetType);
+    }
+
+    /**
+     * @param outputType type the rows are read into, e.g. {@code Document} for the raw rows
+     */
+    public <R> Page<R> executePage(FilterGroup filters, List<AggregationOperation> operations, List<AggregationOperation> projOps, Pageable pageable,
+                                   Class<R> outputType) {
         try {
             Instant start = Instant.now();
-            List<AggregationOperation> pipeline = buildPipeline(filters, operations, projOps);
 
             if (pageable.isUnpaged()) {
-                return executeUnpaged(pipeline, pageable, start);
+                List<AggregationOperation> pipeline = buildPipeline(filters, operations, projOps);
+                pipeline.addAll(RelevanceScoreUtil.rankStages(filters, options, targetType, pageable.getSort()));
+                return executeUnpaged(filters, pipeline, pageable, start, outputType);
             }
 
+            // late materialization: virtual field-ууд page-ийн мөрүүд дээр л resolve хийгдэнэ
+            boolean late = canMaterializeLate(options, targetType, filters, operations, virtualFieldOperations, pageable.getSort());
+            List<AggregationOperation> pipeline = late ? buildMatchPipeline(filters) : buildPipeline(filters, operations, projOps);
+            List<AggregationOperation> pageTail = late ? lateMaterializedTail(projOps) : List.of();
+            debug("late materialization: ", late);
+
+            CountStrategy strategy = options.isSkipCount() ? null : options.getCountStrategy();
+            debug("count strategy: ", strategy);
+
+            List<AggregationOperation> rankStages = RelevanceScoreUtil.rankStages(filters, options, targetType, pageable.getSort());
+            boolean ranked = !rankStages.isEmpty();
+
+            if (strategy == CountStrategy.FACET) {
+                // эрэмбэ (болон top-K) facet-ээс өмнө хийгдэж, total ч K-аас хэтрэхгүй
+                pipeline.addAll(rankStages);
+                AggregationOperation contentSort = ranked ? null : facetContentSort(pageable.getSort(), GlobalSearchResolver.usesTextSearch(filters, options, targetType));
+                return executeFacetPage(filters, pipeline, pageable, contentSort, pageTail, start, outputType);
+            }
+
+            // count pipeline-ийг sort/skip/limit нэмэхээс өмнө хуулж авна
+            List<AggregationOperation> countPipeline = new ArrayList<>(pipeline);
+            if (ranked && options.getSearchTopK() > 0) countPipeline.add(Aggregation.limit(options.getSearchTopK()));
+            CompletableFuture<Long> countFuture = strategy == CountStrategy.CONCURRENT
+                    ? VirtualThreadUtil.supplyAsync(() -> executeCount(filters, countPipeline))
+                    : null;
+            long countStart = System.nanoTime();
+
             Sort sort = pageable.getSort();
-            if (!sort.isUnsorted() && !sort.isEmpty()) {
+            if (ranked) {
+                pipeline.addAll(rankStages);
+            } else if (!sort.isUnsorted() && !sort.isEmpty()) {
                 pipeline.add(Aggregation.sort(pageable.getSort()));
+            } else if (GlobalSearchResolver.usesTextSearch(filters, options, targetType)) {
+                pipeline.add(GlobalSearchResolver.textScoreSort());
             }
             pipeline.add(Aggregation.skip(pageable.getOffset()));
             pipeline.add(Aggregation.limit(pageable.getPageSize()));
+            pipeline.addAll(pageTail);
 
-            Aggregation aggregation = Aggregation.newAggregation(pipeline);
+            Aggregation aggregation = collated(Aggregation.newAggregation(pipeline), filters);
             debug("Executing paged aggregation on " + getCollectionName());
             debug("aggregation: ", aggregation);
             dbExplainHandler.explainIfNeeded(aggregation);
 
 
-            try (Stream<T> stream = mongoTemplate.aggregateStream(aggregation, getCollectionName(), targetType)) {
-                List<T> results = new ArrayList<>();
+            try (Stream<R> stream = mongoTemplate.aggregateStream(aggregation, getCollectionName(), outputType)) {
+                List<R> results = new ArrayList<>();
                 stream.forEach(results::add);
-                long total = options.isSkipCount() ? -1L : executeCount(pipeline);
+
+                if (strategy == null) {
+                    logTimeIfNeeded("executePage", start);
+                    return new PageImpl<>(results, pageable, results.size());
+                }
+
+                // сүүлийн/дутуу хуудсанд total-ийг мөрүүдээс нь гаргаж, count-ийг хүлээхгүй
+                LongSupplier countSupplier = strategy == CountStrategy.CONCURRENT
+                        ? () -> recordCount(strategy, countStart, VirtualThreadUtil.join(countFuture))
+                        : () -> recordCount(strategy, System.nanoTime(), executeCount(filters, countPipeline));
+                Page<R> page = PageableExecutionUtils.getPage(results, pageable, countSupplier);
+
                 logTimeIfNeeded("executePage", start);
-                return new PageImpl<>(results, pageable, total >= 0 ? total : results.size());
+                return page;
+            } finally {
+                if (countFuture != null) countFuture.cancel(true);
             }
 
         } catch (FilterException fe) {
@@ -91,13 +171,238 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
     }
 
 
-    private Page<T> executeUnpaged(List<AggregationOperation> pipeline, Pageable pageable, Instant start) {
-        Aggregation aggregation = Aggregation.newAggregation(pipeline);
+    /**
+     * Cursor-backed stream over the pipeline; the caller must close it.
+     * {@link FilterOptions#getStreamBatchSize()} and {@link FilterOptions#isAllowDiskUse()} are passed to the cursor.
+     */
+    public Stream<T> executeStream(FilterGroup filters, List<AggregationOperation> operations, List<AggregationOperation> projOps, Pageable pageable) {
+        List<AggregationOperation> pipeline = buildPipeline(filters, operations, projOps);
+        List<AggregationOperation> rankStages = RelevanceScoreUtil.rankStages(filters, options, targetType, pageable != null ? pageable.getSort() : null);
+
+        if (!rankStages.isEmpty()) {
+            pipeline.addAll(rankStages);
+        } else if (pageable != null && pageable.getSort().isSorted()) {
+            pipeline.add(Aggregation.sort(pageable.getSort()));
+        } else if (GlobalSearchResolver.usesTextSearch(filters, options, targetType)) {
+            pipeline.add(GlobalSearchResolver.textScoreSort());
+        }
+        if (pageable != null && pageable.isPaged()) {
+            pipeline.add(Aggregation.skip(pageable.getOffset()));
+            pipeline.add(Aggregation.limit(pageable.getPageSize()));
+        }
+
+        AggregationOptions.Builder aggregationOptions = AggregationOptions.builder().allowDiskUse(options.isAllowDiskUse());
+        if (options.getStreamBatchSize() > 0) aggregationOptions.cursorBatchSize(options.getStreamBatchSize());
+
+        Aggregation aggregation = collated(Aggregation.newAggregation(pipeline).withOptions(aggregationOptions.build()), filters);
+        debug("Executing streamed aggregation on " + getCollectionName());
+        debug("aggregation: ", aggregation);
+        dbExplainHandler.explainIfNeeded(aggregation);
+
+        return mongoTemplate.aggregateStream(aggregation, getCollectionName(), targetType);
+    }
+
+    /**
+     * Keyset pagination over the aggregation pipeline. The seek predicate is matched after the operations, so
+     * resolved virtual fields can be used as sort keys. Projections must keep the sort fields and {@code _id}.
+     * <p>
+     * When neither the filters nor the sort read a virtual field, the seek stages follow the {@code $match} directly
+     * and the virtual-field lookups run on the {@code size + 1} rows of the slice only.
+     */
+    public SeekSlice<T> executeSlice(FilterGroup filters, List<AggregationOperation> operations, List<AggregationOperation> projOps, Sort sort, SeekToken after, int size) {
+        if (size <= 0) throw new FilterException("Slice size must be positive");
+
+        Instant start = Instant.now();
+        Sort seekSort = SeekPaginationUtil.normalizeSort(sort);
+        List<AggregationOperation> pipeline = slicePipeline(filters, operations, projOps, seekSort, after, size);
+
+        Aggregation aggregation = collated(Aggregation.newAggregation(pipeline), filters);
+        debug("Executing slice aggregation on " + getCollectionName());
+        debug("aggregation: ", aggregation);
+        dbExplainHandler.explainIfNeeded(aggregation);
+
+        // token-ийг pipeline-ийн raw мөрөөс уншина, тиймээс virtual field ч sort key байж болно
+        try (Stream<Document> stream = mongoTemplate.aggregateStream(aggregation, getCollectionName(), Document.class)) {
+            SeekSlice<T> slice = SeekPaginationUtil.toSlice(stream.toList(), seekSort, size, targetType, mongoTemplate.getConverter());
+            logTimeIfNeeded("executeSlice", start);
+            return slice;
+        } catch (Exception e) {
+            log.error("Error executing slice aggregation for {}: {}", targetType.getSimpleName(), e.getMessage(), e);
+            throw new FilterException("Failed to execute slice aggregation", e);
+        }
+    }
+
+    List<AggregationOperation> slicePipeline(FilterGroup filters, List<AggregationOperation> operations, List<AggregationOperation> projOps,
+                                             Sort seekSort, SeekToken after, int size) {
+        boolean late = canMaterializeLate(options, targetType, filters, operations, virtualFieldOperations, seekSort);
+        debug("late materialization: ", late);
+
+        List<AggregationOperation> pipeline = late ? buildMatchPipeline(filters) : buildPipeline(filters, operations);
+        Criteria seekCriteria = SeekPaginationUtil.buildSeekCriteria(seekSort, after);
+        if (seekCriteria != null) pipeline.add(Aggregation.match(seekCriteria));
+
+        pipeline.add(Aggregation.sort(seekSort));
+        pipeline.add(Aggregation.limit(size + 1L));
+        if (late) pipeline.addAll(lateMaterializedTail(projOps));
+        else if (!CollectionUtils.isEmpty(projOps)) pipeline.addAll(projOps);
+        return pipeline;
+    }
+
+    /**
+     * Content and total in one round-trip: {@code $facet} with a sort/skip/limit branch and a {@code $count} branch.
+     */
+    private <R> Page<R> executeFacetPage(FilterGroup filters, List<AggregationOperation> pipeline, Pageable pageable, AggregationOperation contentSort,
+                                         List<AggregationOperation> pageTail, Instant start, Class<R> outputType) {
+        long countStart = System.nanoTime();
+        pipeline.add(pageFacet(pageable, contentSort, pageTail));
+
+        Aggregation aggregation = collated(Aggregation.newAggregation(pipeline), filters);
+        debug("Executing facet paged aggregation on " + getCollectionName());
+        debug("aggregation: ", aggregation);
+        dbExplainHandler.explainIfNeeded(aggregation);
+
+        Document result = mongoTemplate.aggregate(aggregation, getCollectionName(), Document.class).getUniqueMappedResult();
+        Page<R> page = readFacetPage(result, pageable, outputType, mongoTemplate.getConverter());
+
+        recordCount(CountStrategy.FACET, countStart);
+        logTimeIfNeeded("executeFacetPage", start);
+        return page;
+    }
+
+    /**
+     * Page content, total and the summaries of the whole match from a single {@code $facet}, so the match runs once
+     * for all three. Projections only shape the page rows; summaries read the stored fields.
+     */
+    public PageWithSummary<T> executePageWithSummary(FilterGroup filters, List<AggregationOperation> operations, List<AggregationOperation> projOps,
+                                                     Pageable pageable, Map<String, Set<SummaryExecutor.AggregateOp>> summaryOps) {
+        try {
+            Instant start = Instant.now();
+            long countStart = System.nanoTime();
+
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            Map<String, String> mappedFields = SummaryExecutor.mapFields(entity, summaryOps.keySet(), () -> getAllMappedFieldNames(entity));
+
+            boolean late = canMaterializeLate(options, targetType, filters, operations, virtualFieldOperations, pageable.getSort());
+            List<AggregationOperation> pipeline = late ? buildMatchPipeline(filters) : buildPipeline(filters, operations);
+            List<AggregationOperation> pageTail = late ? lateMaterializedTail(projOps) : CollectionUtils.isEmpty(projOps) ? List.of() : projOps;
+
+            List<AggregationOperation> rankStages = RelevanceScoreUtil.rankStages(filters, options, targetType, pageable.getSort());
+            pipeline.addAll(rankStages);
+
+            AggregationOperation contentSort = rankStages.isEmpty() ? facetContentSort(pageable.getSort(), GlobalSearchResolver.usesTextSearch(filters, options, targetType)) : null;
+            FacetOperation facet = pageFacet(pageable, contentSort, pageTail);
+            if (!mappedFields.isEmpty()) {
+                facet = facet.and(SummaryExecutor.summaryStages(mappedFields, summaryOps).toArray(AggregationOperation[]::new)).as(FACET_SUMMARY);
+            }
+            pipeline.add(facet);
+
+            Aggregation aggregation = collated(Aggregation.newAggregation(pipeline), filters);
+            debug("Executing facet page with summary on " + getCollectionName());
+            debug("aggregation: ", aggregation);
+            dbExplainHandler.explainIfNeeded(aggregation);
+
+            Document result = mongoTemplate.aggregate(aggregation, getCollectionName(), Document.class).getUniqueMappedResult();
+            Page<T> page = readFacetPage(result, pageable, targetType, mongoTemplate.getConverter());
+
+            List<Document> summaries = result != null ? result.getList(FACET_SUMMARY, Document.class, List.of()) : List.of();
+            Document summary = summaries.isEmpty() ? new Document() : summaries.getFirst();
+
+            recordCount(CountStrategy.FACET, countStart);
+            logTimeIfNeeded("executePageWithSummary", start);
+            return new PageWithSummary<>(page.getContent(), pageable, page.getTotalElements(), SummaryExecutor.readSummary(summary, mappedFields, summaryOps));
+        } catch (FilterException fe) {
+            throw fe;
+        } catch (Exception e) {
+            log.error("Error executing page with summary for {}: {}", targetType.getSimpleName(), e.getMessage(), e);
+            throw new FilterException("Failed to execute page with summary", e);
+        }
+    }
+
+    static FacetOperation pageFacet(Pageable pageable) {
+        return pageFacet(pageable, List.of());
+    }
+
+    /**
+     * @param pageTail stages run on the page rows only, after sort/skip/limit
+     */
+    static FacetOperation pageFacet(Pageable pageable, List<AggregationOperation> pageTail) {
+        return pageFacet(pageable, pageable.getSort(), pageTail);
+    }
+
+    /**
+     * @param sort sort of the content branch; unsorted when the rows are already ordered before the facet
+     */
+    static FacetOperation pageFacet(Pageable pageable, Sort sort, List<AggregationOperation> pageTail) {
+        return pageFacet(pageable, sort.isSorted() ? Aggregation.sort(sort) : null, pageTail);
+    }
+
+    /**
+     * @param sortStage sort of the content branch, e.g. the {@code $text} score; null to keep the incoming order
+     */
+    static FacetOperation pageFacet(Pageable pageable, AggregationOperation sortStage, List<AggregationOperation> pageTail) {
+        List<AggregationOperation> content = new ArrayList<>();
+        if (sortStage != null) {
+            content.add(sortStage);
+        }
+        if (pageable.isPaged()) {
+            content.add(Aggregation.skip(pageable.getOffset()));
+            content.add(Aggregation.limit(pageable.getPageSize()));
+        }
+        content.addAll(pageTail);
+
+        //@formatter:off
+        return Aggregation.facet(content.toArray(new AggregationOperation[0])).as(FACET_CONTENT)
+                .and(Aggregation.count().as(FIELD_TOTAL)).as(FACET_TOTAL);
+        //@formatter:on
+    }
+
+    /**
+     * Content sort of a facet page: the requested sort, otherwise the {@code $text} score like the non-facet page, so
+     * the order does not depend on the count strategy.
+     *
+     * @return null when the content keeps the incoming order
+     */
+    static AggregationOperation facetContentSort(Sort sort, boolean textSearch) {
+        if (sort.isSorted()) return Aggregation.sort(sort);
+        return textSearch ? GlobalSearchResolver.textScoreSort() : null;
+    }
+
+    static <T> Page<T> readFacetPage(Document result, Pageable pageable, Class<T> type, MongoConverter converter) {
+        if (result == null) return new PageImpl<>(new ArrayList<>(), pageable, 0);
+
+        //@formatter:off
+        List<T> content = result.getList(FACET_CONTENT, Document.class, List.of()).stream()
+                .map(doc -> converter.read(type, doc))
+                .collect(Collectors.toCollection(ArrayList::new));
+        //@formatter:on
+
+        List<Document> totals = result.getList(FACET_TOTAL, Document.class, List.of());
+        long total = totals.isEmpty() ? 0L : ((Number) totals.getFirst().get(FIELD_TOTAL)).longValue();
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private void recordCount(CountStrategy strategy, long countStart) {
+        CountStrategyMetrics.record(strategy, countStart);
+        this.usedCountStrategy = strategy;
+    }
+
+    private long recordCount(CountStrategy strategy, long countStart, long count) {
+        recordCount(strategy, countStart);
+        return count;
+    }
+
+    public CountStrategy getUsedCountStrategy() {
+        return usedCountStrategy;
+    }
+
+    private <R> Page<R> executeUnpaged(FilterGroup filters, List<AggregationOperation> pipeline, Pageable pageable, Instant start, Class<R> outputType) {
+        Aggregation aggregation = collated(Aggregation.newAggregation(pipeline), filters);
         debug("Executing unpaged aggregation on " + getCollectionName());
         debug("aggregation: ", aggregation);
 
-        try (Stream<T> stream = mongoTemplate.aggregateStream(aggregation, getCollectionName(), targetType)) {
-            List<T> results = new ArrayList<>();
+        try (Stream<R> stream = mongoTemplate.aggregateStream(aggregation, getCollectionName(), outputType)) {
+            List<R> results = new ArrayList<>();
             stream.forEach(results::add);
             logTimeIfNeeded("executeUnpaged", start);
             return new PageImpl<>(results, pageable, results.size());
@@ -136,7 +441,7 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
 
         pipeline.add(Aggregation.limit(1));
 
-        Aggregation aggregation = Aggregation.newAggregation(pipeline);
+        Aggregation aggregation = collated(Aggregation.newAggregation(pipeline), filters);
         debug("Executing single aggregation for {}", targetType.getSimpleName());
 
         try {
@@ -149,22 +454,18 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
         }
     }
 
-    private long executeCount(List<AggregationOperation> pipeline) {
+    private long executeCount(FilterGroup filters, List<AggregationOperation> pipeline) {
         try {
-            List<AggregationOperation> countPipeline = removeSkipAndLimit(pipeline);
-            countPipeline = new ArrayList<>(countPipeline);
-            countPipeline.add(Aggregation.count().as(FIELD_TOTAL));
-
             debug("Executing count aggregation on " + getCollectionName());
             Instant start = Instant.now();
 
             try (Stream<Document> stream = mongoTemplate.aggregateStream(
-                    Aggregation.newAggregation(countPipeline),
+                    collated(countAggregation(pipeline), filters),
                     getCollectionName(),
                     Document.class)) {
 
                 long count = stream.findFirst()
-                        .map(doc -> ((Number) doc.get(FIELD_TOTAL)).longValue())
+                        .map(AggregationExecutor::readCount)
                         .orElse(0L);
 
                 logTimeIfNeeded("executeCount", start);
@@ -177,6 +478,37 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
     }
 
 
+    /**
+     * Virtual-field stages are one-to-one and only write their own paths, so when neither the filters nor the sort
+     * read those paths they can run after sort/skip/limit. User operations may reshape documents, so they disable it.
+     */
+    static boolean canMaterializeLate(FilterOptions options, Class<?> targetType, FilterGroup filters, List<AggregationOperation> ops,
+                                      List<AggregationOperation> virtualFieldOperations, Sort sort) {
+        if (!options.isLateMaterializationEnabled()) return false;
+        if (CollectionUtils.isEmpty(virtualFieldOperations) || !CollectionUtils.isEmpty(ops)) return false;
+
+        Set<String> virtualPaths = VirtualFieldResolverUtil.resolveVirtualPaths(targetType);
+        for (Sort.Order order : sort) {
+            if (PredicatePushdownUtil.isVirtualPath(order.getProperty(), virtualPaths)) return false;
+        }
+
+        return filters == null || !PredicatePushdownUtil.touchesVirtual(filters, virtualPaths, GlobalSearchResolver.usesTextSearch(filters, options, targetType));
+    }
+
+    private List<AggregationOperation> buildMatchPipeline(FilterGroup filters) {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        if (filters != null && !filters.getComponents().isEmpty()) {
+            pipeline.add(Aggregation.match(buildCriteria(filters)));
+        }
+        return pipeline;
+    }
+
+    private List<AggregationOperation> lateMaterializedTail(List<AggregationOperation> projectOps) {
+        List<AggregationOperation> tail = new ArrayList<>(virtualFieldOperations);
+        if (!CollectionUtils.isEmpty(projectOps)) tail.addAll(projectOps);
+        return tail;
+    }
+
     private List<AggregationOperation> buildPipeline(FilterGroup filters, List<AggregationOperation> ops, List<AggregationOperation> projectOps) {
         List<AggregationOperation> pipeline = buildPipeline(filters, ops);
         if (CollectionUtils.isEmpty(projectOps)) return pipeline;
@@ -188,6 +520,7 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
 
     private List<AggregationOperation> buildPipeline(FilterGroup filters, List<AggregationOperation> ops) {
         List<AggregationOperation> pipeline = new ArrayList<>();
+        boolean hasFilters = filters != null && !filters.getComponents().isEmpty();
 
         try {
             if (!CollectionUtils.isEmpty(ops)) {
@@ -195,7 +528,20 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
                 pipeline.addAll(ops);
             }
 
-            if (filters != null && !filters.getComponents().isEmpty()) {
+            // хэрэглэгчийн op-ууд документын тоо/хэлбэрийг өөрчилж болох тул тэр үед дарааллыг хөндөхгүй
+            // $text нь эхний $match-д байх ёстой тул pushdown унтраалттай байсан ч хуваана
+            boolean textSearch = hasFilters && GlobalSearchResolver.usesTextSearch(filters, options, targetType);
+            if (!CollectionUtils.isEmpty(virtualFieldOperations) && hasFilters && pipeline.isEmpty() && (options.isPredicatePushdownEnabled() || textSearch)) {
+                pipeline.addAll(PredicatePushdownUtil.matchAroundVirtualFields(filters, virtualFieldOperations, targetType, this::buildCriteria, textSearch));
+                debug("split match around virtual field ops, pipeline size: ", pipeline.size());
+                return pipeline;
+            }
+
+            if (!CollectionUtils.isEmpty(virtualFieldOperations)) {
+                pipeline.addAll(virtualFieldOperations);
+            }
+
+            if (hasFilters) {
                 Criteria criteria = buildCriteria(filters);
                 debug("Built criteria: ", criteria.getCriteriaObject());
                 pipeline.add(Aggregation.match(criteria));
@@ -223,7 +569,7 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
             pipeline.add(Aggregation.limit(limit));
         }
 
-        return Aggregation.newAggregation(pipeline);
+        return collated(Aggregation.newAggregation(pipeline), filters);
     }
 
     private void handleException(String method, Exception e) {
@@ -233,7 +579,20 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
         }
     }
 
-    private List<AggregationOperation> removeSkipAndLimit(List<AggregationOperation> ops) {
+    /**
+     * Same pipeline without skip/limit, terminated by a {@code $count} stage.
+     */
+    static Aggregation countAggregation(List<AggregationOperation> pipeline) {
+        List<AggregationOperation> countPipeline = new ArrayList<>(removeSkipAndLimit(pipeline));
+        countPipeline.add(Aggregation.count().as(FIELD_TOTAL));
+        return Aggregation.newAggregation(countPipeline);
+    }
+
+    static long readCount(Document result) {
+        return result == null ? 0L : ((Number) result.get(FIELD_TOTAL)).longValue();
+    }
+
+    private static List<AggregationOperation> removeSkipAndLimit(List<AggregationOperation> ops) {
         if (CollectionUtils.isEmpty(ops)) return List.of();
         List<AggregationOperation> cleaned = new ArrayList<>();
         for (AggregationOperation op : ops) {
@@ -258,7 +617,7 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
         ).toList();
         //@formatter:on
 
-        Aggregation aggregation = Aggregation.newAggregation(ops);
+        Aggregation aggregation = collated(Aggregation.newAggregation(ops), filters);
 
         debug("Executing exits aggregation on " + getCollectionName());
         debug("aggregation: ", aggregation);
@@ -278,8 +637,10 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
         private FilterGroup filters;
         private Pageable pageable;
         private List<AggregationOperation> operations;
+        private List<AggregationOperation> virtualFieldOperations;
         private List<AggregationOperation> projectOperations;
         private FilterOptions filterOptions = FilterOptions.defaults();
+        private CountStrategy usedCountStrategy;
 
         private Builder<T> withTargetType(Class<T> tClass) {
             this.targetType = tClass;
@@ -320,6 +681,17 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
             return this;
         }
 
+        /**
+         * {@code @VirtualField}/{@code @VirtualObject} stages; kept apart from {@link #operations(List)} so the
+         * stored-field part of the filter can be matched before them.
+         */
+        public Builder<T> virtualFieldOperations(List<AggregationOperation> val) {
+            if (val == null) return this;
+
+            this.virtualFieldOperations = val;
+            return this;
+        }
+
         public AggregationExecutor<T> build() {
             if (mongoTemplate == null) {
                 throw new FilterException("MongoTemplate must be provided");
@@ -332,14 +704,42 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
         }
 
         public Page<T> execute() {
+            return execute(targetType);
+        }
+
+        /**
+         * @param outputType type the rows are read into, e.g. {@code Document} for the raw rows
+         */
+        public <R> Page<R> execute(Class<R> outputType) {
             if (pageable == null) this.pageable = Pageable.unpaged();
             AggregationExecutor<T> build = build();
-            AtomicReference<Page<T>> page = new AtomicReference<>();
+            AtomicReference<Page<R>> page = new AtomicReference<>();
 
             MemoryUtils.monitorPerformance("executing aggregation", () -> {
-                page.set(build.executePage(filters, operations, projectOperations, pageable));
+                page.set(build.executePage(filters, operations, projectOperations, pageable, outputType));
+            }, filterOptions.getMemoryThreshholdPercent());
+
+            this.usedCountStrategy = build.getUsedCountStrategy();
+            return page.get();
+        }
+
+        /**
+         * @return strategy that produced the total of the last {@link #execute()}, null if no count ran
+         */
+        public CountStrategy getUsedCountStrategy() {
+            return usedCountStrategy;
+        }
+
+        public PageWithSummary<T> executeWithSummary(Map<String, Set<SummaryExecutor.AggregateOp>> summaryOps) {
+            if (pageable == null) this.pageable = Pageable.unpaged();
+            AggregationExecutor<T> build = build();
+            AtomicReference<PageWithSummary<T>> page = new AtomicReference<>();
+
+            MemoryUtils.monitorPerformance("executing aggregation with summary", () -> {
+                page.set(build.executePageWithSummary(filters, operations, projectOperations, pageable, summaryOps));
             }, filterOptions.getMemoryThreshholdPercent());
 
+            this.usedCountStrategy = build.getUsedCountStrategy();
             return page.get();
         }
 
@@ -348,7 +748,7 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
 
             AggregationExecutor<T> build = build();
             List<AggregationOperation> ops = build.buildPipeline(filters, operations);
-            return build.executeCount(ops);
+            return build.executeCount(filters, ops);
         }
 
 
@@ -371,6 +771,14 @@ public class AggregationExecutor<T> extends AbstractMongoExecutor<T> {
             return this;
         }
 
+        public Stream<T> executeStream() {
+            return build().executeStream(filters, operations, projectOperations, pageable);
+        }
+
+        public SeekSlice<T> executeSlice(Sort sort, SeekToken after, int size) {
+            return build().executeSlice(filters, operations, projectOperations, sort, after, size);
+        }
+
         public T executeSingleResult(Sort sort) {
             return build().executeSingle(filters, operations, projectOperations, sort);
         }
@@ -125,6 +125,27 @@ public class ApplyStepExecutor<T> {
     }
 
 
+    /**
+     * Runs the steps per element while the stream is consumed instead of on a materialized list.
+     * Stats (if enabled) are printed when the stream is closed.
+     */
+    public Stream<T> applyLazily(Stream<T> stream) {
+        if (options.isDisableApplySteps() || applySteps.isEmpty()) return stream;
+
+        //@formatter:off
+        return stream.map(item -> {
+                    execute(item);
+                    return item;
+                })
+                .onClose(() -> {
+                    if (options.isApplyStatsEnabled()) {
+                        applyStats.printApplyStats();
+                        applyStats.printFailedDetails();
+                    }
+                });
+        //@formatter:on
+    }
+
     public void execute(T item) {
         if (options == null) this.options = FilterOptions.defaults();
 
@@ -0,0 +1,151 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.component.abstraction.AbstractMongoExecutor;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.util.CriteriaPlanCache;
+import org.bson.Document;
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.*;
+
+/**
+ * Runs several count / exists / summary queries on the same collection as branches of one {@code $facet},
+ * so a batch pays one round-trip instead of one per query. The documents of every branch are selected once by a
+ * leading {@code $match} on the union of their filters, which can use the indexes the separate queries would.
+ *
+ * @author zorigtbaatar
+ */
+
+public class BatchFacetExecutor<T> extends AbstractMongoExecutor<T> {
+    private static final String FIELD_COUNT = "count";
+
+    public enum Kind {
+        COUNT, EXISTS, SUMMARY
+    }
+
+    /**
+     * @param fieldOps only used by {@link Kind#SUMMARY}
+     */
+    public record FacetQuery(String name, Kind kind, FilterGroup filters, FilterOptions options,
+                             Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps) {
+    }
+
+    private BatchFacetExecutor(MongoTemplate mongoTemplate, Class<T> targetType) {
+        super(mongoTemplate, FilterOptions.defaults(), targetType);
+    }
+
+    public static <T> BatchFacetExecutor<T> create(MongoTemplate mongoTemplate, Class<T> targetType) {
+        return new BatchFacetExecutor<>(mongoTemplate, targetType);
+    }
+
+    /**
+     * @return query name -> result ({@code Long}, {@code Boolean} or the summary map, as the single-query APIs return)
+     */
+    public Map<String, Object> execute(List<FacetQuery> queries) {
+        if (queries.isEmpty()) return Map.of();
+
+        try {
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            Map<String, Map<String, String>> mappedFields = new HashMap<>();
+
+            List<Criteria> branchCriteria = new ArrayList<>();
+            List<List<AggregationOperation>> branchStages = new ArrayList<>();
+            for (FacetQuery query : queries) {
+                List<AggregationOperation> branch = new ArrayList<>();
+                switch (query.kind()) {
+                    case COUNT -> branch.add(Aggregation.count().as(FIELD_COUNT));
+                    case EXISTS -> {
+                        branch.add(Aggregation.limit(1));
+                        branch.add(Aggregation.project("_id"));
+                    }
+                    case SUMMARY -> {
+                        Map<String, String> mapped = SummaryExecutor.mapFields(entity, query.fieldOps().keySet(), () -> getAllMappedFieldNames(entity));
+                        mappedFields.put(query.name(), mapped);
+                        branch.addAll(SummaryExecutor.summaryStages(mapped, query.fieldOps()));
+                    }
+                }
+                branchCriteria.add(criteriaOf(query));
+                branchStages.add(branch);
+            }
+
+            Aggregation aggregation = buildAggregation(branchCriteria, branchStages);
+            debug("Executing batch facet on {} with {} branches", targetType.getSimpleName(), queries.size());
+            debug("aggregation: ", aggregation);
+
+            Document result = mongoTemplate.aggregate(aggregation, targetType, Document.class).getUniqueMappedResult();
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < queries.size(); i++) {
+                FacetQuery query = queries.get(i);
+                Document first = firstOf(result, branchName(i));
+
+                values.put(query.name(), switch (query.kind()) {
+                    case COUNT -> first == null ? 0L : ((Number) first.get(FIELD_COUNT)).longValue();
+                    case EXISTS -> first != null;
+                    case SUMMARY -> first == null
+                            ? Collections.emptyMap()
+                            : SummaryExecutor.readSummary(first, mappedFields.get(query.name()), query.fieldOps());
+                });
+            }
+
+            dbExplainHandler.explainIfNeeded(aggregation);
+            return values;
+        } catch (FilterException e) {
+            throw e;
+        } catch (Exception ex) {
+            throw new FilterException("Failed to execute batch facet on '%s': %s".formatted(targetType.getSimpleName(), ex.getMessage()), ex);
+        }
+    }
+
+    /**
+     * {@code $match} on the union of the branch filters, then one {@code $facet} branch per query. A {@code $match}
+     * inside {@code $facet} never uses an index, the leading one does; it is left out only when a branch is
+     * unfiltered and the whole collection is read anyway.
+     */
+    static Aggregation buildAggregation(List<Criteria> branchCriteria, List<List<AggregationOperation>> branchStages) {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        boolean unfiltered = branchCriteria.stream().anyMatch(criteria -> criteria.getCriteriaObject().isEmpty());
+        if (!unfiltered) {
+            pipeline.add(Aggregation.match(branchCriteria.size() == 1
+                    ? branchCriteria.getFirst()
+                    : new Criteria().orOperator(branchCriteria.toArray(Criteria[]::new))));
+        }
+
+        FacetOperation facet = null;
+        for (int i = 0; i < branchStages.size(); i++) {
+            List<AggregationOperation> branch = new ArrayList<>();
+            // нийт match нь олон branch-ийн нэгдэл тул branch бүр өөрийн шүүлтүүрээ дахин шалгана
+            if (!branchCriteria.get(i).getCriteriaObject().isEmpty()) branch.add(Aggregation.match(branchCriteria.get(i)));
+            branch.addAll(branchStages.get(i));
+
+            AggregationOperation[] stages = branch.toArray(AggregationOperation[]::new);
+            facet = facet == null ? Aggregation.facet(stages).as(branchName(i)) : facet.and(stages).as(branchName(i));
+        }
+        pipeline.add(facet);
+        return Aggregation.newAggregation(pipeline);
+    }
+
+    private Criteria criteriaOf(FacetQuery query) {
+        FilterGroup filters = query.filters();
+        return (filters != null && !filters.getComponents().isEmpty())
+                ? CriteriaPlanCache.buildCriteria(filters, query.options(), targetType)
+                : new Criteria();
+    }
+
+    private static String branchName(int index) {
+        return "q" + index;
+    }
+
+    private static Document firstOf(Document result, String branch) {
+        if (result == null) return null;
+        List<Document> docs = result.getList(branch, Document.class);
+        return docs == null || docs.isEmpty() ? null : docs.getFirst();
+    }
+}
@@ -0,0 +1,148 @@
+package mn.astvision.filterflow.component.executors;
+
+import lombok.extern.slf4j.Slf4j;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.CrossSearchHit;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.enums.GlobalSearchMode;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import mn.astvision.filterflow.util.search.RelevanceScoreUtil;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+
+import java.util.*;
+
+/**
+ * Global search over several collections in one aggregation: each source gets its own {@code $match} (the criteria
+ * {@link GlobalSearchResolver} builds for that entity), a relevance score and a type tag, and the sources are joined
+ * with {@code $unionWith} before a merged sort by score.
+ * <p>
+ * Scores come from {@link RelevanceScoreUtil}, so they are comparable across types. Virtual fields are not resolved
+ * and the entities' other filters (soft delete etc.) are not applied.
+ * <p>
+ * MongoDB does not allow {@code $text} inside a {@code $unionWith} sub-pipeline, so only the first source may use
+ * {@link GlobalSearchMode#TEXT}: an explicit TEXT mode with more than one source is rejected, and a later source
+ * that AUTO resolves to TEXT is searched with REGEX instead. In {@link GlobalSearchMode#NGRAM} mode every source
+ * runs its own candidate query on its n-gram side collection while the pipeline is built, before the aggregation.
+ *
+ * @author zorigtbaatar
+ */
+
+@Slf4j
+public class CrossSearchExecutor {
+    public static final String TYPE_FIELD = "_entityType";
+
+    private final MongoTemplate mongoTemplate;
+    private final QueryMapper queryMapper;
+
+    /**
+     * @param limit 0 for no per-source limit; otherwise only the best {@code limit} rows of the source take part
+     */
+    public record Source(Class<?> type, String tag, int limit) {
+    }
+
+    private CrossSearchExecutor(MongoTemplate mongoTemplate) {
+        if (mongoTemplate == null) throw new FilterException("MongoTemplate must not be null");
+        this.mongoTemplate = mongoTemplate;
+        this.queryMapper = new QueryMapper(mongoTemplate.getConverter());
+    }
+
+    public static CrossSearchExecutor create(MongoTemplate mongoTemplate) {
+        return new CrossSearchExecutor(mongoTemplate);
+    }
+
+    /**
+     * @param limit 0 for all merged rows
+     * @return rows of every source, best score first
+     */
+    public List<CrossSearchHit> execute(String keyword, List<Source> sources, FilterOptions options, int limit) {
+        if (keyword == null || keyword.isBlank() || sources.isEmpty()) return List.of();
+        FilterOptions opts = options != null ? options : FilterOptions.defaults();
+
+        List<Document> pipeline = buildPipeline(keyword, sources, opts, limit);
+        String collection = mongoTemplate.getCollectionName(sources.getFirst().type());
+
+        List<AggregationOperation> stages = pipeline.stream().<AggregationOperation>map(stage -> context -> stage).toList();
+        Aggregation aggregation = Aggregation.newAggregation(stages).withOptions(AggregationOptions.builder().allowDiskUse(opts.isAllowDiskUse()).build());
+        if (opts.isDebug()) log.info("[DEBUG] cross search on {} - {}", collection, pipeline);
+
+        try {
+            List<Document> rows = mongoTemplate.aggregate(aggregation, collection, Document.class).getMappedResults();
+            return readHits(rows, sources);
+        } catch (FilterException fe) {
+            throw fe;
+        } catch (Exception e) {
+            throw new FilterException("Failed to execute cross search for '%s'".formatted(keyword), e);
+        }
+    }
+
+    /**
+     * Pipeline run on the first source's collection; the other sources are {@code $unionWith} sub-pipelines.
+     */
+    public List<Document> buildPipeline(String keyword, List<Source> sources, FilterOptions options, int limit) {
+        if (sources.size() > 1 && options.getGlobalSearchMode() == GlobalSearchMode.TEXT) {
+            throw new FilterException("Global search mode TEXT cannot be used with more than one cross search source", sources.get(1).type(),
+                    "$text is not allowed inside $unionWith; use globalSearchMode AUTO, PREFIX or REGEX");
+        }
+
+        Source first = sources.getFirst();
+        List<Document> pipeline = new ArrayList<>(sourcePipeline(keyword, first, options, GlobalSearchResolver.resolveMode(options, first.type())));
+
+        for (Source source : sources.subList(1, sources.size())) {
+            GlobalSearchMode mode = GlobalSearchResolver.resolveMode(options, source.type());
+            if (mode == GlobalSearchMode.TEXT) mode = GlobalSearchMode.REGEX; // $unionWith дотор $text хориотой
+
+            //@formatter:off
+            pipeline.add(new Document("$unionWith", new Document("coll", mongoTemplate.getCollectionName(source.type()))
+                    .append("pipeline", sourcePipeline(keyword, source, options, mode))));
+            //@formatter:on
+        }
+
+        pipeline.add(new Document("$sort", new Document(RelevanceScoreUtil.SCORE_FIELD, -1).append(TYPE_FIELD, 1).append("_id", 1)));
+        if (limit > 0) pipeline.add(new Document("$limit", limit));
+        return pipeline;
+    }
+
+    private List<Document> sourcePipeline(String keyword, Source source, FilterOptions options, GlobalSearchMode mode) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getPersistentEntity(source.type());
+        if (entity == null) {
+            throw new FilterException("Invalid entity: %s".formatted(source.type().getSimpleName()), source.type(),
+                    "Ensure the entity is registered in MongoTemplate's MappingContext");
+        }
+
+        // $text байвал pipeline-ийн эхний $match-д байх ёстой
+        Document match = queryMapper.getMappedObject(GlobalSearchResolver.buildGenericSearch(keyword, options, source.type(), mode).getCriteriaObject(), entity);
+        Document score = RelevanceScoreUtil.scoreExpression(keyword, RelevanceScoreUtil.fieldWeights(options, source.type()));
+
+        List<Document> stages = new ArrayList<>();
+        stages.add(new Document("$match", match));
+        stages.add(new Document("$addFields", new Document(RelevanceScoreUtil.SCORE_FIELD, score).append(TYPE_FIELD, new Document("$literal", source.tag()))));
+        if (source.limit() > 0) {
+            stages.add(new Document("$sort", new Document(RelevanceScoreUtil.SCORE_FIELD, -1).append("_id", 1)));
+            stages.add(new Document("$limit", source.limit()));
+        }
+        return stages;
+    }
+
+    private List<CrossSearchHit> readHits(List<Document> rows, List<Source> sources) {
+        Map<String, Class<?>> types = new HashMap<>();
+        sources.forEach(source -> types.put(source.tag(), source.type()));
+
+        List<CrossSearchHit> hits = new ArrayList<>(rows.size());
+        for (Document row : rows) {
+            String tag = row.getString(TYPE_FIELD);
+            Class<?> type = types.get(tag);
+            if (type == null) continue;
+
+            Object score = row.get(RelevanceScoreUtil.SCORE_FIELD);
+            Object entity = mongoTemplate.getConverter().read(type, row);
+            hits.add(new CrossSearchHit(tag, type, entity, score instanceof Number n ? n.doubleValue() : 0d));
+        }
+        return hits;
+    }
+}
@@ -3,25 +3,42 @@ package mn.astvision.filterflow.component.executors;
 import lombok.Getter;
 import mn.astvision.commontools.monitoring.MemoryUtils;
 import mn.astvision.filterflow.builders.ProjectionBuilder;
+import mn.astvision.filterflow.component.CountStrategyMetrics;
 import mn.astvision.filterflow.component.FilterExecutionStatsHolder;
 import mn.astvision.filterflow.component.abstraction.AbstractMongoExecutor;
 import mn.astvision.filterflow.exception.FilterException;
 import mn.astvision.filterflow.model.FilterGroup;
 import mn.astvision.filterflow.model.FilterOptions;
 import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.PageWithSummary;
+import mn.astvision.filterflow.model.SeekSlice;
+import mn.astvision.filterflow.model.SeekToken;
+import mn.astvision.filterflow.model.ValueFrequency;
+import mn.astvision.filterflow.model.enums.CountStrategy;
+import mn.astvision.filterflow.util.SeekPaginationUtil;
 import mn.astvision.filterflow.util.VirtualFieldResolverUtil;
+import mn.astvision.filterflow.util.VirtualThreadUtil;
+import mn.astvision.filterflow.util.cache.QueryResultCache;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import mn.astvision.filterflow.util.search.NgramIndexUtil;
+import mn.astvision.filterflow.util.search.RelevanceScoreUtil;
+import org.bson.Document;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.BasicQuery;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.util.Assert;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.LongSupplier;
 import java.util.stream.Stream;
@@ -32,9 +49,9 @@ import java.util.stream.Stream;
 
 
 public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
-    private static final Map<Class<?>, Set<String>> ENTITY_FIELDS_CACHE = new ConcurrentHashMap<>();
     private final FilterGroup filterGroup;
     private final Pageable pageable;
+    private CountStrategy usedCountStrategy;
 
     private FilterExecutor(Builder<T> builder) {
         super(builder.mongoTemplate,
@@ -54,6 +71,13 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
     }
 
     public Page<T> executePage() {
+        return executePage(targetType);
+    }
+
+    /**
+     * @param outputType type the rows are read into, e.g. {@code Document} for the raw rows
+     */
+    public <R> Page<R> executePage(Class<R> outputType) {
         Assert.notNull(pageable, () -> {
             throw new FilterException("Pageable must not be null", targetType,
                     "Call withPageable(Pageable) before execution");
@@ -61,15 +85,35 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
 
         try {
             Criteria criteria = buildCriteria(filterGroup);
-            Query queryWithPage = Query.query(criteria).with(pageable);
+            CountStrategy strategy = options.getCountStrategy();
+            debug("count strategy: ", strategy);
+
+            if (strategy == CountStrategy.FACET && pageable.isPaged()) {
+                return executeFacetPage(criteria, outputType);
+            }
+
+            Query queryWithPage = queryOf(criteria, pageable.getSort()).with(pageable);
 
             debug("executing page, criteria: {}", criteria.getCriteriaObject());
             dbExplainHandler.explainIfNeeded(queryWithPage);
 
-            try (Stream<T> stream = mongoTemplate.stream(queryWithPage, targetType)) {
-                List<T> content = stream.toList();
-                LongSupplier countSupplier = () -> mongoTemplate.count(Query.query(criteria), targetType);
+            long countStart = System.nanoTime();
+            CompletableFuture<Long> countFuture = strategy == CountStrategy.CONCURRENT && pageable.isPaged()
+                    ? VirtualThreadUtil.supplyAsync(() -> mongoTemplate.count(collated(Query.query(criteria), filterGroup), targetType))
+                    : null;
+
+            try (Stream<R> stream = mongoTemplate.query(targetType).as(outputType).matching(queryWithPage).stream()) {
+                List<R> content = stream.toList();
+                LongSupplier countSupplier = countFuture != null
+                        ? () -> recordCount(CountStrategy.CONCURRENT, countStart, VirtualThreadUtil.join(countFuture))
+                        : () -> {
+                    long sequentialStart = System.nanoTime();
+                    return recordCount(CountStrategy.SEQUENTIAL, sequentialStart, mongoTemplate.count(collated(Query.query(criteria), filterGroup), targetType));
+                };
                 return PageableExecutionUtils.getPage(content, pageable, countSupplier);
+            } finally {
+                // content алдаатай эсвэл сүүлийн хуудас бол count хэрэггүй, сервер дээр үлдээхгүй
+                if (countFuture != null) countFuture.cancel(true);
             }
         } catch (FilterException ex) {
             throw ex;
@@ -79,8 +123,102 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
         }
     }
 
+    private <R> Page<R> executeFacetPage(Criteria criteria, Class<R> outputType) {
+        long countStart = System.nanoTime();
+        // sort өгөөгүй $text хайлтыг find-ийн адил textScore-оор эрэмбэлнэ
+        AggregationOperation contentSort = AggregationExecutor.facetContentSort(pageable.getSort(), GlobalSearchResolver.usesTextSearch(filterGroup, options, targetType));
+        FacetOperation facet = AggregationExecutor.pageFacet(pageable, contentSort, List.of());
+        TypedAggregation<T> aggregation = collated(Aggregation.newAggregation(targetType, Aggregation.match(criteria), facet), filterGroup);
+
+        debug("executing facet page, criteria: {}", criteria.getCriteriaObject());
+        dbExplainHandler.explainIfNeeded(aggregation);
+
+        Document result = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+        Page<R> page = AggregationExecutor.readFacetPage(result, pageable, outputType, mongoTemplate.getConverter());
+        recordCount(CountStrategy.FACET, countStart, page.getTotalElements());
+        return page;
+    }
+
+    private long recordCount(CountStrategy strategy, long countStart, long count) {
+        CountStrategyMetrics.record(strategy, countStart);
+        this.usedCountStrategy = strategy;
+        return count;
+    }
+
+    public CountStrategy getUsedCountStrategy() {
+        return usedCountStrategy;
+    }
+
+    /**
+     * Keyset pagination: rows after {@code after} in {@code sort} order (closed with an {@code _id} tiebreaker).
+     * Unlike {@link #executePage()} the latency does not grow with the depth of the slice.
+     */
+    public SeekSlice<T> executeSlice(Sort sort, SeekToken after, int size) {
+        if (size <= 0) throw new FilterException("Slice size must be positive");
+
+        try {
+            Sort seekSort = SeekPaginationUtil.normalizeSort(sort);
+            validateSortFields(Sort.by(seekSort.filter(o -> !SeekPaginationUtil.ID_FIELD.equals(o.getProperty())).toList()));
+
+            Criteria criteria = SeekPaginationUtil.combine(buildCriteria(filterGroup), SeekPaginationUtil.buildSeekCriteria(seekSort, after));
+            Query query = collated(Query.query(criteria), filterGroup).with(seekSort).limit(size + 1);
+            applyProjection(query, seekSort);
+
+            debug("executing slice, criteria: {}", criteria.getCriteriaObject());
+            dbExplainHandler.explainIfNeeded(query);
+
+            // token-ийг хадгалагдсан мөрөөс уншина
+            try (Stream<Document> stream = mongoTemplate.query(targetType).as(Document.class).matching(query).stream()) {
+                return SeekPaginationUtil.toSlice(stream.toList(), seekSort, size, targetType, mongoTemplate.getConverter());
+            }
+        } catch (FilterException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            log.error("Failed to execute slice query", ex);
+            throw new FilterException("Failed to execute slice query", ex);
+        }
+    }
+
+    /**
+     * {@link FilterOptions#getProject()} / {@link FilterOptions#getExclude()} as find fields; the sort keys are always
+     * kept since the next token is read from them.
+     */
+    private void applyProjection(Query query, Sort sort) {
+        List<String> include = options.getProject();
+        List<String> exclude = options.getExclude();
+        Set<String> keys = new HashSet<>();
+        sort.forEach(order -> keys.add(order.getProperty()));
+
+        if (include != null && !include.isEmpty()) {
+            include.forEach(query.fields()::include);
+            keys.stream().filter(key -> !SeekPaginationUtil.ID_FIELD.equals(key)).forEach(query.fields()::include);
+        } else if (exclude != null && !exclude.isEmpty()) {
+            exclude.stream().filter(field -> !keys.contains(field)).forEach(query.fields()::exclude);
+        }
+    }
+
+    /**
+     * Cursor-backed stream of the whole filtered result; the caller must close it.
+     * A paged pageable limits the stream to that page, otherwise only its sort is applied.
+     */
+    public Stream<T> executeStream() {
+        Criteria criteria = buildCriteria(filterGroup);
+        Query query = queryOf(criteria, pageable != null ? pageable.getSort() : null);
+
+        if (pageable != null && pageable.isPaged()) query.with(pageable);
+        else if (pageable != null && pageable.getSort().isSorted()) query.with(pageable.getSort());
+
+        if (options.getStreamBatchSize() > 0) query.cursorBatchSize(options.getStreamBatchSize());
+        if (options.isAllowDiskUse()) query.allowDiskUse(true);
+
+        debug("executing stream, criteria: {}", criteria.getCriteriaObject());
+        dbExplainHandler.explainIfNeeded(query);
+
+        return mongoTemplate.stream(query, targetType);
+    }
+
     private long executeCount() {
-        Query countQuery = Query.query(buildCriteria(filterGroup));
+        Query countQuery = collated(Query.query(buildCriteria(filterGroup)), filterGroup);
         return mongoTemplate.count(countQuery, targetType);
     }
 
@@ -88,14 +226,24 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
         Criteria criteria = buildCriteria(filterGroup);
         debug("Built criteria: {}", criteria.getCriteriaObject());
 
-        return mongoTemplate.find(Query.query(criteria), targetType);
+        return mongoTemplate.find(queryOf(criteria, null), targetType);
+    }
+
+    // $text хайлтад sort өгөөгүй бол хамгийн хамааралтайг нь эхэнд гаргана
+    private Query queryOf(Criteria criteria, Sort sort) {
+        if ((sort == null || sort.isUnsorted()) && GlobalSearchResolver.usesTextSearch(filterGroup, options, targetType)) {
+            BasicQuery query = new BasicQuery(criteria.getCriteriaObject());
+            query.setSortObject(GlobalSearchResolver.textScoreSortObject());
+            return collated(query, filterGroup);
+        }
+        return collated(Query.query(criteria), filterGroup);
     }
 
     public T executeSingleResult(Sort sort) {
         try {
             validateSortFields(sort);
             Criteria criteria = buildCriteria(filterGroup);
-            Query query = new Query(criteria).with(sort).limit(1);
+            Query query = collated(new Query(criteria), filterGroup).with(sort).limit(1);
             debug("executing single result, criteria: {}", criteria.getCriteriaObject());
 
             return mongoTemplate.findOne(query, targetType);
@@ -107,8 +255,7 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
     }
 
     private Set<String> getCachedFields() {
-        return ENTITY_FIELDS_CACHE.computeIfAbsent(targetType,
-                t -> getAllMappedFieldNames(getPersistentEntityOrThrow()));
+        return getAllMappedFieldNames(getPersistentEntityOrThrow());
     }
 
     private void validateSortFields(Sort sort) {
@@ -129,7 +276,7 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
         try {
             Criteria criteria = buildCriteria(filterGroup);
             debug("executing exists, criteria: {}", criteria.getCriteriaObject());
-            return mongoTemplate.exists(new Query(criteria), targetType);
+            return mongoTemplate.exists(collated(new Query(criteria), filterGroup), targetType);
         } catch (Exception ex) {
             log.error("Failed to execute query", ex);
             throw new FilterException("Failed to execute query", ex);
@@ -139,6 +286,7 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
     @Getter
     public static class Builder<T> {
         private final List<AggregationOperation> aggregationOperations = new ArrayList<>();
+        private final List<AggregationOperation> virtualFieldOperations = new ArrayList<>();
         private final List<AggregationOperation> projectOperations = new ArrayList<>();
         private final Class<T> targetType;
         private final ProjectionBuilder<T> tProjectionBuilder;
@@ -153,7 +301,7 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
         }
 
         public Builder<T> withAggregationOperations(List<AggregationOperation> operations) {
-            if (operations != null) this.aggregationOperations.addAll(operations);
+            if (operations != null && operations != this.aggregationOperations) this.aggregationOperations.addAll(operations);
 
             return this;
         }
@@ -201,11 +349,22 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
         }
 
         private void resolveVirtualField() {
+            this.virtualFieldOperations.clear();
             boolean exits = VirtualFieldResolverUtil.hasVirtualFields(targetType);
             if (!exits) return;
 
             List<AggregationOperation> ops = VirtualFieldResolverUtil.resolve(targetType, filterOptions.isDebug());
-            this.aggregationOperations.addAll(ops);
+            this.virtualFieldOperations.addAll(ops);
+        }
+
+        // эрэмбэлсэн хайлтын оноо зөвхөн pipeline-д тооцоологдоно
+        private boolean isFindOnly() {
+            return aggregationOperations.isEmpty() && virtualFieldOperations.isEmpty() && projectOperations.isEmpty()
+                    && !RelevanceScoreUtil.isRanked(filterGroup, filterOptions, targetType);
+        }
+
+        private boolean hasPipelineOperations() {
+            return !aggregationOperations.isEmpty() || !virtualFieldOperations.isEmpty();
         }
 
 
@@ -249,26 +408,103 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
 
         public Page<T> executePage() {
             if (pageable == null) this.pageable = Pageable.unpaged();
-            Page<T> result;
+
+            String cacheKey = resultCacheKey(QueryResultCache.Kind.PAGE);
+            if (cacheKey != null) {
+                return QueryResultCache.page(cacheKey, targetType, mongoTemplate, pageable, resultCacheDependencies(),
+                        () -> executePageUncached(Document.class));
+            }
+            return executePageUncached(targetType);
+        }
+
+        /**
+         * @return null when the result cache is off for this query; custom aggregation operations are never cached,
+         * nor are virtual-field lookups whose joined collections cannot be resolved
+         */
+        private String resultCacheKey(QueryResultCache.Kind kind) {
+            if (!QueryResultCache.isEnabled(filterOptions, targetType) || !aggregationOperations.isEmpty()) return null;
+            if (resultCacheDependencies() == null) return null;
+
+            Pageable keyPageable = kind == QueryResultCache.Kind.PAGE ? pageable : null;
+            List<AggregationOperation> keyProjection = kind == QueryResultCache.Kind.PAGE ? projectOperations : null;
+            return QueryResultCache.keyOf(kind, targetType, filterGroup, filterOptions, keyPageable, keyProjection, null);
+        }
+
+        private Set<String> resultCacheDependencies() {
+            return QueryResultCache.dependenciesOf(virtualFieldOperations);
+        }
+
+        private <R> Page<R> executePageUncached(Class<R> outputType) {
+            Page<R> result;
+
+            CountStrategy countStrategy;
 
             long start = System.nanoTime();
 
-            if (aggregationOperations.isEmpty() && projectOperations.isEmpty()) {
-                AtomicReference<Page<T>> finalResult = new AtomicReference<>();
+            if (isFindOnly()) {
+                FilterExecutor<T> executor = build();
+                AtomicReference<Page<R>> finalResult = new AtomicReference<>();
                 MemoryUtils.monitorPerformance("executing aggregation", () -> {
-                    finalResult.set(build().executePage());
+                    finalResult.set(executor.executePage(outputType));
                 }, filterOptions.getMemoryThreshholdPercent());
 
                 result = finalResult.get();
+                countStrategy = executor.getUsedCountStrategy();
             } else {
-                result = AggregationExecutor.fromFBuilder(this).execute();
+                AggregationExecutor.Builder<T> aggregationBuilder = AggregationExecutor.fromFBuilder(this);
+                result = aggregationBuilder.execute(outputType);
+                countStrategy = aggregationBuilder.getUsedCountStrategy();
             }
 
-            recordStats(start, result.getContent().size(), !aggregationOperations.isEmpty());
+            recordStats(start, result.getContent().size(), hasPipelineOperations(), countStrategy);
 
             return result;
         }
 
+        /**
+         * Keyset pagination using the sort of the configured pageable.
+         *
+         * @param after token of the previous slice, null for the first one
+         */
+        public SeekSlice<T> executeSlice(SeekToken after, int size) {
+            Sort sort = pageable != null ? pageable.getSort() : Sort.unsorted();
+            SeekSlice<T> result;
+
+            long start = System.nanoTime();
+
+            if (isFindOnly()) {
+                result = build().executeSlice(sort, after, size);
+            } else {
+                result = AggregationExecutor.fromFBuilder(this).executeSlice(sort, after, size);
+            }
+
+            recordStats(start, result.getContent().size(), hasPipelineOperations());
+
+            return result;
+        }
+
+        /**
+         * Page, total and {@code summaryOps} over the whole match in one {@code $facet} aggregation,
+         * whatever the count strategy.
+         */
+        public PageWithSummary<T> executePageWithSummary(Map<String, Set<SummaryExecutor.AggregateOp>> summaryOps) {
+            if (pageable == null) this.pageable = Pageable.unpaged();
+            long start = System.nanoTime();
+
+            AggregationExecutor.Builder<T> aggregationBuilder = AggregationExecutor.fromFBuilder(this);
+            PageWithSummary<T> result = aggregationBuilder.executeWithSummary(summaryOps != null ? summaryOps : Map.of());
+
+            recordStats(start, result.getContent().size(), true, aggregationBuilder.getUsedCountStrategy());
+            return result;
+        }
+
+        public Stream<T> executeStream() {
+            if (isFindOnly()) {
+                return build().executeStream();
+            }
+            return AggregationExecutor.fromFBuilder(this).executeStream();
+        }
+
         public List<T> executeList() {
             long start = System.nanoTime();
             List<T> result = build().executeList();
@@ -311,6 +547,34 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
             return result;
         }
 
+        public Page<Object> executeAutocomplete(String field, String prefix, int limit, boolean ignoreCase) {
+            long start = System.nanoTime();
+            if (filterOptions == null)
+                filterOptions = FilterOptions.defaults();
+
+            filterOptions.extractFromFilterGroup(filterGroup);
+
+            SuggestionExecutor<T> suggestionExecutor = new SuggestionExecutor<>(mongoTemplate, filterOptions, targetType);
+            Page<Object> result = suggestionExecutor.autocomplete(field, prefix, limit, ignoreCase, filterGroup);
+            recordStats(start, result.getContent().size(), true);
+
+            return result;
+        }
+
+        public List<ValueFrequency> executeSuggestionTopByFrequency(String field, int k) {
+            long start = System.nanoTime();
+            if (filterOptions == null)
+                filterOptions = FilterOptions.defaults();
+
+            filterOptions.extractFromFilterGroup(filterGroup);
+
+            SuggestionExecutor<T> suggestionExecutor = new SuggestionExecutor<>(mongoTemplate, filterOptions, targetType);
+            List<ValueFrequency> result = suggestionExecutor.suggestTopByFrequency(field, k, filterGroup);
+            recordStats(start, result.size(), true);
+
+            return result;
+        }
+
         public Set<Object> executeSuggestionByField(String field) {
             long start = System.nanoTime();
             if (filterOptions == null)
@@ -329,9 +593,17 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
         }
 
         public long executeCount() {
+            String cacheKey = resultCacheKey(QueryResultCache.Kind.COUNT);
+            if (cacheKey != null) {
+                return QueryResultCache.value(cacheKey, targetType, mongoTemplate, resultCacheDependencies(), this::executeCountUncached);
+            }
+            return executeCountUncached();
+        }
+
+        private long executeCountUncached() {
             long result;
 
-            if (aggregationOperations.isEmpty() && projectOperations.isEmpty()) {
+            if (isFindOnly()) {
                 result = build().executeCount();
             } else {
                 result = AggregationExecutor.fromFBuilder(this).executeCount();
@@ -344,7 +616,7 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
             if (sort == null) sort = Sort.unsorted();
             T result;
 
-            if (aggregationOperations.isEmpty() && projectOperations.isEmpty()) {
+            if (isFindOnly()) {
                 result = build().executeSingleResult(sort);
             } else {
                 result = AggregationExecutor.fromFBuilder(this).executeSingleResult(sort);
@@ -358,14 +630,27 @@ public class FilterExecutor<T> extends AbstractMongoExecutor<T> {
         }
 
         private void recordStats(long start, long size, boolean usingAggregation) {
+            recordStats(start, size, usingAggregation, null);
+        }
+
+        private void recordStats(long start, long size, boolean usingAggregation, CountStrategy countStrategy) {
             int fCount = filterGroup != null ? filterGroup.count() : 0;
-            FilterExecutionStatsHolder.createStats(start, size, usingAggregation, fCount, pageable);
+            boolean truncated = NgramIndexUtil.candidatesTruncated(mongoTemplate, filterGroup, filterOptions, targetType);
+            FilterExecutionStatsHolder.createStats(start, size, usingAggregation, fCount, pageable, countStrategy, truncated);
         }
 
         public boolean exists() {
+            String cacheKey = resultCacheKey(QueryResultCache.Kind.EXISTS);
+            if (cacheKey != null) {
+                return QueryResultCache.value(cacheKey, targetType, mongoTemplate, resultCacheDependencies(), this::existsUncached);
+            }
+            return existsUncached();
+        }
+
+        private boolean existsUncached() {
             boolean result;
 
-            if (aggregationOperations.isEmpty() && projectOperations.isEmpty()) {
+            if (isFindOnly()) {
                 result = build().exists();
             } else {
                 result = AggregationExecutor.fromFBuilder(this).exists();
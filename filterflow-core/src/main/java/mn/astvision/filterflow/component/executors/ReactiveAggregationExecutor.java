@@ -0,0 +1,220 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.component.abstraction.AbstractReactiveMongoExecutor;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.enums.CountStrategy;
+import mn.astvision.filterflow.util.PredicatePushdownUtil;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import mn.astvision.filterflow.util.search.RelevanceScoreUtil;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.util.CollectionUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link AggregationExecutor}: the same pipeline (operations, {@code $match}, projections)
+ * executed on a {@link ReactiveMongoTemplate}.
+ *
+ * @author zorigtbaatar
+ */
+
+public class ReactiveAggregationExecutor<T> extends AbstractReactiveMongoExecutor<T> {
+    private final FilterGroup filters;
+    private final List<AggregationOperation> operations;
+    private final List<AggregationOperation> virtualFieldOperations;
+    private final List<AggregationOperation> projectOperations;
+    private final Pageable pageable;
+
+    ReactiveAggregationExecutor(ReactiveFilterExecutor.Builder<T> builder) {
+        super(builder.getMongoTemplate(), builder.getFilterOptions(), builder.getTargetType());
+        this.filters = builder.getFilterGroup();
+        this.operations = builder.getAggregationOperations();
+        this.virtualFieldOperations = builder.getVirtualFieldOperations();
+        this.projectOperations = builder.getProjectOperations();
+        this.pageable = builder.getPageable() != null ? builder.getPageable() : Pageable.unpaged();
+    }
+
+    public Flux<T> executeFlux() {
+        return Flux.defer(() -> {
+            List<AggregationOperation> pipeline;
+            if (isLateMaterialized()) {
+                pipeline = buildMatchPipeline();
+                addPaging(pipeline);
+                pipeline.addAll(virtualFieldOperations);
+                if (!CollectionUtils.isEmpty(projectOperations)) pipeline.addAll(projectOperations);
+            } else {
+                pipeline = buildPipeline(true);
+                addPaging(pipeline);
+            }
+
+            AggregationOptions.Builder aggregationOptions = AggregationOptions.builder().allowDiskUse(options.isAllowDiskUse());
+            if (options.getStreamBatchSize() > 0) aggregationOptions.cursorBatchSize(options.getStreamBatchSize());
+
+            Aggregation aggregation = collated(Aggregation.newAggregation(pipeline).withOptions(aggregationOptions.build()), filters);
+            debug("Executing reactive aggregation on " + getCollectionName());
+            debug("aggregation: ", aggregation);
+
+            return mongoTemplate.aggregate(aggregation, getCollectionName(), targetType);
+        }).onErrorMap(ex -> !(ex instanceof FilterException), ex -> new FilterException("Failed to execute reactive aggregation", ex));
+    }
+
+    /**
+     * Content and count are subscribed together, so both queries are in flight at once.
+     * {@link CountStrategy#FACET} folds them into a single {@code $facet} round-trip instead.
+     */
+    public Mono<Page<T>> executePage() {
+        if (pageable.isUnpaged() || options.isSkipCount()) {
+            return executeFlux().collectList().map(content -> new PageImpl<>(content, pageable, content.size()));
+        }
+
+        if (options.getCountStrategy() == CountStrategy.FACET) {
+            return executeFacetPage();
+        }
+
+        return Mono.zip(executeFlux().collectList(), executeCount())
+                .map(tuple -> new PageImpl<>(tuple.getT1(), pageable, tuple.getT2()));
+    }
+
+    private Mono<Page<T>> executeFacetPage() {
+        return Mono.defer(() -> {
+            List<AggregationOperation> pageTail = new ArrayList<>();
+            List<AggregationOperation> pipeline;
+            if (isLateMaterialized()) {
+                pageTail.addAll(virtualFieldOperations);
+                if (!CollectionUtils.isEmpty(projectOperations)) pageTail.addAll(projectOperations);
+                pipeline = buildMatchPipeline();
+            } else {
+                pipeline = buildPipeline(true);
+            }
+
+            List<AggregationOperation> rankStages = rankStages();
+            pipeline.addAll(rankStages);
+            AggregationOperation contentSort = rankStages.isEmpty()
+                    ? AggregationExecutor.facetContentSort(pageable.getSort(), GlobalSearchResolver.usesTextSearch(filters, options, targetType))
+                    : null;
+            pipeline.add(AggregationExecutor.pageFacet(pageable, contentSort, pageTail));
+
+            Aggregation aggregation = collated(Aggregation.newAggregation(pipeline), filters);
+            debug("Executing reactive facet aggregation on " + getCollectionName());
+            debug("aggregation: ", aggregation);
+
+            //@formatter:off
+            return mongoTemplate.aggregate(aggregation, getCollectionName(), Document.class)
+                    .next()
+                    .map(result -> AggregationExecutor.readFacetPage(result, pageable, targetType, mongoTemplate.getConverter()))
+                    .defaultIfEmpty(new PageImpl<>(new ArrayList<>(), pageable, 0));
+            //@formatter:on
+        });
+    }
+
+    public Mono<Long> executeCount() {
+        return Mono.defer(() -> {
+            List<AggregationOperation> pipeline = isLateMaterialized() ? buildMatchPipeline() : buildPipeline(true);
+            if (options.getSearchTopK() > 0 && RelevanceScoreUtil.isRanked(filters, options, targetType)) {
+                pipeline.add(Aggregation.limit(options.getSearchTopK()));
+            }
+            Aggregation aggregation = collated(AggregationExecutor.countAggregation(pipeline), filters);
+            debug("Executing reactive count aggregation on " + getCollectionName());
+
+            //@formatter:off
+            return mongoTemplate.aggregate(aggregation, getCollectionName(), Document.class)
+                    .next()
+                    .map(AggregationExecutor::readCount)
+                    .defaultIfEmpty(0L);
+            //@formatter:on
+        });
+    }
+
+    public Mono<T> executeSingle(Sort sort) {
+        return Mono.defer(() -> {
+            List<AggregationOperation> pipeline = buildPipeline(false);
+            if (sort != null && sort.isSorted()) pipeline.add(Aggregation.sort(sort));
+            if (!CollectionUtils.isEmpty(projectOperations)) pipeline.addAll(projectOperations);
+            pipeline.add(Aggregation.limit(1));
+
+            debug("Executing reactive single aggregation for {}", targetType.getSimpleName());
+            return mongoTemplate.aggregate(collated(Aggregation.newAggregation(pipeline), filters), getCollectionName(), targetType).next();
+        });
+    }
+
+    public Mono<Boolean> exists() {
+        return Mono.defer(() -> {
+            List<AggregationOperation> pipeline = buildPipeline(false);
+            pipeline.add(Aggregation.limit(1));
+            pipeline.add(Aggregation.project("_id"));
+
+            return mongoTemplate.aggregate(collated(Aggregation.newAggregation(pipeline), filters), getCollectionName(), Document.class).hasElements();
+        });
+    }
+
+    private void addPaging(List<AggregationOperation> pipeline) {
+        List<AggregationOperation> rankStages = rankStages();
+        if (!rankStages.isEmpty()) {
+            pipeline.addAll(rankStages);
+        } else if (pageable.getSort().isSorted()) {
+            pipeline.add(Aggregation.sort(pageable.getSort()));
+        } else if (GlobalSearchResolver.usesTextSearch(filters, options, targetType)) {
+            pipeline.add(GlobalSearchResolver.textScoreSort());
+        }
+        if (pageable.isPaged()) {
+            pipeline.add(Aggregation.skip(pageable.getOffset()));
+            pipeline.add(Aggregation.limit(pageable.getPageSize()));
+        }
+    }
+
+    private List<AggregationOperation> rankStages() {
+        return RelevanceScoreUtil.rankStages(filters, options, targetType, pageable.getSort());
+    }
+
+    /**
+     * Same rule as {@link AggregationExecutor}: virtual fields of a page are resolved after sort/skip/limit
+     * when neither the filters nor the sort read them.
+     */
+    private boolean isLateMaterialized() {
+        return pageable.isPaged() && AggregationExecutor.canMaterializeLate(options, targetType, filters, operations, virtualFieldOperations, pageable.getSort());
+    }
+
+    private List<AggregationOperation> buildMatchPipeline() {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        if (filters != null && !filters.getComponents().isEmpty()) {
+            pipeline.add(Aggregation.match(buildCriteria(filters)));
+        }
+        return pipeline;
+    }
+
+    private List<AggregationOperation> buildPipeline(boolean withProjection) {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        boolean hasFilters = filters != null && !filters.getComponents().isEmpty();
+
+        if (!CollectionUtils.isEmpty(operations)) {
+            debug("added ops on build pipeline size: ", operations.size());
+            pipeline.addAll(operations);
+        }
+
+        boolean textSearch = hasFilters && GlobalSearchResolver.usesTextSearch(filters, options, targetType);
+        if (!virtualFieldOperations.isEmpty() && hasFilters && pipeline.isEmpty() && (options.isPredicatePushdownEnabled() || textSearch)) {
+            pipeline.addAll(PredicatePushdownUtil.matchAroundVirtualFields(filters, virtualFieldOperations, targetType, this::buildCriteria, textSearch));
+        } else {
+            pipeline.addAll(virtualFieldOperations);
+            if (hasFilters) pipeline.add(Aggregation.match(buildCriteria(filters)));
+        }
+
+        if (withProjection && !CollectionUtils.isEmpty(projectOperations)) {
+            pipeline.addAll(projectOperations);
+        }
+
+        return pipeline;
+    }
+}
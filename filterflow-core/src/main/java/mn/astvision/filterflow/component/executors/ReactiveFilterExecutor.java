@@ -0,0 +1,239 @@
+package mn.astvision.filterflow.component.executors;
+
+import lombok.Getter;
+import mn.astvision.filterflow.builders.ProjectionBuilder;
+import mn.astvision.filterflow.component.abstraction.AbstractReactiveMongoExecutor;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.CountStrategy;
+import mn.astvision.filterflow.util.VirtualFieldResolverUtil;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import mn.astvision.filterflow.util.search.RelevanceScoreUtil;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Non-blocking counterpart of {@link FilterExecutor}. Criteria and virtual-field lookups are built exactly as on the
+ * blocking path; results are emitted from the driver cursor, so backpressure is honoured by the reactive driver.
+ *
+ * @author zorigtbaatar
+ */
+
+public class ReactiveFilterExecutor<T> extends AbstractReactiveMongoExecutor<T> {
+    private final FilterGroup filterGroup;
+    private final Pageable pageable;
+
+    private ReactiveFilterExecutor(Builder<T> builder) {
+        super(builder.mongoTemplate,
+                builder.filterOptions != null ? builder.filterOptions : FilterOptions.defaults(),
+                Objects.requireNonNull(builder.targetType, "Target type must not be null"));
+
+        this.filterGroup = builder.filterGroup;
+        this.pageable = builder.pageable != null ? builder.pageable : Pageable.unpaged();
+    }
+
+    public static <T> Builder<T> forType(Class<T> targetType) {
+        return new Builder<>(targetType);
+    }
+
+    public Flux<T> executeFlux() {
+        return Flux.defer(() -> {
+            Criteria criteria = buildCriteria(filterGroup);
+            Query query = collated(Query.query(criteria), filterGroup);
+
+            if (pageable.isPaged()) query.with(pageable);
+            else if (pageable.getSort().isSorted()) query.with(pageable.getSort());
+
+            if (options.getStreamBatchSize() > 0) query.cursorBatchSize(options.getStreamBatchSize());
+            if (options.isAllowDiskUse()) query.allowDiskUse(true);
+
+            debug("executing reactive find, criteria: {}", criteria.getCriteriaObject());
+            return mongoTemplate.find(query, targetType);
+        }).onErrorMap(ex -> !(ex instanceof FilterException), ex -> new FilterException("Failed to execute query", ex));
+    }
+
+    /**
+     * Content and count are subscribed together, so both queries are in flight at once.
+     * {@link CountStrategy#FACET} folds them into a single {@code $facet} round-trip instead.
+     */
+    public Mono<Page<T>> executePage() {
+        if (pageable.isUnpaged() || options.isSkipCount()) {
+            return executeFlux().collectList().map(content -> new PageImpl<>(content, pageable, content.size()));
+        }
+
+        if (options.getCountStrategy() == CountStrategy.FACET) {
+            return executeFacetPage();
+        }
+
+        return Mono.zip(executeFlux().collectList(), executeCount())
+                .map(tuple -> PageableExecutionUtils.getPage(tuple.getT1(), pageable, tuple::getT2));
+    }
+
+    private Mono<Page<T>> executeFacetPage() {
+        return Mono.defer(() -> {
+            Criteria criteria = buildCriteria(filterGroup);
+            AggregationOperation contentSort = AggregationExecutor.facetContentSort(pageable.getSort(), GlobalSearchResolver.usesTextSearch(filterGroup, options, targetType));
+            Aggregation aggregation = collated(Aggregation.newAggregation(Aggregation.match(criteria), AggregationExecutor.pageFacet(pageable, contentSort, List.of())), filterGroup);
+            debug("executing reactive facet page, criteria: {}", criteria.getCriteriaObject());
+
+            //@formatter:off
+            return mongoTemplate.aggregate(aggregation, getCollectionName(), Document.class)
+                    .next()
+                    .map(result -> AggregationExecutor.readFacetPage(result, pageable, targetType, mongoTemplate.getConverter()))
+                    .defaultIfEmpty(new PageImpl<>(new ArrayList<>(), pageable, 0));
+            //@formatter:on
+        });
+    }
+
+    public Mono<Long> executeCount() {
+        return Mono.defer(() -> mongoTemplate.count(collated(Query.query(buildCriteria(filterGroup)), filterGroup), targetType));
+    }
+
+    public Mono<T> executeSingleResult(Sort sort) {
+        return Mono.defer(() -> {
+            Criteria criteria = buildCriteria(filterGroup);
+            Query query = collated(new Query(criteria), filterGroup).with(sort != null ? sort : Sort.unsorted()).limit(1);
+            debug("executing reactive single result, criteria: {}", criteria.getCriteriaObject());
+
+            return mongoTemplate.findOne(query, targetType);
+        });
+    }
+
+    public Mono<Boolean> exists() {
+        return Mono.defer(() -> mongoTemplate.exists(collated(new Query(buildCriteria(filterGroup)), filterGroup), targetType));
+    }
+
+    @Getter
+    public static class Builder<T> {
+        private final List<AggregationOperation> aggregationOperations = new ArrayList<>();
+        private final List<AggregationOperation> virtualFieldOperations = new ArrayList<>();
+        private final List<AggregationOperation> projectOperations = new ArrayList<>();
+        private final Class<T> targetType;
+        private final ProjectionBuilder<T> tProjectionBuilder;
+        private FilterOptions filterOptions;
+        private FilterGroup filterGroup;
+        private ReactiveMongoTemplate mongoTemplate;
+        private Pageable pageable;
+
+        public Builder(Class<T> targetType) {
+            this.targetType = targetType;
+            this.tProjectionBuilder = ProjectionBuilder.ofType(targetType);
+        }
+
+        public Builder<T> withAggregationOperations(List<AggregationOperation> operations) {
+            if (operations != null) this.aggregationOperations.addAll(operations);
+
+            return this;
+        }
+
+        public Builder<T> withProjection(List<String> fieldNames) {
+            if (fieldNames == null || fieldNames.isEmpty()) return this;
+
+            tProjectionBuilder.withFields(fieldNames).set(this.projectOperations);
+
+            return this;
+        }
+
+        public Builder<T> withExcludeFields(List<String> fieldNames) {
+            if (fieldNames == null || fieldNames.isEmpty()) return this;
+
+            tProjectionBuilder.withExcludeFields(fieldNames).set(this.projectOperations);
+            return this;
+        }
+
+        public Builder<T> withOptions(FilterOptions options) {
+            this.filterOptions = options != null ? options : FilterOptions.defaults();
+            if (filterOptions.isResolveVF()) resolveVirtualField();
+            withProjection(filterOptions.getProject());
+            withExcludeFields(filterOptions.getExclude());
+            return this;
+        }
+
+        private void resolveVirtualField() {
+            this.virtualFieldOperations.clear();
+            if (!VirtualFieldResolverUtil.hasVirtualFields(targetType)) return;
+
+            this.virtualFieldOperations.addAll(VirtualFieldResolverUtil.resolve(targetType, filterOptions.isDebug()));
+        }
+
+        public Builder<T> withMongoTemplate(ReactiveMongoTemplate mongoTemplate) {
+            this.mongoTemplate = Objects.requireNonNull(mongoTemplate, "ReactiveMongoTemplate must not be null");
+            return this;
+        }
+
+        public Builder<T> withFilters(List<FilterRequest> filters) {
+            if (filters == null || filters.isEmpty()) {
+                return this;
+            }
+
+            FilterGroup fg = new FilterGroup();
+            fg.addComponent(filters);
+            this.filterGroup = fg;
+            return this;
+        }
+
+        public Builder<T> withFilters(FilterGroup filterGroup) {
+            this.filterGroup = filterGroup;
+            return this;
+        }
+
+        public Builder<T> withPageable(Pageable pageable) {
+            this.pageable = pageable;
+            return this;
+        }
+
+        public ReactiveFilterExecutor<T> build() {
+            if (mongoTemplate == null) {
+                throw new FilterException("ReactiveMongoTemplate must be provided");
+            }
+            if (targetType == null) {
+                throw new FilterException("Target type must be provided");
+            }
+
+            return new ReactiveFilterExecutor<>(this);
+        }
+
+        // эрэмбэлсэн хайлтын оноо зөвхөн pipeline-д тооцоологдоно
+        private boolean usesAggregation() {
+            return !aggregationOperations.isEmpty() || !virtualFieldOperations.isEmpty() || !projectOperations.isEmpty()
+                    || RelevanceScoreUtil.isRanked(filterGroup, filterOptions, targetType);
+        }
+
+        public Flux<T> executeFlux() {
+            return usesAggregation() ? new ReactiveAggregationExecutor<>(this).executeFlux() : build().executeFlux();
+        }
+
+        public Mono<Page<T>> executePage() {
+            return usesAggregation() ? new ReactiveAggregationExecutor<>(this).executePage() : build().executePage();
+        }
+
+        public Mono<Long> executeCount() {
+            return usesAggregation() ? new ReactiveAggregationExecutor<>(this).executeCount() : build().executeCount();
+        }
+
+        public Mono<T> executeSingleResult(Sort sort) {
+            return usesAggregation() ? new ReactiveAggregationExecutor<>(this).executeSingle(sort) : build().executeSingleResult(sort);
+        }
+
+        public Mono<Boolean> exists() {
+            return usesAggregation() ? new ReactiveAggregationExecutor<>(this).exists() : build().exists();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.component.abstraction.AbstractReactiveMongoExecutor;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.ValueFrequency;
+import mn.astvision.filterflow.util.cache.AutocompleteCache;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link SuggestionExecutor}. Distinct values are emitted in sort order; {@code null} values
+ * are dropped since a {@link Flux} cannot carry them.
+ *
+ * @author zorigtbaatar
+ */
+
+public class ReactiveSuggestionExecutor<T> extends AbstractReactiveMongoExecutor<T> {
+    public ReactiveSuggestionExecutor(ReactiveMongoTemplate mongoTemplate, FilterOptions filterOptions, Class<T> targetType) {
+        super(mongoTemplate, filterOptions, targetType);
+    }
+
+    public Flux<Object> suggestByField(String field, int limit, int offset, Sort sort, FilterGroup filterGroup) {
+        return Flux.defer(() -> {
+            validateField(field);
+
+            Criteria criteria = SuggestionExecutor.suggestionCriteria(filterGroup, targetType);
+            Aggregation aggregation = SuggestionExecutor.suggestionAggregation(criteria, field, limit, offset, sort);
+            debug("on reactive suggestion, fieldPath: %s, limit: %d, offset: %d".formatted(field, limit, offset));
+
+            return mongoTemplate.aggregate(aggregation, targetType, Document.class).mapNotNull(doc -> doc.get("_id"));
+        }).onErrorMap(ex -> !(ex instanceof FilterException), ex -> new FilterException(
+                "Failed to execute suggestion query for field '%s' on '%s': %s".formatted(field, targetType.getSimpleName(), ex.getMessage()), ex));
+    }
+
+    public Mono<Page<Object>> suggestByField(String field, Pageable pageable, FilterGroup filterGroup) {
+        int limit = pageable.isPaged() ? pageable.getPageSize() : 0;
+        int offset = pageable.isPaged() ? (int) pageable.getOffset() : 0;
+        Sort sort = pageable.getSort().isUnsorted() ? Sort.by(Sort.Direction.ASC, field) : pageable.getSort();
+
+        Mono<Long> total = Mono.defer(() -> {
+            Aggregation countAggregation = SuggestionExecutor.countAggregation(SuggestionExecutor.suggestionCriteria(filterGroup, targetType), field);
+            //@formatter:off
+            return mongoTemplate.aggregate(countAggregation, targetType, Document.class)
+                    .next()
+                    .map(SuggestionExecutor::readCount)
+                    .defaultIfEmpty(0L);
+            //@formatter:on
+        });
+
+        Pageable pageableWithSort = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+
+        //@formatter:off
+        return Mono.zip(suggestByField(field, limit, offset, sort, filterGroup).collectList(), total)
+                .map(tuple -> new PageImpl<>(tuple.getT1(), pageableWithSort, tuple.getT2()));
+        //@formatter:on
+    }
+
+    /**
+     * Reactive counterpart of {@link SuggestionExecutor#autocomplete}, sharing its {@link AutocompleteCache}.
+     */
+    public Mono<Page<Object>> autocomplete(String field, String prefix, int limit, boolean ignoreCase, FilterGroup filterGroup) {
+        return Mono.defer(() -> {
+            if (limit <= 0) throw new FilterException("Autocomplete limit must be positive");
+            validateField(field);
+
+            String typed = prefix != null ? prefix : "";
+            String collection = mongoTemplate.getCollectionName(targetType);
+            Criteria filters = buildCriteria(filterGroup);
+            String scope = SuggestionExecutor.autocompleteScope(filters, limit, ignoreCase);
+            boolean cacheable = !options.isBypassResultCache();
+
+            Page<Object> cached = cacheable ? AutocompleteCache.get(collection, targetType, field, scope, typed, ignoreCase) : null;
+            if (cached != null) return Mono.just(cached);
+            long generation = AutocompleteCache.generation(collection);
+
+            FilterGroup group = SuggestionExecutor.autocompleteGroup(field, typed, ignoreCase, filterGroup);
+            Criteria criteria = SuggestionExecutor.autocompleteCriteria(filters,
+                    ignoreCase ? buildCriteria(SuggestionExecutor.autocompleteGroup(field, typed, true, null)) : null, field, typed);
+
+            //@formatter:off
+            Mono<Page<Object>> page = SuggestionExecutor.usesDistinct(options, filterGroup, typed)
+                    ? mongoTemplate.findDistinct(collated(new Query(criteria), group), field, targetType, Object.class)
+                            .collectList()
+                            .map(values -> SuggestionExecutor.distinctPage(values, field, limit))
+                    : mongoTemplate.aggregate(collated(SuggestionExecutor.autocompleteAggregation(criteria, field, limit), group), targetType, Document.class)
+                            .next()
+                            .map(result -> SuggestionExecutor.readAutocomplete(result, field, limit))
+                            .defaultIfEmpty(SuggestionExecutor.readAutocomplete(null, field, limit));
+            if (!cacheable) return page;
+            return page.doOnNext(result -> AutocompleteCache.put(collection, targetType, field, scope, typed, generation, result,
+                    Duration.ofSeconds(options.getAutocompleteCacheTtlSeconds())));
+            //@formatter:on
+        }).onErrorMap(ex -> !(ex instanceof FilterException), ex -> new FilterException(
+                "Failed to execute autocomplete for field '%s' on '%s': %s".formatted(field, targetType.getSimpleName(), ex.getMessage()), ex));
+    }
+
+    public Flux<ValueFrequency> suggestTopByFrequency(String field, int k, FilterGroup filterGroup) {
+        return Flux.defer(() -> {
+            if (k <= 0) throw new FilterException("Top-K size must be positive");
+            validateField(field);
+
+            List<String> arrayPaths = SuggestionExecutor.arrayPaths(field, getPersistentEntityOrThrow(), mongoTemplate.getConverter().getMappingContext());
+            Aggregation aggregation = collated(SuggestionExecutor.frequencyAggregation(buildCriteria(filterGroup), field, arrayPaths, k), filterGroup);
+            debug("Built top-by-frequency pipeline: {}", aggregation.toString());
+
+            return mongoTemplate.aggregate(aggregation, targetType, Document.class).map(SuggestionExecutor::readFrequency);
+        }).onErrorMap(ex -> !(ex instanceof FilterException), ex -> new FilterException(
+                "Failed to execute top-by-frequency suggestion for field '%s' on '%s': %s".formatted(field, targetType.getSimpleName(), ex.getMessage()), ex));
+    }
+
+    private void validateField(String field) {
+        PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+        if (SuggestionExecutor.resolvePropertyByPath(field, entity, mongoTemplate.getConverter().getMappingContext()) == null) {
+            throw new FilterException(String.format("Invalid field: '%s' for type '%s'. Allowed fields are: %s",
+                    field, targetType.getSimpleName(), getAllMappedFieldNames(entity)));
+        }
+    }
+}
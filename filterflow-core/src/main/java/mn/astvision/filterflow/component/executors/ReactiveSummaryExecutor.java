@@ -0,0 +1,180 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.component.abstraction.AbstractReactiveMongoExecutor;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.GroupedSummary;
+import mn.astvision.filterflow.model.HistogramBucket;
+import mn.astvision.filterflow.model.enums.HistogramUnit;
+import mn.astvision.filterflow.util.HistogramUtil;
+import mn.astvision.filterflow.util.sketch.SummarySketch;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of {@link SummaryExecutor}; builds the same {@code $group} stage.
+ *
+ * @author zorigtbaatar
+ */
+
+public class ReactiveSummaryExecutor<T> extends AbstractReactiveMongoExecutor<T> {
+
+    private ReactiveSummaryExecutor(ReactiveMongoTemplate mongoTemplate, Class<T> targetType, FilterOptions filterOptions) {
+        super(mongoTemplate, filterOptions, targetType);
+    }
+
+    public static <T> ReactiveSummaryExecutor<T> create(ReactiveMongoTemplate mongoTemplate, Class<T> targetType, FilterOptions options) {
+        return new ReactiveSummaryExecutor<>(mongoTemplate, targetType, options);
+    }
+
+    public Mono<BigDecimal> execute(String field, SummaryExecutor.AggregateOp op, FilterGroup filterGroup) {
+        //@formatter:off
+        return executeMany(Map.of(field, Set.of(op)), filterGroup)
+                .map(result -> result.getOrDefault(field, Map.of()).getOrDefault(op.name(), BigDecimal.ZERO));
+        //@formatter:on
+    }
+
+    public Mono<Map<String, Map<String, BigDecimal>>> executeMany(Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps, FilterGroup filterGroup) {
+        return Mono.defer(() -> {
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            Map<String, String> mappedFields = SummaryExecutor.mapFields(entity, fieldOps.keySet(), () -> getAllMappedFieldNames(entity));
+
+            Map<String, Set<SummaryExecutor.AggregateOp>> sketchOps = options.isApproximateSummaries() ? SummaryExecutor.sketchedOps(fieldOps) : Map.of();
+            if (sketchOps.isEmpty()) return aggregateSummary(mappedFields, fieldOps, filterGroup);
+
+            Map<String, Set<SummaryExecutor.AggregateOp>> exactOps = SummaryExecutor.exactOps(fieldOps);
+            Mono<Map<String, Map<String, BigDecimal>>> server = SummaryExecutor.hasOps(exactOps)
+                    ? aggregateSummary(mappedFields, exactOps, filterGroup)
+                    : Mono.just(Map.of());
+
+            return Mono.zip(server, sketch(entity, sketchOps.keySet(), filterGroup))
+                    .map(tuple -> SummaryExecutor.combine(mappedFields, fieldOps, tuple.getT1(), tuple.getT2()));
+        }).onErrorMap(ex -> !(ex instanceof FilterException), ex -> new FilterException(
+                "Failed to execute summary aggregation for fields %s on '%s': %s".formatted(fieldOps.keySet(), targetType.getSimpleName(), ex.getMessage()), ex));
+    }
+
+    /**
+     * Reactive counterpart of {@link SummaryExecutor#sketch(Set, FilterGroup)}.
+     */
+    public Mono<Map<String, SummarySketch>> sketch(Set<String> fields, FilterGroup filterGroup) {
+        return Mono.defer(() -> {
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            SummaryExecutor.mapFields(entity, fields, () -> getAllMappedFieldNames(entity));
+            return sketch(entity, fields, filterGroup);
+        }).onErrorMap(ex -> !(ex instanceof FilterException), ex -> new FilterException(
+                "Failed to sketch fields %s on '%s': %s".formatted(fields, targetType.getSimpleName(), ex.getMessage()), ex));
+    }
+
+    private Mono<Map<String, SummarySketch>> sketch(PersistentEntity<?, ?> entity, Set<String> fields, FilterGroup filterGroup) {
+        Query query = SummaryExecutor.sketchQuery(collated(Query.query(buildCriteria(filterGroup)), filterGroup), fields, options);
+        Map<String, String> storedNames = SummaryExecutor.storedNames(entity, fields);
+        debug("Sketching fields {} with query: {}", fields, query);
+
+        //@formatter:off
+        return mongoTemplate.query(targetType).as(Document.class).matching(query).all()
+                .reduceWith(() -> {
+                    Map<String, SummarySketch> sketches = new LinkedHashMap<>();
+                    fields.forEach(field -> sketches.put(field, new SummarySketch()));
+                    return sketches;
+                }, (sketches, document) -> {
+                    storedNames.forEach((field, stored) -> sketches.get(field).add(document.get(stored)));
+                    return sketches;
+                });
+        //@formatter:on
+    }
+
+    private Mono<Map<String, Map<String, BigDecimal>>> aggregateSummary(Map<String, String> mappedFields, Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps,
+                                                                      FilterGroup filterGroup) {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        pipeline.add(Aggregation.match(buildCriteria(filterGroup)));
+        pipeline.addAll(SummaryExecutor.summaryStages(mappedFields, fieldOps));
+
+        Aggregation aggregation = collated(Aggregation.newAggregation(pipeline), filterGroup);
+        debug("Built aggregation pipeline: {}", aggregation.toString());
+
+        //@formatter:off
+        return mongoTemplate.aggregate(aggregation, targetType, Document.class)
+                .next()
+                .map(result -> SummaryExecutor.readSummary(result, mappedFields, fieldOps))
+                .defaultIfEmpty(Collections.emptyMap());
+        //@formatter:on
+    }
+
+    public Flux<GroupedSummary> executeGrouped(List<String> groupFields, Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps,
+                                               FilterGroup filterGroup, Sort sort, int limit) {
+        return Flux.defer(() -> {
+            SummaryExecutor.validateGrouping(groupFields, limit);
+
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            Set<String> available = getAllMappedFieldNames(entity);
+            Map<String, String> groupKeys = SummaryExecutor.groupKeys(groupFields, available);
+            Map<String, String> mappedFields = SummaryExecutor.mapFields(entity, fieldOps.keySet(), () -> available);
+
+            List<AggregationOperation> pipeline = new ArrayList<>();
+            pipeline.add(Aggregation.match(buildCriteria(filterGroup)));
+            pipeline.addAll(SummaryExecutor.groupedStages(groupKeys, mappedFields, fieldOps, sort, limit));
+
+            Aggregation aggregation = collated(Aggregation.newAggregation(pipeline), filterGroup);
+            debug("Built grouped aggregation pipeline: {}", aggregation.toString());
+
+            return mongoTemplate.aggregate(aggregation, targetType, Document.class)
+                    .map(row -> SummaryExecutor.readGroupedRow(row, groupKeys, mappedFields, fieldOps));
+        }).onErrorMap(ex -> !(ex instanceof FilterException), ex -> new FilterException(
+                "Failed to execute grouped summary by %s on '%s': %s".formatted(groupFields, targetType.getSimpleName(), ex.getMessage()), ex));
+    }
+
+    public Mono<List<HistogramBucket>> executeDateHistogram(String dateField, HistogramUnit unit, ZoneId zone, Instant from, Instant to,
+                                                            Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps, FilterGroup filterGroup) {
+        return executeHistogram(dateField, fieldOps, filterGroup,
+                mappedFields -> SummaryExecutor.dateHistogramPlan(dateField, unit, zone, from, to, mappedFields, fieldOps));
+    }
+
+    public Mono<List<HistogramBucket>> executeBucketHistogram(String field, List<? extends Number> boundaries,
+                                                              Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps, FilterGroup filterGroup) {
+        return executeHistogram(field, fieldOps, filterGroup, mappedFields -> {
+            HistogramUtil.validateBoundaries(boundaries);
+            return SummaryExecutor.bucketHistogramPlan(field, boundaries, mappedFields, fieldOps);
+        });
+    }
+
+    public Mono<List<HistogramBucket>> executeAutoHistogram(String field, int buckets, Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps,
+                                                            FilterGroup filterGroup) {
+        return executeHistogram(field, fieldOps, filterGroup, mappedFields -> {
+            if (buckets < 1) throw new FilterException("Bucket count must be positive");
+            return SummaryExecutor.autoHistogramPlan(field, buckets, mappedFields, fieldOps);
+        });
+    }
+
+    private Mono<List<HistogramBucket>> executeHistogram(String field, Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps, FilterGroup filterGroup,
+                                                         Function<Map<String, String>, SummaryExecutor.HistogramPlan> planner) {
+        return Mono.defer(() -> {
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            Set<String> available = getAllMappedFieldNames(entity);
+            SummaryExecutor.requireField(field, available);
+            Map<String, String> mappedFields = SummaryExecutor.mapFields(entity, fieldOps.keySet(), () -> available);
+
+            SummaryExecutor.HistogramPlan plan = planner.apply(mappedFields);
+            Aggregation aggregation = collated(Aggregation.newAggregation(plan.pipeline(buildCriteria(filterGroup))), filterGroup);
+            debug("Built histogram pipeline: {}", aggregation.toString());
+
+            return mongoTemplate.aggregate(aggregation, targetType, Document.class)
+                    .collectList()
+                    .map(plan.reader());
+        }).onErrorMap(ex -> !(ex instanceof FilterException), ex -> new FilterException(
+                "Failed to execute histogram on '%s' of '%s': %s".formatted(field, targetType.getSimpleName(), ex.getMessage()), ex));
+    }
+}
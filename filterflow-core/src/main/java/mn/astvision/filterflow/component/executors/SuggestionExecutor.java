@@ -4,27 +4,39 @@ import mn.astvision.filterflow.component.abstraction.AbstractMongoExecutor;
 import mn.astvision.filterflow.exception.FilterException;
 import mn.astvision.filterflow.model.FilterGroup;
 import mn.astvision.filterflow.model.FilterOptions;
-import mn.astvision.filterflow.util.CriteriaBuilderUtil;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.ValueFrequency;
+import mn.astvision.filterflow.model.enums.FilterLogicMode;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.util.CriteriaPlanCache;
+import mn.astvision.filterflow.util.PatternCacheUtil;
+import mn.astvision.filterflow.util.cache.AutocompleteCache;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
 import org.bson.Document;
 import org.springframework.data.domain.*;
 import org.springframework.data.mapping.PersistentEntity;
 import org.springframework.data.mapping.PersistentProperty;
+import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.Fields;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.time.Duration;
+import java.util.*;
 
 /**
  * @author zorigtbaatar
  */
 
 public class SuggestionExecutor<T> extends AbstractMongoExecutor<T> {
+    static final String AUTOCOMPLETE_VALUES = "values";
+    static final String AUTOCOMPLETE_TOTAL = "total";
+    static final String FREQUENCY_COUNT = "count";
+
     public SuggestionExecutor(MongoTemplate mongoTemplate, FilterOptions filterOptions, Class<T> targetType) {
         super(mongoTemplate, filterOptions, targetType);
     }
@@ -55,20 +67,226 @@ public class SuggestionExecutor<T> extends AbstractMongoExecutor<T> {
         }
     }
 
+    /**
+     * Typeahead mode: the first {@code limit} distinct values of {@code field} starting with {@code prefix} (ascending)
+     * and how many there are, from one aggregation: an anchored prefix {@code $match} an index on the field can
+     * bound, one {@code $group}, then values and count side by side in a {@code $facet}.
+     * <p>
+     * With {@code ignoreCase} the prefix goes through {@code STARTS_WITH_CI}, so it uses the {@code _lower} copy of an
+     * {@code @IgnoreCaseIndexed} field or the configured collation. Without filters and with a non-empty prefix,
+     * {@link FilterOptions#isAutocompleteUseDistinct()} switches to the {@code distinct} command (an empty prefix would
+     * return every value of the field). Pages are kept in {@link AutocompleteCache} for
+     * {@link FilterOptions#getAutocompleteCacheTtlSeconds()} unless {@link FilterOptions#isBypassResultCache()} is set.
+     */
+    public Page<Object> autocomplete(String field, String prefix, int limit, boolean ignoreCase, FilterGroup filterGroup) {
+        try {
+            if (limit <= 0) throw new FilterException("Autocomplete limit must be positive");
+            validateField(field);
+
+            String typed = prefix != null ? prefix : "";
+            String collection = mongoTemplate.getCollectionName(targetType);
+            Criteria filters = buildCriteria(filterGroup);
+            String scope = autocompleteScope(filters, limit, ignoreCase);
+            boolean cacheable = !options.isBypassResultCache();
+
+            Page<Object> cached = cacheable ? AutocompleteCache.get(collection, targetType, field, scope, typed, ignoreCase) : null;
+            if (cached != null) {
+                debug("autocomplete '{}' on {} answered from cache", typed, field);
+                return cached;
+            }
+            long generation = AutocompleteCache.generation(collection);
+
+            FilterGroup group = autocompleteGroup(field, typed, ignoreCase, filterGroup);
+            Criteria criteria = autocompleteCriteria(filters, ignoreCase ? buildCriteria(autocompleteGroup(field, typed, true, null)) : null, field, typed);
+
+            Page<Object> page;
+            if (usesDistinct(options, filterGroup, typed)) {
+                List<Object> values = mongoTemplate.findDistinct(collated(new Query(criteria), group), field, targetType, Object.class);
+                page = distinctPage(values, field, limit);
+            } else {
+                Aggregation aggregation = collated(autocompleteAggregation(criteria, field, limit), group);
+                debug("Built autocomplete pipeline: {}", aggregation.toString());
+                dbExplainHandler.explainIfNeeded(aggregation);
+                page = readAutocomplete(mongoTemplate.aggregate(aggregation, targetType, Document.class).getUniqueMappedResult(), field, limit);
+            }
+
+            if (cacheable) {
+                AutocompleteCache.put(collection, targetType, field, scope, typed, generation, page, Duration.ofSeconds(options.getAutocompleteCacheTtlSeconds()));
+            }
+            return page;
+        } catch (FilterException e) {
+            throw e;
+        } catch (Exception ex) {
+            String msg = String.format("Failed to execute autocomplete for field '%s' on '%s': %s", field, targetType.getSimpleName(), ex.getMessage());
+            throw new FilterException(msg, ex);
+        }
+    }
+
+    private void validateField(String field) {
+        PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+        if (resolvePropertyByPath(field, entity) == null) {
+            throw new FilterException(String.format("Invalid field: '%s' for type '%s'. Allowed fields are: %s", field, targetType.getSimpleName(), getAllMappedFieldNames(entity)));
+        }
+    }
+
+    static String autocompleteScope(Criteria filters, int limit, boolean ignoreCase) {
+        return "%s|%d|%s".formatted(filters.getCriteriaObject().toJson(), limit, ignoreCase);
+    }
+
+    static boolean isEmpty(FilterGroup filterGroup) {
+        return filterGroup == null || filterGroup.getComponents().isEmpty();
+    }
+
+    /**
+     * The case-insensitive prefix is added as a filter so the criteria rewrite and the collation pick it up.
+     */
+    static FilterGroup autocompleteGroup(String field, String prefix, boolean ignoreCase, FilterGroup filterGroup) {
+        if (!ignoreCase) return filterGroup;
+        FilterRequest startsWith = new FilterRequest(field, FilterOperator.STARTS_WITH_CI, prefix);
+        return isEmpty(filterGroup) ? new FilterGroup(FilterLogicMode.AND, startsWith) : new FilterGroup(FilterLogicMode.AND, filterGroup, startsWith);
+    }
+
+    static boolean usesDistinct(FilterOptions options, FilterGroup filterGroup, String prefix) {
+        return options.isAutocompleteUseDistinct() && isEmpty(filterGroup) && !prefix.isEmpty();
+    }
+
+    /**
+     * @param filters          the caller's filters, built once and shared with the cache scope
+     * @param ignoreCasePrefix criteria of the {@code STARTS_WITH_CI} group, or null for a case-sensitive prefix
+     */
+    static Criteria autocompleteCriteria(Criteria filters, Criteria ignoreCasePrefix, String field, String prefix) {
+        // escape хийсэн, flag-гүй ^prefix regex-ийг index-ийн range болгон ашиглана (STARTS_WITH handler нь case-insensitive)
+        Criteria startsWith = ignoreCasePrefix != null ? ignoreCasePrefix : Criteria.where(field).regex(PatternCacheUtil.get("^" + GlobalSearchResolver.escapeRegex(prefix)));
+        return filters.getCriteriaObject().isEmpty() ? startsWith : new Criteria().andOperator(filters, startsWith);
+    }
+
+    static Aggregation autocompleteAggregation(Criteria criteria, String field, int limit) {
+        return Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group(field),
+                Aggregation.facet(ctx -> new Document("$sort", new Document("_id", 1)), Aggregation.limit(limit)).as(AUTOCOMPLETE_VALUES)
+                        .and(Aggregation.count().as("totalCount")).as(AUTOCOMPLETE_TOTAL)
+        );
+    }
+
+    static Page<Object> readAutocomplete(Document result, String field, int limit) {
+        if (result == null) return new PageImpl<>(List.of(), autocompletePageable(field, limit), 0);
+
+        List<Object> values = new ArrayList<>();
+        for (Document row : result.getList(AUTOCOMPLETE_VALUES, Document.class, List.of())) {
+            values.add(row.get("_id"));
+        }
+        List<Document> total = result.getList(AUTOCOMPLETE_TOTAL, Document.class, List.of());
+        return new PageImpl<>(values, autocompletePageable(field, limit), total.isEmpty() ? 0 : readCount(total.getFirst()));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Page<Object> distinctPage(List<Object> values, String field, int limit) {
+        // distinct дарааллыг баталгаажуулдаггүй; prefix-ээр таарсан утгууд string тул шууд эрэмбэлнэ
+        List<Object> sorted = new ArrayList<>(values);
+        sorted.removeIf(Objects::isNull);
+        sorted.sort((a, b) -> a instanceof Comparable ca && a.getClass() == b.getClass() ? ca.compareTo(b) : a.toString().compareTo(b.toString()));
+        return new PageImpl<>(sorted.subList(0, Math.min(limit, sorted.size())), autocompletePageable(field, limit), sorted.size());
+    }
+
+    private static Pageable autocompletePageable(String field, int limit) {
+        return PageRequest.of(0, limit, Sort.by(Sort.Direction.ASC, field));
+    }
+
+    /**
+     * The {@code k} most frequent values of {@code field} under the filter, most frequent first (ties by value), from
+     * one {@code $group} + {@code $sort} + {@code $limit}; documents without the field are left out. Array fields,
+     * and arrays along a nested path, are unwound first and grouped by value and document, so a value counts once per
+     * document that carries it however often it repeats there.
+     */
+    public List<ValueFrequency> suggestTopByFrequency(String field, int k, FilterGroup filterGroup) {
+        try {
+            if (k <= 0) throw new FilterException("Top-K size must be positive");
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            validateField(field);
+
+            List<String> arrayPaths = arrayPaths(field, entity, mongoTemplate.getConverter().getMappingContext());
+            Aggregation aggregation = collated(frequencyAggregation(buildCriteria(filterGroup), field, arrayPaths, k), filterGroup);
+            debug("Built top-by-frequency pipeline: {}", aggregation.toString());
+            dbExplainHandler.explainIfNeeded(aggregation);
+
+            return mongoTemplate.aggregate(aggregation, targetType, Document.class).getMappedResults().stream()
+                    .map(SuggestionExecutor::readFrequency)
+                    .toList();
+        } catch (FilterException e) {
+            throw e;
+        } catch (Exception ex) {
+            String msg = String.format("Failed to execute top-by-frequency suggestion for field '%s' on '%s': %s", field, targetType.getSimpleName(), ex.getMessage());
+            throw new FilterException(msg, ex);
+        }
+    }
+
+    /**
+     * @return the prefixes of {@code fieldPath} that hold arrays, outermost first (e.g. {@code items}, {@code items.tags})
+     */
+    static List<String> arrayPaths(String fieldPath, PersistentEntity<?, ?> rootEntity, MappingContext<?, ?> mappingContext) {
+        List<String> paths = new ArrayList<>();
+        PersistentEntity<?, ?> currentEntity = rootEntity;
+        StringBuilder path = new StringBuilder();
+
+        for (String part : fieldPath.split("\\.")) {
+            if (currentEntity == null) break;
+            PersistentProperty<?> property = currentEntity.getPersistentProperty(part);
+            if (property == null) break;
+
+            if (!path.isEmpty()) path.append('.');
+            path.append(part);
+            if (property.isCollectionLike()) paths.add(path.toString());
+            currentEntity = mappingContext.getPersistentEntity(property.getActualType());
+        }
+        return paths;
+    }
+
+    static Aggregation frequencyAggregation(Criteria criteria, String field, List<String> arrayPaths, int k) {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        pipeline.add(Aggregation.match(criteria));
+        arrayPaths.forEach(path -> pipeline.add(Aggregation.unwind(path)));
+        pipeline.add(Aggregation.match(Criteria.where(field).ne(null)));
+        if (arrayPaths.isEmpty()) {
+            pipeline.add(Aggregation.group(field).count().as(FREQUENCY_COUNT));
+        } else {
+            // unwind-ийн дараа нэг document-д давтагдсан утгыг нэг л удаа тоолно
+            pipeline.add(Aggregation.group(Fields.from(Fields.field("value", field), Fields.field("doc", "_id"))));
+            pipeline.add(Aggregation.group("value").count().as(FREQUENCY_COUNT));
+        }
+        // $sortByCount-ийн адил, гэхдээ тэнцүү тоотой утгуудыг тогтвортой дарааллаар
+        pipeline.add(ctx -> new Document("$sort", new Document(FREQUENCY_COUNT, -1).append("_id", 1)));
+        pipeline.add(Aggregation.limit(k));
+        return Aggregation.newAggregation(pipeline);
+    }
+
+    static ValueFrequency readFrequency(Document row) {
+        Object count = row.get(FREQUENCY_COUNT);
+        return new ValueFrequency(row.get("_id"), count instanceof Number number ? number.longValue() : 0L);
+    }
+
     private long countSuggestions(String fieldName, FilterGroup filterGroup) {
-        Aggregation countAggregation = Aggregation.newAggregation(
-                Aggregation.match(
-                        (filterGroup != null && !filterGroup.getComponents().isEmpty())
-                                ? CriteriaBuilderUtil.buildGroupCriteria(filterGroup, FilterOptions.defaults(), targetType)
-                                : new Criteria()
-                ),
+        Aggregation countAggregation = countAggregation(suggestionCriteria(filterGroup, targetType), fieldName);
+
+        AggregationResults<Document> countResults = mongoTemplate.aggregate(countAggregation, targetType, Document.class);
+        return readCount(countResults.getUniqueMappedResult());
+    }
+
+    static Criteria suggestionCriteria(FilterGroup filterGroup, Class<?> targetType) {
+        return (filterGroup != null && !filterGroup.getComponents().isEmpty())
+                ? CriteriaPlanCache.buildCriteria(filterGroup, FilterOptions.defaults(), targetType)
+                : new Criteria();
+    }
+
+    static Aggregation countAggregation(Criteria criteria, String fieldName) {
+        return Aggregation.newAggregation(
+                Aggregation.match(criteria),
                 Aggregation.group(fieldName),
                 Aggregation.count().as("totalCount")
         );
+    }
 
-        AggregationResults<Document> countResults = mongoTemplate.aggregate(countAggregation, targetType, Document.class);
-        Document result = countResults.getUniqueMappedResult();
-
+    static long readCount(Document result) {
         if (result == null) {
             return 0L;
         }
@@ -83,6 +301,10 @@ public class SuggestionExecutor<T> extends AbstractMongoExecutor<T> {
     }
 
     private PersistentProperty<?> resolvePropertyByPath(String fieldPath, PersistentEntity<?, ?> rootEntity) {
+        return resolvePropertyByPath(fieldPath, rootEntity, mongoTemplate.getConverter().getMappingContext());
+    }
+
+    static PersistentProperty<?> resolvePropertyByPath(String fieldPath, PersistentEntity<?, ?> rootEntity, MappingContext<?, ?> mappingContext) {
         String[] parts = fieldPath.split("\\.");
         PersistentEntity<?, ?> currentEntity = rootEntity;
         PersistentProperty<?> property = null;
@@ -92,9 +314,9 @@ public class SuggestionExecutor<T> extends AbstractMongoExecutor<T> {
             if (property == null) {
                 return null;
             }
-            Class<?> type = property.getType();
-            PersistentEntity<?, ?> nestedEntity =
-                    mongoTemplate.getConverter().getMappingContext().getPersistentEntity(type);
+            // List<Item> зэрэг collection-ийн элементийн entity рүү орно
+            Class<?> type = property.getActualType();
+            PersistentEntity<?, ?> nestedEntity = mappingContext.getPersistentEntity(type);
             if (nestedEntity != null) {
                 currentEntity = nestedEntity;
             }
@@ -177,10 +399,13 @@ public class SuggestionExecutor<T> extends AbstractMongoExecutor<T> {
     }
 
     private Aggregation buildSuggestionAggregation(String fieldPath, int limit, int offset, Sort sort, FilterGroup filterGroup) {
-        Criteria criteria = (filterGroup != null && !filterGroup.getComponents().isEmpty())
-                ? CriteriaBuilderUtil.buildGroupCriteria(filterGroup, FilterOptions.defaults(), targetType)
-                : new Criteria();
+        Criteria criteria = suggestionCriteria(filterGroup, targetType);
+        debug("on suggestion buildAggregation, criteria: %s, fieldPath: %s, limit: %d, offset: %d, sort: %s", criteria, fieldPath, limit, offset, sort);
+
+        return suggestionAggregation(criteria, fieldPath, limit, offset, sort);
+    }
 
+    static Aggregation suggestionAggregation(Criteria criteria, String fieldPath, int limit, int offset, Sort sort) {
         List<AggregationOperation> pipeline = new ArrayList<>();
         pipeline.add(Aggregation.match(criteria));
         pipeline.add(Aggregation.group(fieldPath).first(fieldPath).as("value"));
@@ -189,8 +414,6 @@ public class SuggestionExecutor<T> extends AbstractMongoExecutor<T> {
             sort = Sort.by(Sort.Direction.ASC, "value");
         }
 
-        debug("on suggestion buildAggregation, criteria: %s, fieldPath: %s, limit: %d, offset: %d, sort: %s", criteria, fieldPath, limit, offset, sort);
-
         pipeline.add(Aggregation.sort(sort));
 
         if (offset > 0) {
@@ -4,19 +4,37 @@ import mn.astvision.filterflow.component.abstraction.AbstractMongoExecutor;
 import mn.astvision.filterflow.exception.FilterException;
 import mn.astvision.filterflow.model.FilterGroup;
 import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.GroupedSummary;
+import mn.astvision.filterflow.model.HistogramBucket;
+import mn.astvision.filterflow.model.enums.HistogramUnit;
+import mn.astvision.filterflow.util.HistogramUtil;
+import mn.astvision.filterflow.util.cache.MaterializedSummaryCache;
+import mn.astvision.filterflow.util.cache.QueryResultCache;
+import mn.astvision.filterflow.util.search.IgnoreCaseUtil;
+import mn.astvision.filterflow.util.sketch.SummarySketch;
 import org.bson.Document;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mapping.PersistentEntity;
 import org.springframework.data.mapping.PersistentProperty;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author zorigtbaatar
@@ -30,6 +48,8 @@ import java.util.stream.Collectors;
  */
 
 public class SummaryExecutor<T> extends AbstractMongoExecutor<T> {
+    static final String OUT_OF_RANGE_BUCKET = "__outOfRange";
+
     private final DecimalFormat decimalFormat = new DecimalFormat("#,##0.################");
 
     private SummaryExecutor(MongoTemplate mongoTemplate, Class<T> targetType, FilterOptions filterOptions) {
@@ -61,48 +81,180 @@ public class SummaryExecutor<T> extends AbstractMongoExecutor<T> {
      * @return map of field -> (op -> BigDecimal)
      */
     public Map<String, Map<String, BigDecimal>> executeMany(Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup) {
+        // query collation нь write event-ийн $facet шалгалтад дамжихгүй тул materialize хийхгүй
+        if (MaterializedSummaryCache.isEnabled(options, targetType) && MaterializedSummaryCache.supports(fieldOps)
+                && IgnoreCaseUtil.collationOf(filterGroup, options, targetType) == null) {
+            String cacheKey = QueryResultCache.keyOf(QueryResultCache.Kind.SUMMARY, targetType, filterGroup, options, null, null, "materialized:" + summaryCacheKeyPart(fieldOps, options));
+            if (cacheKey != null) return executeMaterialized(cacheKey, fieldOps, filterGroup);
+        }
+        if (QueryResultCache.isEnabled(options, targetType)) {
+            String cacheKey = QueryResultCache.keyOf(QueryResultCache.Kind.SUMMARY, targetType, filterGroup, options, null, null, summaryCacheKeyPart(fieldOps, options));
+            if (cacheKey != null) {
+                return QueryResultCache.summary(cacheKey, targetType, mongoTemplate, () -> executeManyUncached(fieldOps, filterGroup));
+            }
+        }
+        return executeManyUncached(fieldOps, filterGroup);
+    }
+
+    private Map<String, Map<String, BigDecimal>> executeMaterialized(String cacheKey, Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup) {
         try {
             PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            mapFields(entity, fieldOps.keySet(), () -> getAllMappedFieldNames(entity));
 
-            // Validate fields
-            Map<String, String> mappedFields = new LinkedHashMap<>();
-            for (String field : fieldOps.keySet()) {
-                PersistentProperty<?> property = entity.getPersistentProperty(field);
-                if (property == null) {
-                    Set<String> availableFields = getAllMappedFieldNames(entity);
-                    throw new FilterException(String.format("Invalid field: '%s' for type '%s'. Allowed fields are: %s", field, targetType.getSimpleName(), availableFields));
-                }
-                mappedFields.put(field, property.getName());
+            MongoConverter converter = mongoTemplate.getConverter();
+            Document criteria = new QueryMapper(converter).getMappedObject(buildCriteria(filterGroup).getCriteriaObject(),
+                    converter.getMappingContext().getPersistentEntity(targetType));
+            debug("Materialized summary criteria: {}", criteria.toJson());
+
+            return MaterializedSummaryCache.summary(cacheKey, targetType, mongoTemplate, criteria, storedNames(entity, fieldOps.keySet()), fieldOps);
+        } catch (FilterException e) {
+            throw e;
+        } catch (Exception ex) {
+            String msg = String.format("Failed to execute materialized summary for fields %s on '%s': %s", fieldOps.keySet(), targetType.getSimpleName(), ex.getMessage());
+            throw new FilterException(msg, ex);
+        }
+    }
+
+    /**
+     * Per-group summary in one aggregation: a single {@code $group} on the compound key of {@code groupFields}.
+     *
+     * @param groupFields fields (nested paths allowed) whose distinct combinations form the groups
+     * @param sort        by group fields, {@code <field>_<op>} accumulators (e.g. {@code amount_sum}) or
+     *                    {@value GroupedSummary#COUNT}; unsorted rows come in group key order
+     * @param limit       top-N groups after sorting, 0 for all
+     */
+    public List<GroupedSummary> executeGrouped(List<String> groupFields, Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup, Sort sort, int limit) {
+        validateGrouping(groupFields, limit);
+
+        if (QueryResultCache.isEnabled(options, targetType)) {
+            String extra = "groupBy:%s:%s:%s:%d".formatted(groupFields, summaryCacheKeyPart(fieldOps, options), sort, limit);
+            String cacheKey = QueryResultCache.keyOf(QueryResultCache.Kind.SUMMARY, targetType, filterGroup, options, null, null, extra);
+            if (cacheKey != null) {
+                return QueryResultCache.value(cacheKey, targetType, mongoTemplate, () -> executeGroupedUncached(groupFields, fieldOps, filterGroup, sort, limit));
             }
+        }
+        return executeGroupedUncached(groupFields, fieldOps, filterGroup, sort, limit);
+    }
+
+    private List<GroupedSummary> executeGroupedUncached(List<String> groupFields, Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup, Sort sort, int limit) {
+        try {
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            Set<String> available = getAllMappedFieldNames(entity);
+            Map<String, String> groupKeys = groupKeys(groupFields, available);
+            Map<String, String> mappedFields = mapFields(entity, fieldOps.keySet(), () -> available);
 
-            Aggregation aggregation = buildAggregation(mappedFields, fieldOps, filterGroup);
-            debug("Built aggregation pipeline: {}", aggregation.toString());
+            List<AggregationOperation> pipeline = new ArrayList<>();
+            pipeline.add(Aggregation.match(buildCriteria(filterGroup)));
+            pipeline.addAll(groupedStages(groupKeys, mappedFields, fieldOps, sort, limit));
+
+            Aggregation aggregation = collated(Aggregation.newAggregation(pipeline), filterGroup);
+            debug("Built grouped aggregation pipeline: {}", aggregation.toString());
+            dbExplainHandler.explainIfNeeded(aggregation);
 
             AggregationResults<Document> results = mongoTemplate.aggregate(aggregation, targetType, Document.class);
-            Document result = results.getUniqueMappedResult();
-
-            if (result == null) {
-                debug("Aggregation returned no results for fields {}", fieldOps.keySet());
-                return Collections.emptyMap();
-            }
-
-            Map<String, Map<String, BigDecimal>> finalResults = new LinkedHashMap<>();
-            for (Map.Entry<String, String> entry : mappedFields.entrySet()) {
-                String field = entry.getKey();
-                Map<String, BigDecimal> opsResult = new LinkedHashMap<>();
-                for (AggregateOp op : fieldOps.getOrDefault(field, Set.of())) {
-                    String key = field + "_" + op.name().toLowerCase();
-                    Object value = result.get(key);
-                    BigDecimal bd = toBigDecimal(value);
-                    opsResult.put(op.name(), bd);
-                }
-                finalResults.put(field, opsResult);
+            return results.getMappedResults().stream()
+                    .map(row -> readGroupedRow(row, groupKeys, mappedFields, fieldOps))
+                    .toList();
+        } catch (FilterException e) {
+            throw e;
+        } catch (Exception ex) {
+            String msg = String.format("Failed to execute grouped summary by %s on '%s': %s", groupFields, targetType.getSimpleName(), ex.getMessage());
+            throw new FilterException(msg, ex);
+        }
+    }
+
+    /**
+     * Date histogram in one aggregation: {@code $group} on {@code $dateTrunc} of {@code dateField} (MongoDB 5.0+),
+     * with the buckets that have no documents filled in.
+     *
+     * @param zone bucket boundaries are local midnights / month starts in this zone
+     * @param from inclusive start of the axis, also matched on {@code dateField}; null for the first non-empty bucket
+     * @param to   exclusive end of the axis, also matched; null for the end of the last non-empty bucket
+     */
+    public List<HistogramBucket> executeDateHistogram(String dateField, HistogramUnit unit, ZoneId zone, Instant from, Instant to,
+                                                      Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup) {
+        String extra = "date:%s:%s:%s:%s:%s".formatted(dateField, unit, zone, from, to);
+        return executeHistogram(dateField, fieldOps, filterGroup, extra,
+                mappedFields -> dateHistogramPlan(dateField, unit, zone, from, to, mappedFields, fieldOps));
+    }
+
+    /**
+     * Numeric histogram with {@code $bucket}: one bucket per {@code [boundaries[i], boundaries[i + 1])}, empty ones
+     * included, plus an out-of-range bucket for the documents outside the boundaries (or without the field).
+     */
+    public List<HistogramBucket> executeBucketHistogram(String field, List<? extends Number> boundaries,
+                                                        Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup) {
+        HistogramUtil.validateBoundaries(boundaries);
+        return executeHistogram(field, fieldOps, filterGroup, "bucket:%s:%s".formatted(field, boundaries),
+                mappedFields -> bucketHistogramPlan(field, boundaries, mappedFields, fieldOps));
+    }
+
+    /**
+     * Histogram with {@code $bucketAuto}: up to {@code buckets} buckets with roughly equal document counts.
+     */
+    public List<HistogramBucket> executeAutoHistogram(String field, int buckets, Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup) {
+        if (buckets < 1) throw new FilterException("Bucket count must be positive");
+        return executeHistogram(field, fieldOps, filterGroup, "auto:%s:%d".formatted(field, buckets),
+                mappedFields -> autoHistogramPlan(field, buckets, mappedFields, fieldOps));
+    }
+
+    private List<HistogramBucket> executeHistogram(String field, Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup, String extra,
+                                                   Function<Map<String, String>, HistogramPlan> planner) {
+        if (QueryResultCache.isEnabled(options, targetType)) {
+            String cacheKey = QueryResultCache.keyOf(QueryResultCache.Kind.SUMMARY, targetType, filterGroup, options, null, null,
+                    "histogram:%s:%s".formatted(extra, summaryCacheKeyPart(fieldOps, options)));
+            if (cacheKey != null) {
+                return QueryResultCache.value(cacheKey, targetType, mongoTemplate, () -> executeHistogramUncached(field, fieldOps, filterGroup, planner));
             }
+        }
+        return executeHistogramUncached(field, fieldOps, filterGroup, planner);
+    }
 
-            debug("Final results: {}", finalResults);
+    private List<HistogramBucket> executeHistogramUncached(String field, Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup,
+                                                           Function<Map<String, String>, HistogramPlan> planner) {
+        try {
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            Set<String> available = getAllMappedFieldNames(entity);
+            requireField(field, available);
+            Map<String, String> mappedFields = mapFields(entity, fieldOps.keySet(), () -> available);
+
+            HistogramPlan plan = planner.apply(mappedFields);
+            Aggregation aggregation = collated(Aggregation.newAggregation(plan.pipeline(buildCriteria(filterGroup))), filterGroup);
+            debug("Built histogram pipeline: {}", aggregation.toString());
             dbExplainHandler.explainIfNeeded(aggregation);
 
-            return finalResults;
+            return plan.reader().apply(mongoTemplate.aggregate(aggregation, targetType, Document.class).getMappedResults());
+        } catch (FilterException e) {
+            throw e;
+        } catch (Exception ex) {
+            String msg = String.format("Failed to execute histogram on '%s' of '%s': %s", field, targetType.getSimpleName(), ex.getMessage());
+            throw new FilterException(msg, ex);
+        }
+    }
+
+    // sketch-ээр тооцсон ойролцоо утга exact утгатай нэг entry-д орохгүй
+    static String summaryCacheKeyPart(Map<String, Set<AggregateOp>> fieldOps, FilterOptions options) {
+        Map<String, Set<AggregateOp>> sorted = new TreeMap<>();
+        fieldOps.forEach((field, ops) -> sorted.put(field, new TreeSet<>(ops)));
+        return "%s:approximate=%s".formatted(sorted, options.isApproximateSummaries());
+    }
+
+    private Map<String, Map<String, BigDecimal>> executeManyUncached(Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup) {
+        try {
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+
+            // Validate fields
+            Map<String, String> mappedFields = mapFields(entity, fieldOps.keySet(), () -> getAllMappedFieldNames(entity));
+
+            Map<String, Set<AggregateOp>> sketchOps = options.isApproximateSummaries() ? sketchedOps(fieldOps) : Map.of();
+            if (!sketchOps.isEmpty()) {
+                Map<String, Set<AggregateOp>> exactOps = exactOps(fieldOps);
+                Map<String, Map<String, BigDecimal>> server = hasOps(exactOps) ? aggregateSummary(mappedFields, exactOps, filterGroup) : Map.of();
+                Map<String, SummarySketch> sketches = sketch(entity, sketchOps.keySet(), filterGroup);
+                return combine(mappedFields, fieldOps, server, sketches);
+            }
+
+            return aggregateSummary(mappedFields, fieldOps, filterGroup);
 
         } catch (FilterException e) {
             throw e;
@@ -112,6 +264,64 @@ public class SummaryExecutor<T> extends AbstractMongoExecutor<T> {
         }
     }
 
+    /**
+     * Streams only {@code fields} of the matched documents through one {@link SummarySketch} per field; memory stays
+     * bounded whatever the size of the match. Sketches of disjoint filters (e.g. partitions of a large collection
+     * scanned in parallel) can be combined with {@link SummarySketch#merge}.
+     */
+    public Map<String, SummarySketch> sketch(Set<String> fields, FilterGroup filterGroup) {
+        try {
+            PersistentEntity<?, ?> entity = getPersistentEntityOrThrow();
+            mapFields(entity, fields, () -> getAllMappedFieldNames(entity));
+            return sketch(entity, fields, filterGroup);
+        } catch (FilterException e) {
+            throw e;
+        } catch (Exception ex) {
+            throw new FilterException("Failed to sketch fields %s on '%s': %s".formatted(fields, targetType.getSimpleName(), ex.getMessage()), ex);
+        }
+    }
+
+    private Map<String, SummarySketch> sketch(PersistentEntity<?, ?> entity, Set<String> fields, FilterGroup filterGroup) {
+        Query query = sketchQuery(collated(Query.query(buildCriteria(filterGroup)), filterGroup), fields, options);
+        Map<String, String> storedNames = storedNames(entity, fields);
+        debug("Sketching fields {} with query: {}", fields, query);
+
+        Map<String, SummarySketch> sketches = new LinkedHashMap<>();
+        fields.forEach(field -> sketches.put(field, new SummarySketch()));
+
+        try (Stream<Document> stream = mongoTemplate.query(targetType).as(Document.class).matching(query).stream()) {
+            stream.forEach(document -> storedNames.forEach((field, stored) -> sketches.get(field).add(document.get(stored))));
+        }
+        return sketches;
+    }
+
+    // зөвхөн sketch хийх талбаруудыг уншина
+    static Query sketchQuery(Query query, Set<String> fields, FilterOptions options) {
+        fields.forEach(field -> query.fields().include(field));
+        if (options.getStreamBatchSize() > 0) query.cursorBatchSize(options.getStreamBatchSize());
+        return query;
+    }
+
+    private Map<String, Map<String, BigDecimal>> aggregateSummary(Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps, FilterGroup filterGroup) {
+        Aggregation aggregation = buildAggregation(mappedFields, fieldOps, filterGroup);
+        debug("Built aggregation pipeline: {}", aggregation.toString());
+
+        AggregationResults<Document> results = mongoTemplate.aggregate(aggregation, targetType, Document.class);
+        Document result = results.getUniqueMappedResult();
+
+        if (result == null) {
+            debug("Aggregation returned no results for fields {}", fieldOps.keySet());
+            return Collections.emptyMap();
+        }
+
+        Map<String, Map<String, BigDecimal>> finalResults = readSummary(result, mappedFields, fieldOps);
+
+        debug("Final results: {}", finalResults);
+        dbExplainHandler.explainIfNeeded(aggregation);
+
+        return finalResults;
+    }
+
     private Aggregation buildAggregation(
             //@formatter:off
             Map<String, String> mappedFields,
@@ -123,29 +333,333 @@ public class SummaryExecutor<T> extends AbstractMongoExecutor<T> {
 
         List<AggregationOperation> pipeline = new ArrayList<>();
         pipeline.add(Aggregation.match(criteria));
+        pipeline.addAll(summaryStages(mappedFields, fieldOps));
+        return collated(Aggregation.newAggregation(pipeline), filterGroup);
+    }
+
+    static Map<String, String> mapFields(PersistentEntity<?, ?> entity, Set<String> fields, Supplier<Set<String>> availableFields) {
+        Map<String, String> mappedFields = new LinkedHashMap<>();
+        for (String field : fields) {
+            PersistentProperty<?> property = entity.getPersistentProperty(field);
+            if (property == null) {
+                throw new FilterException(String.format("Invalid field: '%s' for type '%s'. Allowed fields are: %s", field, entity.getType().getSimpleName(), availableFields.get()));
+            }
+            mappedFields.put(field, property.getName());
+        }
+        return mappedFields;
+    }
 
-        AggregationOperation groupOp = ctx -> {
+    static AggregationOperation groupOperation(Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        return ctx -> {
             Document group = new Document("_id", null);
-            for (Map.Entry<String, String> entry : mappedFields.entrySet()) {
-                String field = entry.getKey();
-                String mapped = entry.getValue();
-                for (AggregateOp op : fieldOps.getOrDefault(field, Set.of())) {
-                    switch (op) {
-                        case SUM -> group.put(field + "_sum", new Document("$sum", "$" + mapped));
-                        case MAX -> group.put(field + "_max", new Document("$max", "$" + mapped));
-                        case MIN -> group.put(field + "_min", new Document("$min", "$" + mapped));
-                        case AVG -> group.put(field + "_avg", new Document("$avg", "$" + mapped));
-                    }
+            putAccumulators(group, mappedFields, fieldOps);
+            return new Document("$group", group);
+        };
+    }
+
+    /**
+     * {@code $group} followed by the stage that reduces the COUNT_DISTINCT sets and {@code $percentile} arrays to
+     * single values, when any such op is requested.
+     */
+    static List<AggregationOperation> summaryStages(Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(groupOperation(mappedFields, fieldOps));
+        AggregationOperation finalize = finalizeOperation(mappedFields, fieldOps);
+        if (finalize != null) stages.add(finalize);
+        return stages;
+    }
+
+    private static void putAccumulators(Document group, Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        for (Map.Entry<String, String> entry : mappedFields.entrySet()) {
+            String field = entry.getKey();
+            String mapped = "$" + entry.getValue();
+            for (AggregateOp op : fieldOps.getOrDefault(field, Set.of())) {
+                //@formatter:off
+                Document accumulator = switch (op) {
+                    case SUM -> new Document("$sum", mapped);
+                    case MAX -> new Document("$max", mapped);
+                    case MIN -> new Document("$min", mapped);
+                    case AVG -> new Document("$avg", mapped);
+                    case COUNT -> new Document("$sum", new Document("$cond", List.of(new Document("$gt", Arrays.asList(mapped, null)), 1, 0)));
+                    case COUNT_DISTINCT -> new Document("$addToSet", mapped);
+                    // MongoDB 7.0+
+                    case MEDIAN, P90, P95, P99 -> new Document("$percentile", new Document("input", mapped)
+                            .append("p", List.of(op.percentile())).append("method", "approximate"));
+                };
+                //@formatter:on
+                group.put(op.key(field), accumulator);
+            }
+        }
+    }
+
+    private static AggregationOperation finalizeOperation(Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        Document fields = new Document();
+        for (String field : mappedFields.keySet()) {
+            for (AggregateOp op : fieldOps.getOrDefault(field, Set.of())) {
+                String key = "$" + op.key(field);
+                if (op == AggregateOp.COUNT_DISTINCT) {
+                    fields.put(op.key(field), new Document("$size", new Document("$setDifference", List.of(key, Collections.singletonList(null)))));
+                } else if (op.isPercentile()) {
+                    fields.put(op.key(field), new Document("$arrayElemAt", List.of(key, 0)));
                 }
             }
+        }
+        return fields.isEmpty() ? null : ctx -> new Document("$addFields", fields);
+    }
+
+    static void validateGrouping(List<String> groupFields, int limit) {
+        if (groupFields == null || groupFields.isEmpty()) throw new FilterException("At least one group field is required");
+        if (limit < 0) throw new FilterException("Group limit must not be negative");
+    }
+
+    /**
+     * @return group field -> its key inside the compound {@code _id} ({@code .} is not allowed there)
+     */
+    static Map<String, String> groupKeys(List<String> groupFields, Set<String> availableFields) {
+        Map<String, String> keys = new LinkedHashMap<>();
+        for (String field : groupFields) {
+            if (!availableFields.contains(field)) {
+                throw new FilterException(String.format("Invalid group field: '%s'. Allowed fields are: %s", field, availableFields));
+            }
+            keys.put(field, field.replace('.', '_'));
+        }
+        return keys;
+    }
+
+    /**
+     * {@code $group} on the compound key, then the optional {@code $sort} / {@code $limit} of the groups.
+     */
+    static List<AggregationOperation> groupedStages(Map<String, String> groupKeys, Map<String, String> mappedFields,
+                                                    Map<String, Set<AggregateOp>> fieldOps, Sort sort, int limit) {
+        Document sortObject = groupSortObject(groupKeys, mappedFields, fieldOps, sort);
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(ctx -> {
+            // group талбарыг entity-ийн mapping-аар (nested ч гэсэн) хадгалагдсан нэрд нь хөрвүүлнэ
+            Document id = new Document();
+            groupKeys.forEach((field, key) -> id.put(key, ctx.getReference(field).toString()));
+
+            Document group = new Document("_id", id).append(GroupedSummary.COUNT, new Document("$sum", 1));
+            putAccumulators(group, mappedFields, fieldOps);
             return new Document("$group", group);
-        };
+        });
+        AggregationOperation finalize = finalizeOperation(mappedFields, fieldOps);
+        if (finalize != null) stages.add(finalize);
+        stages.add(ctx -> new Document("$sort", sortObject));
+        if (limit > 0) stages.add(Aggregation.limit(limit));
+        return stages;
+    }
+
+    private static Document groupSortObject(Map<String, String> groupKeys, Map<String, String> mappedFields,
+                                            Map<String, Set<AggregateOp>> fieldOps, Sort sort) {
+        Set<String> accumulators = new HashSet<>();
+        mappedFields.keySet().forEach(field -> fieldOps.getOrDefault(field, Set.of())
+                .forEach(op -> accumulators.add(op.key(field))));
+
+        Document sortObject = new Document();
+        if (sort != null) {
+            for (Sort.Order order : sort) {
+                String property = order.getProperty();
+                String key;
+                if (groupKeys.containsKey(property)) key = "_id." + groupKeys.get(property);
+                else if (GroupedSummary.COUNT.equals(property) || accumulators.contains(property)) key = property;
+                else throw new FilterException(String.format("Invalid group sort '%s'. Allowed: %s, %s, %s",
+                            property, groupKeys.keySet(), GroupedSummary.COUNT, accumulators));
+                sortObject.putIfAbsent(key, order.isAscending() ? 1 : -1);
+            }
+        }
+        groupKeys.values().forEach(key -> sortObject.putIfAbsent("_id." + key, 1));
+        return sortObject;
+    }
+
+    static GroupedSummary readGroupedRow(Document row, Map<String, String> groupKeys, Map<String, String> mappedFields,
+                                         Map<String, Set<AggregateOp>> fieldOps) {
+        Document id = row.get("_id") instanceof Document document ? document : new Document();
+
+        Map<String, Object> group = new LinkedHashMap<>();
+        groupKeys.forEach((field, key) -> group.put(field, id.get(key)));
+
+        Object count = row.get(GroupedSummary.COUNT);
+        long total = count instanceof Number number ? number.longValue() : 0L;
+
+        return new GroupedSummary(Collections.unmodifiableMap(group), total, unmodifiableSummary(readSummary(row, mappedFields, fieldOps)));
+    }
+
+    static void requireField(String field, Set<String> availableFields) {
+        if (!availableFields.contains(field)) {
+            throw new FilterException(String.format("Invalid histogram field: '%s'. Allowed fields are: %s", field, availableFields));
+        }
+    }
+
+    /**
+     * Stages after the filter {@code $match} plus how their rows become the final bucket list; shared by the
+     * blocking and reactive executors.
+     */
+    record HistogramPlan(Criteria match, List<AggregationOperation> stages, Function<List<Document>, List<HistogramBucket>> reader) {
+        List<AggregationOperation> pipeline(Criteria filter) {
+            List<AggregationOperation> pipeline = new ArrayList<>();
+            pipeline.add(Aggregation.match(filter));
+            if (match != null) pipeline.add(Aggregation.match(match));
+            pipeline.addAll(stages);
+            return pipeline;
+        }
+    }
+
+    static HistogramPlan dateHistogramPlan(String dateField, HistogramUnit unit, ZoneId zone, Instant from, Instant to,
+                                           Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        // огноогүй document тэнхлэг дээр буухгүй
+        Criteria match = Criteria.where(dateField).ne(null);
+        if (from != null) match = match.gte(Date.from(from));
+        if (to != null) match = match.lt(Date.from(to));
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(ctx -> {
+            Document trunc = new Document("date", ctx.getReference(dateField).toString())
+                    .append("unit", unit.mongoUnit())
+                    .append("timezone", HistogramUtil.mongoTimezone(zone));
+            if (unit == HistogramUnit.WEEK) trunc.append("startOfWeek", "monday");
+
+            Document group = new Document("_id", new Document("$dateTrunc", trunc)).append(GroupedSummary.COUNT, new Document("$sum", 1));
+            putAccumulators(group, mappedFields, fieldOps);
+            return new Document("$group", group);
+        });
+        addFinalize(stages, mappedFields, fieldOps);
+
+        return new HistogramPlan(match, stages, rows -> {
+            List<HistogramBucket> found = new ArrayList<>();
+            for (Document row : rows) {
+                if (row.get("_id") instanceof Date start) found.add(readBucket(row, start, null, mappedFields, fieldOps));
+            }
+            return HistogramUtil.fillDates(found, unit, zone, from, to, emptyValues(mappedFields, fieldOps));
+        });
+    }
+
+    static HistogramPlan bucketHistogramPlan(String field, List<? extends Number> boundaries,
+                                             Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(ctx -> new Document("$bucket", new Document("groupBy", ctx.getReference(field).toString())
+                .append("boundaries", boundaries)
+                .append("default", OUT_OF_RANGE_BUCKET)
+                .append("output", bucketOutput(mappedFields, fieldOps))));
+        addFinalize(stages, mappedFields, fieldOps);
+
+        return new HistogramPlan(null, stages, rows -> {
+            List<HistogramBucket> found = rows.stream()
+                    .map(row -> readBucket(row, row.get("_id") instanceof Number lower ? lower : null, null, mappedFields, fieldOps))
+                    .toList();
+            return HistogramUtil.fillBoundaries(found, boundaries, emptyValues(mappedFields, fieldOps));
+        });
+    }
+
+    static HistogramPlan autoHistogramPlan(String field, int buckets, Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(ctx -> new Document("$bucketAuto", new Document("groupBy", ctx.getReference(field).toString())
+                .append("buckets", buckets)
+                .append("output", bucketOutput(mappedFields, fieldOps))));
+        addFinalize(stages, mappedFields, fieldOps);
+
+        return new HistogramPlan(null, stages, rows -> rows.stream().map(row -> {
+            Document id = row.get("_id") instanceof Document document ? document : new Document();
+            return readBucket(row, id.get("min"), id.get("max"), mappedFields, fieldOps);
+        }).toList());
+    }
+
+    private static Document bucketOutput(Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        Document output = new Document(GroupedSummary.COUNT, new Document("$sum", 1));
+        putAccumulators(output, mappedFields, fieldOps);
+        return output;
+    }
+
+    private static void addFinalize(List<AggregationOperation> stages, Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        AggregationOperation finalize = finalizeOperation(mappedFields, fieldOps);
+        if (finalize != null) stages.add(finalize);
+    }
+
+    private static HistogramBucket readBucket(Document row, Object from, Object to, Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        Object count = row.get(GroupedSummary.COUNT);
+        long total = count instanceof Number number ? number.longValue() : 0L;
+        return new HistogramBucket(from, to, total, unmodifiableSummary(readSummary(row, mappedFields, fieldOps)));
+    }
 
-        pipeline.add(groupOp);
-        return Aggregation.newAggregation(pipeline);
+    private static Map<String, Map<String, BigDecimal>> emptyValues(Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        return unmodifiableSummary(readSummary(new Document(), mappedFields, fieldOps));
+    }
+
+    private static Map<String, Map<String, BigDecimal>> unmodifiableSummary(Map<String, Map<String, BigDecimal>> summary) {
+        Map<String, Map<String, BigDecimal>> values = new LinkedHashMap<>();
+        summary.forEach((field, ops) -> values.put(field, Collections.unmodifiableMap(ops)));
+        return Collections.unmodifiableMap(values);
+    }
+
+    static Map<String, Set<AggregateOp>> sketchedOps(Map<String, Set<AggregateOp>> fieldOps) {
+        Map<String, Set<AggregateOp>> sketched = new LinkedHashMap<>();
+        fieldOps.forEach((field, ops) -> {
+            if (ops.stream().anyMatch(AggregateOp::isSketched)) sketched.put(field, ops);
+        });
+        return sketched;
+    }
+
+    static Map<String, Set<AggregateOp>> exactOps(Map<String, Set<AggregateOp>> fieldOps) {
+        Map<String, Set<AggregateOp>> exact = new LinkedHashMap<>();
+        fieldOps.forEach((field, ops) -> exact.put(field, ops.stream().filter(op -> !op.isSketched()).collect(Collectors.toCollection(LinkedHashSet::new))));
+        return exact;
+    }
+
+    static boolean hasOps(Map<String, Set<AggregateOp>> fieldOps) {
+        return fieldOps.values().stream().anyMatch(ops -> !ops.isEmpty());
+    }
+
+    // stream хийсэн Document-ийн key нь хадгалагдсан (@Field) нэр
+    static Map<String, String> storedNames(PersistentEntity<?, ?> entity, Set<String> fields) {
+        Map<String, String> stored = new LinkedHashMap<>();
+        for (String field : fields) {
+            PersistentProperty<?> property = entity.getPersistentProperty(field);
+            stored.put(field, property instanceof MongoPersistentProperty mongoProperty ? mongoProperty.getFieldName() : field);
+        }
+        return stored;
     }
 
-    private BigDecimal toBigDecimal(Object value) {
+    /**
+     * Server results for the exact ops, sketch values for the sketched ones, in the requested op order.
+     */
+    static Map<String, Map<String, BigDecimal>> combine(Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps,
+                                                        Map<String, Map<String, BigDecimal>> server, Map<String, SummarySketch> sketches) {
+        Map<String, Map<String, BigDecimal>> combined = new LinkedHashMap<>();
+        for (String field : mappedFields.keySet()) {
+            Map<String, BigDecimal> opsResult = new LinkedHashMap<>();
+            SummarySketch sketch = sketches.get(field);
+            for (AggregateOp op : fieldOps.getOrDefault(field, Set.of())) {
+                BigDecimal value = op.isSketched() && sketch != null
+                        ? sketchValue(sketch, op)
+                        : server.getOrDefault(field, Map.of()).getOrDefault(op.name(), BigDecimal.ZERO);
+                opsResult.put(op.name(), value);
+            }
+            combined.put(field, opsResult);
+        }
+        return combined;
+    }
+
+    static BigDecimal sketchValue(SummarySketch sketch, AggregateOp op) {
+        if (op == AggregateOp.COUNT_DISTINCT) return BigDecimal.valueOf(sketch.distinctCount());
+        if (!op.isPercentile()) throw new FilterException("%s is not computed by a sketch".formatted(op));
+
+        double value = sketch.quantile(op.percentile());
+        return Double.isNaN(value) ? BigDecimal.ZERO : BigDecimal.valueOf(value);
+    }
+
+    static Map<String, Map<String, BigDecimal>> readSummary(Document result, Map<String, String> mappedFields, Map<String, Set<AggregateOp>> fieldOps) {
+        Map<String, Map<String, BigDecimal>> finalResults = new LinkedHashMap<>();
+        for (String field : mappedFields.keySet()) {
+            Map<String, BigDecimal> opsResult = new LinkedHashMap<>();
+            for (AggregateOp op : fieldOps.getOrDefault(field, Set.of())) {
+                opsResult.put(op.name(), toBigDecimal(result.get(op.key(field))));
+            }
+            finalResults.put(field, opsResult);
+        }
+        return finalResults;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
         switch (value) {
             case null -> {
                 return BigDecimal.ZERO;
@@ -162,7 +676,6 @@ public class SummaryExecutor<T> extends AbstractMongoExecutor<T> {
         try {
             return new BigDecimal(value.toString());
         } catch (Exception e) {
-            debug("Could not convert value {} to BigDecimal", value);
             return BigDecimal.ZERO;
         }
     }
@@ -172,7 +685,45 @@ public class SummaryExecutor<T> extends AbstractMongoExecutor<T> {
     }
 
     public enum AggregateOp {
-        SUM, MAX, MIN, AVG;
+        SUM, MAX, MIN, AVG,
+        /**
+         * documents where the field is set (not null / missing)
+         */
+        COUNT,
+        COUNT_DISTINCT,
+        MEDIAN(0.5), P90(0.9), P95(0.95), P99(0.99);
+
+        private final double percentile;
+
+        AggregateOp() {
+            this(Double.NaN);
+        }
+
+        AggregateOp(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public boolean isPercentile() {
+            return !Double.isNaN(percentile);
+        }
+
+        /**
+         * @return rank between 0 and 1, NaN if not a percentile op
+         */
+        public double percentile() {
+            return percentile;
+        }
+
+        /**
+         * @return true if {@link FilterOptions#isApproximateSummaries()} computes it with a sketch
+         */
+        public boolean isSketched() {
+            return this == COUNT_DISTINCT || isPercentile();
+        }
+
+        String key(String field) {
+            return field + "_" + name().toLowerCase();
+        }
 
         public static AggregateOp fromString(String op) {
             if (op == null) return null;
@@ -2,12 +2,19 @@ package mn.astvision.filterflow.component.factory;
 
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import mn.astvision.filterflow.component.executors.AggregationExecutor;
+import mn.astvision.filterflow.component.executors.BatchFacetExecutor;
+import mn.astvision.filterflow.component.executors.CrossSearchExecutor;
 import mn.astvision.filterflow.component.executors.FilterExecutor;
 import mn.astvision.filterflow.component.executors.SummaryExecutor;
 import mn.astvision.filterflow.handlers.DefaultOperatorHandlers;
 import mn.astvision.filterflow.handlers.OperatorHandlerRegistrar;
 import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.util.VirtualFieldResolverUtil;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import mn.astvision.filterflow.util.helpers.IndexInspector;
+import mn.astvision.filterflow.util.metadata.EntityMetadataRegistry;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Component;
 
@@ -17,19 +24,44 @@ import java.util.List;
  * @author zorigtbaatar
  */
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class FilterExecutorFactory {
     private final MongoTemplate mongoTemplate;
     private final List<OperatorHandlerRegistrar> registrars;
 
+    /**
+     * Handlers are registered before the warm-up, whose metadata may already consult them.
+     */
     @PostConstruct
+    public void initialize() {
+        registerOperationHandlers();
+        warmUpEntityMetadata();
+    }
+
     public void registerOperationHandlers() {
         DefaultOperatorHandlers.registerAll();
         if (registrars == null) return;
         registrars.forEach(OperatorHandlerRegistrar::register);
     }
 
+    /**
+     * Mapped entity-үүдийн metadata, global search талбаруудыг эхлүүлэх үед бэлдэнэ - эхний хүсэлт steady state-тэй адил хурдтай.
+     */
+    public void warmUpEntityMetadata() {
+        IndexInspector.register(mongoTemplate);
+        int depth = FilterOptions.defaults().getGlobalSearchDepth();
+        for (Class<?> type : EntityMetadataRegistry.warmUp(mongoTemplate.getConverter().getMappingContext())) {
+            try {
+                GlobalSearchResolver.warmUp(type, depth);
+                VirtualFieldResolverUtil.resolveVirtualPaths(type);
+            } catch (RuntimeException e) {
+                log.warn("warm-up of {} failed: {}", type.getName(), e.getMessage());
+            }
+        }
+    }
+
     public <T> FilterExecutor.Builder<T> forType(Class<T> clazz) {
         validateMongoEntity(clazz);
         return FilterExecutor.forType(clazz).withMongoTemplate(mongoTemplate);
@@ -45,6 +77,16 @@ public class FilterExecutorFactory {
         return AggregationExecutor.forType(clazz).withMongoTemplate(mongoTemplate);
     }
 
+    public <T> BatchFacetExecutor<T> forBatchFacet(Class<T> clazz) {
+        validateMongoEntity(clazz);
+        return BatchFacetExecutor.create(mongoTemplate, clazz);
+    }
+
+    public CrossSearchExecutor forCrossSearch(List<Class<?>> types) {
+        types.forEach(this::validateMongoEntity);
+        return CrossSearchExecutor.create(mongoTemplate);
+    }
+
     private void validateMongoEntity(Class<?> clazz) {
         boolean exits = mongoTemplate.getConverter().getMappingContext().hasPersistentEntityFor(clazz);
         if (!exits) {
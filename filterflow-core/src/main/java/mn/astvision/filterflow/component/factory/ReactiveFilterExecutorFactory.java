@@ -0,0 +1,60 @@
+package mn.astvision.filterflow.component.factory;
+
+import lombok.RequiredArgsConstructor;
+import mn.astvision.filterflow.component.executors.ReactiveFilterExecutor;
+import mn.astvision.filterflow.component.executors.ReactiveSuggestionExecutor;
+import mn.astvision.filterflow.component.executors.ReactiveSummaryExecutor;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reactive counterpart of {@link FilterExecutorFactory}. Only registered when the reactive driver is on the classpath;
+ * operator handlers are shared with (and registered by) {@link FilterExecutorFactory}.
+ *
+ * @author zorigtbaatar
+ */
+
+@Component
+@ConditionalOnClass(name = {"reactor.core.publisher.Flux", "com.mongodb.reactivestreams.client.MongoClient"})
+@RequiredArgsConstructor
+public class ReactiveFilterExecutorFactory {
+    private final ObjectProvider<ReactiveMongoTemplate> mongoTemplateProvider;
+
+    public <T> ReactiveFilterExecutor.Builder<T> forType(Class<T> clazz) {
+        ReactiveMongoTemplate mongoTemplate = getMongoTemplate();
+        validateMongoEntity(mongoTemplate, clazz);
+        return ReactiveFilterExecutor.forType(clazz).withMongoTemplate(mongoTemplate);
+    }
+
+    public <T> ReactiveSummaryExecutor<T> forSummaryType(Class<T> clazz, FilterOptions options) {
+        ReactiveMongoTemplate mongoTemplate = getMongoTemplate();
+        validateMongoEntity(mongoTemplate, clazz);
+        return ReactiveSummaryExecutor.create(mongoTemplate, clazz, options);
+    }
+
+    public <T> ReactiveSuggestionExecutor<T> forSuggestionType(Class<T> clazz, FilterOptions options) {
+        ReactiveMongoTemplate mongoTemplate = getMongoTemplate();
+        validateMongoEntity(mongoTemplate, clazz);
+        return new ReactiveSuggestionExecutor<>(mongoTemplate, options, clazz);
+    }
+
+    private ReactiveMongoTemplate getMongoTemplate() {
+        ReactiveMongoTemplate mongoTemplate = mongoTemplateProvider.getIfAvailable();
+        if (mongoTemplate == null) {
+            throw new FilterException("ReactiveMongoTemplate bean is not available", ReactiveMongoTemplate.class,
+                    "Add spring-boot-starter-data-mongodb-reactive to use the reactive executors");
+        }
+        return mongoTemplate;
+    }
+
+    private void validateMongoEntity(ReactiveMongoTemplate mongoTemplate, Class<?> clazz) {
+        boolean exits = mongoTemplate.getConverter().getMappingContext().hasPersistentEntityFor(clazz);
+        if (!exits) {
+            throw new IllegalArgumentException("❌ Type " + clazz.getSimpleName() + " is not a valid MongoDB entity.");
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package mn.astvision.filterflow.handlers;
 
+import mn.astvision.filterflow.util.PatternCacheUtil;
 import org.springframework.data.mongodb.core.query.Criteria;
 
 import java.util.regex.Pattern;
@@ -17,7 +18,7 @@ public class CustomOperatorHandlers {
 
         OperatorHandlerRegistry.register("Numeric", "CONTAINS_NUMBER", (field, value) -> {
             String pattern = "\\d*?%s\\d*?".formatted(Pattern.quote(value.toString()));
-            return Criteria.where(field).regex(Pattern.compile(pattern));
+            return Criteria.where(field).regex(PatternCacheUtil.get(pattern));
         });
     }
 }
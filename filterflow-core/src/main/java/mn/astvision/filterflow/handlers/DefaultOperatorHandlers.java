@@ -85,6 +85,17 @@ public class DefaultOperatorHandlers {
             return Criteria.where(f).regex(p);
         });
 
+        // shadow талбар, collation байхгүй үеийн fallback; index ашиглахгүй
+        OperatorHandlerRegistry.register("String Matching", STARTS_WITH_CI, (f, v) -> {
+            String regex = "^%s".formatted(Pattern.quote(v.toString()));
+            return Criteria.where(f).regex(PatternCacheUtil.get(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+        });
+
+        OperatorHandlerRegistry.register("String Matching", EQUALS_IGNORE_CASE, (f, v) -> {
+            String regex = "^%s$".formatted(Pattern.quote(v.toString()));
+            return Criteria.where(f).regex(PatternCacheUtil.get(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+        });
+
         OperatorHandlerRegistry.register("String Matching", ENDS_WITH, (f, v) -> {
             String regex = "%s$".formatted(Pattern.quote(v.toString()));
             Pattern p = PatternCacheUtil.get(regex, Pattern.CASE_INSENSITIVE);
@@ -93,7 +104,7 @@ public class DefaultOperatorHandlers {
 
         OperatorHandlerRegistry.register("String Matching", CONTAINS_WORD, (f, v) -> {
             String pattern = "(^|[^\\p{L}])%s([^\\p{L}]|$)".formatted(Pattern.quote(v.toString()));
-            return Criteria.where(f).regex(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+            return Criteria.where(f).regex(PatternCacheUtil.get(pattern, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
         });
 
         OperatorHandlerRegistry.register("String Matching", REGEX, (f, v) -> {
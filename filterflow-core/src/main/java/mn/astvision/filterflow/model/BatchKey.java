@@ -0,0 +1,28 @@
+package mn.astvision.filterflow.model;
+
+import java.util.Objects;
+
+/**
+ * Typed handle for one query of a batch, see {@link mn.astvision.filterflow.FilterFlow#batch()}.
+ * Declare it once and use it both to register the query and to read its result:
+ * <pre>{@code
+ * static final BatchKey<Long> ACTIVE_USERS = BatchKey.of("activeUsers");
+ * }</pre>
+ *
+ * @author zorigtbaatar
+ */
+
+public record BatchKey<R>(String name) {
+    public BatchKey {
+        Objects.requireNonNull(name, "Batch key name must not be null");
+    }
+
+    public static <R> BatchKey<R> of(String name) {
+        return new BatchKey<>(name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
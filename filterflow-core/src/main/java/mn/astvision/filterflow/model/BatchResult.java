@@ -0,0 +1,90 @@
+package mn.astvision.filterflow.model;
+
+import mn.astvision.filterflow.exception.FilterException;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Results of a batch keyed by {@link BatchKey}. A failed or timed-out query does not fail the others;
+ * {@link #get(BatchKey)} rethrows its error.
+ *
+ * @author zorigtbaatar
+ */
+
+public class BatchResult {
+    private final Map<String, Outcome> outcomes;
+    private final Duration elapsed;
+
+    /**
+     * @param elapsed time spent executing the query; queries merged into one {@code $facet} share the facet's time
+     * @param merged  true if the query ran as a branch of a merged {@code $facet}
+     */
+    public record Outcome(Object value, Throwable error, Duration elapsed, boolean merged) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    public BatchResult(Map<String, Outcome> outcomes, Duration elapsed) {
+        this.outcomes = Collections.unmodifiableMap(new LinkedHashMap<>(outcomes));
+        this.elapsed = elapsed;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <R> R get(BatchKey<R> key) {
+        Outcome outcome = outcome(key);
+        if (outcome.error() instanceof RuntimeException re) throw re;
+        if (outcome.error() != null) {
+            throw new FilterException("Batch query '%s' failed: %s".formatted(key, outcome.error().getMessage()), outcome.error());
+        }
+        return (R) outcome.value();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <R> Optional<R> find(BatchKey<R> key) {
+        Outcome outcome = outcomes.get(key.name());
+        return outcome != null && outcome.isSuccess() ? Optional.ofNullable((R) outcome.value()) : Optional.empty();
+    }
+
+    public boolean isSuccess(BatchKey<?> key) {
+        return outcome(key).isSuccess();
+    }
+
+    public Duration timing(BatchKey<?> key) {
+        return outcome(key).elapsed();
+    }
+
+    public Outcome outcome(BatchKey<?> key) {
+        Outcome outcome = outcomes.get(key.name());
+        if (outcome == null) throw new FilterException("No query registered in batch for key '%s'".formatted(key));
+        return outcome;
+    }
+
+    public Map<String, Outcome> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * @return wall-clock time of the whole batch
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public boolean allSucceeded() {
+        return outcomes.values().stream().allMatch(Outcome::isSuccess);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("BatchResult{elapsed=").append(elapsed.toMillis()).append("ms");
+        outcomes.forEach((name, o) -> sb.append(", ").append(name).append('=')
+                .append(o.isSuccess() ? "ok" : "failed").append('/').append(o.elapsed().toMillis()).append("ms")
+                .append(o.merged() ? "/facet" : ""));
+        return sb.append('}').toString();
+    }
+}
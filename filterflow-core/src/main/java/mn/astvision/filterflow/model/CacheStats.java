@@ -0,0 +1,24 @@
+package mn.astvision.filterflow.model;
+
+/**
+ * Immutable snapshot of a cache's counters.
+ *
+ * @author zorigtbaatar
+ */
+
+public record CacheStats(String name, long hits, long misses, long evictions, int size, int maxSize) {
+
+    public long requests() {
+        return hits + misses;
+    }
+
+    public double hitRatio() {
+        long requests = requests();
+        return requests == 0 ? 0d : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" + "name='" + name + '\'' + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size + ", maxSize=" + maxSize + ", hitRatio=" + "%.3f".formatted(hitRatio()) + '}';
+    }
+}
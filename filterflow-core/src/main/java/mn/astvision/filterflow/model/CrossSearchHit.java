@@ -0,0 +1,21 @@
+package mn.astvision.filterflow.model;
+
+/**
+ * One row of a cross-entity search, see {@link mn.astvision.filterflow.FilterFlow#searchAcross(String)}.
+ *
+ * @param type       tag of the source entity (its simple name unless given on {@code include})
+ * @param entityType class the row was read into
+ * @param score      relevance score, comparable across entity types
+ * @author zorigtbaatar
+ */
+
+public record CrossSearchHit(String type, Class<?> entityType, Object entity, double score) {
+
+    public boolean is(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+
+    public <T> T as(Class<T> type) {
+        return type.cast(entity);
+    }
+}
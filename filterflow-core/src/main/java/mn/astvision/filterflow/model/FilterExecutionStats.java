@@ -2,6 +2,7 @@ package mn.astvision.filterflow.model;
 
 import lombok.Builder;
 import lombok.Data;
+import mn.astvision.filterflow.model.enums.CountStrategy;
 import org.springframework.data.domain.Pageable;
 
 import java.time.Instant;
@@ -19,8 +20,19 @@ public final class FilterExecutionStats {
     private final Instant startTime;
     private final Instant endTime;
     private final boolean usedAggregation;
+    private final CountStrategy countStrategy; // null when no count ran
+    private final boolean ngramCandidatesTruncated; // NGRAM хайлтын candidate-ууд maxCandidates-аар тасарсан
 
     public static FilterExecutionStats create(long start, int filterCount, Pageable pageable, long resultCount, boolean usedAggregation) {
+        return create(start, filterCount, pageable, resultCount, usedAggregation, null);
+    }
+
+    public static FilterExecutionStats create(long start, int filterCount, Pageable pageable, long resultCount, boolean usedAggregation, CountStrategy countStrategy) {
+        return create(start, filterCount, pageable, resultCount, usedAggregation, countStrategy, false);
+    }
+
+    public static FilterExecutionStats create(long start, int filterCount, Pageable pageable, long resultCount, boolean usedAggregation, CountStrategy countStrategy,
+                                              boolean ngramCandidatesTruncated) {
         long durationNano = (System.nanoTime() - start) / 1_000_000;
         long durationMillis = durationNano / 1_000_000;
 
@@ -42,6 +54,8 @@ public final class FilterExecutionStats {
                 .startTime(startTime)
                 .endTime(endTime)
                 .usedAggregation(usedAggregation)
+                .countStrategy(countStrategy)
+                .ngramCandidatesTruncated(ngramCandidatesTruncated)
                 .build();
         //@formatter:on
 
@@ -49,7 +63,7 @@ public final class FilterExecutionStats {
 
     @Override
     public String toString() {
-        return "FilterExecutionStats{" + "durationMillis=" + durationMillis + ", filterCount=" + filterCount + ", isPaged=" + isPaged + ", pageSize=" + pageSize + ", pageNumber=" + pageNumber + ", resultCount=" + resultCount + ", startTime=" + startTime + ", endTime=" + endTime + ", usedAggregation=" + usedAggregation + '}';
+        return "FilterExecutionStats{" + "durationMillis=" + durationMillis + ", filterCount=" + filterCount + ", isPaged=" + isPaged + ", pageSize=" + pageSize + ", pageNumber=" + pageNumber + ", resultCount=" + resultCount + ", startTime=" + startTime + ", endTime=" + endTime + ", usedAggregation=" + usedAggregation + ", countStrategy=" + countStrategy + ", ngramCandidatesTruncated=" + ngramCandidatesTruncated + '}';
     }
 
     @Override
@@ -57,12 +71,12 @@ public final class FilterExecutionStats {
         if (obj == this) return true;
         if (obj == null || obj.getClass() != this.getClass()) return false;
         var that = (FilterExecutionStats) obj;
-        return this.durationMillis == that.durationMillis && this.filterCount == that.filterCount && this.isPaged == that.isPaged && this.pageSize == that.pageSize && this.pageNumber == that.pageNumber && this.resultCount == that.resultCount && Objects.equals(this.startTime, that.startTime) && Objects.equals(this.endTime, that.endTime) && this.usedAggregation == that.usedAggregation;
+        return this.durationMillis == that.durationMillis && this.filterCount == that.filterCount && this.isPaged == that.isPaged && this.pageSize == that.pageSize && this.pageNumber == that.pageNumber && this.resultCount == that.resultCount && Objects.equals(this.startTime, that.startTime) && Objects.equals(this.endTime, that.endTime) && this.usedAggregation == that.usedAggregation && this.countStrategy == that.countStrategy;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(durationMillis, filterCount, isPaged, pageSize, pageNumber, resultCount, startTime, endTime, usedAggregation);
+        return Objects.hash(durationMillis, filterCount, isPaged, pageSize, pageNumber, resultCount, startTime, endTime, usedAggregation, countStrategy);
     }
 
 }
@@ -4,10 +4,13 @@ import lombok.Data;
 import lombok.experimental.FieldNameConstants;
 import mn.astvision.filterflow.component.FilterComponent;
 import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.enums.CountStrategy;
 import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.model.enums.GlobalSearchMode;
 import mn.astvision.filterflow.util.ConversionUtil;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -18,9 +21,17 @@ import java.util.stream.Collectors;
 @Data
 @FieldNameConstants
 public class FilterOptions {
+    // CONTROL filter-ээр client өөрчилж болохгүй, зөвхөн server талд тохируулна
+    private static final Set<String> SERVER_SIDE_FIELDS = Set.of(Fields.globalSearchEscapeKeyword);
+
     private boolean debug;
     private boolean resolveVF;
     private boolean skipCount;
+    private CountStrategy countStrategy = CountStrategy.SEQUENTIAL;
+
+    // streaming
+    private int streamBatchSize; // 0 бол driver-ийн default
+    private boolean allowDiskUse;
 
     // report
     private DbExplainOptions dbExplainOptions = DbExplainOptions.byDefault();
@@ -30,6 +41,34 @@ public class FilterOptions {
     private boolean executionStatLoggerEnabled;
     private float memoryThreshholdPercent;
 
+    // EQUALS_IGNORE_CASE / STARTS_WITH_CI-г энэ locale-ийн strength 2 collation-аар ажиллуулна (ижил collation-тай
+    // case-insensitive index-ийг ашиглана); null бол regex. Collation нь бүх query-д үйлчилнэ
+    private String caseInsensitiveCollation;
+
+    // summary: COUNT_DISTINCT / MEDIAN / Pxx-г server-ийн $group/$percentile-ийн оронд зөвхөн тухайн талбарыг stream хийж
+    // HyperLogLog / quantile sketch-ээр ойролцоо тооцоолно (санах ой хязгаартай)
+    private boolean approximateSummaries;
+
+    // criteria plan cache
+    private boolean planCacheEnabled = true;
+
+    // stored талбарын нөхцөлийг virtual field-ийн $lookup-аас өмнө $match хийнэ
+    private boolean predicatePushdownEnabled = true;
+    // sort/filter virtual field ашиглаагүй бол $lookup-ийг зөвхөн тухайн page-ийн мөрүүд дээр ажиллуулна
+    private boolean lateMaterializationEnabled = true;
+
+    // result cache, @CacheResults-тай entity дээр үргэлж идэвхтэй
+    private boolean resultCacheEnabled;
+    private boolean bypassResultCache;
+    // summary: SUM/AVG/COUNT/MIN/MAX-ийг write event-ээр delta-гаар шинэчлэгддэг кэшээс уншина,
+    // @MaterializedSummaries-тай entity дээр үргэлж идэвхтэй (bypassResultCache үүнийг ч алгасна)
+    private boolean materializedSummaries;
+
+    // autocomplete: сүүлийн prefix-үүдийн үр дүнг талбар тус бүрд энэ хугацаанд (секунд) хадгална, 0 бол кэшгүй
+    private int autocompleteCacheTtlSeconds = 30;
+    // autocomplete: filter байхгүй, prefix хоосон биш үед $facet-ийн оронд distinct command ашиглана
+    private boolean autocompleteUseDistinct;
+
     //projection
     private List<String> project;
     private List<String> exclude;
@@ -38,6 +77,17 @@ public class FilterOptions {
     private Set<String> allowedGlobalSearchFields;
     private Set<String> excludedGlobalSearchFields;
     private int globalSearchDepth = 4;
+    private GlobalSearchMode globalSearchMode = GlobalSearchMode.REGEX;
+    // false бол keyword-ийг regex гэж үзнэ (хуучин зан төлөв); ReDoS-оос сэргийлж CONTROL filter-ээр өөрчлөгдөхгүй
+    private boolean globalSearchEscapeKeyword = true;
+    // 0 бол @NgramIndexed-ийн minSimilarity
+    private double ngramMinSimilarity;
+    // GLOBAL хайлтын үр дүнг exact > prefix > substring оноогоор эрэмбэлнэ (aggregation-аар ажиллана)
+    private boolean globalSearchRanked;
+    // талбарын нэр -> жин, @SearchWeight-ийг дарна
+    private Map<String, Double> searchFieldWeights;
+    // 0 бол хязгааргүй, эс бөгөөс хамгийн өндөр оноотой K мөрөөс хэтрэхгүй (total ч K-аар хязгаарлагдана)
+    private int searchTopK;
 
     // apply
     private boolean parallel;
@@ -52,11 +102,16 @@ public class FilterOptions {
         return new FilterOptions();
     }
 
+    /**
+     * @return option names a client may set with a CONTROL filter
+     */
     public static Set<String> getAllowedFieldNames() {
         //@formatter:off
         Field[] declaredFields = FilterOptions.class.getDeclaredFields();
         return Arrays.stream(declaredFields)
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
                 .map(Field::getName)
+                .filter(name -> !SERVER_SIDE_FIELDS.contains(name))
                 .collect(Collectors.toSet());
         //@formatter:on
     }
@@ -6,10 +6,8 @@ import lombok.Getter;
 import mn.astvision.filterflow.component.FilterComponent;
 import mn.astvision.filterflow.model.enums.FilterLogicMode;
 import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.util.metadata.EntityMetadataRegistry;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -60,25 +58,13 @@ public class FilterRequest extends FilterComponent {
     }
 
     private static void validateField(Class<?> entityClass, String fieldName) {
-        boolean fieldExists = getAllFields(entityClass).stream().anyMatch(field -> field.getName().equals(fieldName));
+        boolean fieldExists = EntityMetadataRegistry.of(entityClass).field(fieldName) != null;
 
         if (!fieldExists) {
             throw new IllegalArgumentException(String.format("Field '%s' does not exist in class %s", fieldName, entityClass.getSimpleName()));
         }
     }
 
-    private static List<Field> getAllFields(Class<?> type) {
-        List<Field> fields = new ArrayList<>();
-        Class<?> currentClass = type;
-
-        while (currentClass != null && currentClass != Object.class) {
-            fields.addAll(Arrays.asList(currentClass.getDeclaredFields()));
-            currentClass = currentClass.getSuperclass();
-        }
-
-        return fields;
-    }
-
     public static Builder builder() {
         return new Builder();
     }
@@ -0,0 +1,27 @@
+package mn.astvision.filterflow.model;
+
+import mn.astvision.filterflow.component.executors.SummaryExecutor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * One row of a grouped summary, see {@code ISummaryFlow#summarizeBy}.
+ *
+ * @param group  group field -> value of this row (null when the documents lack the field), in the requested order
+ * @param count  number of documents in the group
+ * @param values field -> (op -> value), same shape as {@code summarize}
+ * @author zorigtbaatar
+ */
+
+public record GroupedSummary(Map<String, Object> group, long count, Map<String, Map<String, BigDecimal>> values) {
+    public static final String COUNT = "count";
+
+    public Object groupValue(String field) {
+        return group.get(field);
+    }
+
+    public BigDecimal value(String field, SummaryExecutor.AggregateOp op) {
+        return values.getOrDefault(field, Map.of()).getOrDefault(op.name(), BigDecimal.ZERO);
+    }
+}
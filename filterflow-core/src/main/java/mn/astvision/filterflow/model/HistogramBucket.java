@@ -0,0 +1,28 @@
+package mn.astvision.filterflow.model;
+
+import mn.astvision.filterflow.component.executors.SummaryExecutor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * One bucket of a histogram, see {@code ISummaryFlow#histogram}.
+ *
+ * @param from   inclusive lower bound: bucket start {@link java.util.Date} for date histograms, the boundary value
+ *               for numeric ones; null for the bucket of values outside the boundaries
+ * @param to     exclusive upper bound (inclusive for the last {@code $bucketAuto} bucket); null like {@code from}
+ * @param count  number of documents in the bucket, 0 for a filled-in empty bucket
+ * @param values field -> (op -> value), same shape as {@code summarize}
+ * @author zorigtbaatar
+ */
+
+public record HistogramBucket(Object from, Object to, long count, Map<String, Map<String, BigDecimal>> values) {
+
+    public boolean isOutOfRange() {
+        return from == null && to == null;
+    }
+
+    public BigDecimal value(String field, SummaryExecutor.AggregateOp op) {
+        return values.getOrDefault(field, Map.of()).getOrDefault(op.name(), BigDecimal.ZERO);
+    }
+}
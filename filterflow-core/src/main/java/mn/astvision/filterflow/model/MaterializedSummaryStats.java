@@ -0,0 +1,31 @@
+package mn.astvision.filterflow.model;
+
+/**
+ * Immutable snapshot of {@link mn.astvision.filterflow.util.cache.MaterializedSummaryCache} counters.
+ *
+ * @param hits           reads answered from the cache
+ * @param misses         first loads of a summary
+ * @param staleReloads   full recomputes because the entry outlived its staleness bound
+ * @param recomputes     lazy recomputes of entries a write could not adjust (removed MIN/MAX, unknown write)
+ * @param deltaUpdates   entries adjusted in place by a save or delete
+ * @param invalidations  entries dropped by a write that did not target one document
+ * @author zorigtbaatar
+ */
+
+public record MaterializedSummaryStats(long hits, long misses, long staleReloads, long recomputes, long deltaUpdates,
+                                       long invalidations, long evictions, int size, int maxEntries) {
+
+    public long requests() {
+        return hits + misses + staleReloads + recomputes;
+    }
+
+    public double hitRatio() {
+        long requests = requests();
+        return requests == 0 ? 0d : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "MaterializedSummaryStats{" + "hits=" + hits + ", misses=" + misses + ", staleReloads=" + staleReloads + ", recomputes=" + recomputes + ", deltaUpdates=" + deltaUpdates + ", invalidations=" + invalidations + ", evictions=" + evictions + ", size=" + size + ", maxEntries=" + maxEntries + ", hitRatio=" + "%.3f".formatted(hitRatio()) + '}';
+    }
+}
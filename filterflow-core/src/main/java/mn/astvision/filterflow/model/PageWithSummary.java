@@ -0,0 +1,34 @@
+package mn.astvision.filterflow.model;
+
+import lombok.Getter;
+import mn.astvision.filterflow.component.executors.SummaryExecutor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page together with the summaries of the whole filtered set (not just the page rows), read from one
+ * {@code $facet} aggregation.
+ *
+ * @author zorigtbaatar
+ */
+
+@Getter
+public class PageWithSummary<T> extends PageImpl<T> {
+    /**
+     * field -> (op -> value), same shape as {@code summarize}
+     */
+    private final Map<String, Map<String, BigDecimal>> summary;
+
+    public PageWithSummary(List<T> content, Pageable pageable, long total, Map<String, Map<String, BigDecimal>> summary) {
+        super(content, pageable, total);
+        this.summary = summary;
+    }
+
+    public BigDecimal summary(String field, SummaryExecutor.AggregateOp op) {
+        return summary.getOrDefault(field, Map.of()).getOrDefault(op.name(), BigDecimal.ZERO);
+    }
+}
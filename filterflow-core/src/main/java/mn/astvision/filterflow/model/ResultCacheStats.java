@@ -0,0 +1,29 @@
+package mn.astvision.filterflow.model;
+
+/**
+ * Immutable snapshot of {@link mn.astvision.filterflow.util.cache.QueryResultCache} counters.
+ *
+ * @author zorigtbaatar
+ */
+
+public record ResultCacheStats(long hits, long misses, long evictions, long expirations, long invalidations,
+                               int size, int maxEntries, long bytes, long maxBytes) {
+
+    public long requests() {
+        return hits + misses;
+    }
+
+    public double hitRatio() {
+        long requests = requests();
+        return requests == 0 ? 0d : (double) hits / requests;
+    }
+
+    public double memoryUsage() {
+        return maxBytes == 0 ? 0d : (double) bytes / maxBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCacheStats{" + "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", expirations=" + expirations + ", invalidations=" + invalidations + ", size=" + size + ", maxEntries=" + maxEntries + ", bytes=" + bytes + ", maxBytes=" + maxBytes + ", hitRatio=" + "%.3f".formatted(hitRatio()) + '}';
+    }
+}
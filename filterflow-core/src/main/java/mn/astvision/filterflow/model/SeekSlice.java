@@ -0,0 +1,46 @@
+package mn.astvision.filterflow.model;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One window of a keyset-paginated result. {@link #getNextToken()} is null on the last slice.
+ *
+ * @author zorigtbaatar
+ */
+
+@Getter
+public class SeekSlice<T> {
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    private final SeekToken nextToken;
+
+    public SeekSlice(List<T> content, int size, boolean hasNext, SeekToken nextToken) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextToken = nextToken;
+    }
+
+    public static <T> SeekSlice<T> empty(int size) {
+        return new SeekSlice<>(List.of(), size, false, null);
+    }
+
+    /**
+     * @return encoded {@link #getNextToken()}, ready to be handed to a client
+     */
+    public String getNextCursor() {
+        return nextToken != null ? nextToken.encode() : null;
+    }
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SeekSlice{" + "size=" + size + ", numberOfElements=" + content.size() + ", hasNext=" + hasNext + ", nextCursor=" + getNextCursor() + '}';
+    }
+}
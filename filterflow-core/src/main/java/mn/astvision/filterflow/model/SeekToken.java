@@ -0,0 +1,78 @@
+package mn.astvision.filterflow.model;
+
+import mn.astvision.filterflow.exception.FilterException;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Opaque continuation token for keyset (seek) pagination.
+ * Holds the sort key values of the last returned row (the {@code _id} tiebreaker last) and a signature of the sort
+ * it was produced with, so a token can not be replayed against a different ordering.
+ *
+ * @author zorigtbaatar
+ */
+
+public final class SeekToken {
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+    private static final String KEY_SORT = "s";
+    private static final String KEY_VALUES = "v";
+
+    private final String sortSignature;
+    private final List<Object> values;
+
+    public SeekToken(String sortSignature, List<Object> values) {
+        this.sortSignature = Objects.requireNonNull(sortSignature, "Sort signature must not be null");
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    public static SeekToken decode(String token) {
+        if (token == null || token.isBlank()) return null;
+
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            Document doc = Document.parse(json);
+            return new SeekToken(doc.getString(KEY_SORT), doc.getList(KEY_VALUES, Object.class));
+        } catch (Exception e) {
+            throw new FilterException("Invalid seek token", e);
+        }
+    }
+
+    public String encode() {
+        Document doc = new Document(KEY_SORT, sortSignature).append(KEY_VALUES, values);
+        byte[] json = doc.toJson(JSON_SETTINGS).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    }
+
+    public String getSortSignature() {
+        return sortSignature;
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SeekToken that)) return false;
+        return sortSignature.equals(that.sortSignature) && values.equals(that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sortSignature, values);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
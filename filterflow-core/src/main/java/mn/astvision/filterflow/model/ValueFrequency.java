@@ -0,0 +1,11 @@
+package mn.astvision.filterflow.model;
+
+/**
+ * A distinct value and how many matching documents carry it, see {@code SuggestionBuilder#topByFrequency}.
+ * For array fields a value counts once per document that contains it, even if it repeats in that document.
+ *
+ * @author zorigtbaatar
+ */
+
+public record ValueFrequency(Object value, long count) {
+}
@@ -0,0 +1,13 @@
+package mn.astvision.filterflow.model.enums;
+
+/**
+ * How the total of a paged query is computed.
+ *
+ * @author zorigtbaatar
+ */
+
+public enum CountStrategy {
+    SEQUENTIAL, // content, then a second count round-trip
+    CONCURRENT, // count runs on a virtual thread while the content is fetched
+    FACET       // one aggregation, $facet returns content and $count together (result must fit in 16MB)
+}
@@ -16,6 +16,15 @@ public enum FilterOperator {
      */
     EQUALS("==", "eq"),
 
+    /**
+     * Case-insensitive equals operator (=~).
+     * Use case: field value equals the given string, ignoring case.
+     * MongoDB: equality on the lower-cased shadow field of {@code @IgnoreCaseIndexed} fields, equality under a
+     * case-insensitive query collation when {@code caseInsensitiveCollation} is set, otherwise an anchored
+     * case-insensitive regex.
+     */
+    EQUALS_IGNORE_CASE("=~", "eqi"),
+
     /**
      * Not equals operator (!=).
      * Use case: field value is not equal to the given value.
@@ -68,6 +77,14 @@ public enum FilterOperator {
      */
     STARTS_WITH("^", "sw"),
 
+    /**
+     * Case-insensitive starts with operator (^~).
+     * Use case: like {@link #STARTS_WITH}, but index-friendly: an anchored prefix on the lower-cased shadow field of
+     * {@code @IgnoreCaseIndexed} fields, or a range under a case-insensitive query collation when
+     * {@code caseInsensitiveCollation} is set. Falls back to a case-insensitive regex.
+     */
+    STARTS_WITH_CI("^~", "swi"),
+
     /**
      * Ends with operator ($).
      * Use case: field value ends with the given substring (case-insensitive).
@@ -0,0 +1,18 @@
+package mn.astvision.filterflow.model.enums;
+
+/**
+ * How a {@code GLOBAL} filter is turned into a query.
+ * <p>
+ * {@link #TEXT} (and {@link #AUTO} when it picks it) emits a {@code $text} condition, which MongoDB only accepts
+ * AND-combined at the top level of a query, or in the first {@code $match} of an aggregation.
+ *
+ * @author zorigtbaatar
+ */
+
+public enum GlobalSearchMode {
+    REGEX,  // case-insensitive "contains" regex on every searchable String field (the keyword is escaped by default)
+    TEXT,   // $text on the collection's text index, results ordered by textScore unless a sort is given
+    PREFIX, // case-sensitive anchored prefix regex on indexed String fields, which the index can bound
+    NGRAM,  // _id $in candidates from the trigram side collection of an @NgramIndexed entity (fragments, typos)
+    AUTO    // NGRAM for @NgramIndexed entities, else TEXT with a text index, else PREFIX when a searchable field is indexed, else REGEX
+}
@@ -0,0 +1,57 @@
+package mn.astvision.filterflow.model.enums;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Bucket width of a date histogram, truncated with {@code $dateTrunc} on the server (MongoDB 5.0+) and the same way
+ * in Java when empty buckets are filled. Weeks start on Monday.
+ *
+ * @author zorigtbaatar
+ */
+
+public enum HistogramUnit {
+    MINUTE,
+    HOUR,
+    DAY,
+    WEEK,
+    MONTH,
+    QUARTER,
+    YEAR;
+
+    public String mongoUnit() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * @return start of the bucket that contains {@code instant} in {@code zone}
+     */
+    public ZonedDateTime truncate(Instant instant, ZoneId zone) {
+        ZonedDateTime time = instant.atZone(zone);
+        return switch (this) {
+            case MINUTE -> time.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).truncatedTo(ChronoUnit.DAYS);
+            case MONTH -> time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+            case QUARTER -> time.withMonth((time.getMonthValue() - 1) / 3 * 3 + 1).withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+            case YEAR -> time.withDayOfYear(1).truncatedTo(ChronoUnit.DAYS);
+        };
+    }
+
+    public ZonedDateTime next(ZonedDateTime start) {
+        return switch (this) {
+            case MINUTE -> start.plusMinutes(1);
+            case HOUR -> start.plusHours(1);
+            case DAY -> start.plusDays(1);
+            case WEEK -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+            case QUARTER -> start.plusMonths(3);
+            case YEAR -> start.plusYears(1);
+        };
+    }
+}
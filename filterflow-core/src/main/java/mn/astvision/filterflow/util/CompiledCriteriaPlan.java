@@ -0,0 +1,141 @@
+package mn.astvision.filterflow.util;
+
+import mn.astvision.filterflow.component.FilterComponent;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.handlers.OperatorHandler;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.FilterLogicMode;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.*;
+
+import static mn.astvision.filterflow.model.enums.FilterOperator.*;
+
+/**
+ * A {@link FilterGroup} shape compiled once: field types are resolved, operators validated and handlers looked up.
+ * Binding walks a group of the same shape and only converts/validates the values.
+ *
+ * @author zorigtbaatar
+ */
+
+final class CompiledCriteriaPlan {
+    private final GroupNode root;
+    private final int slotCount;
+
+    private CompiledCriteriaPlan(GroupNode root, int slotCount) {
+        this.root = root;
+        this.slotCount = slotCount;
+    }
+
+    static CompiledCriteriaPlan compile(FilterGroup group, Class<?> targetType) {
+        int[] slots = {0};
+        GroupNode root = compileGroup(group, targetType, 0, slots);
+        return new CompiledCriteriaPlan(root, slots[0]);
+    }
+
+    Criteria bind(FilterGroup group, FilterOptions options, Class<?> targetType) {
+        return root.bind(group, options, targetType);
+    }
+
+    int getSlotCount() {
+        return slotCount;
+    }
+
+    private static GroupNode compileGroup(FilterGroup group, Class<?> targetType, int depth, int[] slots) {
+        if (depth > CriteriaBuilderUtil.MAX_DEPTH) throw new FilterException("Maximum filter nesting depth exceeded");
+        if (group.getComponents() == null || group.getComponents().isEmpty()) return new GroupNode(List.of());
+
+        List<Node> children = new ArrayList<>(group.getComponents().size());
+        for (FilterComponent component : group.getComponents()) {
+            Node node = switch (component) {
+                case FilterRequest fr -> compileRequest(fr, targetType, slots);
+                case FilterGroup fg -> compileGroup(fg, targetType, depth + 1, slots);
+                default ->
+                        throw new FilterException("Unknown filter component type: %s".formatted(component.getClass().getSimpleName()));
+            };
+            children.add(node);
+        }
+        return new GroupNode(List.copyOf(children));
+    }
+
+    private static Node compileRequest(FilterRequest filter, Class<?> targetType, int[] slots) {
+        String operator = filter.getOperator();
+
+        // GLOBAL, EXPR нь утгаасаа хамаарч criteria-гаа бүрдүүлдэг тул bind бүрт шинээр build хийнэ
+        if (operator.equals(GLOBAL.name()) || operator.equals(EXPR.name()) || operator.equals(CONTROL.name())) {
+            return DynamicNode.INSTANCE;
+        }
+
+        Class<?> fieldType = ValidationUtil.resolveField(filter.getField(), targetType);
+
+        ValidationUtil.ResolvedField resolved = null;
+        boolean valueValidated = switch (operator) {
+            case "BETWEEN", "NOT_BETWEEN", "IN", "NOT_IN" -> false;
+            default -> OperationUtil.isRequiringValidation(operator);
+        };
+        if (valueValidated) {
+            resolved = ValidationUtil.resolveForValidation(filter, targetType);
+        }
+
+        OperatorHandler handler = CriteriaBuilderUtil.resolveHandler(operator);
+        slots[0]++;
+        return new SlotNode(filter.getField(), fieldType, resolved, handler);
+    }
+
+    private sealed interface Node permits GroupNode, SlotNode, DynamicNode {
+        Criteria bind(FilterComponent component, FilterOptions options, Class<?> targetType);
+    }
+
+    private record GroupNode(List<Node> children) implements Node {
+
+        @Override
+        public Criteria bind(FilterComponent component, FilterOptions options, Class<?> targetType) {
+            FilterGroup group = (FilterGroup) component;
+            if (children.isEmpty()) return new Criteria();
+
+            Map<FilterLogicMode, List<Criteria>> grouped = new EnumMap<>(FilterLogicMode.class);
+            for (FilterLogicMode mode : FilterLogicMode.values()) {
+                grouped.put(mode, new ArrayList<>());
+            }
+
+            List<FilterComponent> components = group.getComponents();
+            for (int i = 0; i < children.size(); i++) {
+                FilterComponent child = components.get(i);
+                grouped.get(child.getLogic()).add(children.get(i).bind(child, options, targetType));
+            }
+
+            return CriteriaBuilderUtil.mergeLogicGroups(grouped);
+        }
+    }
+
+    private record SlotNode(String field, Class<?> fieldType, ValidationUtil.ResolvedField resolved,
+                            OperatorHandler handler) implements Node {
+
+        @Override
+        public Criteria bind(FilterComponent component, FilterOptions options, Class<?> targetType) {
+            FilterRequest filter = (FilterRequest) component;
+
+            Object value = CriteriaBuilderUtil.convertValue(filter, fieldType, () -> {
+                if (resolved != null) ValidationUtil.validateValue(filter, resolved, filter.getValue());
+            });
+
+            Criteria rewritten = CriteriaBuilderUtil.rewrite(filter.getOperator(), field, value, options, targetType);
+            if (rewritten != null) return rewritten;
+
+            value = ConversionUtil.toMongoComparable(value);
+
+            return handler.build(field, value);
+        }
+    }
+
+    private enum DynamicNode implements Node {
+        INSTANCE;
+
+        @Override
+        public Criteria bind(FilterComponent component, FilterOptions options, Class<?> targetType) {
+            return CriteriaBuilderUtil.buildSingleCriteria((FilterRequest) component, options, targetType);
+        }
+    }
+}
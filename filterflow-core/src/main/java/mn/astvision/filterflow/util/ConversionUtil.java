@@ -3,6 +3,8 @@ package mn.astvision.filterflow.util;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.CacheStats;
+import mn.astvision.filterflow.util.cache.FrequencyCache;
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,12 +15,11 @@ import java.math.BigDecimal;
 import java.text.MessageFormat;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoField;
+import java.time.temporal.Temporal;
 import java.time.temporal.TemporalAccessor;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -46,8 +47,22 @@ public class ConversionUtil {
                     ")$",
             Pattern.CASE_INSENSITIVE
     );
-    private static final ConcurrentMap<CacheKey, Object> conversionCache = new ConcurrentHashMap<>();
-    private static final ConcurrentMap<Object, Object> mongoComparableCache = new ConcurrentHashMap<>();
+    private static final int CONVERSION_CACHE_SIZE = 10_000;
+    private static final int MONGO_COMPARABLE_CACHE_SIZE = 10_000;
+
+    // keys are raw request values, so both caches are bounded and keep the frequently repeated ones
+    private static final FrequencyCache<CacheKey, Object> conversionCache = new FrequencyCache<>("conversion", CONVERSION_CACHE_SIZE);
+    private static final FrequencyCache<String, Object> mongoComparableCache = new FrequencyCache<>("mongo-comparable", MONGO_COMPARABLE_CACHE_SIZE);
+
+    // source class -> target class -> converter, compiled once per pair
+    private static final ClassValue<Map<Class<?>, Converter>> CONVERTERS = new ClassValue<>() {
+        @Override
+        protected Map<Class<?>, Converter> computeValue(Class<?> sourceType) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final Set<String> TEMPORAL_TARGET_NAMES = Set.of("LocalDateTime", "LocalDate", "LocalTime", "Date");
+    private static final Map<Class<?>, Class<?>> WRAPPER_TYPES = Map.of(int.class, Integer.class, long.class, Long.class, double.class, Double.class, float.class, Float.class, boolean.class, Boolean.class, byte.class, Byte.class, char.class, Character.class, short.class, Short.class);
 
     private final static Logger log = LoggerFactory.getLogger(ConversionUtil.class);
     //@formatter:on
@@ -59,7 +74,6 @@ public class ConversionUtil {
             DateTimeFormatter.ISO_ZONED_DATE_TIME         // 2023-08-02T10:15:30+01:00[Europe/Paris]
     );
     private static final ZoneId DEFAULT_ZONE = ZoneOffset.UTC;
-    ;
     //@formatter:off
     private static final List<DateTimeFormatter> LOCAL_DATE_TIME_FORMATTERS = List.of(
             DateTimeFormatter.ISO_DATE_TIME,
@@ -80,6 +94,10 @@ public class ConversionUtil {
             LOCAL_DATE_FORMATTERS.stream(),
             LOCAL_TIME_FORMATTERS.stream()
     ).flatMap(s -> s).distinct().toList();
+    private static final FormatterChain LOCAL_DATE_TIME_CHAIN = new FormatterChain(LOCAL_DATE_TIME_FORMATTERS);
+    private static final FormatterChain LOCAL_DATE_CHAIN = new FormatterChain(LOCAL_DATE_FORMATTERS);
+    private static final FormatterChain LOCAL_TIME_CHAIN = new FormatterChain(LOCAL_TIME_FORMATTERS);
+    private static final FormatterChain DATE_CHAIN = new FormatterChain(ALL_TEMPORAL_FORMATTERS);
     private static final Map<Class<?>, Function<String, ?>> NUMERIC_PARSERS = Map.of(
             Long.class, Long::parseLong,
             Integer.class, Integer::parseInt,
@@ -211,113 +229,174 @@ public class ConversionUtil {
         if (rawValue == null) {
             return null;
         }
-
-        CacheKey key = new CacheKey(rawValue, expectedType);
-        if (conversionCache.containsKey(key)) {
-            return conversionCache.get(key);
+        if (normalize(expectedType).isInstance(rawValue)) {
+            return rawValue;
         }
-
-        Object convertedValue = doConvertToExpectedType(rawValue, expectedType);
-        if (convertedValue != null) {
-            conversionCache.put(key, convertedValue);
+        if (!isCacheable(rawValue, expectedType)) {
+            return doConvertToExpectedType(rawValue, expectedType);
         }
 
-        return convertedValue;
+        return conversionCache.computeIfAbsent(new CacheKey(rawValue, expectedType), key -> doConvertToExpectedType(rawValue, expectedType));
     }
 
     public static Object doConvertToExpectedType(Object rawValue, Class<?> expectedType) {
         if (rawValue == null) return null;
-        expectedType = normalize(expectedType);
+        Class<?> targetType = normalize(expectedType);
 
-        if (expectedType.isInstance(rawValue)) {
-            return rawValue;
+        try {
+            return converterFor(rawValue.getClass(), targetType).convert(rawValue);
+        } catch (FilterException fe) {
+            throw fe;
+        } catch (Exception e) {
+            throw new FilterException("Failed to convert value '%s' to expected type %s".formatted(rawValue, targetType.getSimpleName()), e);
         }
+    }
 
-        try {
-            Object temporalVal = tryParseTemporal(rawValue, expectedType);
-            if (temporalVal != null) {
-                boolean isInstance = expectedType.isInstance(temporalVal);
-                boolean isChanged = !temporalVal.getClass().equals(rawValue.getClass());
+    public static List<CacheStats> cacheStats() {
+        return List.of(conversionCache.stats(), mongoComparableCache.stats());
+    }
 
-                if (isInstance || isChanged) {
-                    return temporalVal;
-                }
-            }
+    public static void clearCaches() {
+        conversionCache.clear();
+        mongoComparableCache.clear();
+    }
 
-            if (rawValue instanceof Number number) {
-                if (expectedType == Byte.class || expectedType == byte.class) return number.byteValue();
-                if (expectedType == Short.class || expectedType == short.class) return number.shortValue();
-                if (expectedType == Integer.class || expectedType == int.class) return number.intValue();
-                if (expectedType == Long.class || expectedType == long.class) return number.longValue();
-                if (expectedType == Float.class || expectedType == float.class) return number.floatValue();
-                if (expectedType == Double.class || expectedType == double.class) return number.doubleValue();
-            }
+    // Cached results are shared between callers, so only immutable scalars (and Date, as before) are cached.
+    private static boolean isCacheable(Object rawValue, Class<?> expectedType) {
+        boolean scalarSource = rawValue instanceof String || rawValue instanceof Number || rawValue instanceof Boolean;
+        return scalarSource && isScalarType(normalize(expectedType));
+    }
 
-            if (rawValue instanceof String str) {
-                // Handle Numeric Types
-                if (Number.class.isAssignableFrom(expectedType)) {
-                    try {
-                        return parseToNumeric(str, expectedType);
-                    } catch (Exception e) {
-                        throw new FilterException("Failed to parse number: '%s' to type %s".formatted(str, expectedType.getSimpleName()), e);
-                    }
-                }
+    private static boolean isScalarType(Class<?> type) {
+        return Number.class.isAssignableFrom(type) || type == Boolean.class || type == String.class || type.isEnum()
+                || Temporal.class.isAssignableFrom(type) || Date.class.isAssignableFrom(type);
+    }
 
-                if (expectedType == Boolean.class) {
-                    if (str.equalsIgnoreCase("true") || str.equalsIgnoreCase("false")) {
-                        return Boolean.parseBoolean(str);
-                    } else {
-                        throw new FilterException("Invalid boolean value: '%s'".formatted(str));
-                    }
-                }
+    // --- Compiled converters ---
+
+    private static Converter converterFor(Class<?> sourceType, Class<?> targetType) {
+        return CONVERTERS.get(sourceType).computeIfAbsent(targetType, t -> compileConverter(sourceType, t));
+    }
 
-                // Enum
-                if (expectedType.isEnum()) {
-                    try {
-                        return Enum.valueOf((Class<Enum>) expectedType, str);
-                    } catch (IllegalArgumentException e) {
-                        throw new FilterException("Invalid enum value: %s for type %s".formatted(str, expectedType.getSimpleName()));
-                    } catch (ClassCastException e) {
-                        throw new FilterException("Invalid enum class cast for type %s".formatted(expectedType.getSimpleName()), e);
-                    }
+    /**
+     * Resolves once per (source, target) pair the steps the conversion takes, in the order they were tried before:
+     * temporal conversion, numeric narrowing, string parsing, then collection / array / map shaping.
+     */
+    private static Converter compileConverter(Class<?> sourceType, Class<?> targetType) {
+        if (targetType.isAssignableFrom(sourceType)) {
+            return rawValue -> rawValue;
+        }
+
+        Converter structural = structuralConverter(targetType);
+        Function<Object, Object> temporal = temporalConverter(sourceType, targetType);
+
+        Converter scalar = structural;
+        if (Number.class.isAssignableFrom(sourceType)) {
+            Function<Number, Object> narrowing = numberConverter(targetType);
+            if (narrowing != null) scalar = rawValue -> narrowing.apply((Number) rawValue);
+        } else if (sourceType == String.class) {
+            scalar = stringConverter(targetType, structural);
+        }
+
+        if (temporal == null) return scalar;
+
+        Converter next = scalar;
+        return rawValue -> {
+            Object temporalVal = temporal.apply(rawValue);
+            return temporalVal != null ? temporalVal : next.convert(rawValue);
+        };
+    }
+
+    private static Function<Object, Object> temporalConverter(Class<?> sourceType, Class<?> targetType) {
+        if (sourceType == LocalDateTime.class) return v -> convertFromLocalDateTime((LocalDateTime) v, targetType);
+        if (sourceType == LocalDate.class) return v -> convertFromLocalDate((LocalDate) v, targetType);
+        if (sourceType == LocalTime.class) return v -> convertFromLocalTime((LocalTime) v, targetType);
+        if (Date.class.isAssignableFrom(sourceType)) return v -> convertFromDate((Date) v, targetType);
+        if (sourceType == ZonedDateTime.class) return v -> convertFromZonedDateTime((ZonedDateTime) v, targetType);
+        if (sourceType == OffsetDateTime.class) return v -> convertFromOffsetDateTime((OffsetDateTime) v, targetType);
+        if (sourceType == Instant.class) return v -> convertFromInstant((Instant) v, targetType);
+
+        if (sourceType == String.class && TEMPORAL_TARGET_NAMES.contains(targetType.getSimpleName())) {
+            return v -> ((String) v).isBlank() ? null : parseStringToTemporal((String) v, targetType);
+        }
+        return null;
+    }
+
+    private static Function<Number, Object> numberConverter(Class<?> targetType) {
+        if (targetType == Byte.class) return Number::byteValue;
+        if (targetType == Short.class) return Number::shortValue;
+        if (targetType == Integer.class) return Number::intValue;
+        if (targetType == Long.class) return Number::longValue;
+        if (targetType == Float.class) return Number::floatValue;
+        if (targetType == Double.class) return Number::doubleValue;
+        return null;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Converter stringConverter(Class<?> targetType, Converter structural) {
+        if (Number.class.isAssignableFrom(targetType)) {
+            return rawValue -> {
+                try {
+                    return parseToNumeric((String) rawValue, targetType);
+                } catch (Exception e) {
+                    throw new FilterException("Failed to parse number: '%s' to type %s".formatted(rawValue, targetType.getSimpleName()), e);
                 }
+            };
+        }
 
-                if (isJson(str)) {
-                    try {
-                        return OBJECT_MAPPER.readValue(str, expectedType);
-                    } catch (Exception e) {
-                        throw new FilterException("Failed to parse JSON string: %s".formatted(str), e);
-                    }
+        if (targetType == Boolean.class) {
+            return rawValue -> {
+                String str = (String) rawValue;
+                if (str.equalsIgnoreCase("true") || str.equalsIgnoreCase("false")) {
+                    return Boolean.parseBoolean(str);
                 }
-            }
+                throw new FilterException("Invalid boolean value: '%s'".formatted(str));
+            };
+        }
 
-            if (Collection.class.isAssignableFrom(expectedType)) {
-                return convertToCollection(rawValue, expectedType);
-            }
+        if (targetType.isEnum()) {
+            return rawValue -> {
+                try {
+                    return Enum.valueOf((Class<Enum>) targetType, (String) rawValue);
+                } catch (IllegalArgumentException e) {
+                    throw new FilterException("Invalid enum value: %s for type %s".formatted(rawValue, targetType.getSimpleName()));
+                } catch (ClassCastException e) {
+                    throw new FilterException("Invalid enum class cast for type %s".formatted(targetType.getSimpleName()), e);
+                }
+            };
+        }
 
-            if (expectedType.isArray()) {
-                return convertToArray(rawValue, expectedType.getComponentType());
+        return rawValue -> {
+            String str = (String) rawValue;
+            if (!isJson(str)) return structural.convert(rawValue);
+            try {
+                return OBJECT_MAPPER.readValue(str, targetType);
+            } catch (Exception e) {
+                throw new FilterException("Failed to parse JSON string: %s".formatted(str), e);
             }
+        };
+    }
 
-            if (Map.class.isAssignableFrom(expectedType)) {
-                Map<String, Object> map = convertToMap(rawValue);
-                if (!expectedType.equals(Map.class) && !expectedType.equals(LinkedHashMap.class)) {
-                    return OBJECT_MAPPER.convertValue(map, expectedType);
-                }
-                return map;
-            }
+    private static Converter structuralConverter(Class<?> targetType) {
+        if (Collection.class.isAssignableFrom(targetType)) {
+            return rawValue -> convertToCollection(rawValue, targetType);
+        }
 
-            if (!expectedType.isInstance(rawValue)) {
-                throw new FilterException("Type mismatch. Cannot convert value '%s' to expected type %s".formatted(rawValue, expectedType.getSimpleName()));
-            }
+        if (targetType.isArray()) {
+            return rawValue -> convertToArray(rawValue, targetType.getComponentType());
+        }
 
-            return rawValue;
-        } catch (FilterException fe) {
-            throw fe;
-        } catch (Exception e) {
-            throw new FilterException("Failed to convert value '%s' to expected type %s".formatted(rawValue, expectedType.getSimpleName()), e);
+        if (Map.class.isAssignableFrom(targetType)) {
+            boolean plainMap = targetType.equals(Map.class) || targetType.equals(LinkedHashMap.class);
+            return rawValue -> {
+                Map<String, Object> map = convertToMap(rawValue);
+                return plainMap ? map : OBJECT_MAPPER.convertValue(map, targetType);
+            };
         }
 
+        return rawValue -> {
+            throw new FilterException("Type mismatch. Cannot convert value '%s' to expected type %s".formatted(rawValue, targetType.getSimpleName()));
+        };
     }
 
     protected static Object tryParseTemporal(Object value, Class<?> expectedType) {
@@ -435,9 +514,9 @@ public class ConversionUtil {
             }
 
             return switch (typeName) {
-                case "LocalDateTime" -> tryFormats(str, LOCAL_DATE_TIME_FORMATTERS, LocalDateTime::parse);
-                case "LocalDate" -> tryFormats(str, LOCAL_DATE_FORMATTERS, LocalDate::parse);
-                case "LocalTime" -> tryFormats(str, LOCAL_TIME_FORMATTERS, LocalTime::parse);
+                case "LocalDateTime" -> LOCAL_DATE_TIME_CHAIN.parse(str, LocalDateTime::parse);
+                case "LocalDate" -> LOCAL_DATE_CHAIN.parse(str, LocalDate::parse);
+                case "LocalTime" -> LOCAL_TIME_CHAIN.parse(str, LocalTime::parse);
                 case "Date" -> tryParseToDate(str);
                 default -> null;
             };
@@ -460,42 +539,29 @@ public class ConversionUtil {
         return List.of(value);
     }
 
-    private static Object tryFormats(String str, List<DateTimeFormatter> formatters, Function2<String, DateTimeFormatter, ?> parser) {
-        for (DateTimeFormatter formatter : formatters) {
-            try {
-                return parser.apply(str, formatter);
-            } catch (Exception ignored) {
-            }
-        }
-        return null;
-    }
-
     public static Date tryParseToDate(String str) {
         if (str == null || str.isBlank()) return null;
+        return DATE_CHAIN.parse(str, ConversionUtil::toDate);
+    }
 
-        for (DateTimeFormatter fmt : ALL_TEMPORAL_FORMATTERS) {
-            try {
-                TemporalAccessor parsed = fmt.parse(str);
-
-                if (isInstant(parsed)) {
-                    return Date.from(Instant.from(parsed));
-                }
+    // null when the formatter parsed but produced none of the supported shapes, so the next one is tried
+    private static Date toDate(String str, DateTimeFormatter fmt) {
+        TemporalAccessor parsed = fmt.parse(str);
 
-                if (isLocalDateTime(parsed)) {
-                    return fromLocalDateTime(parsed);
-                }
+        if (isInstant(parsed)) {
+            return Date.from(Instant.from(parsed));
+        }
 
-                if (isLocalDate(parsed)) {
-                    return fromLocalDate(parsed);
-                }
+        if (isLocalDateTime(parsed)) {
+            return fromLocalDateTime(parsed);
+        }
 
-                if (isLocalTime(parsed)) {
-                    return fromLocalTime(parsed);
-                }
+        if (isLocalDate(parsed)) {
+            return fromLocalDate(parsed);
+        }
 
-            } catch (DateTimeParseException ignored) {
-                // Try next formatter
-            }
+        if (isLocalTime(parsed)) {
+            return fromLocalTime(parsed);
         }
 
         return null;
@@ -570,15 +636,12 @@ public class ConversionUtil {
     public static Object toMongoComparable(Object value) {
         if (value == null) return null;
 
-        Object cached = mongoComparableCache.get(value);
-        if (cached != null) {
-            return cached;
+        // only strings are worth caching, everything else converts without parsing
+        if (!(value instanceof String str)) {
+            return convertToMongoComparableInternal(value);
         }
 
-        Object converted = convertToMongoComparableInternal(value);
-        mongoComparableCache.put(value, converted);
-
-        return converted;
+        return mongoComparableCache.computeIfAbsent(str, ConversionUtil::convertToMongoComparableInternal);
     }
 
     public static Object convertToMongoComparableInternal(Object value) {
@@ -740,8 +803,7 @@ public class ConversionUtil {
     }
 
     protected static Class<?> normalize(Class<?> type) {
-        Map<Class<?>, Class<?>> wrapperMap = Map.of(int.class, Integer.class, long.class, Long.class, double.class, Double.class, float.class, Float.class, boolean.class, Boolean.class, byte.class, Byte.class, char.class, Character.class, short.class, Short.class);
-        return wrapperMap.getOrDefault(type, type);
+        return WRAPPER_TYPES.getOrDefault(type, type);
     }
 
     public static Document getDocumentFromObject(Object value) {
@@ -819,9 +881,60 @@ public class ConversionUtil {
         R apply(T t, U u) throws Exception;
     }
 
-    private record CacheKey(String rawValueStr, Class<?> expectedType) {
+    @FunctionalInterface
+    private interface Converter {
+        Object convert(Object rawValue) throws Exception;
+    }
+
+    /**
+     * Formatters tried in priority order. The formatter that last parsed a value of the same shape (digits masked)
+     * is tried first; only successful parses are remembered, so the shapes stay few.
+     */
+    private record FormatterChain(List<DateTimeFormatter> formatters, Map<String, DateTimeFormatter> byShape) {
+        FormatterChain(List<DateTimeFormatter> formatters) {
+            this(formatters, new ConcurrentHashMap<>());
+        }
+
+        <R> R parse(String str, Function2<String, DateTimeFormatter, R> parser) {
+            String shape = shapeOf(str);
+            DateTimeFormatter known = byShape.get(shape);
+            if (known != null) {
+                R result = tryParse(str, known, parser);
+                if (result != null) return result;
+            }
+
+            for (DateTimeFormatter formatter : formatters) {
+                if (formatter == known) continue;
+                R result = tryParse(str, formatter, parser);
+                if (result != null) {
+                    byShape.put(shape, formatter);
+                    return result;
+                }
+            }
+            return null;
+        }
+
+        private static <R> R tryParse(String str, DateTimeFormatter formatter, Function2<String, DateTimeFormatter, R> parser) {
+            try {
+                return parser.apply(str, formatter);
+            } catch (Exception ignored) {
+                return null;
+            }
+        }
+
+        private static String shapeOf(String str) {
+            char[] chars = str.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] >= '0' && chars[i] <= '9') chars[i] = '0';
+            }
+            return new String(chars);
+        }
+    }
+
+    // the raw type is part of the key: 1 and "1" are different inputs
+    private record CacheKey(Class<?> rawType, String rawValueStr, Class<?> expectedType) {
         public CacheKey(Object rawValue, Class<?> expectedType) {
-            this(rawValue == null ? "null" : rawValue.toString(), expectedType);
+            this(rawValue.getClass(), rawValue.toString(), expectedType);
         }
     }
 
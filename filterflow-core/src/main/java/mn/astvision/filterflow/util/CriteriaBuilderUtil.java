@@ -10,6 +10,8 @@ import mn.astvision.filterflow.model.FilterOptions;
 import mn.astvision.filterflow.model.FilterRequest;
 import mn.astvision.filterflow.model.enums.FilterLogicMode;
 import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import mn.astvision.filterflow.util.search.IgnoreCaseUtil;
+import mn.astvision.filterflow.util.search.SearchKeyUtil;
 import org.bson.Document;
 import org.bson.json.JsonWriterSettings;
 import org.springframework.data.mongodb.MongoExpression;
@@ -57,6 +59,10 @@ public class CriteriaBuilderUtil {
             grouped.get(component.getLogic()).add(criteria);
         }
 
+        return mergeLogicGroups(grouped);
+    }
+
+    static Criteria mergeLogicGroups(Map<FilterLogicMode, List<Criteria>> grouped) {
         List<Criteria> logicGroups = Arrays.stream(FilterLogicMode.values()).map(mode -> {
             List<Criteria> list = grouped.get(mode);
             if (list.isEmpty()) return null;
@@ -90,19 +96,40 @@ public class CriteriaBuilderUtil {
         }
 
         value = preprocessValue(filter, targetType);
+
+        Criteria rewritten = rewrite(operator, filter.getField(), value, options, targetType);
+        if (rewritten != null) return rewritten;
+
         value = ConversionUtil.toMongoComparable(value);
 
         return buildOperatorCriteria(filter.getOperator(), filter.getField(), value);
     }
 
+    /**
+     * Index-friendly replacement of the operator handler: search keys first, then case-insensitive shadow/collation.
+     *
+     * @return null if the handler should build the criteria
+     */
+    static Criteria rewrite(String operator, String field, Object value, FilterOptions options, Class<?> targetType) {
+        Criteria keyed = SearchKeyUtil.keyCriteria(operator, SearchKeyUtil.keyName(targetType, field), value);
+        if (keyed != null) return keyed;
+        return IgnoreCaseUtil.criteria(operator, field, value, options, targetType);
+    }
+
     private static Object preprocessValue(FilterRequest filter, Class<?> targetType) {
+        Class<?> fieldType = ValidationUtil.resolveField(filter.getField(), targetType);
+        return convertValue(filter, fieldType, () -> ValidationUtil.validateFieldAndOperation(filter, targetType));
+    }
+
+    /**
+     * @param fieldType талбарын (аль хэдийн тодорхойлсон) төрөл
+     * @param validator утга шалгах шаардлагатай үед дуудагдана
+     */
+    static Object convertValue(FilterRequest filter, Class<?> fieldType, Runnable validator) {
         Object value = filter.getValue();
         String operator = filter.getOperator();
-        String field = filter.getField();
 
-        Class<?> fieldType = ValidationUtil.resolveField(field, targetType);
-
-        boolean requiresValidation = OperationUtil.isRequiringValidation(filter.getOperator());
+        boolean requiresValidation = OperationUtil.isRequiringValidation(operator);
 
         return switch (operator) {
             case "BETWEEN", "NOT_BETWEEN" -> ConversionUtil.convertRangeToExpectedType(value, fieldType);
@@ -114,7 +141,7 @@ public class CriteriaBuilderUtil {
             }
             default -> {
                 if (requiresValidation) {
-                    ValidationUtil.validateFieldAndOperation(filter, targetType);
+                    validator.run();
                     yield ConversionUtil.convertToExpectedType(value, fieldType);
                 } else {
                     yield value;
@@ -124,6 +151,10 @@ public class CriteriaBuilderUtil {
     }
 
     private static Criteria buildOperatorCriteria(String operator, String field, Object value) {
+        return resolveHandler(operator).build(field, value);
+    }
+
+    static OperatorHandler resolveHandler(String operator) {
         if (GLOBAL.equals(operator) || EXPR.equals(operator) || CONTROL.equals(operator)) {
             throw new FilterException("%s not allowed in buildOperatorCriteria".formatted(operator));
         }
@@ -133,7 +164,7 @@ public class CriteriaBuilderUtil {
             throw new FilterException("Unsupported operator: %s".formatted(operator));
         }
 
-        return handler.build(field, value);
+        return handler;
     }
 
     private static Criteria buildExprCriteria(Object value) {
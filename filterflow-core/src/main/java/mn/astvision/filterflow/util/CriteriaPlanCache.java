@@ -0,0 +1,80 @@
+package mn.astvision.filterflow.util;
+
+import lombok.extern.slf4j.Slf4j;
+import mn.astvision.filterflow.component.FilterComponent;
+import mn.astvision.filterflow.model.CacheStats;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.util.cache.LruCache;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Caches compiled criteria plans keyed by the shape of a {@link FilterGroup}
+ * (fields, operators, logic and nesting - not values).
+ *
+ * @author zorigtbaatar
+ */
+
+@Slf4j
+public class CriteriaPlanCache {
+    private static final int MAX_CACHE_SIZE = 1_000;
+    private static final LruCache<String, CompiledCriteriaPlan> CACHE = new LruCache<>("criteria-plan", MAX_CACHE_SIZE);
+
+    /**
+     * Drop-in replacement for {@link CriteriaBuilderUtil#buildGroupCriteria(FilterGroup, FilterOptions, Class)}.
+     */
+    public static <T> Criteria buildCriteria(FilterGroup group, FilterOptions options, Class<T> targetType) {
+        if (group == null || group.getComponents() == null || group.getComponents().isEmpty()) return new Criteria();
+        if (!options.isPlanCacheEnabled()) return CriteriaBuilderUtil.buildGroupCriteria(group, options, targetType);
+
+        String shape = fingerprint(group, targetType);
+        CompiledCriteriaPlan plan = CACHE.get(shape);
+        if (plan == null) {
+            plan = CompiledCriteriaPlan.compile(group, targetType);
+            CACHE.put(shape, plan);
+            if (options.isDebug()) log.info("[DEBUG] criteria plan compiled - slots: {}, shape: {}", plan.getSlotCount(), shape);
+        }
+
+        return plan.bind(group, options, targetType);
+    }
+
+    /**
+     * @return утгыг оролцуулалгүй FilterGroup-ийн бүтцийг илэрхийлэх түлхүүр
+     */
+    public static String fingerprint(FilterGroup group, Class<?> targetType) {
+        StringBuilder sb = new StringBuilder(targetType.getName()).append('|');
+        appendShape(group, sb);
+        return sb.toString();
+    }
+
+    private static void appendShape(FilterGroup group, StringBuilder sb) {
+        sb.append('G').append(group.getLogic()).append('[');
+        if (group.getComponents() != null) {
+            for (FilterComponent component : group.getComponents()) {
+                switch (component) {
+                    case FilterRequest fr -> {
+                        String field = String.valueOf(fr.getField());
+                        sb.append('R').append(fr.getLogic()).append(':').append(fr.getOperator()).append(':')
+                                .append(field.length()).append(':').append(field).append(';');
+                    }
+                    case FilterGroup fg -> appendShape(fg, sb);
+                    default -> sb.append('?').append(component.getClass().getName()).append(';');
+                }
+            }
+        }
+        sb.append(']');
+    }
+
+    public static CacheStats stats() {
+        return CACHE.stats();
+    }
+
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    public static int cacheSize() {
+        return CACHE.size();
+    }
+}
@@ -0,0 +1,103 @@
+package mn.astvision.filterflow.util;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.HistogramBucket;
+import mn.astvision.filterflow.model.enums.HistogramUnit;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+/**
+ * Java side of histogram summaries: the server only returns buckets that have documents, the gaps are filled here
+ * so a chart gets a continuous axis from one aggregation.
+ *
+ * @author zorigtbaatar
+ */
+
+public class HistogramUtil {
+    public static final int MAX_BUCKETS = 10_000;
+
+    /**
+     * {@code $dateTrunc} accepts Olson ids and {@code +hh:mm} offsets but not {@code Z}.
+     */
+    public static String mongoTimezone(ZoneId zone) {
+        if (zone instanceof ZoneOffset offset) return offset.getTotalSeconds() == 0 ? "UTC" : offset.getId();
+        return zone.getId();
+    }
+
+    public static void validateBoundaries(List<? extends Number> boundaries) {
+        if (boundaries == null || boundaries.size() < 2) throw new FilterException("At least two bucket boundaries are required");
+        for (int i = 1; i < boundaries.size(); i++) {
+            if (decimal(boundaries.get(i - 1)).compareTo(decimal(boundaries.get(i))) >= 0) {
+                throw new FilterException("Bucket boundaries must be strictly ascending: %s".formatted(boundaries));
+            }
+        }
+    }
+
+    /**
+     * @param found      server buckets keyed by their start, in any order
+     * @param from       start of the axis, null for the first found bucket
+     * @param to         exclusive end of the axis, null for the end of the last found bucket
+     * @param emptyValue values of a bucket without documents
+     */
+    public static List<HistogramBucket> fillDates(List<HistogramBucket> found, HistogramUnit unit, ZoneId zone, Instant from, Instant to,
+                                                  Map<String, Map<String, BigDecimal>> emptyValue) {
+        Map<Instant, HistogramBucket> byStart = new HashMap<>();
+        found.forEach(bucket -> byStart.put(((Date) bucket.from()).toInstant(), bucket));
+
+        Instant start = from != null ? from : byStart.keySet().stream().min(Comparator.naturalOrder()).orElse(null);
+        Instant end = to != null ? to : byStart.keySet().stream().max(Comparator.naturalOrder())
+                .map(last -> unit.next(last.atZone(zone)).toInstant()).orElse(null);
+        if (start == null || end == null) return List.of();
+
+        List<HistogramBucket> filled = new ArrayList<>();
+        for (ZonedDateTime cursor = unit.truncate(start, zone); cursor.toInstant().isBefore(end); cursor = unit.next(cursor)) {
+            if (filled.size() == MAX_BUCKETS) {
+                throw new FilterException("Histogram exceeds %d %s buckets, use a coarser unit or a shorter range".formatted(MAX_BUCKETS, unit));
+            }
+            Instant key = cursor.toInstant();
+            HistogramBucket bucket = byStart.get(key);
+            Date next = Date.from(unit.next(cursor).toInstant());
+            filled.add(bucket != null
+                    ? new HistogramBucket(bucket.from(), next, bucket.count(), bucket.values())
+                    : new HistogramBucket(Date.from(key), next, 0, emptyValue));
+        }
+        return filled;
+    }
+
+    /**
+     * One bucket per boundary interval in order, then the out-of-range bucket when the server returned one.
+     *
+     * @param found server buckets whose {@code from} is the lower boundary (or null for out-of-range)
+     */
+    public static List<HistogramBucket> fillBoundaries(List<HistogramBucket> found, List<? extends Number> boundaries,
+                                                       Map<String, Map<String, BigDecimal>> emptyValue) {
+        // 10 ба 10.0 нэг bucket тул утгаар нь харьцуулна
+        Map<BigDecimal, HistogramBucket> byLower = new HashMap<>();
+        HistogramBucket outOfRange = null;
+        for (HistogramBucket bucket : found) {
+            if (bucket.from() instanceof Number lower) byLower.put(decimal(lower), bucket);
+            else outOfRange = bucket;
+        }
+
+        List<HistogramBucket> filled = new ArrayList<>();
+        for (int i = 0; i < boundaries.size() - 1; i++) {
+            Number lower = boundaries.get(i);
+            Number upper = boundaries.get(i + 1);
+            HistogramBucket bucket = byLower.get(decimal(lower));
+            filled.add(bucket != null
+                    ? new HistogramBucket(lower, upper, bucket.count(), bucket.values())
+                    : new HistogramBucket(lower, upper, 0, emptyValue));
+        }
+        if (outOfRange != null) filled.add(new HistogramBucket(null, null, outOfRange.count(), outOfRange.values()));
+        return filled;
+    }
+
+    private static BigDecimal decimal(Number number) {
+        return new BigDecimal(number.toString()).stripTrailingZeros();
+    }
+}
@@ -19,14 +19,19 @@ import static mn.astvision.filterflow.model.enums.FilterOperator.*;
  */
 
 public class OperationUtil {
-    public static final Map<Class<?>, EnumSet<FilterOperator>> ALLOWED_OPERATORS = new HashMap<>();
+    /**
+     * Field type -> allowed operators (unmodifiable); a field type matches the first entry it is assignable to.
+     */
+    public static final Map<Class<?>, Set<FilterOperator>> ALLOWED_OPERATORS;
 
     //@formatter:off
     static {
+        Map<Class<?>, Set<FilterOperator>> allowed = new LinkedHashMap<>();
+
         // String fields
-        ALLOWED_OPERATORS.put(String.class, EnumSet.of(
-                        EQUALS, NOT_EQUALS,
-                        STARTS_WITH, ENDS_WITH,
+        allowed.put(String.class, EnumSet.of(
+                        EQUALS, NOT_EQUALS, EQUALS_IGNORE_CASE,
+                        STARTS_WITH, STARTS_WITH_CI, ENDS_WITH,
                         IN, NOT_IN,
                         IS_NULL, IS_NOT_NULL,
                         LIKE, REGEX,
@@ -45,10 +50,10 @@ public class OperationUtil {
                 NOT_BETWEEN
         );
 
-        ALLOWED_OPERATORS.put(Integer.class, numberOps);
-        ALLOWED_OPERATORS.put(Long.class, numberOps);
-        ALLOWED_OPERATORS.put(Double.class, numberOps);
-        ALLOWED_OPERATORS.put(Float.class, numberOps);
+        allowed.put(Integer.class, numberOps);
+        allowed.put(Long.class, numberOps);
+        allowed.put(Double.class, numberOps);
+        allowed.put(Float.class, numberOps);
 
         // Date/Time types
         EnumSet<FilterOperator> dateOps = EnumSet.of(
@@ -60,26 +65,26 @@ public class OperationUtil {
                 NOT_BETWEEN
         );
 
-        ALLOWED_OPERATORS.put(LocalDateTime.class, dateOps);
-        ALLOWED_OPERATORS.put(LocalDate.class, dateOps);
-        ALLOWED_OPERATORS.put(LocalTime.class, dateOps);
-        ALLOWED_OPERATORS.put(Date.class, dateOps);
-        ALLOWED_OPERATORS.put(ZonedDateTime.class, dateOps);
+        allowed.put(LocalDateTime.class, dateOps);
+        allowed.put(LocalDate.class, dateOps);
+        allowed.put(LocalTime.class, dateOps);
+        allowed.put(Date.class, dateOps);
+        allowed.put(ZonedDateTime.class, dateOps);
 
         // Boolean
-        ALLOWED_OPERATORS.put(Boolean.class, EnumSet.of(
+        allowed.put(Boolean.class, EnumSet.of(
                 EQUALS, NOT_EQUALS,
                 IS_NULL, IS_NOT_NULL
         ));
 
         // Enum (matched via .isAssignableFrom)
-        ALLOWED_OPERATORS.put(Enum.class, EnumSet.of(
+        allowed.put(Enum.class, EnumSet.of(
                 EQUALS, NOT_EQUALS,
                 IN, NOT_IN,
                 IS_NULL, IS_NOT_NULL)
         );
 
-        ALLOWED_OPERATORS.put(Map.class, EnumSet.of(
+        allowed.put(Map.class, EnumSet.of(
                 EXPR,
                 MAP_KEY_EQUALS,
                 MAP_VALUE_EQUALS,
@@ -87,13 +92,36 @@ public class OperationUtil {
                 MAP_VALUE_EXISTS
         ));
 
-        ALLOWED_OPERATORS.put(Collection.class, EnumSet.of(
+        allowed.put(Collection.class, EnumSet.of(
                 IN, NOT_IN, IS_NULL, IS_NOT_NULL
         ));
+
+        allowed.replaceAll((type, ops) -> Collections.unmodifiableSet(EnumSet.copyOf(ops)));
+        ALLOWED_OPERATORS = Collections.unmodifiableMap(allowed);
     }
     //@formatter:on
 
 
+    // ALLOWED_OPERATORS өөрчлөгдөхгүй тул isAssignableFrom-оор гүйх хайлтыг төрөл бүрт нэг л удаа хийнэ
+    private static final ClassValue<Set<FilterOperator>> ALLOWED_BY_TYPE = new ClassValue<>() {
+        @Override
+        protected Set<FilterOperator> computeValue(Class<?> type) {
+            for (Map.Entry<Class<?>, Set<FilterOperator>> entry : ALLOWED_OPERATORS.entrySet()) {
+                if (entry.getKey().isAssignableFrom(type)) {
+                    return entry.getValue();
+                }
+            }
+            return Collections.emptySet();
+        }
+    };
+
+    /**
+     * @return operators allowed on {@code fieldType} (unmodifiable)
+     */
+    public static Set<FilterOperator> allowedOperators(Class<?> fieldType) {
+        return ALLOWED_BY_TYPE.get(ConversionUtil.normalize(fieldType));
+    }
+
     public static boolean isOperatorAllowed(Class<?> fieldType, String operator) {
         FilterOperator op = null;
         if (operator == null) return false;
@@ -103,15 +131,7 @@ public class OperationUtil {
             return false;
         }
 
-        fieldType = ConversionUtil.normalize(fieldType);
-
-        for (Map.Entry<Class<?>, EnumSet<FilterOperator>> entry : ALLOWED_OPERATORS.entrySet()) {
-            if (entry.getKey().isAssignableFrom(fieldType)) {
-                return entry.getValue().contains(op);
-            }
-        }
-
-        return false;
+        return allowedOperators(fieldType).contains(op);
     }
 
     public static void validate(FilterRequest filter, Class<?> fieldType, String fieldName) {
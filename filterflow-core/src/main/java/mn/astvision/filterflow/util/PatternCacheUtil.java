@@ -1,22 +1,35 @@
 package mn.astvision.filterflow.util;
 
+import mn.astvision.filterflow.model.CacheStats;
+
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 
 /**
+ * Bounded cache of compiled {@link Pattern}s, shared by every path that builds a regex criteria.
+ * <p>
+ * Keys are spread over {@value #STRIPES} access-ordered LRU stripes, each guarded by its own lock, so concurrent requests
+ * only contend when their patterns hash to the same stripe. Patterns are compiled outside the lock.
+ *
  * @author zorigtbaatar
  */
 
 public class PatternCacheUtil {
-    private static final int MAX_CACHE_SIZE = 500;
+    private static final int MAX_CACHE_SIZE = 512;
+    private static final int STRIPES = 16;
+    private static final int STRIPE_SIZE = MAX_CACHE_SIZE / STRIPES;
 
-    private static final Map<String, Pattern> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
-            return size() > MAX_CACHE_SIZE;
-        }
-    };
+    private static final Stripe[] CACHE = new Stripe[STRIPES];
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+
+    static {
+        for (int i = 0; i < STRIPES; i++) CACHE[i] = new Stripe();
+    }
 
     /**
      * Returns a cached Pattern instance for the given regex and flags.
@@ -24,13 +37,30 @@ public class PatternCacheUtil {
      * @param regex the regular expression string
      * @param flags pattern compilation flags (e.g., Pattern.CASE_INSENSITIVE)
      * @return compiled Pattern instance (cached)
+     * @throws java.util.regex.PatternSyntaxException if the regex is invalid; invalid regexes are not cached
      */
     public static Pattern get(String regex, int flags) {
         if (regex == null) {
             throw new IllegalArgumentException("Regex must not be null");
         }
-        String key = buildKey(regex, flags);
-        return CACHE.computeIfAbsent(key, k -> Pattern.compile(regex, flags));
+        PatternKey key = new PatternKey(regex, flags);
+        Stripe stripe = stripeOf(key);
+
+        Pattern cached;
+        synchronized (stripe) {
+            cached = stripe.get(key);
+        }
+        if (cached != null) {
+            HITS.increment();
+            return cached;
+        }
+
+        MISSES.increment();
+        Pattern compiled = Pattern.compile(regex, flags);
+        synchronized (stripe) {
+            Pattern existing = stripe.putIfAbsent(key, compiled);
+            return existing != null ? existing : compiled;
+        }
     }
 
     /**
@@ -63,21 +93,52 @@ public class PatternCacheUtil {
         return getAnchored(regex, anchor, 0);
     }
 
-    private static String buildKey(String regex, int flags) {
-        return flags + "::" + regex.intern();
-    }
-
     /**
      * Clears the pattern cache. Useful for testing or memory-sensitive environments.
      */
     public static void clearCache() {
-        CACHE.clear();
+        for (Stripe stripe : CACHE) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
     }
 
     /**
      * Returns current cache size. Useful for diagnostics.
      */
     public static int cacheSize() {
-        return CACHE.size();
+        int size = 0;
+        for (Stripe stripe : CACHE) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public static CacheStats stats() {
+        return new CacheStats("pattern", HITS.sum(), MISSES.sum(), EVICTIONS.sum(), cacheSize(), MAX_CACHE_SIZE);
+    }
+
+    private static Stripe stripeOf(PatternKey key) {
+        int h = key.hashCode();
+        return CACHE[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private record PatternKey(String regex, int flags) {
+    }
+
+    private static final class Stripe extends LinkedHashMap<PatternKey, Pattern> {
+        private Stripe() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PatternKey, Pattern> eldest) {
+            boolean evict = size() > STRIPE_SIZE;
+            if (evict) EVICTIONS.increment();
+            return evict;
+        }
     }
 }
@@ -0,0 +1,138 @@
+package mn.astvision.filterflow.util;
+
+import mn.astvision.filterflow.component.FilterComponent;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.FilterLogicMode;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static mn.astvision.filterflow.model.enums.FilterOperator.*;
+
+/**
+ * Splits a {@link FilterGroup} into the conjuncts that only read stored fields and the ones that need the
+ * virtual-field stages, so the former can be matched before the {@code $lookup}s (and use indexes).
+ * <p>
+ * Virtual-field stages keep one output document per input document and only write their own aliases
+ * (see {@link VirtualFieldResolverUtil#resolveVirtualPaths(Class)}), so matching a stored-only conjunct before or after
+ * them selects the same documents.
+ *
+ * @author zorigtbaatar
+ */
+
+public final class PredicatePushdownUtil {
+
+    private PredicatePushdownUtil() {
+    }
+
+    public record Split(FilterGroup stored, FilterGroup virtual) {
+        public boolean hasStored() {
+            return !stored.getComponents().isEmpty();
+        }
+
+        public boolean hasVirtual() {
+            return !virtual.getComponents().isEmpty();
+        }
+    }
+
+    /**
+     * @return {@code $match(stored)}, the virtual-field stages, then {@code $match(rest)}; empty matches are omitted
+     */
+    public static List<AggregationOperation> matchAroundVirtualFields(FilterGroup filters, List<AggregationOperation> virtualFieldOperations,
+                                                                      Class<?> targetType, Function<FilterGroup, Criteria> criteriaBuilder) {
+        return matchAroundVirtualFields(filters, virtualFieldOperations, targetType, criteriaBuilder, false);
+    }
+
+    /**
+     * @param textSearch GLOBAL resolves to {@code $text}: it reads only the text index, and must be in the first {@code $match}
+     */
+    public static List<AggregationOperation> matchAroundVirtualFields(FilterGroup filters, List<AggregationOperation> virtualFieldOperations,
+                                                                      Class<?> targetType, Function<FilterGroup, Criteria> criteriaBuilder,
+                                                                      boolean textSearch) {
+        Split split = split(filters, VirtualFieldResolverUtil.resolveVirtualPaths(targetType), textSearch);
+
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        if (split.hasStored()) pipeline.add(Aggregation.match(criteriaBuilder.apply(split.stored())));
+        pipeline.addAll(virtualFieldOperations);
+        if (split.hasVirtual()) pipeline.add(Aggregation.match(criteriaBuilder.apply(split.virtual())));
+
+        return pipeline;
+    }
+
+    /**
+     * Top-level conjuncts are: every AND component (AND subgroups are flattened into their own conjuncts) and,
+     * per remaining logic mode, the set of components combined with it. Each conjunct goes to one side as a whole.
+     */
+    public static Split split(FilterGroup group, Set<String> virtualPaths) {
+        return split(group, virtualPaths, false);
+    }
+
+    public static Split split(FilterGroup group, Set<String> virtualPaths, boolean textSearch) {
+        List<FilterComponent> stored = new ArrayList<>();
+        List<FilterComponent> virtual = new ArrayList<>();
+        collect(group, virtualPaths, textSearch, stored, virtual);
+
+        return new Split(groupOf(stored), groupOf(virtual));
+    }
+
+    private static void collect(FilterGroup group, Set<String> virtualPaths, boolean textSearch, List<FilterComponent> stored, List<FilterComponent> virtual) {
+        Map<FilterLogicMode, List<FilterComponent>> combined = new EnumMap<>(FilterLogicMode.class);
+
+        for (FilterComponent component : group.getComponents()) {
+            if (component.getLogic() != FilterLogicMode.AND) {
+                combined.computeIfAbsent(component.getLogic(), k -> new ArrayList<>()).add(component);
+            } else if (component instanceof FilterGroup nested) {
+                collect(nested, virtualPaths, textSearch, stored, virtual);
+            } else {
+                (touchesVirtual(component, virtualPaths, textSearch) ? virtual : stored).add(component);
+            }
+        }
+
+        combined.forEach((mode, components) -> {
+            boolean isVirtual = components.stream().anyMatch(c -> touchesVirtual(c, virtualPaths, textSearch));
+            (isVirtual ? virtual : stored).add(groupOf(components));
+        });
+    }
+
+    public static boolean touchesVirtual(FilterComponent component, Set<String> virtualPaths) {
+        return touchesVirtual(component, virtualPaths, false);
+    }
+
+    public static boolean touchesVirtual(FilterComponent component, Set<String> virtualPaths, boolean textSearch) {
+        return switch (component) {
+            case FilterGroup group -> group.getComponents().stream().anyMatch(c -> touchesVirtual(c, virtualPaths, textSearch));
+            case FilterRequest request -> touchesVirtual(request, virtualPaths, textSearch);
+            default -> true;
+        };
+    }
+
+    private static boolean touchesVirtual(FilterRequest request, Set<String> virtualPaths, boolean textSearch) {
+        String operator = request.getOperator();
+        // $text нь зөвхөн text index-ийг уншина
+        if (GLOBAL.name().equals(operator)) return !textSearch;
+        // GLOBAL (regex) нь виртуал талбаруудаар ч хайдаг, EXPR-ийн уншиж буй талбарыг мэдэх боломжгүй
+        if (EXPR.name().equals(operator)) return true;
+        if (CONTROL.name().equals(operator)) return false;
+
+        return request.getField() != null && isVirtualPath(request.getField(), virtualPaths);
+    }
+
+    /**
+     * @return true if {@code field} is, or is nested under, one of {@code virtualPaths}
+     */
+    public static boolean isVirtualPath(String field, Set<String> virtualPaths) {
+        int dot = field.indexOf('.');
+        String root = dot < 0 ? field : field.substring(0, dot);
+        return virtualPaths.contains(root) || virtualPaths.contains(field);
+    }
+
+    private static FilterGroup groupOf(List<FilterComponent> components) {
+        FilterGroup group = new FilterGroup();
+        group.setComponents(new ArrayList<>(components));
+        return group;
+    }
+}
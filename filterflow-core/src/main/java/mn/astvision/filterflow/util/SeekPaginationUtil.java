@@ -0,0 +1,179 @@
+package mn.astvision.filterflow.util;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.SeekSlice;
+import mn.astvision.filterflow.model.SeekToken;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyPath;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset (seek) pagination helpers: the sort of a slice is always closed with an {@code _id} tiebreaker and the next
+ * slice is selected with a range predicate on the last row's sort key instead of skip.
+ *
+ * <pre>
+ * sort: a ASC, b DESC, _id DESC
+ * next: a > va || (a == va && (b < vb || b == null)) || (a == va && b == vb && _id < vid)
+ * </pre>
+ * Null and missing keys sort lowest, so a descending key keeps them after every non-null value.
+ *
+ * @author zorigtbaatar
+ */
+
+public class SeekPaginationUtil {
+    public static final String ID_FIELD = "_id";
+
+    /**
+     * Appends {@code _id} (in the direction of the last order) when the sort does not end with it already.
+     * {@code id} is rewritten to {@code _id} so both find and aggregation paths address the same key.
+     */
+    public static Sort normalizeSort(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        boolean hasId = false;
+
+        if (sort != null) {
+            for (Sort.Order order : sort) {
+                if (isIdProperty(order.getProperty())) {
+                    orders.add(new Sort.Order(order.getDirection(), ID_FIELD));
+                    hasId = true;
+                    break; // _id is unique, anything after it never takes effect
+                }
+                orders.add(order);
+            }
+        }
+
+        if (!hasId) {
+            Sort.Direction direction = orders.isEmpty() ? Sort.Direction.ASC : orders.getLast().getDirection();
+            orders.add(new Sort.Order(direction, ID_FIELD));
+        }
+
+        return Sort.by(orders);
+    }
+
+    public static String signature(Sort sort) {
+        return sort.stream().map(o -> o.getProperty() + ":" + o.getDirection()).collect(Collectors.joining(","));
+    }
+
+    /**
+     * @param sort  normalized sort, see {@link #normalizeSort(Sort)}
+     * @param after token of the previous slice, null for the first slice
+     * @return range predicate selecting rows strictly after the token, or null for the first slice
+     */
+    public static Criteria buildSeekCriteria(Sort sort, SeekToken after) {
+        if (after == null) return null;
+
+        List<Sort.Order> orders = sort.toList();
+        List<Object> values = after.getValues();
+
+        if (!signature(sort).equals(after.getSortSignature()) || values.size() != orders.size()) {
+            throw new FilterException("Seek token does not match the current sort",
+                    SeekToken.class, "expected sort: %s, token sort: %s".formatted(signature(sort), after.getSortSignature()));
+        }
+
+        List<Criteria> branches = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Criteria next = afterValue(orders.get(i), values.get(i));
+            if (next == null) continue;
+
+            List<Criteria> branch = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                branch.add(Criteria.where(orders.get(j).getProperty()).is(values.get(j)));
+            }
+            branch.add(next);
+            branches.add(branch.size() == 1 ? branch.getFirst() : new Criteria().andOperator(branch.toArray(new Criteria[0])));
+        }
+
+        if (branches.isEmpty()) {
+            // nothing can follow the token, match nothing
+            return Criteria.where(ID_FIELD).in(List.of());
+        }
+        return branches.size() == 1 ? branches.getFirst() : new Criteria().orOperator(branches.toArray(new Criteria[0]));
+    }
+
+    /**
+     * Null and missing values sort lowest in MongoDB: after a value descending the nulls still follow, after null
+     * ascending is "any non null" and after null descending is nothing.
+     */
+    private static Criteria afterValue(Sort.Order order, Object value) {
+        String property = order.getProperty();
+        if (value == null) {
+            return order.isAscending() ? Criteria.where(property).ne(null) : null;
+        }
+        if (order.isAscending()) return Criteria.where(property).gt(value);
+        return new Criteria().orOperator(Criteria.where(property).lt(value), Criteria.where(property).is(null));
+    }
+
+    public static Criteria combine(Criteria criteria, Criteria seekCriteria) {
+        if (seekCriteria == null) return criteria;
+        if (criteria == null || criteria.getCriteriaObject().isEmpty()) return seekCriteria;
+        return new Criteria().andOperator(criteria, seekCriteria);
+    }
+
+    /**
+     * Trims the {@code size + 1} look-ahead row, builds the token from the last returned row and reads the rows into
+     * {@code type}.
+     *
+     * @param rows raw rows as returned by the query or pipeline, so resolved virtual fields can be sort keys
+     */
+    public static <T> SeekSlice<T> toSlice(List<Document> rows, Sort sort, int size, Class<T> type, MongoConverter converter) {
+        boolean hasNext = rows.size() > size;
+        List<Document> page = hasNext ? rows.subList(0, size) : rows;
+
+        SeekToken next = hasNext && !page.isEmpty() ? tokenOf(page.getLast(), sort, type, converter) : null;
+        List<T> content = new ArrayList<>(page.size());
+        for (Document row : page) {
+            content.add(converter.read(type, row));
+        }
+        return new SeekSlice<>(content, size, hasNext, next);
+    }
+
+    /**
+     * Reads the sort key values from the row as it is stored in MongoDB (mapped field names, ObjectId ids, ...).
+     * A key that is not a mapped property of {@code type} (e.g. a resolved virtual field) is read by its raw path.
+     */
+    public static SeekToken tokenOf(Document row, Sort sort, Class<?> type, MongoConverter converter) {
+        List<Object> values = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            values.add(readStoredValue(row, order.getProperty(), type, converter));
+        }
+        return new SeekToken(signature(sort), values);
+    }
+
+    private static Object readStoredValue(Document row, String property, Class<?> type, MongoConverter converter) {
+        if (ID_FIELD.equals(property)) return row.get(ID_FIELD);
+
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> context = converter.getMappingContext();
+        String fieldPath = property;
+        try {
+            PersistentPropertyPath<MongoPersistentProperty> path = context.getPersistentPropertyPath(property, type);
+            fieldPath = path.toDotPath(MongoPersistentProperty::getFieldName);
+        } catch (Exception ignored) {
+            // mapped property биш (virtual field гэх мэт), raw path-аар нь уншина
+        }
+
+        Object value = valueAt(row, fieldPath);
+        return value == null && !fieldPath.equals(property) ? valueAt(row, property) : value;
+    }
+
+    private static Object valueAt(Document row, String path) {
+        Object current = row;
+        for (String part : path.split("\\.")) {
+            if (!(current instanceof Document doc)) return null;
+            current = doc.get(part);
+        }
+        return current;
+    }
+
+    private static boolean isIdProperty(String property) {
+        return ID_FIELD.equals(property) || "id".equals(property);
+    }
+}
@@ -1,23 +1,19 @@
 package mn.astvision.filterflow.util;
 
-import mn.astvision.filterflow.annotations.FilterIgnore;
 import mn.astvision.filterflow.exception.FilterException;
 import mn.astvision.filterflow.model.FilterRequest;
 import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.util.metadata.EntityMetadata;
+import mn.astvision.filterflow.util.metadata.EntityMetadataRegistry;
+import mn.astvision.filterflow.util.metadata.FieldMetadata;
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
-import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
-import java.lang.reflect.WildcardType;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -28,28 +24,65 @@ import java.util.regex.PatternSyntaxException;
 
 public class ValidationUtil {
     private final static Logger log = LoggerFactory.getLogger(ValidationUtil.class);
-    private static final Map<Class<?>, Map<String, Field>> FIELD_CACHE = new HashMap<>();
 
     public static void validateFieldAndOperation(FilterRequest filter, Class<?> targetType) {
+        ResolvedField resolved = resolveForValidation(filter, targetType);
+        if (resolved != null) {
+            validateValue(filter, resolved, filter.getValue());
+        }
+    }
+
+    /**
+     * Value-ээс хамааралгүй шалгалтууд (талбар, operator) - г хийж, утгын шалгалтад хэрэгтэй мэдээллийг буцаана.
+     *
+     * @return null when the value does not need to be validated (raw generic type, non-convertible operator)
+     */
+    public static ResolvedField resolveForValidation(FilterRequest filter, Class<?> targetType) {
         String[] fieldParts = filter.getField().split("\\.");
-        Object value = filter.getValue();
         Class<?> currentType = targetType;
+        ResolvedField resolved = null;
 
         for (int i = 0; i < fieldParts.length; i++) {
             String part = fieldParts[i].replaceAll("\\[\\d*]", "");
-            Field field = findAndValidateField(part, currentType);
+            FieldMetadata field = findAndValidateField(part, currentType);
 
-            currentType = resolveFieldType(field);
+            currentType = field.elementType();
 
             if (currentType == Object.class) {
-                log.warn("Field '{}' has raw generic type; skipping strict type validation", field.getName());
+                log.warn("Field '{}' has raw generic type; skipping strict type validation", field.name());
                 continue;
             }
 
             if (isLastPart(i, fieldParts)) {
-                validateFinalField(filter, field, currentType, value);
+                resolved = resolveFinalField(filter, field.field(), currentType);
             }
         }
+        return resolved;
+    }
+
+    /**
+     * Validates only the value part of a filter against a field that was already resolved by
+     * {@link #resolveForValidation(FilterRequest, Class)}.
+     */
+    public static void validateValue(FilterRequest filter, ResolvedField resolved, Object value) {
+        String fieldName = resolved.fieldName();
+        Class<?> fieldType = resolved.fieldType();
+
+        if (Map.class.isAssignableFrom(fieldType)) {
+            validateFinalMapFiled(filter, fieldName, value);
+            return;
+        }
+
+        switch (filter.getOperator()) {
+            case "REGEX" -> validateRegexPattern(value, fieldName);
+            case "BETWEEN", "NOT_BETWEEN" -> validateBetween(value, fieldType, fieldName);
+            case "CONTAINS_WORD" -> validatePatternOperators(filter, value, fieldName);
+            case "IN", "NOT_IN" -> validateInOperators(value, fieldType, filter.getOperator(), fieldName);
+            case "EXPR" -> validateExpr(value, fieldName);
+            case "GLOBAL" ->
+                    throw new FilterException("GLOBAL operator validation should be handled separately if needed");
+            default -> validateDefault(value, fieldType, fieldName);
+        }
     }
 
     public static Class<?> resolveField(String fieldName, Class<?> rootType) {
@@ -60,14 +93,13 @@ public class ValidationUtil {
         try {
             String[] parts = fieldName.split("\\.");
             Class<?> currentType = rootType;
-            Field field;
 
             for (int i = 0; i < parts.length; i++) {
                 String part = parts[i];
-                field = findAndValidateField(part, currentType);
+                FieldMetadata field = findAndValidateField(part, currentType);
 
                 boolean isLast = isLastPart(i, parts);
-                currentType = resolveFieldType(field);
+                currentType = field.elementType();
 
                 if (isLast) {
                     return ConversionUtil.normalize(currentType);
@@ -82,83 +114,23 @@ public class ValidationUtil {
         throw new FilterException("Could not resolve field type for '%s' from %s".formatted(fieldName, rootType.getSimpleName()));
     }
 
-    private static Field findAndValidateField(String fieldName, Class<?> type) {
-        Map<String, Field> fields = FIELD_CACHE.computeIfAbsent(type, k -> new ConcurrentHashMap<>());
-
-        return fields.computeIfAbsent(fieldName, fn -> {
-            Field f = ReflectionUtils.findField(type, fn);
-            if (f == null) throw new FilterException("Invalid field: '%s' in %s".formatted(fn, type.getSimpleName()));
-            if (f.isAnnotationPresent(Transient.class)) {
-                List<String> fNames = collectTransientFieldNames(type);
-                throw new FilterException("The field '%s' is marked as @Transient and cannot be used for filtering.".formatted(fn), type, " transient fields: " + fNames);
-            }
-
-            if (f.isAnnotationPresent(Deprecated.class))
-                throw new FilterException("The field '%s' is marked as @Deprecated and is not supported for filtering.".formatted(fn));
-
-            if (f.isAnnotationPresent(FilterIgnore.class)) {
-                throw new FilterException("Field '%s' is marked with @FilterIgnore or @JsonIgnore and cannot be filtered.".formatted(fieldName));
-            }
-
-            f.setAccessible(true);
-            return f;
-        });
-    }
-
-    private static Class<?> resolveFieldType(Field field) {
-        try {
-            Class<?> rawType = field.getType();
-            Type genericType = field.getGenericType();
-
-            // Handle Collection types like List<Foo>
-            if (Collection.class.isAssignableFrom(rawType)) {
-                if (genericType instanceof ParameterizedType parameterizedType) {
-                    Type actualType = parameterizedType.getActualTypeArguments()[0];
-                    return extractClassFromType(actualType);
-                }
-                return Object.class; // raw List
-            }
-
-            // Handle Map types like Map<String, Foo>
-            if (Map.class.isAssignableFrom(rawType)) {
-                if (genericType instanceof ParameterizedType parameterizedType) {
-                    Type valueType = parameterizedType.getActualTypeArguments()[1]; // V in Map<K, V>
-                    return extractClassFromType(valueType);
-                }
-                return Object.class; // raw Map
-            }
-
-            // Default non-generic type
-            return rawType;
-
-        } catch (Exception e) {
-            throw new FilterException("Failed to resolve type of field '%s': %s".formatted(field.getName(), e.getMessage()), e);
-        }
-    }
+    private static FieldMetadata findAndValidateField(String fieldName, Class<?> type) {
+        EntityMetadata metadata = EntityMetadataRegistry.of(type);
+        FieldMetadata f = metadata.field(fieldName);
 
-    /**
-     * Helper to extract a Class<?> from a Type including support for wildcards and parameterized types.
-     */
-    private static Class<?> extractClassFromType(Type type) {
-        if (type instanceof Class<?> clazz) {
-            return clazz;
+        if (f == null) throw new FilterException("Invalid field: '%s' in %s".formatted(fieldName, type.getSimpleName()));
+        if (f.transientField()) {
+            throw new FilterException("The field '%s' is marked as @Transient and cannot be used for filtering.".formatted(fieldName), type, " transient fields: " + metadata.transientFieldNames());
         }
 
-        if (type instanceof ParameterizedType pt) {
-            Type raw = pt.getRawType();
-            if (raw instanceof Class<?> rawClass) {
-                return rawClass;
-            }
-        }
+        if (f.deprecated())
+            throw new FilterException("The field '%s' is marked as @Deprecated and is not supported for filtering.".formatted(fieldName));
 
-        if (type instanceof WildcardType wildcard) {
-            Type[] upperBounds = wildcard.getUpperBounds();
-            if (upperBounds.length > 0 && upperBounds[0] instanceof Class<?> upperClass) {
-                return upperClass;
-            }
+        if (f.ignored()) {
+            throw new FilterException("Field '%s' is marked with @FilterIgnore or @JsonIgnore and cannot be filtered.".formatted(fieldName));
         }
 
-        return Object.class; // fallback if we can't resolve
+        return f;
     }
 
     private static boolean isLastPart(int index, String[] parts) {
@@ -195,34 +167,19 @@ public class ValidationUtil {
         }
     }
 
-    private static void validateFinalField(FilterRequest filter, Field field, Class<?> fieldType, Object value) {
+    private static ResolvedField resolveFinalField(FilterRequest filter, Field field, Class<?> fieldType) {
 
         boolean convertible = FilterOperator.isConvertible(filter.getOperator());
-        if (!convertible) return;
+        if (!convertible) return null;
 
-        if (FilterOperator.EXISTS.equals(filter.getOperator())) return;
+        if (FilterOperator.EXISTS.equals(filter.getOperator())) return null;
 
         // Use 'field' for more descriptive errors
         String fieldName = "%s.%s".formatted(field.getDeclaringClass().getSimpleName(), field.getName());
 
         OperationUtil.validate(filter, fieldType, fieldName);
 
-        if (Map.class.isAssignableFrom(fieldType)) {
-            validateFinalMapFiled(filter, fieldName, value);
-            return;
-        }
-
-
-        switch (filter.getOperator()) {
-            case "REGEX" -> validateRegexPattern(value, fieldName);
-            case "BETWEEN", "NOT_BETWEEN" -> validateBetween(value, fieldType, fieldName);
-            case "CONTAINS_WORD" -> validatePatternOperators(filter, value, fieldName);
-            case "IN", "NOT_IN" -> validateInOperators(value, fieldType, filter.getOperator(), fieldName);
-            case "EXPR" -> validateExpr(value, fieldName);
-            case "GLOBAL" ->
-                    throw new FilterException("GLOBAL operator validation should be handled separately if needed");
-            default -> validateDefault(value, fieldType, fieldName);
-        }
+        return new ResolvedField(fieldName, fieldType);
     }
 
     public static void validateExpression(Object expr) {
@@ -284,7 +241,8 @@ public class ValidationUtil {
             throw new FilterException("REGEX operator expects String for '%s'".formatted(fieldName));
         }
         try {
-            Pattern.compile(pattern);
+            // same flags as the REGEX handler, so building the criteria afterwards is a cache hit
+            PatternCacheUtil.get(pattern, Pattern.CASE_INSENSITIVE);
         } catch (PatternSyntaxException ex) {
             throw new FilterException("Invalid REGEX pattern: %s".formatted(ex.getDescription()));
         }
@@ -294,13 +252,7 @@ public class ValidationUtil {
         if (!(value instanceof String s)) {
             throw new FilterException("%s expects String for '%s'".formatted(filter.getOperator(), fieldName));
         }
-        String patternStr = "\\b%s\\b".formatted(Pattern.quote(s));
-
-        try {
-            Pattern.compile(patternStr);
-        } catch (PatternSyntaxException ex) {
-            throw new FilterException("Invalid pattern syntax: %s".formatted(ex.getDescription()));
-        }
+        // the value is quoted by the handlers, so any string yields a valid pattern
     }
 
     private static void validateBetween(Object value, Class<?> fieldType, String fieldName) {
@@ -365,21 +317,9 @@ public class ValidationUtil {
         }
     }
 
-    private static List<String> collectTransientFieldNames(Class<?> type) {
-        List<String> transientFields = new ArrayList<>();
-        Class<?> current = type;
-
-        while (current != null && current != Object.class) {
-            for (Field field : current.getDeclaredFields()) {
-                if (field.isAnnotationPresent(Transient.class)) {
-                    transientFields.add(field.getName());
-                }
-            }
-            current = current.getSuperclass();
-        }
-
-        return transientFields;
+    /**
+     * Шалгалтад ашиглагдах эцсийн талбарын нэр, төрөл.
+     */
+    public record ResolvedField(String fieldName, Class<?> fieldType) {
     }
-
-
-}
\ No newline at end of file
+}
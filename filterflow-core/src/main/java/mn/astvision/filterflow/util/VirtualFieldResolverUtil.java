@@ -17,6 +17,7 @@ import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static mn.astvision.filterflow.util.AggregationLogger.generateOperationInfo;
 
@@ -25,6 +26,7 @@ import static mn.astvision.filterflow.util.AggregationLogger.generateOperationIn
  */
 
 public class VirtualFieldResolverUtil {
+    private static final Map<Class<?>, Set<String>> VIRTUAL_PATHS_CACHE = new ConcurrentHashMap<>();
     private final Logger log = LoggerFactory.getLogger(VirtualFieldResolverUtil.class);
     @Setter
     private boolean debug;
@@ -41,6 +43,48 @@ public class VirtualFieldResolverUtil {
 
     }
 
+    /**
+     * Top-level paths written by the operations of {@link #resolve(Class)}: the aliases, their temporary lookup
+     * fields and the local fields converted in place ({@code localFieldAsObjectId}). Every other stored field has the
+     * same value before and after those stages.
+     */
+    public static Set<String> resolveVirtualPaths(Class<?> clazz) {
+        return VIRTUAL_PATHS_CACHE.computeIfAbsent(clazz, VirtualFieldResolverUtil::collectVirtualPaths);
+    }
+
+    private static Set<String> collectVirtualPaths(Class<?> clazz) {
+        Set<String> paths = new HashSet<>();
+
+        for (Field field : clazz.getDeclaredFields()) {
+            if (field.getAnnotation(Transient.class) != null) continue;
+
+            VirtualField vf = field.getAnnotation(VirtualField.class);
+            if (vf != null) {
+                paths.add(field.getName());
+                paths.add(field.getName() + "_lookup");
+                if (vf.count()) paths.add(vf.localField() + "_str");
+                if (vf.localFieldAsObjectId()) addLocalField(paths, vf.localField());
+                continue;
+            }
+
+            VirtualObject vo = field.getAnnotation(VirtualObject.class);
+            if (vo != null) {
+                paths.add(vo.alias().isBlank() ? field.getName() : vo.alias());
+                if (vo.localFieldAsObjectId()) addLocalField(paths, vo.localField());
+            }
+        }
+
+        return Set.copyOf(paths);
+    }
+
+    private static void addLocalField(Set<String> paths, String localField) {
+        paths.add(localField);
+        if (localField.equals("_id") || localField.equals("id")) {
+            paths.add("_id");
+            paths.add("id");
+        }
+    }
+
     private static AggregationOperation handleEnumVirtualField(VirtualField vf, String targetField, String sourceField) {
         Class<? extends Enum<?>> enumClass = vf.enumClass();
         String enumField = vf.enumField();
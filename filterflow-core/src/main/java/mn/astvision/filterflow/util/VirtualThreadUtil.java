@@ -0,0 +1,61 @@
+package mn.astvision.filterflow.util;
+
+import mn.astvision.filterflow.exception.FilterException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Shared virtual-thread executor for blocking MongoDB calls that can run side by side.
+ *
+ * @author zorigtbaatar
+ */
+
+public class VirtualThreadUtil {
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    public static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * Like {@link CompletableFuture#supplyAsync(Supplier, java.util.concurrent.Executor)}, but cancelling the returned
+     * future interrupts the running task, which aborts its blocking socket read on a virtual thread.
+     */
+    public static <R> CompletableFuture<R> supplyAsync(Supplier<R> supplier) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Future<?> task = EXECUTOR.submit(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) task.cancel(true);
+        });
+        return future;
+    }
+
+    /**
+     * Waits for the future and rethrows its failure unwrapped.
+     */
+    public static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new FilterException("Interrupted while waiting for concurrent query", e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new FilterException("Concurrent query failed: %s".formatted(cause.getMessage()), cause);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package mn.astvision.filterflow.util.cache;
+
+import mn.astvision.filterflow.model.CacheStats;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived per-field cache of autocomplete pages, keyed by the prefix typed so far.
+ * <p>
+ * A page that holds every matching value (total no larger than the limit) also answers the longer prefixes typed
+ * after it: they are filtered from it in memory, so once a prefix narrows the list below the limit, the following
+ * keystrokes need no round-trip. Prefixes come straight from user input, so each field gets a small
+ * {@link FrequencyCache}; entries expire after the TTL of the query that stored them, and a save or delete on the
+ * collection drops all of its entries (see {@code ResultCacheInvalidationListener}).
+ *
+ * @author zorigtbaatar
+ */
+
+public class AutocompleteCache {
+    private static final int MAX_PREFIXES_PER_FIELD = 256;
+    private static final Map<String, Map<String, FrequencyCache<String, Entry>>> BY_COLLECTION = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> GENERATIONS = new ConcurrentHashMap<>();
+
+    private record Entry(Page<Object> page, long expiresAtNanos) {
+    }
+
+    private AutocompleteCache() {
+    }
+
+    /**
+     * @param scope everything but the prefix that shapes the result (filters, limit, case sensitivity)
+     */
+    public static Page<Object> get(String collection, Class<?> type, String field, String scope, String prefix, boolean ignoreCase) {
+        Map<String, FrequencyCache<String, Entry>> byField = BY_COLLECTION.get(collection);
+        FrequencyCache<String, Entry> cache = byField != null ? byField.get(fieldKey(type, field)) : null;
+        if (cache == null) return null;
+
+        Entry exact = live(cache.get(scope + '|' + prefix));
+        if (exact != null) return exact.page();
+
+        for (int length = prefix.length() - 1; length >= 0; length--) {
+            Entry shorter = live(cache.get(scope + '|' + prefix.substring(0, length)));
+            if (shorter != null && shorter.page().getTotalElements() == shorter.page().getNumberOfElements()) {
+                return narrow(shorter.page(), prefix, ignoreCase);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read before running the query and pass to {@link #put}, so a page loaded across a write is not stored.
+     */
+    public static long generation(String collection) {
+        return GENERATIONS.computeIfAbsent(collection, k -> new AtomicLong()).get();
+    }
+
+    public static void put(String collection, Class<?> type, String field, String scope, String prefix, long generation, Page<Object> page, Duration ttl) {
+        if (ttl.isZero() || ttl.isNegative()) return;
+        Entry entry = new Entry(page, System.nanoTime() + ttl.toNanos());
+
+        // invalidate-тай нэг түлхүүр дээр compute хийдэг тул generation шалгах, хадгалах хоёрын хооронд write орохгүй
+        BY_COLLECTION.compute(collection, (k, byField) -> {
+            if (generation(collection) != generation) return byField;
+            Map<String, FrequencyCache<String, Entry>> fields = byField != null ? byField : new ConcurrentHashMap<>();
+            fields.computeIfAbsent(fieldKey(type, field), f -> new FrequencyCache<>("autocomplete:" + collection + ':' + f, MAX_PREFIXES_PER_FIELD))
+                    .put(scope + '|' + prefix, entry);
+            return fields;
+        });
+    }
+
+    public static void invalidate(String collection) {
+        if (collection == null) return;
+        BY_COLLECTION.compute(collection, (k, byField) -> {
+            GENERATIONS.computeIfAbsent(collection, c -> new AtomicLong()).incrementAndGet();
+            return null;
+        });
+    }
+
+    public static void clear() {
+        BY_COLLECTION.clear();
+    }
+
+    public static List<CacheStats> stats() {
+        return BY_COLLECTION.values().stream().flatMap(byField -> byField.values().stream()).map(FrequencyCache::stats).toList();
+    }
+
+    static Page<Object> narrow(Page<Object> page, String prefix, boolean ignoreCase) {
+        String wanted = ignoreCase ? prefix.toLowerCase(Locale.ROOT) : prefix;
+        List<Object> values = page.getContent().stream()
+                .filter(value -> value != null && (ignoreCase ? value.toString().toLowerCase(Locale.ROOT) : value.toString()).startsWith(wanted))
+                .toList();
+        return new PageImpl<>(values, page.getPageable(), values.size());
+    }
+
+    private static Entry live(Entry entry) {
+        return entry != null && System.nanoTime() - entry.expiresAtNanos() < 0 ? entry : null;
+    }
+
+    private static String fieldKey(Class<?> type, String field) {
+        return type.getName() + '#' + field;
+    }
+}
@@ -0,0 +1,157 @@
+package mn.astvision.filterflow.util.cache;
+
+import mn.astvision.filterflow.model.CacheStats;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded cache that evicts by access frequency rather than recency, for keys taken straight from user input
+ * (search strings, ids, timestamps) where most keys are seen once and a few are seen constantly.
+ * <p>
+ * Every entry carries a small saturating counter bumped on each hit. On overflow the eviction hand samples the
+ * {@value #SAMPLE_SIZE} oldest entries and moves them to the tail, except the least frequent one, which is evicted -
+ * unless it has been hit more often than the entry just added, in which case the newcomer is dropped instead. A burst
+ * of one-off keys therefore cannot flush the hot ones. Every {@value #AGING_FACTOR} x maxSize operations all counters are halved,
+ * so past popularity ages out.
+ * Values are computed outside the lock, like {@link LruCache}.
+ *
+ * @author zorigtbaatar
+ */
+
+public class FrequencyCache<K, V> {
+    private static final int SAMPLE_SIZE = 8;
+    private static final int MAX_FREQUENCY = 15;
+    private static final int AGING_FACTOR = 10;
+
+    private final String name;
+    private final int maxSize;
+    private final LinkedHashMap<K, Node<V>> map = new LinkedHashMap<>();
+    private int operations;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public FrequencyCache(String name, int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive");
+        this.name = name;
+        this.maxSize = maxSize;
+    }
+
+    public V get(K key) {
+        synchronized (map) {
+            tick();
+            Node<V> node = map.get(key);
+            if (node == null) {
+                misses.increment();
+                return null;
+            }
+            if (node.frequency < MAX_FREQUENCY) node.frequency++;
+            hits.increment();
+            return node.value;
+        }
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) return value;
+
+        V computed = loader.apply(key);
+        if (computed == null) return null;
+
+        synchronized (map) {
+            Node<V> existing = map.get(key);
+            if (existing != null) return existing.value;
+
+            map.put(key, new Node<>(computed));
+            if (map.size() > maxSize) evictOne(key);
+        }
+        return computed;
+    }
+
+    public void put(K key, V value) {
+        synchronized (map) {
+            tick();
+            Node<V> existing = map.get(key);
+            if (existing != null) {
+                existing.value = value;
+                return;
+            }
+            map.put(key, new Node<>(value));
+            if (map.size() > maxSize) evictOne(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(name, hits.sum(), misses.sum(), evictions.sum(), size(), maxSize);
+    }
+
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    // caller holds the lock; newKey was just added at the tail
+    private void evictOne(K newKey) {
+        evictions.increment();
+
+        Iterator<Map.Entry<K, Node<V>>> iterator = map.entrySet().iterator();
+        List<Map.Entry<K, Node<V>>> sample = new ArrayList<>(SAMPLE_SIZE);
+        while (iterator.hasNext() && sample.size() < SAMPLE_SIZE) {
+            Map.Entry<K, Node<V>> entry = iterator.next();
+            if (!Objects.equals(entry.getKey(), newKey)) sample.add(entry);
+        }
+
+        Map.Entry<K, Node<V>> victim = sample.getFirst();
+        for (Map.Entry<K, Node<V>> candidate : sample) {
+            if (candidate.getValue().frequency < victim.getValue().frequency) victim = candidate;
+        }
+
+        if (victim.getValue().frequency > 0) {
+            map.remove(newKey);
+            victim = null;
+        }
+
+        for (Map.Entry<K, Node<V>> survivor : sample) {
+            K key = survivor.getKey();
+            Node<V> node = map.remove(key);
+            if (survivor != victim) map.put(key, node);
+        }
+    }
+
+    // caller holds the lock
+    private void tick() {
+        if (++operations < AGING_FACTOR * maxSize) return;
+
+        operations = 0;
+        for (Node<V> node : map.values()) node.frequency >>= 1;
+    }
+
+    private static final class Node<V> {
+        private V value;
+        private int frequency;
+
+        private Node(V value) {
+            this.value = value;
+        }
+    }
+}
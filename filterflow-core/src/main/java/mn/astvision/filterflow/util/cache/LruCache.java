@@ -0,0 +1,91 @@
+package mn.astvision.filterflow.util.cache;
+
+import mn.astvision.filterflow.model.CacheStats;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, access-ordered cache with hit/miss/eviction counters.
+ * Values are computed outside the lock, so a loader may run more than once for the same key under contention;
+ * the first stored value wins.
+ *
+ * @author zorigtbaatar
+ */
+
+public class LruCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final Map<K, V> map;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LruCache(String name, int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive");
+        this.name = name;
+        this.maxSize = maxSize;
+
+        LinkedHashMap<K, V> cacheManager = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                boolean evict = size() > LruCache.this.maxSize;
+                if (evict) evictions.incrementAndGet();
+                return evict;
+            }
+        };
+        this.map = Collections.synchronizedMap(cacheManager);
+    }
+
+    public V get(K key) {
+        V value = map.get(key);
+        if (value == null) misses.incrementAndGet();
+        else hits.incrementAndGet();
+        return value;
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) return value;
+
+        V computed = loader.apply(key);
+        if (computed == null) return null;
+
+        V existing = map.putIfAbsent(key, computed);
+        return existing != null ? existing : computed;
+    }
+
+    public void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    public V remove(K key) {
+        return map.remove(key);
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(name, hits.get(), misses.get(), evictions.get(), map.size(), maxSize);
+    }
+
+    public void resetStats() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+}
@@ -0,0 +1,512 @@
+package mn.astvision.filterflow.util.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import mn.astvision.filterflow.annotations.MaterializedSummaries;
+import mn.astvision.filterflow.component.executors.SummaryExecutor.AggregateOp;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.MaterializedSummaryStats;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Materialized SUM / AVG / COUNT / MIN / MAX summaries that follow the writes of their collection instead of being
+ * dropped by them.
+ * <p>
+ * Enabled per entity with {@link MaterializedSummaries} or per query with {@link FilterOptions#isMaterializedSummaries()}.
+ * An entry is keyed by entity, normalized criteria and field/op map and keeps the running sum, numeric and non-null
+ * counts (plus min / max when requested) of every field. Around a save or a delete by {@code _id} the written document
+ * is read once before and once after, together with which cached filters it matches (one {@code $facet}), and the
+ * difference is applied to the entries it moves in or out of. A removed value that was the current MIN or MAX, a
+ * non-numeric value under MIN/MAX, or a write that was not seen from both sides marks the entry for a lazy recompute on
+ * its next read; writes that do not target one document drop the collection's entries. Every entry is recomputed
+ * once it is older than the staleness bound, however many deltas it absorbed.
+ * <p>
+ * See {@link mn.astvision.filterflow.component.MaterializedSummaryListener} for the event wiring.
+ *
+ * @author zorigtbaatar
+ */
+
+@Slf4j
+public class MaterializedSummaryCache {
+    public static final Duration DEFAULT_MAX_STALENESS = Duration.ofMinutes(5);
+    public static final Set<AggregateOp> SUPPORTED_OPS = Collections.unmodifiableSet(EnumSet.of(AggregateOp.SUM, AggregateOp.AVG,
+            AggregateOp.COUNT, AggregateOp.MIN, AggregateOp.MAX));
+    private static final int DEFAULT_MAX_ENTRIES = 1_000;
+    private static final JsonWriterSettings KEY_JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    private static final Object LOCK = new Object();
+    private static final LinkedHashMap<String, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<String, Set<String>> KEYS_BY_COLLECTION = new HashMap<>();
+    private static final Map<String, MongoTemplate> TEMPLATES = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> GENERATIONS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Duration> STALENESS_OVERRIDES = new ConcurrentHashMap<>();
+    // before-event-ийн snapshot-ийг after-event хүртэл хадгална (event-үүд бичиж буй thread дээр гарна)
+    private static final ThreadLocal<Map<String, Snapshot>> PENDING = ThreadLocal.withInitial(HashMap::new);
+
+    private static volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder STALE_RELOADS = new LongAdder();
+    private static final LongAdder RECOMPUTES = new LongAdder();
+    private static final LongAdder DELTA_UPDATES = new LongAdder();
+    private static final LongAdder INVALIDATIONS = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+
+    private record Entry(String collection, Document criteria, Map<String, Set<AggregateOp>> fieldOps,
+                         Aggregates aggregates, long loadedAtNanos, long maxStalenessNanos) {
+    }
+
+    /**
+     * The written document as stored ({@code null} if absent) and which entries' filters it matched; an entry that is
+     * not in {@code evaluated} was created meanwhile and cannot be adjusted.
+     */
+    private record Snapshot(Document document, Set<String> evaluated, Set<String> matched) {
+    }
+
+    private MaterializedSummaryCache() {
+    }
+
+    // --- Configuration ---
+    public static void configure(int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        MaterializedSummaryCache.maxEntries = maxEntries;
+        synchronized (LOCK) {
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Overrides {@link MaterializedSummaries#maxStalenessSeconds()} for {@code type}.
+     */
+    public static void setMaxStaleness(Class<?> type, Duration maxStaleness) {
+        STALENESS_OVERRIDES.put(type, Objects.requireNonNull(maxStaleness));
+    }
+
+    public static boolean isEnabled(FilterOptions options, Class<?> type) {
+        if (options == null || options.isBypassResultCache()) return false;
+        return options.isMaterializedSummaries() || type.isAnnotationPresent(MaterializedSummaries.class);
+    }
+
+    public static boolean supports(Map<String, Set<AggregateOp>> fieldOps) {
+        return fieldOps.values().stream().allMatch(SUPPORTED_OPS::containsAll);
+    }
+
+    static Duration maxStalenessOf(Class<?> type) {
+        Duration override = STALENESS_OVERRIDES.get(type);
+        if (override != null) return override;
+
+        MaterializedSummaries annotation = type.getAnnotation(MaterializedSummaries.class);
+        return annotation != null ? Duration.ofSeconds(annotation.maxStalenessSeconds()) : DEFAULT_MAX_STALENESS;
+    }
+
+    // --- Lookup ---
+
+    /**
+     * @param criteria    filter already mapped to stored field names and types
+     * @param storedNames field -> stored (top-level) document key
+     */
+    public static Map<String, Map<String, BigDecimal>> summary(String key, Class<?> type, MongoTemplate mongoTemplate, Document criteria,
+                                                               Map<String, String> storedNames, Map<String, Set<AggregateOp>> fieldOps) {
+        synchronized (LOCK) {
+            Entry entry = ENTRIES.get(key);
+            if (entry == null) {
+                MISSES.increment();
+            } else if (entry.aggregates().dirty) {
+                removeEntry(key, entry);
+                RECOMPUTES.increment();
+            } else if (System.nanoTime() - entry.loadedAtNanos() > entry.maxStalenessNanos()) {
+                removeEntry(key, entry);
+                STALE_RELOADS.increment();
+            } else {
+                HITS.increment();
+                return entry.aggregates().result(fieldOps);
+            }
+        }
+
+        String collection = mongoTemplate.getCollectionName(type);
+        TEMPLATES.putIfAbsent(collection, mongoTemplate);
+        long generation = generationOf(collection);
+        long loadedAt = System.nanoTime();
+
+        Document row = mongoTemplate.getCollection(collection)
+                .aggregate(List.of(new Document("$match", criteria), new Document("$group", Aggregates.groupOf(storedNames, fieldOps))))
+                .first();
+        Aggregates aggregates = Aggregates.read(row != null ? row : new Document(), storedNames, fieldOps);
+
+        store(key, new Entry(collection, criteria, fieldOps, aggregates, loadedAt, maxStalenessOf(type).toNanos()), generation);
+        return aggregates.result(fieldOps);
+    }
+
+    // a write that happened while the loader ran bumps the generation, so its result is not kept
+    private static void store(String key, Entry entry, long generation) {
+        synchronized (LOCK) {
+            if (generationOf(entry.collection()) != generation) return;
+
+            Entry previous = ENTRIES.remove(key);
+            if (previous != null) unindex(key, previous);
+
+            ENTRIES.put(key, entry);
+            KEYS_BY_COLLECTION.computeIfAbsent(entry.collection(), k -> new HashSet<>()).add(key);
+            evictIfNeeded();
+        }
+    }
+
+    private static void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> iterator = ENTRIES.entrySet().iterator();
+        while (ENTRIES.size() > maxEntries && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            unindex(eldest.getKey(), eldest.getValue());
+            EVICTIONS.increment();
+        }
+    }
+
+    private static void removeEntry(String key, Entry entry) {
+        ENTRIES.remove(key);
+        unindex(key, entry);
+    }
+
+    private static void unindex(String key, Entry entry) {
+        Set<String> keys = KEYS_BY_COLLECTION.get(entry.collection());
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) KEYS_BY_COLLECTION.remove(entry.collection());
+        }
+    }
+
+    private static long generationOf(String collection) {
+        return GENERATIONS.computeIfAbsent(collection, k -> new AtomicLong()).get();
+    }
+
+    // --- Write events ---
+    public static void beforeSave(String collection, Document document) {
+        Object id = document != null ? document.get("_id") : null;
+        // _id-гүй бол insert: өмнөх төлөв байхгүй
+        if (id == null) remember(collection, null, new Snapshot(null, keysOf(collection), Set.of()));
+        else remember(collection, id, snapshot(collection, id));
+    }
+
+    public static void afterSave(String collection, Document document) {
+        Object id = document != null ? document.get("_id") : null;
+        Snapshot before = id != null ? forget(collection, id) : null;
+        if (before == null) before = forget(collection, null);
+
+        if (before == null || id == null) {
+            markDirty(collection);
+            return;
+        }
+        apply(collection, before, snapshot(collection, id));
+    }
+
+    /**
+     * @param query the delete query; only a delete of one {@code _id} is followed, others drop the entries
+     */
+    public static void beforeDelete(String collection, Document query) {
+        Object id = idOf(query);
+        if (id != null) remember(collection, id, snapshot(collection, id));
+    }
+
+    public static void afterDelete(String collection, Document query) {
+        Object id = idOf(query);
+        Snapshot before = id != null ? forget(collection, id) : null;
+        if (before == null) {
+            if (id == null) invalidate(collection);
+            else markDirty(collection);
+            return;
+        }
+        apply(collection, before, new Snapshot(null, before.evaluated(), Set.of()));
+    }
+
+    private static Object idOf(Document query) {
+        Object id = query != null ? query.get("_id") : null;
+        return id instanceof Map<?, ?> || id instanceof Collection<?> ? null : id;
+    }
+
+    private static void remember(String collection, Object id, Snapshot snapshot) {
+        if (snapshot == null) return;
+        Map<String, Snapshot> pending = PENDING.get();
+        // after-event ирээгүй (бичилт амжилтгүй болсон) snapshot-ууд хуримтлагдахгүй
+        if (pending.size() > 64) pending.clear();
+        pending.put(collection + '|' + id, snapshot);
+    }
+
+    private static Snapshot forget(String collection, Object id) {
+        return PENDING.get().remove(collection + '|' + id);
+    }
+
+    private static Set<String> keysOf(String collection) {
+        synchronized (LOCK) {
+            Set<String> keys = KEYS_BY_COLLECTION.get(collection);
+            return keys != null ? new HashSet<>(keys) : Set.of();
+        }
+    }
+
+    /**
+     * Reads the document with {@code _id} and, in the same aggregation, which cached filters of the collection match
+     * it (entries with the same filter share a {@code $facet} branch).
+     *
+     * @return null if the document could not be read, so the write is treated as unseen
+     */
+    private static Snapshot snapshot(String collection, Object id) {
+        Map<String, Document> criteriaByKey = new LinkedHashMap<>();
+        synchronized (LOCK) {
+            for (String key : KEYS_BY_COLLECTION.getOrDefault(collection, Set.of())) {
+                criteriaByKey.put(key, ENTRIES.get(key).criteria());
+            }
+        }
+        if (criteriaByKey.isEmpty()) return new Snapshot(null, Set.of(), Set.of());
+
+        MongoTemplate mongoTemplate = TEMPLATES.get(collection);
+        if (mongoTemplate == null) return null;
+
+        Document facet = new Document("document", List.of());
+        Map<String, String> branchByCriteria = new HashMap<>();
+        Map<String, String> branchOf = new HashMap<>();
+        criteriaByKey.forEach((key, criteria) -> branchOf.put(key, branchByCriteria.computeIfAbsent(criteria.toJson(KEY_JSON), json -> {
+            String branch = "f" + branchByCriteria.size();
+            facet.append(branch, List.of(new Document("$match", criteria), new Document("$project", new Document("_id", 1))));
+            return branch;
+        })));
+
+        try {
+            Document row = mongoTemplate.getCollection(collection)
+                    .aggregate(List.of(new Document("$match", new Document("_id", id)), new Document("$facet", facet)))
+                    .first();
+            if (row == null) return null;
+
+            List<Document> documents = row.getList("document", Document.class, List.of());
+            Set<String> matched = new HashSet<>();
+            branchOf.forEach((key, branch) -> {
+                if (!row.getList(branch, Document.class, List.of()).isEmpty()) matched.add(key);
+            });
+            return new Snapshot(documents.isEmpty() ? null : documents.getFirst(), criteriaByKey.keySet(), matched);
+        } catch (RuntimeException e) {
+            log.debug("materialized summary: snapshot of {} in '{}' failed: {}", id, collection, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void apply(String collection, Snapshot before, Snapshot after) {
+        synchronized (LOCK) {
+            GENERATIONS.computeIfAbsent(collection, k -> new AtomicLong()).incrementAndGet();
+            for (String key : KEYS_BY_COLLECTION.getOrDefault(collection, Set.of())) {
+                Aggregates aggregates = ENTRIES.get(key).aggregates();
+                if (after == null || !before.evaluated().contains(key) || !after.evaluated().contains(key)) {
+                    aggregates.dirty = true;
+                    continue;
+                }
+
+                boolean was = before.matched().contains(key) && before.document() != null;
+                boolean is = after.matched().contains(key) && after.document() != null;
+                if (!was && !is) continue;
+
+                if (was) aggregates.remove(before.document());
+                if (is) aggregates.add(after.document());
+                DELTA_UPDATES.increment();
+            }
+        }
+    }
+
+    private static void markDirty(String collection) {
+        synchronized (LOCK) {
+            GENERATIONS.computeIfAbsent(collection, k -> new AtomicLong()).incrementAndGet();
+            for (String key : KEYS_BY_COLLECTION.getOrDefault(collection, Set.of())) {
+                ENTRIES.get(key).aggregates().dirty = true;
+            }
+        }
+    }
+
+    // --- Invalidation ---
+    public static void invalidate(String collection) {
+        if (collection == null) return;
+
+        synchronized (LOCK) {
+            GENERATIONS.computeIfAbsent(collection, k -> new AtomicLong()).incrementAndGet();
+
+            Set<String> keys = KEYS_BY_COLLECTION.remove(collection);
+            if (keys == null) return;
+
+            keys.forEach(ENTRIES::remove);
+            INVALIDATIONS.add(keys.size());
+        }
+    }
+
+    public static void invalidate(Class<?> type, MongoTemplate mongoTemplate) {
+        invalidate(mongoTemplate.getCollectionName(type));
+    }
+
+    public static void clear() {
+        synchronized (LOCK) {
+            GENERATIONS.values().forEach(AtomicLong::incrementAndGet);
+            ENTRIES.clear();
+            KEYS_BY_COLLECTION.clear();
+        }
+    }
+
+    // --- Metrics ---
+    public static MaterializedSummaryStats stats() {
+        synchronized (LOCK) {
+            return new MaterializedSummaryStats(HITS.sum(), MISSES.sum(), STALE_RELOADS.sum(), RECOMPUTES.sum(), DELTA_UPDATES.sum(),
+                    INVALIDATIONS.sum(), EVICTIONS.sum(), ENTRIES.size(), maxEntries);
+        }
+    }
+
+    public static void resetStats() {
+        HITS.reset();
+        MISSES.reset();
+        STALE_RELOADS.reset();
+        RECOMPUTES.reset();
+        DELTA_UPDATES.reset();
+        INVALIDATIONS.reset();
+        EVICTIONS.reset();
+    }
+
+    /**
+     * Running aggregates of one entry; guarded by the cache lock once stored.
+     */
+    static final class Aggregates {
+        private final Map<String, FieldState> fields = new LinkedHashMap<>();
+        volatile boolean dirty;
+
+        private static final class FieldState {
+            private final String stored;
+            private final boolean trackMin;
+            private final boolean trackMax;
+            private BigDecimal sum = BigDecimal.ZERO;
+            private long numeric;
+            private long present;
+            private BigDecimal min;
+            private BigDecimal max;
+
+            private FieldState(String stored, Set<AggregateOp> ops) {
+                this.stored = stored;
+                this.trackMin = ops.contains(AggregateOp.MIN);
+                this.trackMax = ops.contains(AggregateOp.MAX);
+            }
+        }
+
+        /**
+         * {@code $group} accumulators named by field index ({@code .} is not allowed in their names).
+         */
+        static Document groupOf(Map<String, String> storedNames, Map<String, Set<AggregateOp>> fieldOps) {
+            Document group = new Document("_id", null);
+            int index = 0;
+            for (Map.Entry<String, String> field : storedNames.entrySet()) {
+                String ref = "$" + field.getValue();
+                String prefix = "f" + index++ + "_";
+                group.append(prefix + "sum", new Document("$sum", ref))
+                        .append(prefix + "numeric", new Document("$sum", new Document("$cond", List.of(new Document("$isNumber", ref), 1, 0))))
+                        .append(prefix + "present", new Document("$sum", new Document("$cond", Arrays.asList(new Document("$gt", Arrays.asList(ref, null)), 1, 0))));
+
+                Set<AggregateOp> ops = fieldOps.getOrDefault(field.getKey(), Set.of());
+                if (ops.contains(AggregateOp.MIN)) group.append(prefix + "min", new Document("$min", ref));
+                if (ops.contains(AggregateOp.MAX)) group.append(prefix + "max", new Document("$max", ref));
+            }
+            return group;
+        }
+
+        static Aggregates read(Document row, Map<String, String> storedNames, Map<String, Set<AggregateOp>> fieldOps) {
+            Aggregates aggregates = new Aggregates();
+            int index = 0;
+            for (Map.Entry<String, String> field : storedNames.entrySet()) {
+                String prefix = "f" + index++ + "_";
+                FieldState state = new FieldState(field.getValue(), fieldOps.getOrDefault(field.getKey(), Set.of()));
+
+                BigDecimal sum = decimal(row.get(prefix + "sum"));
+                state.sum = sum != null ? sum : BigDecimal.ZERO;
+                state.numeric = row.get(prefix + "numeric") instanceof Number n ? n.longValue() : 0;
+                state.present = row.get(prefix + "present") instanceof Number n ? n.longValue() : 0;
+                state.min = decimal(row.get(prefix + "min"));
+                state.max = decimal(row.get(prefix + "max"));
+                // $min/$max нь тоон бус утга буцаасан бол delta-гаар дагах боломжгүй
+                if ((state.trackMin && state.min == null && row.get(prefix + "min") != null)
+                        || (state.trackMax && state.max == null && row.get(prefix + "max") != null)) {
+                    aggregates.dirty = true;
+                }
+                aggregates.fields.put(field.getKey(), state);
+            }
+            return aggregates;
+        }
+
+        void add(Document document) {
+            fields.values().forEach(state -> apply(state, document.get(state.stored), true));
+        }
+
+        void remove(Document document) {
+            fields.values().forEach(state -> apply(state, document.get(state.stored), false));
+        }
+
+        private void apply(FieldState state, Object value, boolean add) {
+            if (value == null) return;
+            state.present += add ? 1 : -1;
+            if (!(value instanceof Number number)) {
+                // $min/$max тоон бус утгыг BSON дарааллаар харьцуулна
+                if (state.trackMin || state.trackMax) dirty = true;
+                return;
+            }
+
+            BigDecimal decimal = decimal(number);
+            if (decimal == null) {
+                dirty = true;
+                return;
+            }
+            state.numeric += add ? 1 : -1;
+            state.sum = add ? state.sum.add(decimal) : state.sum.subtract(decimal);
+
+            if (add) {
+                if (state.trackMin && (state.min == null || decimal.compareTo(state.min) < 0)) state.min = decimal;
+                if (state.trackMax && (state.max == null || decimal.compareTo(state.max) > 0)) state.max = decimal;
+            } else if ((state.trackMin && (state.min == null || decimal.compareTo(state.min) <= 0))
+                    || (state.trackMax && (state.max == null || decimal.compareTo(state.max) >= 0))) {
+                // хязгаар утга устсан: дараагийн уншилтад дахин тооцоолно
+                dirty = true;
+            }
+        }
+
+        Map<String, Map<String, BigDecimal>> result(Map<String, Set<AggregateOp>> fieldOps) {
+            Map<String, Map<String, BigDecimal>> result = new LinkedHashMap<>();
+            fields.forEach((field, state) -> {
+                Map<String, BigDecimal> ops = new LinkedHashMap<>();
+                for (AggregateOp op : fieldOps.getOrDefault(field, Set.of())) {
+                    BigDecimal value = switch (op) {
+                        case SUM -> state.sum;
+                        case AVG -> state.numeric == 0 ? BigDecimal.ZERO
+                                : state.sum.divide(BigDecimal.valueOf(state.numeric), MathContext.DECIMAL64);
+                        case COUNT -> BigDecimal.valueOf(state.present);
+                        case MIN -> state.min != null ? state.min : BigDecimal.ZERO;
+                        case MAX -> state.max != null ? state.max : BigDecimal.ZERO;
+                        default -> throw new IllegalArgumentException(op + " is not materialized");
+                    };
+                    ops.put(op.name(), value);
+                }
+                result.put(field, ops);
+            });
+            return result;
+        }
+
+        private static BigDecimal decimal(Object value) {
+            try {
+                return switch (value) {
+                    case Decimal128 d -> d.bigDecimalValue();
+                    case BigDecimal d -> d;
+                    case Number n -> new BigDecimal(n.toString());
+                    case null, default -> null;
+                };
+            } catch (ArithmeticException | NumberFormatException e) {
+                return null; // NaN, Infinity
+            }
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package mn.astvision.filterflow.util.cache;
+
+import com.mongodb.MongoClientSettings;
+import lombok.extern.slf4j.Slf4j;
+import mn.astvision.filterflow.annotations.CacheResults;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.ResultCacheStats;
+import mn.astvision.filterflow.util.CriteriaPlanCache;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Query result cache in front of page / count / exists / summary executions.
+ * <p>
+ * Enabled per entity with {@link CacheResults} or per query with {@link FilterOptions#isResultCacheEnabled()}.
+ * Entries are keyed by the normalized criteria document, pageable, projection and result-affecting options, bounded by
+ * entry count and approximate byte size (LRU), expire after the entity's TTL and are dropped when the collection, or a
+ * collection its virtual-field lookups join, is written, see
+ * {@link mn.astvision.filterflow.component.ResultCacheInvalidationListener}.
+ * <p>
+ * Page content is stored as the encoded raw rows and read into new instances on every hit, so callers (and apply
+ * steps) can mutate what they get back.
+ *
+ * @author zorigtbaatar
+ */
+
+@Slf4j
+public class QueryResultCache {
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(60);
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+    private static final JsonWriterSettings KEY_JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    private static final Object LOCK = new Object();
+    private static final LinkedHashMap<String, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<String, Set<String>> KEYS_BY_COLLECTION = new HashMap<>();
+    private static final Map<String, AtomicLong> GENERATIONS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Duration> TTL_OVERRIDES = new ConcurrentHashMap<>();
+    private static long bytes;
+
+    private static volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+    private static volatile long maxBytes = DEFAULT_MAX_BYTES;
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+    private static final LongAdder EXPIRATIONS = new LongAdder();
+    private static final LongAdder INVALIDATIONS = new LongAdder();
+
+    public enum Kind {
+        PAGE, COUNT, EXISTS, SUMMARY
+    }
+
+    private record Entry(Set<String> collections, Object value, long bytes, long expiresAtNanos) {
+    }
+
+    private record CachedPage(List<RawBsonDocument> content, long total) {
+    }
+
+    private QueryResultCache() {
+    }
+
+    // --- Configuration ---
+    public static void configure(int maxEntries, long maxBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0) throw new IllegalArgumentException("maxEntries and maxBytes must be positive");
+        QueryResultCache.maxEntries = maxEntries;
+        QueryResultCache.maxBytes = maxBytes;
+        synchronized (LOCK) {
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Overrides {@link CacheResults#ttlSeconds()} for {@code type}.
+     */
+    public static void setTtl(Class<?> type, Duration ttl) {
+        TTL_OVERRIDES.put(type, Objects.requireNonNull(ttl));
+    }
+
+    public static boolean isEnabled(FilterOptions options, Class<?> type) {
+        if (options == null || options.isBypassResultCache()) return false;
+        return options.isResultCacheEnabled() || type.isAnnotationPresent(CacheResults.class);
+    }
+
+    static Duration ttlOf(Class<?> type) {
+        Duration override = TTL_OVERRIDES.get(type);
+        if (override != null) return override;
+
+        CacheResults annotation = type.getAnnotation(CacheResults.class);
+        return annotation != null ? Duration.ofSeconds(annotation.ttlSeconds()) : DEFAULT_TTL;
+    }
+
+    // --- Keys ---
+
+    /**
+     * @param extra kind-specific part of the key (e.g. the summary field/op map), may be null
+     * @return cache key, or null if the query cannot be cached (its criteria or projection could not be rendered)
+     */
+    public static String keyOf(Kind kind, Class<?> type, FilterGroup filters, FilterOptions options, Pageable pageable,
+                               List<AggregationOperation> projectOps, Object extra) {
+        try {
+            StringBuilder sb = new StringBuilder(kind.name()).append('|').append(type.getName()).append('|');
+            sb.append(CriteriaPlanCache.buildCriteria(filters, options, type).getCriteriaObject().toJson(KEY_JSON)).append('|');
+
+            if (pageable == null || pageable.isUnpaged()) sb.append("unpaged");
+            else sb.append(pageable.getPageNumber()).append(':').append(pageable.getPageSize());
+            if (pageable != null) sb.append(':').append(pageable.getSort());
+            sb.append('|');
+
+            if (projectOps != null) {
+                for (AggregationOperation op : projectOps) {
+                    op.toPipelineStages(Aggregation.DEFAULT_CONTEXT).forEach(stage -> sb.append(stage.toJson(KEY_JSON)));
+                }
+            }
+            // locale өөр collation ижил criteria-гаар өөр document-ууд олно
+            sb.append('|').append(options.isResolveVF()).append(':').append(options.isSkipCount()).append(':').append(options.getCaseInsensitiveCollation());
+            // ranking нь aggregationOperations-оор биш AggregationExecutor дотор нэмэгддэг тул түлхүүрт заавал орно
+            Map<String, Double> weights = options.getSearchFieldWeights();
+            sb.append('|').append(options.isGlobalSearchRanked()).append(':').append(options.getSearchTopK())
+                    .append(':').append(weights != null ? new TreeMap<>(weights) : null);
+            if (extra != null) sb.append('|').append(extra);
+
+            return sb.toString();
+        } catch (RuntimeException e) {
+            if (options.isDebug()) log.info("[DEBUG] result cache skipped, key could not be built: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Collections joined by the {@code $lookup} / {@code $graphLookup} / {@code $unionWith} stages of
+     * {@code operations}, nested pipelines included. A write to any of them drops the entry like a write to the
+     * entity's own collection.
+     *
+     * @return null if a stage could not be rendered; the query is then not cached
+     */
+    public static Set<String> dependenciesOf(List<AggregationOperation> operations) {
+        if (operations == null || operations.isEmpty()) return Set.of();
+        try {
+            Set<String> collections = new HashSet<>();
+            for (AggregationOperation op : operations) {
+                op.toPipelineStages(Aggregation.DEFAULT_CONTEXT).forEach(stage -> collectJoined(stage, collections));
+            }
+            return collections;
+        } catch (RuntimeException e) {
+            log.debug("result cache: joined collections could not be resolved: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void collectJoined(Object value, Set<String> collections) {
+        if (value instanceof Document doc) {
+            for (Map.Entry<String, Object> entry : doc.entrySet()) {
+                Object stage = entry.getValue();
+                switch (entry.getKey()) {
+                    case "$lookup", "$graphLookup" -> {
+                        if (stage instanceof Document lookup && lookup.get("from") instanceof String from) collections.add(from);
+                    }
+                    case "$unionWith" -> {
+                        if (stage instanceof String coll) collections.add(coll);
+                        else if (stage instanceof Document union && union.get("coll") instanceof String coll) collections.add(coll);
+                    }
+                    default -> {
+                    }
+                }
+                collectJoined(stage, collections);
+            }
+        } else if (value instanceof Collection<?> list) {
+            list.forEach(item -> collectJoined(item, collections));
+        }
+    }
+
+    // --- Lookup ---
+
+    /**
+     * Caches the raw rows of the page, so a hit reads them into {@code type} exactly like a miss does, resolved
+     * virtual fields included.
+     *
+     * @param dependencies joined collections, see {@link #dependenciesOf(List)}
+     * @param loader       the page as returned by the database
+     */
+    public static <T> Page<T> page(String key, Class<T> type, MongoTemplate mongoTemplate, Pageable pageable, Set<String> dependencies,
+                                   Supplier<Page<Document>> loader) {
+        MongoConverter converter = mongoTemplate.getConverter();
+
+        if (lookup(key) instanceof CachedPage cached) {
+            List<T> content = new ArrayList<>(cached.content().size());
+            for (RawBsonDocument raw : cached.content()) {
+                content.add(converter.read(type, DOCUMENT_CODEC.decode(raw.asBsonReader(), DecoderContext.builder().build())));
+            }
+            return new PageImpl<>(content, pageable, cached.total());
+        }
+
+        Set<String> collections = collectionsOf(type, mongoTemplate, dependencies);
+        long generation = generationOf(collections);
+        Page<Document> page = loader.get();
+
+        try {
+            List<RawBsonDocument> content = new ArrayList<>(page.getContent().size());
+            long size = ENTRY_OVERHEAD_BYTES;
+            for (Document doc : page.getContent()) {
+                RawBsonDocument raw = new RawBsonDocument(doc, DOCUMENT_CODEC);
+                size += raw.getByteBuffer().remaining();
+                content.add(raw);
+            }
+            store(key, collections, generation, new CachedPage(content, page.getTotalElements()), size, ttlOf(type));
+        } catch (RuntimeException e) {
+            log.debug("result cache: page of {} not cached: {}", type.getSimpleName(), e.getMessage());
+        }
+
+        return page.map(doc -> converter.read(type, doc));
+    }
+
+    /**
+     * For immutable results ({@code Long}, {@code Boolean}).
+     */
+    public static <R> R value(String key, Class<?> type, MongoTemplate mongoTemplate, Supplier<R> loader) {
+        return value(key, type, mongoTemplate, Set.of(), loader);
+    }
+
+    /**
+     * @param dependencies joined collections, see {@link #dependenciesOf(List)}
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> R value(String key, Class<?> type, MongoTemplate mongoTemplate, Set<String> dependencies, Supplier<R> loader) {
+        Object cached = lookup(key);
+        if (cached != null) return (R) cached;
+
+        Set<String> collections = collectionsOf(type, mongoTemplate, dependencies);
+        long generation = generationOf(collections);
+        R value = loader.get();
+        if (value != null) store(key, collections, generation, value, ENTRY_OVERHEAD_BYTES, ttlOf(type));
+
+        return value;
+    }
+
+    public static Map<String, Map<String, BigDecimal>> summary(String key, Class<?> type, MongoTemplate mongoTemplate,
+                                                               Supplier<Map<String, Map<String, BigDecimal>>> loader) {
+        if (lookup(key) instanceof Map<?, ?> cached) {
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, BigDecimal>> summary = (Map<String, Map<String, BigDecimal>>) cached;
+            return copyOf(summary);
+        }
+
+        Set<String> collections = collectionsOf(type, mongoTemplate, Set.of());
+        long generation = generationOf(collections);
+        Map<String, Map<String, BigDecimal>> summary = loader.get();
+
+        if (summary != null) {
+            long size = ENTRY_OVERHEAD_BYTES + summary.values().stream().mapToLong(ops -> 64L + ops.size() * 48L).sum();
+            store(key, collections, generation, copyOf(summary), size, ttlOf(type));
+        }
+        return summary;
+    }
+
+    private static Map<String, Map<String, BigDecimal>> copyOf(Map<String, Map<String, BigDecimal>> summary) {
+        Map<String, Map<String, BigDecimal>> copy = new LinkedHashMap<>();
+        summary.forEach((field, ops) -> copy.put(field, new LinkedHashMap<>(ops)));
+        return copy;
+    }
+
+    private static Object lookup(String key) {
+        synchronized (LOCK) {
+            Entry entry = ENTRIES.get(key);
+            if (entry == null) {
+                MISSES.increment();
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAtNanos() > 0) {
+                removeEntry(key, entry);
+                EXPIRATIONS.increment();
+                MISSES.increment();
+                return null;
+            }
+            HITS.increment();
+            return entry.value();
+        }
+    }
+
+    private static Set<String> collectionsOf(Class<?> type, MongoTemplate mongoTemplate, Set<String> dependencies) {
+        Set<String> collections = new HashSet<>(dependencies);
+        collections.add(mongoTemplate.getCollectionName(type));
+        return Set.copyOf(collections);
+    }
+
+    // a write that happened while the loader ran bumps the generation, so its (possibly stale) result is dropped
+    private static void store(String key, Set<String> collections, long generation, Object value, long size, Duration ttl) {
+        if (size > maxBytes) return;
+
+        synchronized (LOCK) {
+            if (generationOf(collections) != generation) return;
+
+            Entry previous = ENTRIES.remove(key);
+            if (previous != null) unindex(key, previous);
+
+            ENTRIES.put(key, new Entry(collections, value, size, System.nanoTime() + ttl.toNanos()));
+            collections.forEach(collection -> KEYS_BY_COLLECTION.computeIfAbsent(collection, k -> new HashSet<>()).add(key));
+            bytes += size;
+
+            evictIfNeeded();
+        }
+    }
+
+    private static void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> iterator = ENTRIES.entrySet().iterator();
+        while ((ENTRIES.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            unindex(eldest.getKey(), eldest.getValue());
+            EVICTIONS.increment();
+        }
+    }
+
+    private static void removeEntry(String key, Entry entry) {
+        ENTRIES.remove(key);
+        unindex(key, entry);
+    }
+
+    private static void unindex(String key, Entry entry) {
+        bytes -= entry.bytes();
+        for (String collection : entry.collections()) {
+            Set<String> keys = KEYS_BY_COLLECTION.get(collection);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) KEYS_BY_COLLECTION.remove(collection);
+            }
+        }
+    }
+
+    // generation-ууд зөвхөн өсдөг тул нийлбэр нь аль нэг нь өөрчлөгдөхөд л өөрчлөгдөнө
+    private static long generationOf(Set<String> collections) {
+        long generation = 0;
+        for (String collection : collections) {
+            generation += GENERATIONS.computeIfAbsent(collection, k -> new AtomicLong()).get();
+        }
+        return generation;
+    }
+
+    // --- Invalidation ---
+    public static void invalidate(String collection) {
+        if (collection == null) return;
+
+        synchronized (LOCK) {
+            GENERATIONS.computeIfAbsent(collection, k -> new AtomicLong()).incrementAndGet();
+
+            Set<String> keys = KEYS_BY_COLLECTION.remove(collection);
+            if (keys == null) return;
+
+            for (String key : keys) {
+                Entry entry = ENTRIES.remove(key);
+                if (entry != null) unindex(key, entry);
+            }
+            INVALIDATIONS.add(keys.size());
+        }
+    }
+
+    public static void invalidate(Class<?> type, MongoTemplate mongoTemplate) {
+        invalidate(mongoTemplate.getCollectionName(type));
+    }
+
+    public static void clear() {
+        synchronized (LOCK) {
+            GENERATIONS.values().forEach(AtomicLong::incrementAndGet);
+            ENTRIES.clear();
+            KEYS_BY_COLLECTION.clear();
+            bytes = 0;
+        }
+    }
+
+    // --- Metrics ---
+    public static ResultCacheStats stats() {
+        synchronized (LOCK) {
+            return new ResultCacheStats(HITS.sum(), MISSES.sum(), EVICTIONS.sum(), EXPIRATIONS.sum(), INVALIDATIONS.sum(),
+                    ENTRIES.size(), maxEntries, bytes, maxBytes);
+        }
+    }
+
+    public static void resetStats() {
+        HITS.reset();
+        MISSES.reset();
+        EVICTIONS.reset();
+        EXPIRATIONS.reset();
+        INVALIDATIONS.reset();
+    }
+}
@@ -4,9 +4,23 @@ import lombok.extern.slf4j.Slf4j;
 import mn.astvision.filterflow.annotations.FilterIgnore;
 import mn.astvision.filterflow.annotations.VirtualField;
 import mn.astvision.filterflow.annotations.VirtualObject;
+import mn.astvision.filterflow.component.FilterContextHolder;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
 import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.model.enums.GlobalSearchMode;
 import mn.astvision.filterflow.util.ConversionUtil;
+import mn.astvision.filterflow.util.PatternCacheUtil;
+import mn.astvision.filterflow.util.metadata.EntityMetadata.SearchFieldKind;
+import mn.astvision.filterflow.util.metadata.EntityMetadataRegistry;
+import mn.astvision.filterflow.util.search.NgramIndexUtil;
+import mn.astvision.filterflow.util.search.SearchKeyUtil;
+import org.bson.Document;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 import org.springframework.data.mongodb.core.query.Criteria;
 
 import java.lang.reflect.Field;
@@ -14,8 +28,6 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.time.temporal.Temporal;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -28,23 +40,54 @@ import static org.apache.commons.lang3.reflect.FieldUtils.getAllFields;
 
 @Slf4j
 public class GlobalSearchResolver {
-    private static final ConcurrentMap<Class<?>, List<String>> SEARCHABLE_STRING_FIELDS_CACHE = new ConcurrentHashMap<>();
-    private static final ConcurrentMap<Class<?>, List<String>> NUMERIC_FIELDS_CACHE = new ConcurrentHashMap<>();
-    private static final ConcurrentMap<Class<?>, List<String>> DATE_FIELDS_CACHE = new ConcurrentHashMap<>();
+    public static final String TEXT_SCORE_FIELD = "textScore";
+    private static final String REGEX_META_CHARS = "\\.[]{}()<>*+-=!?^$|#&~/";
 
     public static <T> Criteria buildGenericSearch(String keyword, FilterOptions options, Class<T> targetType) {
         if (keyword == null || keyword.isBlank()) return new Criteria();
+        return buildGenericSearch(keyword, options, targetType, resolveMode(options, targetType));
+    }
+
+    /**
+     * @param mode already resolved mode (see {@link #resolveMode}); never {@link GlobalSearchMode#AUTO}
+     */
+    public static <T> Criteria buildGenericSearch(String keyword, FilterOptions options, Class<T> targetType, GlobalSearchMode mode) {
+        if (keyword == null || keyword.isBlank()) return new Criteria();
+
+        if (mode == GlobalSearchMode.NGRAM) {
+            Criteria candidates = NgramIndexUtil.buildCandidateCriteria(FilterContextHolder.getBean(MongoTemplate.class), keyword, options, targetType);
+            if (candidates != null) return candidates;
+            mode = GlobalSearchMode.REGEX; // trigram-аас богино keyword
+        }
+        if (mode == GlobalSearchMode.TEXT) {
+            Criteria text = buildTextCondition(keyword);
+            if (options.isDebug()) log.info("Global search: keyword: {}, mode: TEXT, condition: {}", keyword, text.getCriteriaObject());
+            return text;
+        }
 
         int maxDepth = options.getGlobalSearchDepth();
         Set<String> allowedFields = options.getAllowedGlobalSearchFields();
         Set<String> excludedFields = options.getExcludedGlobalSearchFields();
 
-        List<String> stringFields = getFilteredFields(SEARCHABLE_STRING_FIELDS_CACHE, targetType, type -> collectSearchableTextFields(type, maxDepth), maxDepth, allowedFields, excludedFields);
-        List<String> numericFields = getFilteredFields(NUMERIC_FIELDS_CACHE, targetType, type -> collectNumericFields(type, maxDepth), maxDepth, allowedFields, excludedFields);
-        List<String> dateFields = getFilteredFields(DATE_FIELDS_CACHE, targetType, type -> collectDateFields(type, maxDepth), maxDepth, allowedFields, excludedFields);
+        List<String> stringFields = getFilteredFields(SearchFieldKind.STRING, targetType, maxDepth, allowedFields, excludedFields);
+        List<String> numericFields = getFilteredFields(SearchFieldKind.NUMERIC, targetType, maxDepth, allowedFields, excludedFields);
+        List<String> dateFields = getFilteredFields(SearchFieldKind.DATE, targetType, maxDepth, allowedFields, excludedFields);
 
         List<Criteria> conditions = new ArrayList<>();
-        conditions.addAll(buildStringConditions(keyword, stringFields));
+        if (mode == GlobalSearchMode.PREFIX || options.isGlobalSearchEscapeKeyword()) {
+            // @SearchKey талбаруудыг түлхүүрийн үгийн эхлэлээр хайна
+            Map<String, Criteria> keyed = SearchKeyUtil.globalConditions(targetType, stringFields, keyword);
+            if (!keyed.isEmpty()) {
+                conditions.addAll(keyed.values());
+                stringFields = stringFields.stream().filter(field -> !keyed.containsKey(field)).toList();
+            }
+        }
+        if (mode == GlobalSearchMode.PREFIX) {
+            List<String> indexed = indexedFields(stringFields, targetType);
+            conditions.addAll(buildPrefixConditions(keyword, indexed.isEmpty() ? stringFields : indexed));
+        } else {
+            conditions.addAll(buildStringConditions(options.isGlobalSearchEscapeKeyword() ? escapeRegex(keyword) : keyword, stringFields));
+        }
         conditions.addAll(buildNumericConditions(keyword, numericFields));
         conditions.addAll(buildDateConditions(keyword, dateFields));
 
@@ -56,9 +99,105 @@ public class GlobalSearchResolver {
     }
 
 
-    private static List<Criteria> buildStringConditions(String keyword, List<String> fields) {
+    /**
+     * {@link GlobalSearchMode#AUTO} is resolved from the collection's indexes (cached, see {@link IndexInspector}).
+     *
+     * @throws FilterException if {@link GlobalSearchMode#TEXT} is requested and the collection has no text index
+     */
+    public static GlobalSearchMode resolveMode(FilterOptions options, Class<?> targetType) {
+        GlobalSearchMode mode = options.getGlobalSearchMode() != null ? options.getGlobalSearchMode() : GlobalSearchMode.REGEX;
+
+        return switch (mode) {
+            case REGEX, PREFIX -> mode;
+            case NGRAM -> {
+                if (!NgramIndexUtil.isIndexed(targetType)) {
+                    throw new FilterException("Global search mode NGRAM requires @NgramIndexed", targetType,
+                            "annotate the entity with @NgramIndexed and run NgramIndexUtil.rebuild once");
+                }
+                yield GlobalSearchMode.NGRAM;
+            }
+            case TEXT -> {
+                if (!IndexInspector.of(targetType).hasTextIndex()) {
+                    throw new FilterException("Global search mode TEXT requires a text index", targetType,
+                            "create a text index on the collection or use globalSearchMode AUTO / REGEX");
+                }
+                yield GlobalSearchMode.TEXT;
+            }
+            case AUTO -> {
+                if (NgramIndexUtil.isIndexed(targetType)) yield GlobalSearchMode.NGRAM;
+                if (IndexInspector.of(targetType).hasTextIndex()) yield GlobalSearchMode.TEXT;
+
+                List<String> stringFields = getFilteredFields(SearchFieldKind.STRING, targetType, options.getGlobalSearchDepth(),
+                        options.getAllowedGlobalSearchFields(), options.getExcludedGlobalSearchFields());
+                yield indexedFields(stringFields, targetType).isEmpty() ? GlobalSearchMode.REGEX : GlobalSearchMode.PREFIX;
+            }
+        };
+    }
+
+    /**
+     * @return true if {@code group} has a GLOBAL filter that resolves to a {@code $text} search
+     */
+    public static boolean usesTextSearch(FilterGroup group, FilterOptions options, Class<?> targetType) {
+        return group != null && hasGlobalFilter(group) && resolveMode(options, targetType) == GlobalSearchMode.TEXT;
+    }
+
+    private static boolean hasGlobalFilter(FilterGroup group) {
+        return group.getComponents().stream().anyMatch(component -> switch (component) {
+            case FilterRequest request -> FilterOperator.GLOBAL.name().equals(request.getOperator());
+            case FilterGroup nested -> hasGlobalFilter(nested);
+            default -> false;
+        });
+    }
+
+    /**
+     * Backslash-escapes regex metacharacters. Unlike {@code \Q...\E} the result is still a plain literal prefix
+     * for MongoDB, so an anchored pattern can use index bounds.
+     */
+    public static String escapeRegex(String literal) {
+        StringBuilder sb = new StringBuilder(literal.length() + 8);
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (REGEX_META_CHARS.indexOf(c) >= 0) sb.append('\\');
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Sort by relevance, for text searches without an explicit sort.
+     */
+    public static Document textScoreSortObject() {
+        return new Document(TEXT_SCORE_FIELD, new Document("$meta", "textScore"));
+    }
+
+    public static AggregationOperation textScoreSort() {
+        return context -> new Document("$sort", textScoreSortObject());
+    }
+
+    private static Criteria buildTextCondition(String keyword) {
+        return Criteria.where("$text").is(new Document("$search", keyword));
+    }
+
+    private static List<String> indexedFields(List<String> fields, Class<?> targetType) {
+        Set<String> leading = IndexInspector.of(targetType).leadingFields();
+        if (leading.isEmpty()) return List.of();
+        return fields.stream().filter(leading::contains).toList();
+    }
+
+    private static List<Criteria> buildStringConditions(String regex, List<String> fields) {
+        if (fields.isEmpty()) return Collections.emptyList();
+        Pattern pattern = PatternCacheUtil.get(regex, Pattern.CASE_INSENSITIVE);
+        List<Criteria> conditions = new ArrayList<>();
+        for (String field : fields) {
+            conditions.add(Criteria.where(field).regex(pattern));
+        }
+        return conditions;
+    }
+
+    // case-sensitive on purpose: MongoDB cannot bound an index scan with a case-insensitive regex
+    private static List<Criteria> buildPrefixConditions(String keyword, List<String> fields) {
         if (fields.isEmpty()) return Collections.emptyList();
-        Pattern pattern = Pattern.compile(keyword, Pattern.CASE_INSENSITIVE);
+        Pattern pattern = PatternCacheUtil.get("^" + escapeRegex(keyword));
         List<Criteria> conditions = new ArrayList<>();
         for (String field : fields) {
             conditions.add(Criteria.where(field).regex(pattern));
@@ -92,8 +231,33 @@ public class GlobalSearchResolver {
     }
 
 
-    private static List<String> getFilteredFields(ConcurrentMap<Class<?>, List<String>> cache, Class<?> type, java.util.function.Function<Class<?>, List<String>> collector, int maxDepth, Set<String> allowedFields, Set<String> excludedFields) {
-        List<String> fields = cache.computeIfAbsent(type, collector);
+    /**
+     * Pre-computes the searchable fields of {@code type}, so the first global search does not pay for the reflection.
+     */
+    public static void warmUp(Class<?> type, int maxDepth) {
+        for (SearchFieldKind kind : SearchFieldKind.values()) {
+            searchFields(kind, type, maxDepth);
+        }
+    }
+
+    private static List<String> searchFields(SearchFieldKind kind, Class<?> type, int maxDepth) {
+        return EntityMetadataRegistry.of(type).searchFields(kind, maxDepth, depth -> switch (kind) {
+            case STRING -> collectSearchableTextFields(type, depth);
+            case NUMERIC -> collectNumericFields(type, depth);
+            case DATE -> collectDateFields(type, depth);
+        });
+    }
+
+    /**
+     * String fields a GLOBAL filter searches for {@code type}, after the allowed / excluded options are applied.
+     */
+    public static List<String> searchableStringFields(FilterOptions options, Class<?> type) {
+        return getFilteredFields(SearchFieldKind.STRING, type, options.getGlobalSearchDepth(),
+                options.getAllowedGlobalSearchFields(), options.getExcludedGlobalSearchFields());
+    }
+
+    private static List<String> getFilteredFields(SearchFieldKind kind, Class<?> type, int maxDepth, Set<String> allowedFields, Set<String> excludedFields) {
+        List<String> fields = searchFields(kind, type, maxDepth);
 
         if ((allowedFields != null && !allowedFields.isEmpty()) || (excludedFields != null && !excludedFields.isEmpty())) {
             fields = fields.stream().filter(f -> (allowedFields == null || allowedFields.isEmpty() || allowedFields.contains(f)) && (excludedFields == null || !excludedFields.contains(f))).toList();
@@ -113,8 +277,6 @@ public class GlobalSearchResolver {
         if (currentDepth > maxDepth) return fields;
 
         for (Field field : declaredFields) {
-            field.setAccessible(true);
-
             if (field.isAnnotationPresent(Transient.class)) continue;
             if (field.isAnnotationPresent(FilterIgnore.class)) continue;
 
@@ -172,7 +334,7 @@ public class GlobalSearchResolver {
 
         if (checker.accept(elementType)) {
             fields.add(prefix + field.getName()); // List<String/Number/Date> case
-        } else {
+        } else if (!isLeafType(elementType)) {
             String nestedPrefix = prefix + field.getName() + ".";
             fields.addAll(collectFields(elementType, nestedPrefix, true, checker, currentDepth + 1, maxDepth));
         }
@@ -189,10 +351,12 @@ public class GlobalSearchResolver {
         if (valueType instanceof Class<?> valueClass) {
             if (checker.accept(valueClass)) {
                 fields.add(prefix + field.getName());
+            } else if (isLeafType(valueClass)) {
+                return fields;
             } else if (Collection.class.isAssignableFrom(valueClass)) {
                 // Get the element type of the list
                 Type innerType = ((ParameterizedType) pType.getActualTypeArguments()[1]).getActualTypeArguments()[0];
-                if (innerType instanceof Class<?> elemClass) {
+                if (innerType instanceof Class<?> elemClass && !isLeafType(elemClass)) {
                     String nestedPrefix = prefix + field.getName() + ".*."; // use .* for dynamic map keys
                     fields.addAll(collectFields(elemClass, nestedPrefix, true, checker, currentDepth + 1, maxDepth));
                 }
@@ -205,6 +369,11 @@ public class GlobalSearchResolver {
     }
 
 
+    // JDK төрлүүдийн дотоод талбар руу (String.hash гэх мэт) орохгүй
+    private static boolean isLeafType(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || type.isArray() || EntityMetadataRegistry.isSimpleType(type);
+    }
+
     public static List<String> collectSearchableTextFields(Class<?> type, int maxDepth) {
         return collectFields(type, "", true, t -> t.equals(String.class), 0, maxDepth);
     }
@@ -227,12 +396,9 @@ public class GlobalSearchResolver {
 
         //@formatter:off
         List<String> allFields = Stream.of(
-                        getFilteredFields(SEARCHABLE_STRING_FIELDS_CACHE, targetType,
-                                type -> collectSearchableTextFields(type, maxDepth), maxDepth, allowedFields, excludedFields),
-                        getFilteredFields(NUMERIC_FIELDS_CACHE, targetType,
-                                type -> collectNumericFields(type, maxDepth), maxDepth, allowedFields, excludedFields),
-                        getFilteredFields(DATE_FIELDS_CACHE, targetType,
-                                type -> collectDateFields(type, maxDepth), maxDepth, allowedFields, excludedFields)
+                        getFilteredFields(SearchFieldKind.STRING, targetType, maxDepth, allowedFields, excludedFields),
+                        getFilteredFields(SearchFieldKind.NUMERIC, targetType, maxDepth, allowedFields, excludedFields),
+                        getFilteredFields(SearchFieldKind.DATE, targetType, maxDepth, allowedFields, excludedFields)
                 )
                 .flatMap(Collection::stream)
                 .toList();
@@ -0,0 +1,94 @@
+package mn.astvision.filterflow.util.helpers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-collection summary of the indexes ({@code listIndexes}), used to pick a global search mode.
+ * <p>
+ * Summaries are cached for {@link #TTL}; the template is registered at startup by the executor factory.
+ * Without a registered template every collection reports no indexes.
+ *
+ * @author zorigtbaatar
+ */
+
+@Slf4j
+public final class IndexInspector {
+    public static final Duration TTL = Duration.ofMinutes(5);
+    private static final IndexSummary NONE = new IndexSummary(false, Set.of(), Set.of(), 0);
+
+    private static final Map<String, IndexSummary> CACHE = new ConcurrentHashMap<>();
+    private static volatile MongoTemplate mongoTemplate;
+
+    private IndexInspector() {
+    }
+
+    /**
+     * @param textFields    fields covered by the text index
+     * @param leadingFields first key of every non-text index, i.e. the fields a range or prefix query can use an index for
+     */
+    public record IndexSummary(boolean hasTextIndex, Set<String> textFields, Set<String> leadingFields, long loadedAt) {
+        boolean isExpired() {
+            return System.nanoTime() - loadedAt > TTL.toNanos();
+        }
+    }
+
+    public static void register(MongoTemplate template) {
+        mongoTemplate = template;
+        CACHE.clear();
+    }
+
+    public static IndexSummary of(Class<?> type) {
+        MongoTemplate template = mongoTemplate;
+        if (template == null) return NONE;
+        return of(template, template.getCollectionName(type));
+    }
+
+    public static IndexSummary of(MongoTemplate template, String collection) {
+        IndexSummary cached = CACHE.get(collection);
+        if (cached != null && !cached.isExpired()) return cached;
+
+        IndexSummary loaded = load(template, collection);
+        CACHE.put(collection, loaded);
+        return loaded;
+    }
+
+    public static void invalidate(String collection) {
+        CACHE.remove(collection);
+    }
+
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static IndexSummary load(MongoTemplate template, String collection) {
+        boolean hasTextIndex = false;
+        Set<String> textFields = new LinkedHashSet<>();
+        Set<String> leadingFields = new LinkedHashSet<>();
+
+        try {
+            for (IndexInfo info : template.indexOps(collection).getIndexInfo()) {
+                List<IndexField> fields = info.getIndexFields();
+                if (fields.isEmpty()) continue;
+
+                if (fields.stream().anyMatch(IndexField::isText)) {
+                    hasTextIndex = true;
+                    fields.stream().filter(IndexField::isText).map(IndexField::getKey).forEach(textFields::add);
+                } else {
+                    leadingFields.add(fields.getFirst().getKey());
+                }
+            }
+        } catch (RuntimeException e) {
+            // жишээ нь listIndexes эрхгүй үед - индексгүй гэж үзээд regex-ээр хайна
+            log.warn("indexes of {} could not be listed: {}", collection, e.getMessage());
+        }
+
+        return new IndexSummary(hasTextIndex, Set.copyOf(textFields), Set.copyOf(leadingFields), System.nanoTime());
+    }
+}
@@ -0,0 +1,73 @@
+package mn.astvision.filterflow.util.metadata;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Immutable field metadata of one class, see {@link EntityMetadataRegistry#of(Class)}.
+ *
+ * @author zorigtbaatar
+ */
+
+public final class EntityMetadata {
+    private final Class<?> type;
+    private final Map<String, FieldMetadata> fields;
+    private final Set<String> mappedPaths;
+    private final boolean resolvedWithMappingContext; // mappedPaths are known
+    private final List<String> transientFieldNames;
+
+    // global search талбарууд depth-ээс хамаардаг тул анх хүсэгдэх үед нэг удаа тооцоолно
+    private final Map<String, List<String>> searchFields = new ConcurrentHashMap<>();
+
+    public enum SearchFieldKind {
+        STRING, NUMERIC, DATE
+    }
+
+    EntityMetadata(Class<?> type, Map<String, FieldMetadata> fields, Set<String> mappedPaths, boolean resolvedWithMappingContext) {
+        this.type = type;
+        this.fields = Collections.unmodifiableMap(new LinkedHashMap<>(fields));
+        this.mappedPaths = Collections.unmodifiableSet(new TreeSet<>(mappedPaths));
+        this.resolvedWithMappingContext = resolvedWithMappingContext;
+        this.transientFieldNames = fields.values().stream().filter(FieldMetadata::transientField).map(FieldMetadata::name).toList();
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return the declared field (own or inherited, own declarations win), or null
+     */
+    public FieldMetadata field(String name) {
+        return fields.get(name);
+    }
+
+    public Collection<FieldMetadata> fields() {
+        return fields.values();
+    }
+
+    public List<String> transientFieldNames() {
+        return transientFieldNames;
+    }
+
+    /**
+     * @return sorted dotted paths of the persistent properties, nested entities included; empty for unmapped types
+     */
+    public Set<String> mappedPaths() {
+        return mappedPaths;
+    }
+
+    boolean isResolvedWithMappingContext() {
+        return resolvedWithMappingContext;
+    }
+
+    public List<String> searchFields(SearchFieldKind kind, int depth, IntFunction<List<String>> collector) {
+        return searchFields.computeIfAbsent(kind.name() + ':' + depth, k -> List.copyOf(collector.apply(depth)));
+    }
+
+    @Override
+    public String toString() {
+        return "EntityMetadata{" + "type=" + type.getSimpleName() + ", fields=" + fields.keySet() + ", mappedPaths=" + mappedPaths.size() + '}';
+    }
+}
@@ -0,0 +1,174 @@
+package mn.astvision.filterflow.util.metadata;
+
+import lombok.extern.slf4j.Slf4j;
+import mn.astvision.filterflow.annotations.FilterIgnore;
+import mn.astvision.filterflow.annotations.VirtualField;
+import mn.astvision.filterflow.annotations.VirtualObject;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.util.OperationUtil;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mapping.SimplePropertyHandler;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mapping.model.SimpleTypeHolder;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single source of field metadata (declared fields, element types, Mongo names, allowed operators, mapped paths).
+ * <p>
+ * Mapped entities are registered eagerly by {@link #warmUp(MappingContext)} at startup; any other class
+ * (e.g. a nested type reached while validating a dotted path) is resolved on first use.
+ * Entries are immutable, so readers never lock.
+ *
+ * @author zorigtbaatar
+ */
+
+@Slf4j
+public final class EntityMetadataRegistry {
+    private static final Map<Class<?>, EntityMetadata> REGISTRY = new ConcurrentHashMap<>();
+    private static volatile MappingContext<?, ?> mappingContext;
+
+    private EntityMetadataRegistry() {
+    }
+
+    public static EntityMetadata of(Class<?> type) {
+        return REGISTRY.computeIfAbsent(type, t -> build(t, persistentEntityOf(t, mappingContext), mappingContext));
+    }
+
+    /**
+     * Mapped paths need the persistent entity; an entry built without it (before warm-up, or before the mapping
+     * context knew the type) is rebuilt once.
+     */
+    public static Set<String> mappedPaths(PersistentEntity<?, ?> entity, MappingContext<?, ?> context) {
+        EntityMetadata metadata = of(entity.getType());
+        if (metadata.isResolvedWithMappingContext()) return metadata.mappedPaths();
+
+        EntityMetadata rebuilt = build(entity.getType(), entity, context);
+        REGISTRY.put(entity.getType(), rebuilt);
+        return rebuilt.mappedPaths();
+    }
+
+    /**
+     * Registers every persistent entity known to {@code context}.
+     *
+     * @return the {@code @Document} types, for callers that warm up their own per-entity state
+     */
+    public static List<Class<?>> warmUp(MappingContext<?, ?> context) {
+        long start = System.nanoTime();
+        mappingContext = context;
+
+        List<Class<?>> documents = new ArrayList<>();
+        for (Object item : context.getPersistentEntities()) {
+            PersistentEntity<?, ?> entity = (PersistentEntity<?, ?>) item;
+            Class<?> type = entity.getType();
+            try {
+                REGISTRY.put(type, build(type, entity, context));
+                if (entity.isAnnotationPresent(Document.class)) documents.add(type);
+            } catch (RuntimeException e) {
+                log.warn("entity metadata of {} could not be built: {}", type.getName(), e.getMessage());
+            }
+        }
+
+        log.info("entity metadata registered for {} types ({} documents) in {} ms", REGISTRY.size(), documents.size(), (System.nanoTime() - start) / 1_000_000);
+        return documents;
+    }
+
+    public static void clear() {
+        REGISTRY.clear();
+    }
+
+    public static int size() {
+        return REGISTRY.size();
+    }
+
+    public static boolean isSimpleType(Class<?> type) {
+        return SimpleTypeHolder.DEFAULT.isSimpleType(type) || type.getPackageName().startsWith("java.");
+    }
+
+    // --- Build ---
+    private static PersistentEntity<?, ?> persistentEntityOf(Class<?> type, MappingContext<?, ?> context) {
+        if (context == null || type.isPrimitive() || type.isArray() || isSimpleType(type)) return null;
+        return context.hasPersistentEntityFor(type) ? context.getPersistentEntity(type) : null;
+    }
+
+    private static EntityMetadata build(Class<?> type, PersistentEntity<?, ?> entity, MappingContext<?, ?> context) {
+        Map<String, FieldMetadata> fields = new LinkedHashMap<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.isSynthetic()) continue;
+                fields.putIfAbsent(field.getName(), fieldMetadata(field, entity));
+            }
+        }
+
+        Set<String> mappedPaths = new TreeSet<>();
+        if (entity != null && context != null) collectMappedPaths(context, entity, "", mappedPaths);
+
+        return new EntityMetadata(type, fields, mappedPaths, entity != null && context != null);
+    }
+
+    private static FieldMetadata fieldMetadata(Field field, PersistentEntity<?, ?> entity) {
+        Class<?> elementType = resolveElementType(field);
+        boolean transientField = field.isAnnotationPresent(Transient.class);
+        boolean ignored = field.isAnnotationPresent(FilterIgnore.class);
+        boolean virtual = field.isAnnotationPresent(VirtualField.class) || field.isAnnotationPresent(VirtualObject.class);
+        boolean searchable = elementType == String.class && !transientField && !ignored;
+
+        String mongoName = field.getName();
+        if (entity != null && entity.getPersistentProperty(field.getName()) instanceof MongoPersistentProperty property) {
+            mongoName = property.getFieldName();
+        }
+
+        Set<FilterOperator> allowed = elementType == Object.class ? Set.of() : OperationUtil.allowedOperators(elementType);
+
+        return new FieldMetadata(field.getName(), mongoName, field, field.getType(), elementType, transientField,
+                field.isAnnotationPresent(Deprecated.class), ignored, searchable, virtual, allowed);
+    }
+
+    // self-referencing types (parent/children) stop at the first repeat on the current path
+    private static void collectMappedPaths(MappingContext<?, ?> context, PersistentEntity<?, ?> entity, String prefix, Set<String> paths) {
+        collectMappedPaths(context, entity, prefix, paths, new HashSet<>(Set.of(entity.getType())));
+    }
+
+    private static void collectMappedPaths(MappingContext<?, ?> context, PersistentEntity<?, ?> entity, String prefix, Set<String> paths, Set<Class<?>> onPath) {
+        entity.doWithProperties((SimplePropertyHandler) property -> {
+            String path = prefix.isEmpty() ? property.getName() : prefix + "." + property.getName();
+            paths.add(path);
+            if (isSimpleType(property.getType()) || !onPath.add(property.getType())) return;
+
+            PersistentEntity<?, ?> nested = context.getPersistentEntity(property.getType());
+            if (nested != null) collectMappedPaths(context, nested, path, paths, onPath);
+            onPath.remove(property.getType());
+        });
+    }
+
+    /**
+     * {@code List<Foo>} -> Foo, {@code Map<K, V>} -> V, otherwise the field type; {@code Object.class} for raw generics.
+     */
+    private static Class<?> resolveElementType(Field field) {
+        Class<?> rawType = field.getType();
+        Type genericType = field.getGenericType();
+
+        if (Collection.class.isAssignableFrom(rawType)) {
+            return genericType instanceof ParameterizedType pt ? classOf(pt.getActualTypeArguments()[0]) : Object.class;
+        }
+        if (Map.class.isAssignableFrom(rawType)) {
+            return genericType instanceof ParameterizedType pt ? classOf(pt.getActualTypeArguments()[1]) : Object.class;
+        }
+        return rawType;
+    }
+
+    private static Class<?> classOf(Type type) {
+        if (type instanceof Class<?> clazz) return clazz;
+        if (type instanceof ParameterizedType pt && pt.getRawType() instanceof Class<?> raw) return raw;
+        if (type instanceof WildcardType wildcard) {
+            Type[] upperBounds = wildcard.getUpperBounds();
+            if (upperBounds.length > 0 && upperBounds[0] instanceof Class<?> upper) return upper;
+        }
+        return Object.class;
+    }
+}
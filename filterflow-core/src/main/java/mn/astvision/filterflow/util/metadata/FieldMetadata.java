@@ -0,0 +1,31 @@
+package mn.astvision.filterflow.util.metadata;
+
+import mn.astvision.filterflow.model.enums.FilterOperator;
+
+import java.lang.reflect.Field;
+import java.util.Set;
+
+/**
+ * One declared field of an entity (or of a nested type), resolved once by {@link EntityMetadataRegistry}.
+ *
+ * @param mongoName        stored field name, same as {@code name} unless the type is mapped and renames it
+ * @param elementType      field type, or the element type for collections and the value type for maps;
+ *                         {@code Object.class} for raw generics
+ * @param allowedOperators operators allowed on {@link #elementType()} (unmodifiable)
+ * @param searchable       string field visible to global search
+ * @param virtual          annotated with {@code @VirtualField} / {@code @VirtualObject}
+ * @author zorigtbaatar
+ */
+
+public record FieldMetadata(String name, String mongoName, Field field, Class<?> rawType, Class<?> elementType,
+                            boolean transientField, boolean deprecated, boolean ignored, boolean searchable, boolean virtual,
+                            Set<FilterOperator> allowedOperators) {
+
+    public boolean isFilterable() {
+        return !transientField && !deprecated && !ignored;
+    }
+
+    public boolean allows(FilterOperator operator) {
+        return allowedOperators.contains(operator);
+    }
+}
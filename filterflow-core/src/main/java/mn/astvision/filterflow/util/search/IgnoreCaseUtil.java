@@ -0,0 +1,91 @@
+package mn.astvision.filterflow.util.search;
+
+import mn.astvision.filterflow.annotations.IgnoreCaseIndexed;
+import mn.astvision.filterflow.component.FilterComponent;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.util.PatternCacheUtil;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.Locale;
+
+/**
+ * Index-friendly case-insensitive matching for {@link FilterOperator#EQUALS_IGNORE_CASE} and
+ * {@link FilterOperator#STARTS_WITH_CI}.
+ * <p>
+ * On {@link IgnoreCaseIndexed} fields the value is lower-cased and matched case-sensitively against the stored
+ * lower-cased copy, so an ordinary index on {@code _lower.<field>} answers it with a range scan.
+ * Other fields use equality / a range under a strength 2 collation of {@link FilterOptions#getCaseInsensitiveCollation()},
+ * which MongoDB can only serve from an index built with the same collation. Without either, the operator handler
+ * falls back to a case-insensitive regex.
+ *
+ * @author zorigtbaatar
+ */
+
+public final class IgnoreCaseUtil {
+    // ICU collation-д хамгийн сүүлд эрэмблэгдэх тэмдэгт, prefix range-ийн дээд хязгаар
+    private static final String RANGE_END = "\uFFFF";
+
+    private IgnoreCaseUtil() {
+    }
+
+    /**
+     * @return null if the operator handler should build the criteria
+     */
+    public static Criteria criteria(String operator, String field, Object value, FilterOptions options, Class<?> targetType) {
+        if (value == null || !isCaseInsensitive(operator) && !FilterOperator.STARTS_WITH.name().equals(operator)) return null;
+        String raw = value.toString();
+
+        String lowerName = SearchKeyUtil.lowerName(targetType, field);
+        if (lowerName != null) {
+            String lower = raw.toLowerCase(Locale.ROOT);
+            if (FilterOperator.EQUALS_IGNORE_CASE.name().equals(operator)) return Criteria.where(lowerName).is(lower);
+            return Criteria.where(lowerName).regex(PatternCacheUtil.get("^" + GlobalSearchResolver.escapeRegex(lower)));
+        }
+
+        if (!isCaseInsensitive(operator) || locale(options) == null) return null;
+        if (FilterOperator.EQUALS_IGNORE_CASE.name().equals(operator)) return Criteria.where(field).is(raw);
+        return Criteria.where(field).gte(raw).lt(raw + RANGE_END);
+    }
+
+    /**
+     * Query collation {@code group} needs: set only when a case-insensitive operator targets a field without a
+     * lower-cased copy and {@link FilterOptions#getCaseInsensitiveCollation()} is configured.
+     * The collation applies to every string comparison of the query, not just those operators.
+     *
+     * @return null if the query runs with the collection's default collation
+     */
+    public static Collation collationOf(FilterGroup group, FilterOptions options, Class<?> targetType) {
+        String locale = locale(options);
+        if (locale == null || !needsCollation(group, targetType)) return null;
+        return Collation.of(locale).strength(Collation.ComparisonLevel.secondary());
+    }
+
+    private static boolean needsCollation(FilterGroup group, Class<?> targetType) {
+        if (group == null || group.getComponents() == null) return false;
+
+        for (FilterComponent component : group.getComponents()) {
+            if (component instanceof FilterRequest request) {
+                if (isCaseInsensitive(request.getOperator()) && SearchKeyUtil.lowerName(targetType, request.getField()) == null)
+                    return true;
+            } else if (component instanceof FilterGroup nested && needsCollation(nested, targetType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCaseInsensitive(String operator) {
+        return FilterOperator.EQUALS_IGNORE_CASE.name().equals(operator) || FilterOperator.STARTS_WITH_CI.name().equals(operator);
+    }
+
+    private static String locale(FilterOptions options) {
+        if (options == null || options.getCaseInsensitiveCollation() == null) return null;
+        String locale = options.getCaseInsensitiveCollation().trim();
+        return locale.isEmpty() ? null : locale;
+    }
+}
@@ -0,0 +1,325 @@
+package mn.astvision.filterflow.util.search;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import lombok.extern.slf4j.Slf4j;
+import mn.astvision.filterflow.annotations.NgramIndexed;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterExecutionStats;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.enums.GlobalSearchMode;
+import mn.astvision.filterflow.util.cache.LruCache;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import org.bson.Document;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.NotReadablePropertyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Trigram index kept in a companion collection ({@code <collection>_ngrams}), one document per entity:
+ * {@code { _id: <entity _id>, grams: [...], indexedAt: <date> }} with a multikey index on {@code grams}.
+ * <p>
+ * A search keyword is split into the same trigrams; documents sharing at least {@code minSimilarity} of them are the
+ * candidates, and the main query becomes an indexed {@code _id $in} lookup. Fragments ("ulaan" in "ulaanbaatar")
+ * share all their trigrams, a single typo breaks at most three.
+ * <p>
+ * The candidate list is capped at {@link NgramIndexed#maxCandidates()} by shared trigrams <em>before</em> the entity's
+ * other filters apply, so with a very common keyword a matching document can fall outside the cap;
+ * {@link FilterExecutionStats#isNgramCandidatesTruncated()} reports when that happened. Candidates are resolved once
+ * and reused for a couple of seconds, so building the cache key, the page and the count of one execution share a single
+ * side-collection query; any index write to the collection drops them.
+ *
+ * @author zorigtbaatar
+ */
+
+@Slf4j
+public final class NgramIndexUtil {
+    public static final int GRAM_SIZE = 3;
+    public static final String COLLECTION_SUFFIX = "_ngrams";
+    public static final String GRAMS_FIELD = "grams";
+    public static final String INDEXED_AT_FIELD = "indexedAt";
+    private static final int REBUILD_BATCH_SIZE = 1_000;
+    private static final int DEFAULT_FIELD_DEPTH = 4;
+
+    private static final Duration CANDIDATE_TTL = Duration.ofSeconds(2);
+    private static final int MAX_CANDIDATE_LISTS = 256;
+
+    private static final Set<String> ENSURED_COLLECTIONS = ConcurrentHashMap.newKeySet();
+    private static final LruCache<String, Candidates> CANDIDATES = new LruCache<>("ngram-candidates", MAX_CANDIDATE_LISTS);
+    private static final Map<String, AtomicLong> GENERATIONS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, List<String[]>> FIELD_PATHS = new ConcurrentHashMap<>();
+
+    record Candidates(List<Object> ids, boolean truncated, long expiresAtNanos) {
+    }
+
+    private NgramIndexUtil() {
+    }
+
+    public static boolean isIndexed(Class<?> type) {
+        return type.isAnnotationPresent(NgramIndexed.class);
+    }
+
+    public static String sideCollection(String collection) {
+        return collection + COLLECTION_SUFFIX;
+    }
+
+    /**
+     * Lower-cased trigrams of every letter/digit token of {@code text}; tokens shorter than a trigram are kept whole.
+     */
+    public static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text == null) return grams;
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean tokenChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (tokenChar && start < 0) start = i;
+            if (!tokenChar && start >= 0) {
+                addTokenGrams(lower, start, i, grams);
+                start = -1;
+            }
+        }
+        return grams;
+    }
+
+    private static void addTokenGrams(String text, int start, int end, Set<String> grams) {
+        if (end - start < GRAM_SIZE) {
+            grams.add(text.substring(start, end));
+            return;
+        }
+        for (int i = start; i + GRAM_SIZE <= end; i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+    }
+
+    // --- Query ---
+
+    /**
+     * @return {@code _id $in candidates}, or null when the keyword has no full trigram (the caller falls back to regex)
+     */
+    public static Criteria buildCandidateCriteria(MongoTemplate template, String keyword, FilterOptions options, Class<?> type) {
+        NgramIndexed config = configOf(type);
+        Set<String> queryGrams = queryGrams(keyword);
+        if (queryGrams.isEmpty()) return null;
+
+        double minSimilarity = minSimilarity(options, config);
+        String collection = template.getCollectionName(type);
+        // cap + 1 мөр авч, хязгаарт хүрсэн эсэхийг мэдэнэ
+        Candidates candidates = candidates(collection, queryGrams, minSimilarity, config.maxCandidates(),
+                () -> candidateIds(template, collection, queryGrams, minSimilarity, config.maxCandidates() + 1));
+        if (options.isDebug()) {
+            log.info("[DEBUG] ngram search - keyword: {}, grams: {}, candidates: {}, truncated: {}", keyword, queryGrams.size(), candidates.ids().size(), candidates.truncated());
+        }
+
+        return Criteria.where("_id").in(candidates.ids());
+    }
+
+    /**
+     * @return true if the NGRAM search of {@code group} under {@code options} was cut at {@link NgramIndexed#maxCandidates()}
+     */
+    public static boolean candidatesTruncated(MongoTemplate template, FilterGroup group, FilterOptions options, Class<?> type) {
+        if (options == null || !isIndexed(type)) return false;
+        String keyword = RelevanceScoreUtil.findKeyword(group);
+        if (keyword == null || GlobalSearchResolver.resolveMode(options, type) != GlobalSearchMode.NGRAM) return false;
+
+        NgramIndexed config = configOf(type);
+        Set<String> queryGrams = queryGrams(keyword);
+        if (queryGrams.isEmpty()) return false;
+
+        String collection = template.getCollectionName(type);
+        Candidates candidates = live(CANDIDATES.get(candidateKey(collection, queryGrams, minSimilarity(options, config), config.maxCandidates())));
+        return candidates != null && candidates.truncated();
+    }
+
+    /**
+     * @param loader side-collection query returning up to {@code maxCandidates + 1} ids
+     */
+    static Candidates candidates(String collection, Set<String> queryGrams, double minSimilarity, int maxCandidates, Supplier<List<Object>> loader) {
+        String key = candidateKey(collection, queryGrams, minSimilarity, maxCandidates);
+        Candidates cached = live(CANDIDATES.get(key));
+        if (cached != null) return cached;
+
+        long generation = generation(collection);
+        List<Object> ids = loader.get();
+        boolean truncated = ids.size() > maxCandidates;
+        Candidates candidates = new Candidates(truncated ? List.copyOf(ids.subList(0, maxCandidates)) : List.copyOf(ids), truncated,
+                System.nanoTime() + CANDIDATE_TTL.toNanos());
+        // query-ийн явцад index бичигдсэн бол хадгалахгүй
+        if (generation(collection) == generation) CANDIDATES.put(key, candidates);
+        return candidates;
+    }
+
+    static void invalidateCandidates(String collection) {
+        GENERATIONS.computeIfAbsent(collection, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static long generation(String collection) {
+        return GENERATIONS.computeIfAbsent(collection, k -> new AtomicLong()).get();
+    }
+
+    private static String candidateKey(String collection, Set<String> queryGrams, double minSimilarity, int maxCandidates) {
+        return "%s|%d|%s|%s|%d".formatted(collection, generation(collection), new TreeSet<>(queryGrams), minSimilarity, maxCandidates);
+    }
+
+    private static Candidates live(Candidates candidates) {
+        return candidates != null && System.nanoTime() - candidates.expiresAtNanos() < 0 ? candidates : null;
+    }
+
+    private static Set<String> queryGrams(String keyword) {
+        Set<String> queryGrams = grams(keyword);
+        queryGrams.removeIf(gram -> gram.length() < GRAM_SIZE);
+        return queryGrams;
+    }
+
+    private static double minSimilarity(FilterOptions options, NgramIndexed config) {
+        return options.getNgramMinSimilarity() > 0 ? options.getNgramMinSimilarity() : config.minSimilarity();
+    }
+
+    private static List<Object> candidateIds(MongoTemplate template, String collection, Set<String> queryGrams, double minSimilarity, int maxCandidates) {
+        List<String> grams = List.copyOf(queryGrams);
+        int minShared = Math.max(1, (int) Math.ceil(Math.min(1d, minSimilarity) * grams.size()));
+
+        //@formatter:off
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document(GRAMS_FIELD, new Document("$in", grams))),
+                new Document("$project", new Document("shared", new Document("$size", new Document("$setIntersection", List.of("$" + GRAMS_FIELD, grams))))),
+                new Document("$match", new Document("shared", new Document("$gte", minShared))),
+                new Document("$sort", new Document("shared", -1)),
+                new Document("$limit", maxCandidates)
+        );
+        //@formatter:on
+
+        List<Object> ids = new ArrayList<>();
+        template.getCollection(sideCollection(collection)).aggregate(pipeline).forEach(doc -> ids.add(doc.get("_id")));
+        return ids;
+    }
+
+    // --- Write ---
+
+    public static void index(MongoTemplate template, String collection, Object rawId, Object entity) {
+        if (rawId == null || entity == null) return;
+
+        MongoCollection<Document> side = sideCollectionOf(template, collection);
+        side.replaceOne(Filters.eq("_id", rawId), sideDocument(rawId, entity, new Date()), new ReplaceOptions().upsert(true));
+        invalidateCandidates(collection);
+    }
+
+    /**
+     * @param idQuery the delete query; only deletes by {@code _id} can be mirrored, anything else is left for {@link #rebuild}
+     */
+    public static void remove(MongoTemplate template, String collection, Document idQuery) {
+        if (idQuery == null || idQuery.size() != 1 || !idQuery.containsKey("_id")) return;
+        template.getCollection(sideCollection(collection)).deleteMany(idQuery);
+        invalidateCandidates(collection);
+    }
+
+    /**
+     * Re-indexes every document of {@code type} in batches, then drops entries of documents that no longer exist.
+     * Searches keep working on the previous entries meanwhile.
+     *
+     * @return number of indexed documents
+     */
+    public static long rebuild(MongoTemplate template, Class<?> type) {
+        configOf(type);
+        String collection = template.getCollectionName(type);
+        MongoCollection<Document> side = sideCollectionOf(template, collection);
+        Date startedAt = new Date();
+        long started = System.nanoTime();
+
+        long count = 0;
+        List<WriteModel<Document>> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+        try (Stream<Document> stream = template.stream(new Query(), Document.class, collection)) {
+            for (Iterator<Document> it = stream.iterator(); it.hasNext(); ) {
+                Document raw = it.next();
+                Object entity = template.getConverter().read(type, raw);
+                Object rawId = raw.get("_id");
+
+                batch.add(new ReplaceOneModel<>(Filters.eq("_id", rawId), sideDocument(rawId, entity, startedAt), new ReplaceOptions().upsert(true)));
+                if (batch.size() == REBUILD_BATCH_SIZE) {
+                    side.bulkWrite(batch);
+                    count += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            side.bulkWrite(batch);
+            count += batch.size();
+        }
+
+        long stale = side.deleteMany(Filters.lt(INDEXED_AT_FIELD, startedAt)).getDeletedCount();
+        invalidateCandidates(collection);
+        log.info("ngram index of {} rebuilt - {} documents, {} stale entries removed in {} ms", collection, count, stale, (System.nanoTime() - started) / 1_000_000);
+        return count;
+    }
+
+    private static Document sideDocument(Object rawId, Object entity, Date indexedAt) {
+        StringBuilder text = new StringBuilder();
+        for (String[] path : fieldPaths(entity.getClass())) {
+            appendText(entity, path, 0, text);
+        }
+        return new Document("_id", rawId).append(GRAMS_FIELD, List.copyOf(grams(text.toString()))).append(INDEXED_AT_FIELD, indexedAt);
+    }
+
+    private static void appendText(Object value, String[] path, int index, StringBuilder out) {
+        if (value == null) return;
+        if (value instanceof Collection<?> items) {
+            for (Object item : items) appendText(item, path, index, out);
+            return;
+        }
+        if (index == path.length) {
+            if (value instanceof String str) out.append(str).append(' ');
+            return;
+        }
+
+        try {
+            appendText(new DirectFieldAccessor(value).getPropertyValue(path[index]), path, index + 1, out);
+        } catch (NotReadablePropertyException ignored) {
+            // subclass/element without this field
+        }
+    }
+
+    private static List<String[]> fieldPaths(Class<?> type) {
+        return FIELD_PATHS.computeIfAbsent(type, t -> {
+            String[] configured = configOf(t).fields();
+            List<String> fields = configured.length > 0
+                    ? List.of(configured)
+                    : GlobalSearchResolver.collectSearchableTextFields(t, DEFAULT_FIELD_DEPTH);
+            // map-ийн динамик түлхүүр (.*.) индекслэхгүй
+            return fields.stream().filter(f -> !f.contains("*")).map(f -> f.split("\\.")).toList();
+        });
+    }
+
+    private static MongoCollection<Document> sideCollectionOf(MongoTemplate template, String collection) {
+        String side = sideCollection(collection);
+        if (ENSURED_COLLECTIONS.add(side)) {
+            template.indexOps(side).ensureIndex(new Index().on(GRAMS_FIELD, Sort.Direction.ASC));
+        }
+        return template.getCollection(side);
+    }
+
+    private static NgramIndexed configOf(Class<?> type) {
+        NgramIndexed config = type.getAnnotation(NgramIndexed.class);
+        if (config == null) {
+            throw new FilterException("%s is not @NgramIndexed".formatted(type.getSimpleName()), type,
+                    "annotate the entity with @NgramIndexed or use another globalSearchMode");
+        }
+        return config;
+    }
+}
@@ -0,0 +1,194 @@
+package mn.astvision.filterflow.util.search;
+
+import mn.astvision.filterflow.annotations.SearchWeight;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.model.enums.GlobalSearchMode;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import mn.astvision.filterflow.util.metadata.EntityMetadataRegistry;
+import mn.astvision.filterflow.util.metadata.FieldMetadata;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relevance ranking for GLOBAL searches ({@link FilterOptions#isGlobalSearchRanked()}), computed in the pipeline.
+ * <p>
+ * Every scored string field contributes {@code weight x (3 exact | 2 prefix | 1 substring | 0)}, case-insensitive.
+ * Weights come from {@link SearchWeight} and are overridden by {@link FilterOptions#getSearchFieldWeights()}.
+ * The sum is written to {@value #SCORE_FIELD}; rows are sorted by it (the requested sort only breaks ties) and, with
+ * {@link FilterOptions#getSearchTopK()}, cut to the best K right after the sort, so the server keeps a bounded top-K
+ * instead of sorting the whole match.
+ * <p>
+ * Only string values are scored; array elements still match the filter but add nothing to the score.
+ * {@code $text} searches are already ordered by their own text score and are not re-ranked.
+ *
+ * @author zorigtbaatar
+ */
+
+public final class RelevanceScoreUtil {
+    public static final String SCORE_FIELD = "_searchScore";
+    public static final int EXACT_SCORE = 3;
+    public static final int PREFIX_SCORE = 2;
+    public static final int SUBSTRING_SCORE = 1;
+
+    private RelevanceScoreUtil() {
+    }
+
+    /**
+     * @return true if {@code group} has a GLOBAL filter that should be ranked under {@code options}
+     */
+    public static boolean isRanked(FilterGroup group, FilterOptions options, Class<?> targetType) {
+        if (options == null || !options.isGlobalSearchRanked()) return false;
+        if (findKeyword(group) == null) return false;
+        return GlobalSearchResolver.resolveMode(options, targetType) != GlobalSearchMode.TEXT;
+    }
+
+    /**
+     * Score, sort and top-K stages that replace the plain sort of a ranked search.
+     *
+     * @param sort requested sort, used as tie-breaker before {@code _id}
+     * @return empty list if the search is not ranked
+     */
+    public static List<AggregationOperation> rankStages(FilterGroup group, FilterOptions options, Class<?> targetType, Sort sort) {
+        if (!isRanked(group, options, targetType)) return List.of();
+
+        Document score = scoreExpression(findKeyword(group), fieldWeights(options, targetType));
+        Document sortObject = sortObject(sort);
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> new Document("$addFields", new Document(SCORE_FIELD, score)));
+        stages.add(context -> new Document("$sort", context.getMappedObject(sortObject)));
+        if (options.getSearchTopK() > 0) stages.add(Aggregation.limit(options.getSearchTopK()));
+        return stages;
+    }
+
+    /**
+     * {@code $add} of the weighted per-field scores; a constant 0 when no field is scored.
+     *
+     * @param weights stored field path to weight, fields with a weight of 0 or less are skipped
+     */
+    public static Document scoreExpression(String keyword, Map<String, Double> weights) {
+        String escaped = GlobalSearchResolver.escapeRegex(keyword.trim());
+
+        List<Object> terms = new ArrayList<>();
+        weights.forEach((field, weight) -> {
+            if (weight == null || weight <= 0) return;
+            terms.add(new Document("$multiply", List.of(weight, fieldScore(field, escaped))));
+        });
+
+        if (terms.isEmpty()) return new Document("$literal", 0);
+        return new Document("$add", terms);
+    }
+
+    /**
+     * Weight of every searchable string field of {@code targetType}, keyed by its stored path.
+     */
+    public static Map<String, Double> fieldWeights(FilterOptions options, Class<?> targetType) {
+        Map<String, ?> overrides = options.getSearchFieldWeights();
+
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (String field : GlobalSearchResolver.searchableStringFields(options, targetType)) {
+            Object override = overrides != null ? overrides.get(field) : null;
+            double weight = override != null ? toWeight(override) : annotatedWeight(targetType, field);
+            weights.put(mongoPath(targetType, field), weight);
+        }
+        return weights;
+    }
+
+    public static String findKeyword(FilterGroup group) {
+        if (group == null || group.getComponents() == null) return null;
+
+        for (var component : group.getComponents()) {
+            if (component instanceof FilterRequest request && FilterOperator.GLOBAL.name().equals(request.getOperator())) {
+                Object value = request.getValue();
+                if (value != null && !value.toString().isBlank()) return value.toString();
+            } else if (component instanceof FilterGroup nested) {
+                String keyword = findKeyword(nested);
+                if (keyword != null) return keyword;
+            }
+        }
+        return null;
+    }
+
+    private static Document fieldScore(String field, String escapedKeyword) {
+        // string биш (null, массив, тоо) утгыг хоосон мөр гэж үзнэ
+        Document value = new Document("$cond", List.of(new Document("$eq", List.of(new Document("$type", "$" + field), "string")), "$" + field, ""));
+
+        //@formatter:off
+        List<Document> branches = List.of(
+                branch("^" + escapedKeyword + "$", EXACT_SCORE),
+                branch("^" + escapedKeyword, PREFIX_SCORE),
+                branch(escapedKeyword, SUBSTRING_SCORE)
+        );
+        return new Document("$let", new Document("vars", new Document("v", value))
+                .append("in", new Document("$switch", new Document("branches", branches).append("default", 0))));
+        //@formatter:on
+    }
+
+    private static Document branch(String regex, int score) {
+        Document match = new Document("$regexMatch", new Document("input", "$$v").append("regex", regex).append("options", "i"));
+        return new Document("case", match).append("then", score);
+    }
+
+    private static Document sortObject(Sort sort) {
+        Document sortObject = new Document(SCORE_FIELD, -1);
+        if (sort != null) {
+            for (Sort.Order order : sort) {
+                sortObject.putIfAbsent(order.getProperty(), order.isAscending() ? 1 : -1);
+            }
+        }
+        sortObject.putIfAbsent("_id", 1);
+        return sortObject;
+    }
+
+    private static double annotatedWeight(Class<?> type, String path) {
+        FieldMetadata field = resolve(type, path);
+        if (field == null) return 1;
+        SearchWeight weight = field.field().getAnnotation(SearchWeight.class);
+        return weight != null ? weight.value() : 1;
+    }
+
+    private static String mongoPath(Class<?> type, String path) {
+        StringBuilder mongoPath = new StringBuilder();
+        Class<?> current = type;
+        for (String segment : path.split("\\.")) {
+            FieldMetadata field = current != null ? EntityMetadataRegistry.of(current).field(segment) : null;
+            if (!mongoPath.isEmpty()) mongoPath.append('.');
+            mongoPath.append(field != null ? field.mongoName() : segment);
+            current = field != null ? field.elementType() : null;
+        }
+        return mongoPath.toString();
+    }
+
+    // nested талбарыг элемент төрлөөр нь дагаж олно
+    private static FieldMetadata resolve(Class<?> type, String path) {
+        FieldMetadata field = null;
+        Class<?> current = type;
+        for (String segment : path.split("\\.")) {
+            if (current == null) return null;
+            field = EntityMetadataRegistry.of(current).field(segment);
+            if (field == null) return null;
+            current = field.elementType();
+        }
+        return field;
+    }
+
+    private static double toWeight(Object raw) {
+        if (raw instanceof Number number) return number.doubleValue();
+        try {
+            return Double.parseDouble(raw.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new FilterException("Invalid search field weight: '%s'".formatted(raw), e);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package mn.astvision.filterflow.util.search;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import lombok.extern.slf4j.Slf4j;
+import mn.astvision.filterflow.annotations.IgnoreCaseIndexed;
+import mn.astvision.filterflow.annotations.SearchKey;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.util.PatternCacheUtil;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import mn.astvision.filterflow.util.metadata.EntityMetadataRegistry;
+import mn.astvision.filterflow.util.metadata.FieldMetadata;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.annotation.Annotation;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Normalized search keys of {@link SearchKey} fields, kept on the document itself:
+ * {@code _searchKeys.<field>} holds the whole keys, {@code _searchKeyWords.<field>} the keys from each word start on.
+ * <p>
+ * A key is lower-cased, Mongolian Cyrillic is transliterated to Latin and diacritics are folded; anything that is not
+ * a letter or digit becomes a single space. Each value is stored in its digraph spellings too (kh/h, ts/c, zh/j, see
+ * {@link #keys(String)}), so queries only normalize their value and match with a case-sensitive anchored regex, which
+ * MongoDB answers from the multikey index range instead of a collection scan.
+ * <p>
+ * {@link IgnoreCaseIndexed} fields get a plain lower-cased copy under {@code _lower.<field>}, used by
+ * {@link IgnoreCaseUtil} for case-insensitive equality and prefix matches.
+ *
+ * @author zorigtbaatar
+ */
+
+@Slf4j
+public final class SearchKeyUtil {
+    public static final String KEY_FIELD = "_searchKeys";
+    public static final String WORDS_FIELD = "_searchKeyWords";
+    public static final String LOWER_FIELD = "_lower";
+    public static final int MAX_KEY_LENGTH = 256;
+    public static final int MAX_WORD_KEY_LENGTH = 64;
+    public static final int MAX_WORDS = 32;
+    private static final int BACKFILL_BATCH_SIZE = 1_000;
+
+    private static final Map<Character, String> CYRILLIC = new HashMap<>();
+
+    static {
+        String[][] table = {
+                {"а", "a"}, {"б", "b"}, {"в", "v"}, {"г", "g"}, {"д", "d"}, {"е", "e"}, {"ё", "yo"}, {"ж", "j"},
+                {"з", "z"}, {"и", "i"}, {"й", "i"}, {"к", "k"}, {"л", "l"}, {"м", "m"}, {"н", "n"}, {"о", "o"},
+                {"ө", "o"}, {"п", "p"}, {"р", "r"}, {"с", "s"}, {"т", "t"}, {"у", "u"}, {"ү", "u"}, {"ф", "f"},
+                {"х", "h"}, {"ц", "c"}, {"ч", "ch"}, {"ш", "sh"}, {"щ", "sh"}, {"ъ", ""}, {"ы", "i"}, {"ь", ""},
+                {"э", "e"}, {"ю", "yu"}, {"я", "ya"}
+        };
+        for (String[] pair : table) CYRILLIC.put(pair[0].charAt(0), pair[1]);
+    }
+
+    // латин бичлэгт ихэвчлэн хоёр үсгээр бичигддэг үсгүүд
+    private static final Map<Character, String> DIGRAPHS = Map.of('х', "kh", 'ц', "ts", 'ж', "zh");
+
+    private static final ClassValue<Map<String, String>> KEYED_FIELDS = annotatedFields(SearchKey.class);
+    private static final ClassValue<Map<String, String>> LOWER_FIELDS = annotatedFields(IgnoreCaseIndexed.class);
+
+    private SearchKeyUtil() {
+    }
+
+    public static boolean isKeyed(Class<?> type) {
+        return !KEYED_FIELDS.get(type).isEmpty() || !LOWER_FIELDS.get(type).isEmpty();
+    }
+
+    /**
+     * @return stored name of {@code field} if it is a {@link SearchKey} field of {@code type}, otherwise null
+     */
+    public static String keyName(Class<?> type, String field) {
+        return field != null ? KEYED_FIELDS.get(type).get(field) : null;
+    }
+
+    /**
+     * @return path of the lower-cased copy of {@code field} if it is an {@link IgnoreCaseIndexed} field of {@code type},
+     * otherwise null
+     */
+    public static String lowerName(Class<?> type, String field) {
+        String mongoName = field != null ? LOWER_FIELDS.get(type).get(field) : null;
+        return mongoName != null ? LOWER_FIELD + "." + mongoName : null;
+    }
+
+    /**
+     * Query form of {@code text}: lower-cased, Cyrillic transliterated letter by letter, diacritics folded. Digraphs
+     * are never collapsed here, a prefix cut in the middle of one ("Bat" of "Batsukh") still matches.
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : fold(transliterate(text.toLowerCase(Locale.ROOT), false, false));
+    }
+
+    /**
+     * Stored forms of {@code text}, any of which a query prefix may match: the {@link #normalize(String)} form, the
+     * form with Latin kh/ts/zh written as h/c/j (matches a Cyrillic query of a Latin value) and the form with Cyrillic
+     * х/ц/ж written as kh/ts/zh (matches a digraph Latin query of a Cyrillic value). Only letters typed in Latin are
+     * collapsed, so Cyrillic "тс" stays "ts".
+     */
+    public static List<String> keys(String text) {
+        if (text == null) return List.of();
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        Set<String> keys = new LinkedHashSet<>();
+        for (String key : List.of(fold(transliterate(lower, false, false)), fold(transliterate(lower, true, false)),
+                fold(transliterate(lower, false, true)))) {
+            if (!key.isEmpty()) keys.add(key);
+        }
+        return List.copyOf(keys);
+    }
+
+    private static String transliterate(String lower, boolean collapseLatin, boolean expandCyrillic) {
+        StringBuilder out = new StringBuilder(lower.length() + 8);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            char next = i + 1 < lower.length() ? lower.charAt(i + 1) : 0;
+            if (collapseLatin && (next == 'h' && (c == 'k' || c == 'z') || c == 't' && next == 's')) {
+                out.append(c == 'k' ? 'h' : c == 'z' ? 'j' : 'c');
+                i++;
+                continue;
+            }
+            String latin = expandCyrillic ? DIGRAPHS.get(c) : null;
+            if (latin == null) latin = CYRILLIC.get(c);
+            if (latin != null) out.append(latin);
+            else out.append(c);
+        }
+        return out.toString();
+    }
+
+    private static String fold(String transliterated) {
+        String folded = Normalizer.normalize(transliterated, Normalizer.Form.NFD);
+        StringBuilder key = new StringBuilder(folded.length());
+        boolean space = true;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                key.append(c);
+                space = false;
+            } else if (!space) {
+                key.append(' ');
+                space = true;
+            }
+        }
+        int end = key.length();
+        if (end > 0 && key.charAt(end - 1) == ' ') key.setLength(end - 1);
+        return key.toString();
+    }
+
+    /**
+     * Suffixes of {@code key} starting at each word, cut to {@value #MAX_WORD_KEY_LENGTH} characters.
+     */
+    public static List<String> words(String key) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < key.length() && words.size() < MAX_WORDS; i++) {
+            if (i == 0 || key.charAt(i - 1) == ' ') words.add(truncate(key.substring(i), MAX_WORD_KEY_LENGTH));
+        }
+        return words;
+    }
+
+    /**
+     * Writes the keys of {@code type}'s {@link SearchKey} fields and the lower-cased copies of its
+     * {@link IgnoreCaseIndexed} fields into the stored {@code document}.
+     */
+    public static void apply(Class<?> type, Document document) {
+        Map<String, String> fields = KEYED_FIELDS.get(type);
+        if (!fields.isEmpty()) {
+            Document keys = new Document();
+            Document words = new Document();
+            for (String mongoName : fields.values()) {
+                List<String> forms = document.get(mongoName) instanceof String str ? keys(str) : List.of();
+                if (forms.isEmpty()) continue;
+
+                Set<String> wordKeys = new LinkedHashSet<>();
+                forms.forEach(form -> wordKeys.addAll(words(form)));
+                keys.put(mongoName, forms.stream().map(form -> truncate(form, MAX_KEY_LENGTH)).distinct().toList());
+                words.put(mongoName, List.copyOf(wordKeys));
+            }
+            document.put(KEY_FIELD, keys);
+            document.put(WORDS_FIELD, words);
+        }
+
+        Map<String, String> lowerFields = LOWER_FIELDS.get(type);
+        if (!lowerFields.isEmpty()) {
+            Document lower = new Document();
+            for (String mongoName : lowerFields.values()) {
+                if (document.get(mongoName) instanceof String str) lower.put(mongoName, str.toLowerCase(Locale.ROOT));
+            }
+            document.put(LOWER_FIELD, lower);
+        }
+    }
+
+    /**
+     * Index-backed criteria for {@code STARTS_WITH} and {@code LIKE "abc*"} on a keyed field: both match the key
+     * prefix. Contains shapes ({@code LIKE "abc"}, {@code LIKE "*abc*"}) stay on the regex of the raw field, since a
+     * word prefix would miss matches inside a word.
+     *
+     * @return null when the value cannot be answered from the key (other wildcards, nothing left after normalizing)
+     */
+    public static Criteria keyCriteria(String operator, String keyName, Object value) {
+        if (keyName == null || value == null) return null;
+        String raw = value.toString();
+
+        if (FilterOperator.STARTS_WITH.name().equals(operator)) {
+            return prefix(KEY_FIELD + "." + keyName, normalize(raw), MAX_KEY_LENGTH);
+        }
+        if (!FilterOperator.LIKE.name().equals(operator) || raw.indexOf('?') >= 0 || raw.indexOf('\\') >= 0) return null;
+        if (raw.startsWith("*") || !raw.endsWith("*")) return null;
+
+        String literal = raw.substring(0, raw.length() - 1);
+        if (literal.indexOf('*') >= 0) return null;
+        return prefix(KEY_FIELD + "." + keyName, normalize(literal), MAX_KEY_LENGTH);
+    }
+
+    /**
+     * GLOBAL conditions for the keyed fields among {@code fields}: one word-prefix match per field.
+     *
+     * @return empty if none of {@code fields} is keyed or the keyword normalizes to nothing
+     */
+    public static Map<String, Criteria> globalConditions(Class<?> type, List<String> fields, String keyword) {
+        Map<String, String> keyed = KEYED_FIELDS.get(type);
+        String key = normalize(keyword);
+        if (keyed.isEmpty() || key.isEmpty()) return Map.of();
+
+        Map<String, Criteria> conditions = new LinkedHashMap<>();
+        for (String field : fields) {
+            String keyName = keyed.get(field);
+            if (keyName != null) conditions.put(field, prefix(WORDS_FIELD + "." + keyName, key, MAX_WORD_KEY_LENGTH));
+        }
+        return conditions;
+    }
+
+    /**
+     * Recomputes the keys of every document of {@code type} and makes sure the key indexes exist.
+     * Run it once after annotating a field and after writes that bypass the save events.
+     *
+     * @return number of documents updated
+     */
+    public static long backfill(MongoTemplate template, Class<?> type) {
+        if (!isKeyed(type)) return 0;
+
+        String collectionName = template.getCollectionName(type);
+        ensureIndexes(template, type);
+        MongoCollection<Document> collection = template.getCollection(collectionName);
+        long started = System.nanoTime();
+
+        Query query = new Query();
+        KEYED_FIELDS.get(type).values().forEach(field -> query.fields().include(field));
+        LOWER_FIELDS.get(type).values().forEach(field -> query.fields().include(field));
+
+        long count = 0;
+        List<WriteModel<Document>> batch = new ArrayList<>(BACKFILL_BATCH_SIZE);
+        try (Stream<Document> stream = template.stream(query, Document.class, collectionName)) {
+            for (Iterator<Document> it = stream.iterator(); it.hasNext(); ) {
+                Document raw = it.next();
+                apply(type, raw);
+                Document set = new Document();
+                for (String field : List.of(KEY_FIELD, WORDS_FIELD, LOWER_FIELD)) {
+                    if (raw.containsKey(field)) set.put(field, raw.get(field));
+                }
+                batch.add(new UpdateOneModel<>(Filters.eq("_id", raw.get("_id")), new Document("$set", set)));
+
+                if (batch.size() == BACKFILL_BATCH_SIZE) {
+                    collection.bulkWrite(batch);
+                    count += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.bulkWrite(batch);
+            count += batch.size();
+        }
+
+        log.info("search keys of {} backfilled - {} documents in {} ms", collectionName, count, (System.nanoTime() - started) / 1_000_000);
+        return count;
+    }
+
+    public static void ensureIndexes(MongoTemplate template, Class<?> type) {
+        String collection = template.getCollectionName(type);
+        for (String keyName : KEYED_FIELDS.get(type).values()) {
+            template.indexOps(collection).ensureIndex(new Index().on(KEY_FIELD + "." + keyName, Sort.Direction.ASC));
+            template.indexOps(collection).ensureIndex(new Index().on(WORDS_FIELD + "." + keyName, Sort.Direction.ASC));
+        }
+        for (String mongoName : LOWER_FIELDS.get(type).values()) {
+            template.indexOps(collection).ensureIndex(new Index().on(LOWER_FIELD + "." + mongoName, Sort.Direction.ASC));
+        }
+    }
+
+    // case-sensitive on purpose, see GlobalSearchResolver PREFIX
+    private static Criteria prefix(String path, String key, int maxLength) {
+        if (key.isEmpty()) return null;
+        return Criteria.where(path).regex(PatternCacheUtil.get("^" + GlobalSearchResolver.escapeRegex(truncate(key, maxLength))));
+    }
+
+    // java нэр -> хадгалагдах нэр, зарлагдсан дарааллаар
+    private static ClassValue<Map<String, String>> annotatedFields(Class<? extends Annotation> annotation) {
+        return new ClassValue<>() {
+            @Override
+            protected Map<String, String> computeValue(Class<?> type) {
+                Map<String, String> fields = new LinkedHashMap<>();
+                for (FieldMetadata field : EntityMetadataRegistry.of(type).fields()) {
+                    if (field.rawType() == String.class && field.isFilterable() && field.field().isAnnotationPresent(annotation)) {
+                        fields.put(field.name(), field.mongoName());
+                    }
+                }
+                return Collections.unmodifiableMap(fields);
+            }
+        };
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,115 @@
+package mn.astvision.filterflow.util.sketch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mergeable quantile sketch in the style of KLL: a stack of compactors, each holding at most {@code k} values.
+ * A full compactor sorts itself and promotes every other value to the next level, where each value stands for
+ * twice as many inputs. Memory grows with {@code k * log2(n / k)}; the rank error stays around 1% at the
+ * default {@code k} of 200. Sketches with the same {@code k} merge, so partial scans can be combined.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author zorigtbaatar
+ */
+
+public final class QuantileSketch {
+    public static final int DEFAULT_K = 200;
+
+    private final int k;
+    private final List<double[]> levels = new ArrayList<>();
+    private final List<Integer> sizes = new ArrayList<>();
+    private long count;
+    private boolean oddOffset;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        if (k < 8 || k % 2 != 0) throw new IllegalArgumentException("k must be an even number of at least 8");
+        this.k = k;
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        count++;
+        push(0, value);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @param q rank between 0 and 1, e.g. 0.5 for the median
+     * @return NaN if nothing was added
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("quantile must be between 0 and 1");
+
+        int total = 0;
+        for (int size : sizes) total += size;
+        if (total == 0) return Double.NaN;
+
+        double[] values = new double[total];
+        long[] weights = new long[total];
+        int n = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            double[] items = levels.get(level);
+            for (int i = 0; i < sizes.get(level); i++) {
+                values[n] = items[i];
+                weights[n++] = 1L << level;
+            }
+        }
+
+        Integer[] order = new Integer[total];
+        for (int i = 0; i < total; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        long totalWeight = 0;
+        for (long weight : weights) totalWeight += weight;
+
+        double target = q * totalWeight;
+        long cumulative = 0;
+        for (int index : order) {
+            cumulative += weights[index];
+            if (cumulative >= target) return values[index];
+        }
+        return values[order[total - 1]];
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.k != k) throw new IllegalArgumentException("Cannot merge quantile sketches with different k");
+        for (int level = 0; level < other.levels.size(); level++) {
+            double[] items = other.levels.get(level);
+            for (int i = 0; i < other.sizes.get(level); i++) push(level, items[i]);
+        }
+        count += other.count;
+        return this;
+    }
+
+    private void push(int level, double value) {
+        while (levels.size() <= level) {
+            levels.add(new double[k]);
+            sizes.add(0);
+        }
+        int size = sizes.get(level);
+        levels.get(level)[size] = value;
+        sizes.set(level, size + 1);
+        if (size + 1 == k) compact(level);
+    }
+
+    private void compact(int level) {
+        double[] items = levels.get(level).clone();
+        Arrays.sort(items);
+        sizes.set(level, 0);
+
+        // сондгой/тэгш байрлалыг ээлжлэн авснаар системтэй хазайлт үүсэхгүй
+        int offset = oddOffset ? 1 : 0;
+        oddOffset = !oddOffset;
+        for (int i = offset; i < k; i += 2) push(level + 1, items[i]);
+    }
+}
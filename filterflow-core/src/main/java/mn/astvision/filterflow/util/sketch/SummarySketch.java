@@ -0,0 +1,46 @@
+package mn.astvision.filterflow.util.sketch;
+
+/**
+ * Approximate summary of one field: value count, HyperLogLog distinct count and a quantile sketch of its numeric
+ * values. Fed by streaming only that field, and mergeable across partial scans of the same field.
+ *
+ * @author zorigtbaatar
+ */
+
+public final class SummarySketch {
+    private final HyperLogLog distinct = new HyperLogLog();
+    private final QuantileSketch quantiles = new QuantileSketch();
+    private long count;
+
+    /**
+     * Null (and missing) values are skipped, like MongoDB's {@code $percentile} and our exact {@code COUNT}.
+     */
+    public void add(Object value) {
+        if (value == null) return;
+        count++;
+        distinct.add(value);
+        if (value instanceof Number number) quantiles.add(number.doubleValue());
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long distinctCount() {
+        return distinct.estimate();
+    }
+
+    /**
+     * @return NaN if the field had no numeric value
+     */
+    public double quantile(double q) {
+        return quantiles.quantile(q);
+    }
+
+    public SummarySketch merge(SummarySketch other) {
+        distinct.merge(other.distinct);
+        quantiles.merge(other.quantiles);
+        count += other.count;
+        return this;
+    }
+}
@@ -0,0 +1,71 @@
+package mn.astvision.filterflow.builders;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.BatchKey;
+import mn.astvision.filterflow.model.BatchResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class BatchQueryBuilderTest {
+
+    @Test
+    void respectsConcurrencyCap() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        BatchQueryBuilder batch = new BatchQueryBuilder(null).maxConcurrency(2);
+        for (int i = 0; i < 6; i++) {
+            batch.query(BatchKey.<Integer>of("q" + i), () -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(50);
+                running.decrementAndGet();
+                return 1;
+            });
+        }
+
+        BatchResult result = batch.execute();
+        assertTrue(result.allSucceeded());
+        assertEquals(2, peak.get());
+    }
+
+    @Test
+    void deadlineFailsOnlyTheSlowQuery() {
+        BatchKey<String> fast = BatchKey.of("fast");
+        BatchKey<String> slow = BatchKey.of("slow");
+
+        //@formatter:off
+        BatchResult result = new BatchQueryBuilder(null)
+                .deadline(Duration.ofMillis(200))
+                .query(fast, () -> "done")
+                .query(slow, () -> { sleep(5_000); return "late"; })
+                .execute();
+        //@formatter:on
+
+        assertEquals("done", result.get(fast));
+        assertFalse(result.isSuccess(slow));
+        assertThrows(FilterException.class, () -> result.get(slow));
+        assertTrue(result.getElapsed().toMillis() < 5_000);
+    }
+
+    @Test
+    void rejectsDuplicateKeys() {
+        BatchQueryBuilder batch = new BatchQueryBuilder(null).query(BatchKey.of("a"), () -> 1);
+        assertThrows(FilterException.class, () -> batch.query(BatchKey.of("a"), () -> 2));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package mn.astvision.filterflow.builders.base;
+
+import mn.astvision.filterflow.component.executors.FilterExecutor;
+import mn.astvision.filterflow.component.executors.SummaryExecutor.AggregateOp;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.PageWithSummary;
+import mn.astvision.filterflow.support.OperatorHandlers;
+import mn.astvision.filterflow.support.RecordingMongoTemplate;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class BaseFilterFlowBuilderTest {
+
+    @org.springframework.data.mongodb.core.mapping.Document("orders")
+    static class Order {
+        String id;
+        String status;
+        BigDecimal amount;
+        Integer quantity;
+    }
+
+    @BeforeAll
+    static void registerHandlers() {
+        OperatorHandlers.registerDefaults();
+    }
+
+    static DefaultFilterFlowBuilder<Order> flow(RecordingMongoTemplate template) {
+        //@formatter:off
+        return new DefaultFilterFlowBuilder<>(FilterExecutor.forType(Order.class).withMongoTemplate(template))
+                .withFilter(FilterGroup.createFromFR(new ArrayList<>(List.of(FilterRequest.createEq("status", "NEW")))))
+                .withPage(PageRequest.of(1, 2, Sort.by("status")))
+                .withSummary("amount", AggregateOp.SUM)
+                .withSummary("amount", AggregateOp.AVG)
+                .withSummary("quantity", AggregateOp.MAX);
+        //@formatter:on
+    }
+
+    @Test
+    void pageTotalAndEverySummaryComeFromOneFacet() {
+        RecordingMongoTemplate template = new RecordingMongoTemplate();
+
+        flow(template).executeWithSummary();
+
+        assertEquals(1, template.getAggregations().size());
+        List<Document> pipeline = template.lastAggregation().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(List.of("$match", "$facet"), pipeline.stream().map(stage -> stage.keySet().iterator().next()).toList());
+
+        Document facet = pipeline.get(1).get("$facet", Document.class);
+        assertEquals(List.of("content", "total", "summary"), List.copyOf(facet.keySet()));
+        assertEquals(List.of(new Document("$sort", new Document("status", 1)), new Document("$skip", 2L), new Document("$limit", 2L)),
+                facet.getList("content", Document.class));
+
+        Document group = facet.getList("summary", Document.class).getFirst().get("$group", Document.class);
+        assertNull(group.get("_id"));
+        assertEquals(new Document("$sum", "$amount"), group.get("amount_sum"));
+        assertEquals(new Document("$avg", "$amount"), group.get("amount_avg"));
+        assertEquals(new Document("$max", "$quantity"), group.get("quantity_max"));
+    }
+
+    @Test
+    void facetResultIsUnpackedIntoPageWithSummary() {
+        //@formatter:off
+        RecordingMongoTemplate template = new RecordingMongoTemplate().returning(new Document()
+                .append("content", List.of(
+                        new Document("_id", "c").append("status", "NEW").append("amount", 30),
+                        new Document("_id", "d").append("status", "NEW").append("amount", 40)))
+                .append("total", List.of(new Document("aggregateTotalCount", 7)))
+                .append("summary", List.of(new Document("_id", null)
+                        .append("amount_sum", 175).append("amount_avg", 25).append("quantity_max", 9))));
+        //@formatter:on
+        List<String> applied = new ArrayList<>();
+
+        PageWithSummary<Order> page = flow(template).apply(order -> applied.add(order.id)).executeWithSummary();
+
+        assertEquals(List.of("c", "d"), page.getContent().stream().map(order -> order.id).toList());
+        assertEquals(List.of("c", "d"), applied);
+        assertEquals(7, page.getTotalElements());
+        assertEquals(4, page.getTotalPages());
+        assertEquals(1, page.getNumber());
+
+        assertEquals(0, new BigDecimal(175).compareTo(page.summary("amount", AggregateOp.SUM)));
+        assertEquals(0, new BigDecimal(25).compareTo(page.summary("amount", AggregateOp.AVG)));
+        assertEquals(0, new BigDecimal(9).compareTo(page.summary("quantity", AggregateOp.MAX)));
+        assertEquals(BigDecimal.ZERO, page.summary("quantity", AggregateOp.MIN));
+    }
+
+    @Test
+    void emptyFacetResultIsAnEmptyPageWithZeroSummaries() {
+        PageWithSummary<Order> page = flow(new RecordingMongoTemplate()).executeWithSummary();
+
+        assertTrue(page.getContent().isEmpty());
+        assertEquals(0, page.getTotalElements());
+        assertEquals(0, BigDecimal.ZERO.compareTo(page.summary("amount", AggregateOp.SUM)));
+    }
+}
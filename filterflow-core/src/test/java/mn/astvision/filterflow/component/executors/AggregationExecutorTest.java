@@ -0,0 +1,177 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.annotations.VirtualField;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.SeekToken;
+import mn.astvision.filterflow.model.enums.CountStrategy;
+import mn.astvision.filterflow.support.OfflineDatabaseFactory;
+import mn.astvision.filterflow.support.OperatorHandlers;
+import mn.astvision.filterflow.support.RecordingMongoTemplate;
+import mn.astvision.filterflow.util.SeekPaginationUtil;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class AggregationExecutorTest {
+    private static final AggregationOperation OWNER_LOOKUP = Aggregation.lookup("users", "ownerId", "_id", "ownerName");
+
+    @org.springframework.data.mongodb.core.mapping.Document("orders")
+    static class Order {
+        String id;
+        String status;
+        String ownerId;
+        @VirtualField(fromCollection = "users", localField = "ownerId", projectField = "name")
+        String ownerName;
+    }
+
+    @BeforeAll
+    static void registerHandlers() {
+        OperatorHandlers.registerDefaults();
+    }
+
+    static AggregationExecutor<Order> executor(FilterOptions options) {
+        return executor(OfflineDatabaseFactory.template(), options);
+    }
+
+    static AggregationExecutor<Order> executor(MongoTemplate template, FilterOptions options) {
+        //@formatter:off
+        return AggregationExecutor.forType(Order.class)
+                .withMongoTemplate(template)
+                .filterOptions(options)
+                .virtualFieldOperations(List.of(OWNER_LOOKUP))
+                .build();
+        //@formatter:on
+    }
+
+    static List<String> stageNames(List<AggregationOperation> pipeline) {
+        return pipeline.stream()
+                .flatMap(op -> op.toPipelineStages(Aggregation.DEFAULT_CONTEXT).stream())
+                .map(stage -> stage.keySet().iterator().next())
+                .toList();
+    }
+
+    static List<String> stageNames(Aggregation aggregation) {
+        return aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).stream()
+                .map(stage -> stage.keySet().iterator().next())
+                .toList();
+    }
+
+    static FilterOptions uncounted() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setSkipCount(true);
+        return options;
+    }
+
+    static List<String> executedPage(FilterOptions options, FilterGroup filters, Sort sort) {
+        RecordingMongoTemplate template = new RecordingMongoTemplate();
+        executor(template, options).executePage(filters, List.of(), List.of(), PageRequest.of(1, 10, sort));
+        return stageNames(template.lastAggregation());
+    }
+
+    static FilterGroup statusFilter() {
+        return FilterGroup.createFromFR(List.of(FilterRequest.createEq("status", "NEW")));
+    }
+
+    @Test
+    void sliceOnStoredKeysLooksUpOnlyTheSliceRows() {
+        FilterGroup filters = FilterGroup.createFromFR(List.of(FilterRequest.createEq("status", "NEW")));
+        Sort seekSort = SeekPaginationUtil.normalizeSort(Sort.by("status"));
+        SeekToken after = SeekPaginationUtil.tokenOf(new Document("_id", "a").append("status", "NEW"), seekSort, Order.class,
+                OfflineDatabaseFactory.template().getConverter());
+
+        List<AggregationOperation> pipeline = executor(FilterOptions.defaults()).slicePipeline(filters, List.of(), List.of(), seekSort, after, 20);
+
+        assertEquals(List.of("$match", "$match", "$sort", "$limit", "$lookup"), stageNames(pipeline));
+    }
+
+    @Test
+    void sliceOnVirtualKeysLooksUpBeforeTheSeek() {
+        Sort seekSort = SeekPaginationUtil.normalizeSort(Sort.by("ownerName"));
+
+        List<AggregationOperation> pipeline = executor(FilterOptions.defaults()).slicePipeline(null, List.of(), List.of(), seekSort, null, 20);
+
+        assertEquals(List.of("$lookup", "$sort", "$limit"), stageNames(pipeline));
+    }
+
+    @Test
+    void unsortedTextSearchFacetIsOrderedByScore() {
+        PageRequest unsorted = PageRequest.of(1, 10);
+        Document facet = AggregationExecutor.pageFacet(unsorted, AggregationExecutor.facetContentSort(unsorted.getSort(), true), List.of())
+                .toDocument(Aggregation.DEFAULT_CONTEXT);
+
+        List<?> content = facet.get("$facet", Document.class).getList("content", Object.class);
+        assertEquals(new Document("$sort", GlobalSearchResolver.textScoreSortObject()), content.get(0));
+        assertEquals(new Document("$skip", 10L), content.get(1));
+
+        assertNull(AggregationExecutor.facetContentSort(Sort.unsorted(), false));
+        PageRequest sorted = PageRequest.of(0, 10, Sort.by("name"));
+        assertEquals(Aggregation.sort(sorted.getSort()).toDocument(Aggregation.DEFAULT_CONTEXT),
+                AggregationExecutor.facetContentSort(sorted.getSort(), true).toDocument(Aggregation.DEFAULT_CONTEXT));
+    }
+
+    @Test
+    void pageOnStoredSortAndFilterLooksUpAfterTheLimit() {
+        assertEquals(List.of("$match", "$sort", "$skip", "$limit", "$lookup"), executedPage(uncounted(), statusFilter(), Sort.by("status")));
+        assertTrue(AggregationExecutor.canMaterializeLate(uncounted(), Order.class, statusFilter(), List.of(), List.of(OWNER_LOOKUP), Sort.by("status")));
+    }
+
+    @Test
+    void pageSortedByVirtualFieldLooksUpFirst() {
+        assertEquals(List.of("$match", "$lookup", "$sort", "$skip", "$limit"), executedPage(uncounted(), statusFilter(), Sort.by("ownerName")));
+        assertFalse(AggregationExecutor.canMaterializeLate(uncounted(), Order.class, statusFilter(), List.of(), List.of(OWNER_LOOKUP), Sort.by("ownerName")));
+    }
+
+    @Test
+    void pageFilteredByVirtualFieldLooksUpBeforeTheMatch() {
+        FilterGroup filters = FilterGroup.createFromFR(List.of(FilterRequest.createEq("ownerName", "Bat")));
+
+        assertEquals(List.of("$lookup", "$match", "$sort", "$skip", "$limit"), executedPage(uncounted(), filters, Sort.by("status")));
+        assertFalse(AggregationExecutor.canMaterializeLate(uncounted(), Order.class, filters, List.of(), List.of(OWNER_LOOKUP), Sort.by("status")));
+    }
+
+    @Test
+    void lateMaterializationCanBeTurnedOff() {
+        FilterOptions options = uncounted();
+        options.setLateMaterializationEnabled(false);
+
+        assertEquals(List.of("$match", "$lookup", "$sort", "$skip", "$limit"), executedPage(options, statusFilter(), Sort.by("status")));
+    }
+
+    @Test
+    void customOperationsKeepTheirPosition() {
+        List<AggregationOperation> ops = List.of(Aggregation.match(Criteria.where("status").is("NEW")));
+
+        assertFalse(AggregationExecutor.canMaterializeLate(uncounted(), Order.class, null, ops, List.of(OWNER_LOOKUP), Sort.by("status")));
+        assertFalse(AggregationExecutor.canMaterializeLate(uncounted(), Order.class, null, List.of(), List.of(), Sort.by("status")));
+    }
+
+    @Test
+    void facetPageLooksUpInsideTheContentBranch() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setCountStrategy(CountStrategy.FACET);
+        RecordingMongoTemplate template = new RecordingMongoTemplate();
+
+        executor(template, options).executePage(statusFilter(), List.of(), List.of(), PageRequest.of(1, 10, Sort.by("status")));
+
+        List<Document> pipeline = template.lastAggregation().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(List.of("$match", "$facet"), stageNames(template.lastAggregation()));
+        List<Document> content = pipeline.get(1).get("$facet", Document.class).getList("content", Document.class);
+        assertEquals(List.of("$sort", "$skip", "$limit", "$lookup"), content.stream().map(stage -> stage.keySet().iterator().next()).toList());
+    }
+}
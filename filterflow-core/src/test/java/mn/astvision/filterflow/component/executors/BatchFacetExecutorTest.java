@@ -0,0 +1,45 @@
+package mn.astvision.filterflow.component.executors;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class BatchFacetExecutorTest {
+
+    @Test
+    void leadingMatchSelectsTheUnionOfBranchFilters() {
+        List<Criteria> criteria = List.of(Criteria.where("status").is("OPEN"), Criteria.where("ownerId").is("u1"));
+        List<List<AggregationOperation>> stages = List.of(List.of(Aggregation.count().as("count")), List.of(Aggregation.limit(1)));
+
+        List<Document> pipeline = BatchFacetExecutor.buildAggregation(criteria, stages).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(2, pipeline.size());
+
+        Document match = pipeline.getFirst().get("$match", Document.class);
+        assertNotNull(match, pipeline.toString());
+        assertEquals(List.of(new Document("status", "OPEN"), new Document("ownerId", "u1")), match.get("$or"));
+
+        // branch бүр өөрийн шүүлтүүрээ хадгална
+        Document facet = pipeline.get(1).get("$facet", Document.class);
+        assertEquals(new Document("$match", new Document("status", "OPEN")), facet.getList("q0", Document.class).getFirst());
+        assertEquals(new Document("$match", new Document("ownerId", "u1")), facet.getList("q1", Document.class).getFirst());
+    }
+
+    @Test
+    void unfilteredBranchSkipsTheLeadingMatch() {
+        List<Criteria> criteria = List.of(new Criteria(), Criteria.where("status").is("OPEN"));
+        List<List<AggregationOperation>> stages = List.of(List.of(Aggregation.count().as("count")), List.of(Aggregation.count().as("count")));
+
+        List<Document> pipeline = BatchFacetExecutor.buildAggregation(criteria, stages).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(1, pipeline.size());
+        assertTrue(pipeline.getFirst().containsKey("$facet"));
+    }
+}
@@ -0,0 +1,82 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.enums.GlobalSearchMode;
+import mn.astvision.filterflow.support.OfflineDatabaseFactory;
+import mn.astvision.filterflow.util.search.RelevanceScoreUtil;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class CrossSearchExecutorTest {
+
+    @org.springframework.data.mongodb.core.mapping.Document("articles")
+    static class Article {
+        String id;
+        String title;
+    }
+
+    @org.springframework.data.mongodb.core.mapping.Document("authors")
+    static class Author {
+        String id;
+        String name;
+    }
+
+    private final CrossSearchExecutor executor = CrossSearchExecutor.create(OfflineDatabaseFactory.template());
+
+    @Test
+    void sourcesAreJoinedWithUnionWithThenSortedByScore() {
+        List<CrossSearchExecutor.Source> sources = List.of(
+                new CrossSearchExecutor.Source(Article.class, "article", 0),
+                new CrossSearchExecutor.Source(Author.class, "author", 5));
+
+        List<Document> pipeline = executor.buildPipeline("bat", sources, FilterOptions.defaults(), 10);
+
+        assertEquals(List.of("$match", "$addFields", "$unionWith", "$sort", "$limit"), pipeline.stream().map(stage -> stage.keySet().iterator().next()).toList());
+        assertTrue(pipeline.get(0).get("$match", Document.class).containsKey("$or"));
+        assertEquals(new Document("$literal", "article"), pipeline.get(1).get("$addFields", Document.class).get(CrossSearchExecutor.TYPE_FIELD));
+
+        Document union = pipeline.get(2).get("$unionWith", Document.class);
+        assertEquals("authors", union.getString("coll"));
+        List<?> sub = (List<?>) union.get("pipeline");
+        assertEquals(4, sub.size());
+        assertEquals(new Document("$literal", "author"), ((Document) sub.get(1)).get("$addFields", Document.class).get(CrossSearchExecutor.TYPE_FIELD));
+        assertEquals(new Document(RelevanceScoreUtil.SCORE_FIELD, -1).append("_id", 1), ((Document) sub.get(2)).get("$sort"));
+        assertEquals(5, ((Document) sub.get(3)).get("$limit"));
+
+        assertEquals(new Document(RelevanceScoreUtil.SCORE_FIELD, -1).append(CrossSearchExecutor.TYPE_FIELD, 1).append("_id", 1), pipeline.get(3).get("$sort"));
+        assertEquals(10, pipeline.get(4).get("$limit"));
+    }
+
+    @Test
+    void textModeIsRejectedForUnionSources() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setGlobalSearchMode(GlobalSearchMode.TEXT);
+        List<CrossSearchExecutor.Source> sources = List.of(
+                new CrossSearchExecutor.Source(Article.class, "article", 0),
+                new CrossSearchExecutor.Source(Author.class, "author", 0));
+
+        assertThrows(FilterException.class, () -> executor.buildPipeline("bat", sources, options, 0));
+    }
+
+    @Test
+    void autoModeNeverPutsTextInsideUnionWith() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setGlobalSearchMode(GlobalSearchMode.AUTO);
+        List<CrossSearchExecutor.Source> sources = List.of(
+                new CrossSearchExecutor.Source(Article.class, "article", 0),
+                new CrossSearchExecutor.Source(Author.class, "author", 0));
+
+        List<Document> pipeline = executor.buildPipeline("bat", sources, options, 0);
+
+        assertFalse(pipeline.toString().contains("$text"));
+        assertEquals(List.of("$match", "$addFields", "$unionWith", "$sort"), pipeline.stream().map(stage -> stage.keySet().iterator().next()).toList());
+    }
+}
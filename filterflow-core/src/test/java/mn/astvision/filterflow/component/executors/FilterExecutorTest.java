@@ -0,0 +1,129 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.builders.base.DefaultFilterFlowBuilder;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.support.OperatorHandlers;
+import mn.astvision.filterflow.support.RecordingMongoTemplate;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class FilterExecutorTest {
+
+    @org.springframework.data.mongodb.core.mapping.Document("orders")
+    static class Order {
+        String id;
+        String status;
+
+        Order(String id, String status) {
+            this.id = id;
+            this.status = status;
+        }
+    }
+
+    @BeforeAll
+    static void registerHandlers() {
+        OperatorHandlers.registerDefaults();
+    }
+
+    static FilterOptions streamOptions() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setStreamBatchSize(250);
+        options.setAllowDiskUse(true);
+        return options;
+    }
+
+    static DefaultFilterFlowBuilder<Order> flow(RecordingMongoTemplate template, FilterOptions options) {
+        //@formatter:off
+        return new DefaultFilterFlowBuilder<>(FilterExecutor.forType(Order.class).withMongoTemplate(template))
+                .withFilter(FilterGroup.createFromFR(new ArrayList<>(List.of(FilterRequest.createEq("status", "NEW")))))
+                .withOption(options);
+        //@formatter:on
+    }
+
+    @Test
+    void streamedFindCarriesBatchSizeAndDiskUse() {
+        RecordingMongoTemplate template = new RecordingMongoTemplate();
+
+        try (Stream<Order> stream = flow(template, streamOptions()).executeStream()) {
+            assertEquals(0, stream.count());
+        }
+
+        assertTrue(template.getAggregations().isEmpty());
+        Query query = template.lastQuery();
+        assertEquals(250, query.getMeta().getCursorBatchSize());
+        assertEquals(Boolean.TRUE, query.getMeta().getAllowDiskUse());
+        assertTrue(query.getQueryObject().toJson().contains("{\"status\": \"NEW\"}"));
+    }
+
+    @Test
+    void streamedFindLeavesDriverDefaultsAlone() {
+        RecordingMongoTemplate template = new RecordingMongoTemplate();
+
+        try (Stream<Order> stream = flow(template, FilterOptions.defaults()).executeStream()) {
+            assertEquals(0, stream.count());
+        }
+
+        Query query = template.lastQuery();
+        assertNull(query.getMeta().getCursorBatchSize());
+        assertNotEquals(Boolean.TRUE, query.getMeta().getAllowDiskUse());
+    }
+
+    @Test
+    void streamedAggregationCarriesBatchSizeAndDiskUse() {
+        RecordingMongoTemplate template = new RecordingMongoTemplate();
+        DefaultFilterFlowBuilder<Order> flow = flow(template, streamOptions())
+                .withAggregationOperations(List.of(Aggregation.match(Criteria.where("id").exists(true))));
+
+        try (Stream<Order> stream = flow.executeStream()) {
+            assertEquals(0, stream.count());
+        }
+
+        assertTrue(template.getQueries().isEmpty());
+        AggregationOptions options = template.lastAggregation().getOptions();
+        assertEquals(250, options.getCursorBatchSize());
+        assertTrue(options.isAllowDiskUse());
+    }
+
+    @Test
+    void applyStepsRunPerElementAsTheStreamIsConsumed() {
+        RecordingMongoTemplate template = new RecordingMongoTemplate()
+                .returning(new Order("a", "NEW"), new Order("b", "NEW"), new Order("c", "NEW"));
+        List<String> applied = new ArrayList<>();
+
+        //@formatter:off
+        DefaultFilterFlowBuilder<Order> flow = flow(template, FilterOptions.defaults())
+                .apply(order -> applied.add(order.id))
+                .apply(order -> order.status = "SEEN");
+        //@formatter:on
+
+        try (Stream<Order> stream = flow.executeStream()) {
+            assertTrue(applied.isEmpty());
+
+            Iterator<Order> iterator = stream.iterator();
+            Order first = iterator.next();
+            assertEquals(List.of("a"), applied);
+            assertEquals("SEEN", first.status);
+
+            iterator.next();
+            assertEquals(List.of("a", "b"), applied);
+        }
+
+        assertEquals(List.of("a", "b"), applied);
+    }
+}
@@ -0,0 +1,214 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.annotations.VirtualField;
+import mn.astvision.filterflow.builders.base.ReactiveFilterFlowBuilder;
+import mn.astvision.filterflow.component.factory.ReactiveFilterExecutorFactory;
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.CountStrategy;
+import mn.astvision.filterflow.support.OperatorHandlers;
+import mn.astvision.filterflow.support.RecordingReactiveMongoTemplate;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class ReactiveFilterExecutorTest {
+
+    @org.springframework.data.mongodb.core.mapping.Document("orders")
+    static class Order {
+        String id;
+        String status;
+        String ownerId;
+        @VirtualField(fromCollection = "users", localField = "ownerId", projectField = "name")
+        String ownerName;
+
+        Order() {
+        }
+
+        Order(String id, String status) {
+            this.id = id;
+            this.status = status;
+        }
+    }
+
+    @BeforeAll
+    static void registerHandlers() {
+        OperatorHandlers.registerDefaults();
+    }
+
+    static ReactiveFilterFlowBuilder<Order> flow(RecordingReactiveMongoTemplate template, FilterOptions options) {
+        //@formatter:off
+        return new ReactiveFilterFlowBuilder<>(new ReactiveFilterExecutorFactory(template.asProvider()), Order.class)
+                .withFilter(FilterGroup.createFromFR(new ArrayList<>(List.of(FilterRequest.createEq("status", "NEW")))))
+                .withOption(options);
+        //@formatter:on
+    }
+
+    static FilterOptions streamOptions() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setStreamBatchSize(250);
+        options.setAllowDiskUse(true);
+        return options;
+    }
+
+    static FilterOptions resolvingVirtualFields() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setResolveVF(true);
+        options.setSkipCount(true);
+        return options;
+    }
+
+    static List<String> stageNames(Aggregation aggregation) {
+        return aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).stream()
+                .map(stage -> stage.keySet().iterator().next())
+                .toList();
+    }
+
+    @Test
+    void nothingRunsUntilSubscribed() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class);
+
+        Flux<Order> flux = flow(template, FilterOptions.defaults()).executeFlux();
+        Mono<Page<Order>> page = flow(template, FilterOptions.defaults()).withPage(PageRequest.of(0, 10)).execute();
+
+        assertTrue(template.getQueries().isEmpty());
+        assertTrue(template.getAggregations().isEmpty());
+
+        StepVerifier.create(flux).verifyComplete();
+        assertEquals(1, template.getQueries().size());
+        StepVerifier.create(page).expectNextCount(1).verifyComplete();
+    }
+
+    @Test
+    void findFluxCarriesBatchSizeAndDiskUse() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class)
+                .returning(new Order("a", "NEW"), new Order("b", "NEW"));
+
+        StepVerifier.create(flow(template, streamOptions()).executeFlux().map(order -> order.id))
+                .expectNext("a", "b")
+                .verifyComplete();
+
+        assertTrue(template.getAggregations().isEmpty());
+        Query query = template.lastQuery();
+        assertEquals(250, query.getMeta().getCursorBatchSize());
+        assertEquals(Boolean.TRUE, query.getMeta().getAllowDiskUse());
+        assertTrue(query.getQueryObject().toJson().contains("{\"status\": \"NEW\"}"));
+    }
+
+    @Test
+    void aggregationFluxCarriesBatchSizeAndDiskUse() {
+        FilterOptions options = streamOptions();
+        options.setResolveVF(true);
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class);
+
+        StepVerifier.create(flow(template, options).executeFlux()).verifyComplete();
+
+        assertTrue(template.getQueries().isEmpty());
+        AggregationOptions aggregationOptions = template.lastAggregation().getOptions();
+        assertEquals(250, aggregationOptions.getCursorBatchSize());
+        assertTrue(aggregationOptions.isAllowDiskUse());
+    }
+
+    @Test
+    void pageOnStoredSortLooksUpAfterTheLimit() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class);
+
+        StepVerifier.create(flow(template, resolvingVirtualFields()).withPage(PageRequest.of(1, 10, Sort.by("status"))).execute())
+                .expectNextCount(1)
+                .verifyComplete();
+
+        List<String> stages = stageNames(template.lastAggregation());
+        assertEquals(List.of("$match", "$sort", "$skip", "$limit", "$lookup"), stages.subList(0, 5));
+    }
+
+    @Test
+    void pageSortedByVirtualFieldLooksUpFirst() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class);
+
+        StepVerifier.create(flow(template, resolvingVirtualFields()).withPage(PageRequest.of(1, 10, Sort.by("ownerName"))).execute())
+                .expectNextCount(1)
+                .verifyComplete();
+
+        List<String> stages = stageNames(template.lastAggregation());
+        assertTrue(stages.indexOf("$lookup") < stages.indexOf("$sort"));
+        assertEquals(List.of("$sort", "$skip", "$limit"), stages.subList(stages.size() - 3, stages.size()));
+    }
+
+    @Test
+    void contentAndCountAreZippedIntoThePage() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class)
+                .returning(new Order("c", "NEW"), new Order("d", "NEW"))
+                .counting(7);
+
+        StepVerifier.create(flow(template, FilterOptions.defaults()).withPage(PageRequest.of(1, 2)).execute())
+                .assertNext(page -> {
+                    assertEquals(List.of("c", "d"), page.getContent().stream().map(order -> order.id).toList());
+                    assertEquals(7, page.getTotalElements());
+                    assertEquals(1, page.getNumber());
+                })
+                .verifyComplete();
+
+        assertEquals(2, template.getQueries().size());
+    }
+
+    @Test
+    void facetPageIsOneAggregation() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setCountStrategy(CountStrategy.FACET);
+        //@formatter:off
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class).returning(new Document()
+                .append("content", List.of(new Document("_id", "c").append("status", "NEW")))
+                .append("total", List.of(new Document("aggregateTotalCount", 3))));
+        //@formatter:on
+
+        StepVerifier.create(flow(template, options).withPage(PageRequest.of(1, 2, Sort.by("status"))).execute())
+                .assertNext(page -> {
+                    assertEquals(List.of("c"), page.getContent().stream().map(order -> order.id).toList());
+                    assertEquals(3, page.getTotalElements());
+                })
+                .verifyComplete();
+
+        assertTrue(template.getQueries().isEmpty());
+        assertEquals(1, template.getAggregations().size());
+        List<Document> pipeline = template.lastAggregation().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(List.of("$match", "$facet"), stageNames(template.lastAggregation()));
+        assertEquals(List.of(new Document("$sort", new Document("status", 1)), new Document("$skip", 2L), new Document("$limit", 2L)),
+                pipeline.get(1).get("$facet", Document.class).getList("content", Document.class));
+    }
+
+    @Test
+    void driverErrorsSurfaceAsFilterException() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class)
+                .failingWith(new IllegalStateException("socket closed"));
+
+        StepVerifier.create(flow(template, FilterOptions.defaults()).executeFlux())
+                .expectErrorSatisfies(error -> {
+                    assertInstanceOf(FilterException.class, error);
+                    assertInstanceOf(IllegalStateException.class, error.getCause());
+                })
+                .verify();
+
+        StepVerifier.create(flow(template, resolvingVirtualFields()).executeFlux())
+                .expectError(FilterException.class)
+                .verify();
+    }
+}
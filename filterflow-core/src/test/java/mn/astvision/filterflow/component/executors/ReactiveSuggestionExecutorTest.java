@@ -0,0 +1,80 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.ValueFrequency;
+import mn.astvision.filterflow.support.OperatorHandlers;
+import mn.astvision.filterflow.support.RecordingReactiveMongoTemplate;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class ReactiveSuggestionExecutorTest {
+
+    @org.springframework.data.mongodb.core.mapping.Document("orders")
+    static class Order {
+        String id;
+        String status;
+        List<String> tags;
+    }
+
+    @BeforeAll
+    static void registerHandlers() {
+        OperatorHandlers.registerDefaults();
+    }
+
+    static ReactiveSuggestionExecutor<Order> executor(RecordingReactiveMongoTemplate template) {
+        return new ReactiveSuggestionExecutor<>(template, FilterOptions.defaults(), Order.class);
+    }
+
+    @Test
+    void topValuesMirrorTheBlockingPipeline() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class)
+                .returning(new Document("_id", "vip").append("count", 3), new Document("_id", "new").append("count", 1));
+
+        StepVerifier.create(executor(template).suggestTopByFrequency("tags", 5, null))
+                .expectNext(new ValueFrequency("vip", 3), new ValueFrequency("new", 1))
+                .verifyComplete();
+
+        List<Document> pipeline = template.lastAggregation().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(SuggestionExecutor.frequencyAggregation(new Criteria(), "tags", List.of("tags"), 5).toPipeline(Aggregation.DEFAULT_CONTEXT),
+                pipeline);
+    }
+
+    @Test
+    void suggestionPageZipsValuesAndCount() {
+        // утга болон count-ийн aggregation аль аль нь ижил мөрүүдийг авна: эхний мөр count-ийг ч агуулна
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class)
+                .returning(new Document("_id", "DONE").append("totalCount", 5), new Document("_id", "NEW"));
+
+        StepVerifier.create(executor(template).suggestByField("status", PageRequest.of(0, 2), null))
+                .assertNext(page -> {
+                    assertEquals(List.of("DONE", "NEW"), page.getContent());
+                    assertEquals(2, page.getSize());
+                    assertEquals(5, page.getTotalElements());
+                })
+                .verifyComplete();
+
+        assertEquals(2, template.getAggregations().size());
+    }
+
+    @Test
+    void invalidArgumentsSurfaceAsFilterException() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Order.class);
+
+        StepVerifier.create(executor(template).suggestTopByFrequency("tags", 0, null)).expectError(FilterException.class).verify();
+        StepVerifier.create(executor(template).suggestByField("missing", 0, 0, null, null)).expectError(FilterException.class).verify();
+        assertTrue(template.getAggregations().isEmpty());
+    }
+}
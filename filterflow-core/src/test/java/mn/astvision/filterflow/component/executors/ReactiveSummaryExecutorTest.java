@@ -0,0 +1,114 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.GroupedSummary;
+import mn.astvision.filterflow.support.OperatorHandlers;
+import mn.astvision.filterflow.support.RecordingReactiveMongoTemplate;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static mn.astvision.filterflow.component.executors.SummaryExecutor.AggregateOp.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class ReactiveSummaryExecutorTest {
+
+    @org.springframework.data.mongodb.core.mapping.Document("sales")
+    static class Sale {
+        String id;
+        String region;
+        BigDecimal amount;
+    }
+
+    @BeforeAll
+    static void registerHandlers() {
+        OperatorHandlers.registerDefaults();
+    }
+
+    static List<String> stageNames(Aggregation aggregation) {
+        return aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).stream()
+                .map(stage -> stage.keySet().iterator().next())
+                .toList();
+    }
+
+    @Test
+    void summaryIsOneGroupOverTheMatch() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Sale.class)
+                .returning(new Document("_id", null).append("amount_sum", 120).append("amount_max", 70));
+        FilterGroup filters = FilterGroup.createFromFR(List.of(FilterRequest.createEq("region", "N")));
+
+        StepVerifier.create(ReactiveSummaryExecutor.create(template, Sale.class, FilterOptions.defaults())
+                        .executeMany(Map.of("amount", Set.of(SUM, MAX)), filters))
+                .assertNext(summary -> {
+                    assertEquals(0, new BigDecimal(120).compareTo(summary.get("amount").get("SUM")));
+                    assertEquals(0, new BigDecimal(70).compareTo(summary.get("amount").get("MAX")));
+                })
+                .verifyComplete();
+
+        assertEquals(1, template.getAggregations().size());
+        List<Document> pipeline = template.lastAggregation().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(List.of("$match", "$group"), stageNames(template.lastAggregation()));
+        Document group = pipeline.get(1).get("$group", Document.class);
+        assertEquals(new Document("$sum", "$amount"), group.get("amount_sum"));
+        assertEquals(new Document("$max", "$amount"), group.get("amount_max"));
+    }
+
+    @Test
+    void emptyResultIsAnEmptySummary() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Sale.class);
+
+        StepVerifier.create(ReactiveSummaryExecutor.create(template, Sale.class, FilterOptions.defaults()).execute("amount", SUM, null))
+                .expectNext(BigDecimal.ZERO)
+                .verifyComplete();
+    }
+
+    @Test
+    void groupedSummaryMirrorsTheBlockingPipeline() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Sale.class)
+                .returning(new Document("_id", new Document("region", "N")).append(GroupedSummary.COUNT, 2).append("amount_sum", 50));
+        Sort sort = Sort.by(Sort.Order.desc("amount_sum"));
+
+        StepVerifier.create(ReactiveSummaryExecutor.create(template, Sale.class, FilterOptions.defaults())
+                        .executeGrouped(List.of("region"), Map.of("amount", Set.of(SUM)), null, sort, 3))
+                .assertNext(row -> {
+                    assertEquals(Map.of("region", "N"), row.group());
+                    assertEquals(2, row.count());
+                    assertEquals(0, new BigDecimal(50).compareTo(row.values().get("amount").get("SUM")));
+                })
+                .verifyComplete();
+
+        List<Document> pipeline = template.lastAggregation().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        List<Document> blocking = Aggregation.newAggregation(SummaryExecutor.groupedStages(Map.of("region", "region"), Map.of("amount", "amount"),
+                Map.of("amount", Set.of(SUM)), sort, 3)).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(blocking, pipeline.subList(1, pipeline.size()));
+    }
+
+    @Test
+    void invalidFieldsSurfaceAsFilterException() {
+        RecordingReactiveMongoTemplate template = new RecordingReactiveMongoTemplate(Sale.class);
+
+        StepVerifier.create(ReactiveSummaryExecutor.create(template, Sale.class, FilterOptions.defaults())
+                        .executeMany(Map.of("missing", Set.of(SUM)), null))
+                .expectError(FilterException.class)
+                .verify();
+        StepVerifier.create(ReactiveSummaryExecutor.create(template, Sale.class, FilterOptions.defaults())
+                        .executeGrouped(List.of("region"), Map.of(), null, Sort.unsorted(), -1))
+                .expectError(FilterException.class)
+                .verify();
+        assertTrue(template.getAggregations().isEmpty());
+    }
+}
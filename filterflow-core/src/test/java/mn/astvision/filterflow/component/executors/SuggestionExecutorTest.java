@@ -0,0 +1,87 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.ValueFrequency;
+import mn.astvision.filterflow.model.enums.FilterLogicMode;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class SuggestionExecutorTest {
+
+    static class Order {
+        private String status;
+        private List<String> tags;
+        private List<Line> lines;
+    }
+
+    static class Line {
+        private String sku;
+        private List<String> labels;
+    }
+
+    @Test
+    void arraysAlongThePathAreUnwoundOutermostFirst() {
+        MongoMappingContext context = new MongoMappingContext();
+        MongoPersistentEntity<?> entity = context.getRequiredPersistentEntity(Order.class);
+
+        assertEquals(List.of(), SuggestionExecutor.arrayPaths("status", entity, context));
+        assertEquals(List.of("tags"), SuggestionExecutor.arrayPaths("tags", entity, context));
+        assertEquals(List.of("lines"), SuggestionExecutor.arrayPaths("lines.sku", entity, context));
+        assertEquals(List.of("lines", "lines.labels"), SuggestionExecutor.arrayPaths("lines.labels", entity, context));
+        assertNotNull(SuggestionExecutor.resolvePropertyByPath("lines.sku", entity, context));
+    }
+
+    @Test
+    void topValuesAreSortedByCountThenValue() {
+        Aggregation aggregation = SuggestionExecutor.frequencyAggregation(new Criteria(), "tags", List.of("tags"), 5);
+        List<Document> pipeline = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        assertEquals(new Document("$unwind", "$tags"), pipeline.get(1));
+        // document тус бүрд нэг удаа тоолно
+        assertEquals(new Document("_id", new Document("value", "$tags").append("doc", "$_id")), pipeline.get(3).get("$group"));
+        assertEquals(new Document("_id", "$_id.value").append("count", new Document("$sum", 1)), pipeline.get(4).get("$group"));
+        assertEquals(new Document("count", -1).append("_id", 1), pipeline.get(5).get("$sort"));
+        assertEquals(5L, ((Number) pipeline.get(6).get("$limit")).longValue());
+
+        List<Document> scalar = SuggestionExecutor.frequencyAggregation(new Criteria(), "status", List.of(), 5).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(new Document("_id", "$status").append("count", new Document("$sum", 1)), scalar.get(2).get("$group"));
+
+        assertEquals(new ValueFrequency("vip", 3), SuggestionExecutor.readFrequency(new Document("_id", "vip").append("count", 3)));
+    }
+
+    @Test
+    void distinctIsOnlyUsedForUnfilteredNonEmptyPrefixes() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setAutocompleteUseDistinct(true);
+        FilterGroup filters = new FilterGroup(FilterLogicMode.AND, new FilterRequest("status", FilterOperator.EQUALS, "NEW"));
+
+        assertTrue(SuggestionExecutor.usesDistinct(options, null, "ba"));
+        assertFalse(SuggestionExecutor.usesDistinct(options, null, ""));
+        assertFalse(SuggestionExecutor.usesDistinct(options, filters, "ba"));
+    }
+
+    @Test
+    void prefixIsAddedToTheFiltersOnce() {
+        Criteria filters = Criteria.where("status").is("NEW");
+
+        assertEquals(new Document("status", "NEW"), SuggestionExecutor.autocompleteCriteria(new Criteria(), filters, "status", "x").getCriteriaObject());
+        Document combined = SuggestionExecutor.autocompleteCriteria(filters, null, "status", "a.b").getCriteriaObject();
+        List<?> and = (List<?>) combined.get("$and");
+        assertEquals(new Document("status", "NEW"), and.get(0));
+        assertEquals("^a\\.b", ((java.util.regex.Pattern) ((Document) and.get(1)).get("status")).pattern());
+    }
+}
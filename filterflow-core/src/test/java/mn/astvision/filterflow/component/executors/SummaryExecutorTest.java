@@ -0,0 +1,130 @@
+package mn.astvision.filterflow.component.executors;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.GroupedSummary;
+import mn.astvision.filterflow.support.OperatorHandlers;
+import mn.astvision.filterflow.support.RecordingMongoTemplate;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.TypeBasedAggregationOperationContext;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class SummaryExecutorTest {
+    private static final Map<String, Set<SummaryExecutor.AggregateOp>> AMOUNT_SUM = Map.of("amount", Set.of(SummaryExecutor.AggregateOp.SUM));
+
+    @org.springframework.data.mongodb.core.mapping.Document("sales")
+    static class Sale {
+        String id;
+        String region;
+        Customer customer;
+        BigDecimal amount;
+    }
+
+    static class Customer {
+        @Field("c_city")
+        String city;
+    }
+
+    @BeforeAll
+    static void registerHandlers() {
+        OperatorHandlers.registerDefaults();
+    }
+
+    static Map<String, String> regionAndCity() {
+        Map<String, String> groupKeys = new LinkedHashMap<>();
+        groupKeys.put("region", "region");
+        groupKeys.put("customer.city", "customer_city");
+        return groupKeys;
+    }
+
+    static List<Document> render(List<AggregationOperation> stages) {
+        return stages.stream().flatMap(stage -> stage.toPipelineStages(Aggregation.DEFAULT_CONTEXT).stream()).toList();
+    }
+
+    @Test
+    void approximateAndExactSummariesAreCachedApart() {
+        Map<String, Set<SummaryExecutor.AggregateOp>> fieldOps = Map.of("amount", Set.of(SummaryExecutor.AggregateOp.MEDIAN, SummaryExecutor.AggregateOp.COUNT_DISTINCT));
+        FilterOptions exact = FilterOptions.defaults();
+        FilterOptions approximate = FilterOptions.defaults();
+        approximate.setApproximateSummaries(true);
+
+        assertNotEquals(SummaryExecutor.summaryCacheKeyPart(fieldOps, exact), SummaryExecutor.summaryCacheKeyPart(fieldOps, approximate));
+        assertEquals(SummaryExecutor.summaryCacheKeyPart(fieldOps, exact), SummaryExecutor.summaryCacheKeyPart(Map.of("amount",
+                Set.of(SummaryExecutor.AggregateOp.COUNT_DISTINCT, SummaryExecutor.AggregateOp.MEDIAN)), FilterOptions.defaults()));
+    }
+
+    @Test
+    void groupedStagesGroupOnACompoundId() {
+        List<Document> stages = render(SummaryExecutor.groupedStages(regionAndCity(), Map.of("amount", "amount"), AMOUNT_SUM, Sort.unsorted(), 0));
+
+        assertEquals(2, stages.size());
+        Document group = stages.getFirst().get("$group", Document.class);
+        assertEquals(new Document("region", "$region").append("customer_city", "$customer.city"), group.get("_id"));
+        assertEquals(new Document("$sum", 1), group.get(GroupedSummary.COUNT));
+        assertEquals(new Document("$sum", "$amount"), group.get("amount_sum"));
+
+        // эрэмбэ заагаагүй бол group key-ийн дарааллаар
+        assertEquals(new Document("$sort", new Document("_id.region", 1).append("_id.customer_city", 1)), stages.get(1));
+    }
+
+    @Test
+    void groupSortPutsRequestedOrdersBeforeTheKeyTiebreakers() {
+        Sort sort = Sort.by(Sort.Order.desc("amount_sum"), Sort.Order.asc("customer.city"), Sort.Order.desc(GroupedSummary.COUNT));
+        List<Document> stages = render(SummaryExecutor.groupedStages(regionAndCity(), Map.of("amount", "amount"), AMOUNT_SUM, sort, 5));
+
+        Document sortObject = stages.get(1).get("$sort", Document.class);
+        assertEquals(List.of("amount_sum", "_id.customer_city", GroupedSummary.COUNT, "_id.region"), List.copyOf(sortObject.keySet()));
+        assertEquals(List.of(-1, 1, -1, 1), List.copyOf(sortObject.values()));
+        assertEquals(new Document("$limit", 5L), stages.get(2));
+    }
+
+    @Test
+    void groupSortRejectsUnknownKeys() {
+        assertThrows(FilterException.class, () -> SummaryExecutor.groupedStages(regionAndCity(), Map.of("amount", "amount"), AMOUNT_SUM,
+                Sort.by("amount"), 0));
+        assertThrows(FilterException.class, () -> SummaryExecutor.validateGrouping(List.of("region"), -1));
+    }
+
+    @Test
+    void executeGroupedMapsNestedKeysAndReadsTheRows() {
+        //@formatter:off
+        RecordingMongoTemplate template = new RecordingMongoTemplate().returning(
+                new Document("_id", new Document("region", "N").append("customer_city", "UB"))
+                        .append(GroupedSummary.COUNT, 3).append("amount_sum", 30));
+        //@formatter:on
+
+        List<GroupedSummary> rows = SummaryExecutor.create(template, Sale.class)
+                .executeGrouped(List.of("region", "customer.city"), AMOUNT_SUM, null, Sort.by(Sort.Order.desc(GroupedSummary.COUNT)), 10);
+
+        TypeBasedAggregationOperationContext context = new TypeBasedAggregationOperationContext(Sale.class,
+                template.getConverter().getMappingContext(), new QueryMapper(template.getConverter()));
+        List<Document> pipeline = template.lastAggregation().toPipeline(context);
+        assertEquals(List.of("$match", "$group", "$sort", "$limit"), pipeline.stream().map(stage -> stage.keySet().iterator().next()).toList());
+        assertEquals(new Document("region", "$region").append("customer_city", "$customer.c_city"),
+                pipeline.get(1).get("$group", Document.class).get("_id"));
+        assertEquals(new Document("$limit", 10L), pipeline.get(3));
+
+        assertEquals(1, rows.size());
+        GroupedSummary row = rows.getFirst();
+        assertEquals(Map.of("region", "N", "customer.city", "UB"), row.group());
+        assertEquals(3, row.count());
+        assertEquals(0, new BigDecimal(30).compareTo(row.values().get("amount").get("SUM")));
+    }
+}
@@ -0,0 +1,46 @@
+package mn.astvision.filterflow.support;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoDatabase;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * MongoTemplate-ийг сервергүйгээр үүсгэнэ: collection нэр, mapping, converter ажиллана, database руу хандвал алдаа өгнө.
+ *
+ * @author zorigtbaatar
+ */
+public class OfflineDatabaseFactory implements MongoDatabaseFactory {
+
+    public static MongoTemplate template() {
+        return new MongoTemplate(new OfflineDatabaseFactory());
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase() {
+        throw new UnsupportedOperationException("offline");
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase(String dbName) {
+        throw new UnsupportedOperationException("offline");
+    }
+
+    @Override
+    public PersistenceExceptionTranslator getExceptionTranslator() {
+        return new MongoExceptionTranslator();
+    }
+
+    @Override
+    public ClientSession getSession(ClientSessionOptions options) {
+        throw new UnsupportedOperationException("offline");
+    }
+
+    @Override
+    public MongoDatabaseFactory withSession(ClientSession session) {
+        throw new UnsupportedOperationException("offline");
+    }
+}
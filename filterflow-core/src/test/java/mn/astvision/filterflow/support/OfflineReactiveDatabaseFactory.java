@@ -0,0 +1,49 @@
+package mn.astvision.filterflow.support;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.ClientSession;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link OfflineDatabaseFactory}-ийн reactive хувилбар: database руу хандвал алдаа өгнө.
+ *
+ * @author zorigtbaatar
+ */
+public class OfflineReactiveDatabaseFactory implements ReactiveMongoDatabaseFactory {
+
+    @Override
+    public Mono<MongoDatabase> getMongoDatabase() {
+        return Mono.error(new UnsupportedOperationException("offline"));
+    }
+
+    @Override
+    public Mono<MongoDatabase> getMongoDatabase(String dbName) {
+        return Mono.error(new UnsupportedOperationException("offline"));
+    }
+
+    @Override
+    public PersistenceExceptionTranslator getExceptionTranslator() {
+        return new MongoExceptionTranslator();
+    }
+
+    @Override
+    public CodecRegistry getCodecRegistry() {
+        return MongoClientSettings.getDefaultCodecRegistry();
+    }
+
+    @Override
+    public Mono<ClientSession> getSession(ClientSessionOptions options) {
+        return Mono.error(new UnsupportedOperationException("offline"));
+    }
+
+    @Override
+    public ReactiveMongoDatabaseFactory withSession(ClientSession session) {
+        throw new UnsupportedOperationException("offline");
+    }
+}
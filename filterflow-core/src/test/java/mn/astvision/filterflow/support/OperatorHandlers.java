@@ -0,0 +1,20 @@
+package mn.astvision.filterflow.support;
+
+import mn.astvision.filterflow.handlers.DefaultOperatorHandlers;
+import mn.astvision.filterflow.handlers.OperatorHandlerRegistry;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+
+/**
+ * Registers the default operator handlers once per JVM, as {@code FilterExecutorFactory} does on startup.
+ *
+ * @author zorigtbaatar
+ */
+public class OperatorHandlers {
+
+    private OperatorHandlers() {
+    }
+
+    public static synchronized void registerDefaults() {
+        if (!OperatorHandlerRegistry.contains(FilterOperator.EQUALS.name())) DefaultOperatorHandlers.registerAll();
+    }
+}
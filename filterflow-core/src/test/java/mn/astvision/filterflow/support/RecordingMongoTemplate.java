@@ -0,0 +1,79 @@
+package mn.astvision.filterflow.support;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Offline MongoTemplate: find/aggregate дуудлагуудыг хадгалаад урьдчилан өгсөн мөрүүдийг буцаана.
+ *
+ * @author zorigtbaatar
+ */
+public class RecordingMongoTemplate extends MongoTemplate {
+    private final List<Aggregation> aggregations = new ArrayList<>();
+    private final List<Query> queries = new ArrayList<>();
+    private List<?> results = List.of();
+
+    public RecordingMongoTemplate() {
+        super(new OfflineDatabaseFactory());
+    }
+
+    /**
+     * @param rows мөр бүр нь дуудлагын output type-тай таарах ёстой
+     */
+    public RecordingMongoTemplate returning(Object... rows) {
+        this.results = List.of(rows);
+        return this;
+    }
+
+    public List<Aggregation> getAggregations() {
+        return aggregations;
+    }
+
+    public Aggregation lastAggregation() {
+        return aggregations.getLast();
+    }
+
+    public List<Query> getQueries() {
+        return queries;
+    }
+
+    public Query lastQuery() {
+        return queries.getLast();
+    }
+
+    @Override
+    public <O> AggregationResults<O> aggregate(Aggregation aggregation, String collectionName, Class<O> outputType) {
+        aggregations.add(aggregation);
+        return new AggregationResults<>(rows(), new Document());
+    }
+
+    @Override
+    public <O> AggregationResults<O> aggregate(Aggregation aggregation, Class<?> inputType, Class<O> outputType) {
+        aggregations.add(aggregation);
+        return new AggregationResults<>(rows(), new Document());
+    }
+
+    @Override
+    public <O> Stream<O> aggregateStream(Aggregation aggregation, String collectionName, Class<O> outputType) {
+        aggregations.add(aggregation);
+        return this.<O>rows().stream();
+    }
+
+    @Override
+    public <T> Stream<T> stream(Query query, Class<T> entityType) {
+        queries.add(query);
+        return this.<T>rows().stream();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> List<R> rows() {
+        return (List<R>) results;
+    }
+}
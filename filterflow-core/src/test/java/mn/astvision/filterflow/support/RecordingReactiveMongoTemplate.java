@@ -0,0 +1,112 @@
+package mn.astvision.filterflow.support;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link RecordingMongoTemplate}-ийн reactive хувилбар: find/count/aggregate дуудлагуудыг хадгалаад урьдчилан
+ * өгсөн мөрүүдийг (эсвэл алдааг) subscribe хийх үед буцаана.
+ *
+ * @author zorigtbaatar
+ */
+public class RecordingReactiveMongoTemplate extends ReactiveMongoTemplate {
+    private final List<Aggregation> aggregations = new ArrayList<>();
+    private final List<Query> queries = new ArrayList<>();
+    private List<?> results = List.of();
+    private long count;
+    private RuntimeException failure;
+
+    public RecordingReactiveMongoTemplate(Class<?>... entities) {
+        super(new OfflineReactiveDatabaseFactory());
+        // factory нь entity-г mapping context-д бүртгэгдсэн эсэхээр шалгана
+        for (Class<?> entity : entities) getConverter().getMappingContext().getPersistentEntity(entity);
+    }
+
+    /**
+     * @param rows мөр бүр нь дуудлагын output type-тай таарах ёстой
+     */
+    public RecordingReactiveMongoTemplate returning(Object... rows) {
+        this.results = List.of(rows);
+        return this;
+    }
+
+    public RecordingReactiveMongoTemplate counting(long count) {
+        this.count = count;
+        return this;
+    }
+
+    public RecordingReactiveMongoTemplate failingWith(RuntimeException failure) {
+        this.failure = failure;
+        return this;
+    }
+
+    public ObjectProvider<ReactiveMongoTemplate> asProvider() {
+        return new StaticListableBeanFactory(Map.of("reactiveMongoTemplate", this)).getBeanProvider(ReactiveMongoTemplate.class);
+    }
+
+    public List<Aggregation> getAggregations() {
+        return aggregations;
+    }
+
+    public Aggregation lastAggregation() {
+        return aggregations.getLast();
+    }
+
+    public List<Query> getQueries() {
+        return queries;
+    }
+
+    public Query lastQuery() {
+        return queries.getLast();
+    }
+
+    @Override
+    public <T> Flux<T> find(Query query, Class<T> entityClass) {
+        queries.add(query);
+        return rows();
+    }
+
+    @Override
+    public <T> Mono<T> findOne(Query query, Class<T> entityClass) {
+        queries.add(query);
+        return this.<T>rows().next();
+    }
+
+    @Override
+    public Mono<Long> count(Query query, Class<?> entityClass) {
+        queries.add(query);
+        return failure != null ? Mono.error(failure) : Mono.just(count);
+    }
+
+    @Override
+    public Mono<Boolean> exists(Query query, Class<?> entityClass) {
+        queries.add(query);
+        return rows().hasElements();
+    }
+
+    @Override
+    public <O> Flux<O> aggregate(Aggregation aggregation, String collectionName, Class<O> outputType) {
+        aggregations.add(aggregation);
+        return rows();
+    }
+
+    @Override
+    public <O> Flux<O> aggregate(Aggregation aggregation, Class<?> inputType, Class<O> outputType) {
+        aggregations.add(aggregation);
+        return rows();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> Flux<R> rows() {
+        return failure != null ? Flux.error(failure) : Flux.fromIterable((List<R>) results);
+    }
+}
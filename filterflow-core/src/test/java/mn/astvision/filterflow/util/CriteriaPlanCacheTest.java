@@ -0,0 +1,111 @@
+package mn.astvision.filterflow.util;
+
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.FilterLogicMode;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.support.OperatorHandlers;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class CriteriaPlanCacheTest {
+
+    static class Person {
+        String id;
+        String name;
+        Integer age;
+        String status;
+    }
+
+    @BeforeAll
+    static void registerHandlers() {
+        OperatorHandlers.registerDefaults();
+    }
+
+    @BeforeEach
+    void clearCache() {
+        CriteriaPlanCache.clearCache();
+    }
+
+    static FilterGroup group(String name, int age, String status) {
+        //@formatter:off
+        return new FilterGroup(FilterLogicMode.AND,
+                FilterRequest.createEq("name", name),
+                new FilterRequest("age", FilterOperator.GREATER_THAN_EQUAL, age),
+                FilterGroup.createFromFR(List.of(
+                        FilterRequest.createFilterRequest(FilterLogicMode.OR, "status", FilterOperator.EQUALS, status),
+                        FilterRequest.createFilterRequest(FilterLogicMode.OR, "status", FilterOperator.IS_NULL, null)
+                )));
+        //@formatter:on
+    }
+
+    @Test
+    void fingerprintIgnoresValues() {
+        assertEquals(CriteriaPlanCache.fingerprint(group("Bat", 20, "NEW"), Person.class),
+                CriteriaPlanCache.fingerprint(group("Dorj", 65, "DONE"), Person.class));
+    }
+
+    @Test
+    void fingerprintTracksFieldsOperatorsAndLogic() {
+        String base = CriteriaPlanCache.fingerprint(FilterGroup.createFromFR(List.of(FilterRequest.createEq("name", "Bat"))), Person.class);
+
+        assertNotEquals(base, CriteriaPlanCache.fingerprint(
+                FilterGroup.createFromFR(List.of(FilterRequest.createEq("status", "Bat"))), Person.class));
+        assertNotEquals(base, CriteriaPlanCache.fingerprint(
+                FilterGroup.createFromFR(List.of(new FilterRequest("name", FilterOperator.NOT_EQUALS, "Bat"))), Person.class));
+        assertNotEquals(base, CriteriaPlanCache.fingerprint(
+                FilterGroup.createFromFR(List.of(FilterRequest.createFilterRequest(FilterLogicMode.OR, "name", FilterOperator.EQUALS, "Bat"))), Person.class));
+        assertNotEquals(base, CriteriaPlanCache.fingerprint(
+                FilterGroup.createFromFR(List.of(FilterRequest.createEq("name", "Bat"))), Document.class));
+    }
+
+    @Test
+    void reboundValuesMatchAFreshBuild() {
+        FilterOptions options = FilterOptions.defaults();
+
+        CriteriaPlanCache.buildCriteria(group("Bat", 20, "NEW"), options, Person.class);
+        assertEquals(1, CriteriaPlanCache.cacheSize());
+
+        FilterGroup second = group("Dorj", 65, "DONE");
+        Document cached = CriteriaPlanCache.buildCriteria(second, options, Person.class).getCriteriaObject();
+
+        assertEquals(1, CriteriaPlanCache.cacheSize());
+        assertEquals(CriteriaBuilderUtil.buildGroupCriteria(group("Dorj", 65, "DONE"), options, Person.class).getCriteriaObject(), cached);
+        assertTrue(cached.toJson().contains("Dorj"));
+        assertFalse(cached.toJson().contains("Bat"));
+    }
+
+    @Test
+    void globalAndExprAreBuiltOnEveryBind() {
+        FilterOptions options = FilterOptions.defaults();
+
+        // MongoExpression equals-гүй тул string хэлбэрээр нь харьцуулна
+        String first = CriteriaPlanCache.buildCriteria(dynamicGroup("bat", 18), options, Person.class).getCriteriaObject().toString();
+        String second = CriteriaPlanCache.buildCriteria(dynamicGroup("dorj", 65), options, Person.class).getCriteriaObject().toString();
+
+        assertEquals(1, CriteriaPlanCache.cacheSize());
+        assertNotEquals(first, second);
+        assertEquals(CriteriaBuilderUtil.buildGroupCriteria(dynamicGroup("dorj", 65), options, Person.class).getCriteriaObject().toString(), second);
+        assertTrue(second.contains("dorj") && second.contains("65"));
+        assertFalse(second.contains("bat") || second.contains("18"));
+    }
+
+    static FilterGroup dynamicGroup(String keyword, int age) {
+        //@formatter:off
+        return FilterGroup.createFromFR(List.of(
+                FilterRequest.createFilterRequest("", FilterOperator.GLOBAL, keyword),
+                new FilterRequest("", FilterOperator.EXPR, new Document("$gte", List.of("$age", age)))
+        ));
+        //@formatter:on
+    }
+}
@@ -0,0 +1,59 @@
+package mn.astvision.filterflow.util;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.HistogramBucket;
+import mn.astvision.filterflow.model.enums.HistogramUnit;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class HistogramUtilTest {
+
+    @Test
+    void fillsEmptyDaysInTheRequestedZone() {
+        ZoneId zone = ZoneId.of("Asia/Ulaanbaatar");
+        Instant jan2 = Instant.parse("2024-01-01T16:00:00Z"); // 2024-01-02 00:00 +08
+        Instant jan4 = Instant.parse("2024-01-03T16:00:00Z");
+        List<HistogramBucket> found = List.of(
+                new HistogramBucket(Date.from(jan4), null, 3, Map.of()),
+                new HistogramBucket(Date.from(jan2), null, 5, Map.of()));
+
+        List<HistogramBucket> days = HistogramUtil.fillDates(found, HistogramUnit.DAY, zone, null, null, Map.of());
+        assertEquals(List.of(5L, 0L, 3L), days.stream().map(HistogramBucket::count).toList());
+        assertEquals(Date.from(Instant.parse("2024-01-02T16:00:00Z")), days.get(1).from());
+        assertEquals(Date.from(Instant.parse("2024-01-04T16:00:00Z")), days.get(2).to());
+
+        List<HistogramBucket> range = HistogramUtil.fillDates(found, HistogramUnit.DAY, zone,
+                Instant.parse("2023-12-31T20:00:00Z"), Instant.parse("2024-01-05T16:00:00Z"), Map.of());
+        assertEquals(List.of(0L, 5L, 0L, 3L, 0L), range.stream().map(HistogramBucket::count).toList());
+
+        assertThrows(FilterException.class, () -> HistogramUtil.fillDates(List.of(), HistogramUnit.MINUTE, zone,
+                Instant.parse("2020-01-01T00:00:00Z"), Instant.parse("2024-01-01T00:00:00Z"), Map.of()));
+        assertEquals("UTC", HistogramUtil.mongoTimezone(ZoneOffset.UTC));
+    }
+
+    @Test
+    void fillsBoundaryGapsAndKeepsOutOfRangeLast() {
+        List<Integer> boundaries = List.of(0, 100, 500, 1000);
+        List<HistogramBucket> found = List.of(
+                new HistogramBucket(null, null, 2, Map.of()),
+                new HistogramBucket(500.0, null, 4, Map.of()));
+
+        List<HistogramBucket> buckets = HistogramUtil.fillBoundaries(found, boundaries, Map.of());
+        assertEquals(List.of(0L, 0L, 4L, 2L), buckets.stream().map(HistogramBucket::count).toList());
+        assertEquals(1000, buckets.get(2).to());
+        assertTrue(buckets.get(3).isOutOfRange());
+
+        assertThrows(FilterException.class, () -> HistogramUtil.validateBoundaries(List.of(10, 10)));
+    }
+}
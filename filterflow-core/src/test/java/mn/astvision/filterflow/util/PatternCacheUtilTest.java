@@ -0,0 +1,49 @@
+package mn.astvision.filterflow.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class PatternCacheUtilTest {
+
+    @Test
+    void returnsSameInstanceForSameRegexAndFlags() {
+        Pattern first = PatternCacheUtil.get("^abc", Pattern.CASE_INSENSITIVE);
+
+        assertSame(first, PatternCacheUtil.get("^abc", Pattern.CASE_INSENSITIVE));
+        assertNotSame(first, PatternCacheUtil.get("^abc", 0));
+    }
+
+    @Test
+    void staysBoundedUnderConcurrentLoad() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        String regex = "k" + ((i * 7 + offset) % 2_000);
+                        assertEquals(regex, PatternCacheUtil.get(regex).pattern());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(PatternCacheUtil.cacheSize() <= 512);
+        assertTrue(PatternCacheUtil.stats().evictions() > 0);
+    }
+}
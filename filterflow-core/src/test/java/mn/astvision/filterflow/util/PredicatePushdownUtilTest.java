@@ -0,0 +1,67 @@
+package mn.astvision.filterflow.util;
+
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.FilterLogicMode;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class PredicatePushdownUtilTest {
+    private static final Set<String> VIRTUAL = Set.of("ownerName", "owner");
+
+    @Test
+    void andConjunctsAreSplitByField() {
+        FilterGroup group = FilterGroup.createFromFR(List.of(
+                FilterRequest.createEq("status", "ACTIVE"),
+                FilterRequest.createEq("ownerName", "Bat"),
+                FilterRequest.createEq("owner.code", "A1")
+        ));
+
+        PredicatePushdownUtil.Split split = PredicatePushdownUtil.split(group, VIRTUAL);
+
+        assertEquals(List.of("status"), fields(split.stored()));
+        assertEquals(List.of("ownerName", "owner.code"), fields(split.virtual()));
+    }
+
+    @Test
+    void orSetStaysTogetherWhenAnyMemberIsVirtual() {
+        FilterGroup group = FilterGroup.createFromFR(List.of(
+                FilterRequest.createEq("status", "ACTIVE"),
+                FilterRequest.createFilterRequest(FilterLogicMode.OR, "code", FilterOperator.EQUALS, "X"),
+                FilterRequest.createFilterRequest(FilterLogicMode.OR, "ownerName", FilterOperator.EQUALS, "Bat")
+        ));
+
+        PredicatePushdownUtil.Split split = PredicatePushdownUtil.split(group, VIRTUAL);
+
+        assertEquals(List.of("status"), fields(split.stored()));
+        assertEquals(List.of("code", "ownerName"), fields(split.virtual()));
+    }
+
+    @Test
+    void globalAndExprAreNeverPushedDown() {
+        FilterGroup group = FilterGroup.createFromFR(List.of(
+                FilterRequest.createFilterRequest("", FilterOperator.GLOBAL, "bat"),
+                FilterRequest.createEq("status", "ACTIVE")
+        ));
+
+        PredicatePushdownUtil.Split split = PredicatePushdownUtil.split(group, VIRTUAL);
+
+        assertTrue(split.hasStored());
+        assertEquals(1, split.virtual().count());
+    }
+
+    private static List<String> fields(FilterGroup group) {
+        return group.getComponents().stream()
+                .flatMap(c -> c instanceof FilterGroup g ? fields(g).stream() : Stream.of(((FilterRequest) c).getField()))
+                .toList();
+    }
+}
@@ -0,0 +1,165 @@
+package mn.astvision.filterflow.util;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.SeekSlice;
+import mn.astvision.filterflow.model.SeekToken;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class SeekPaginationUtilTest {
+
+    @Test
+    void normalizeSortAppendsIdTiebreaker() {
+        Sort sort = SeekPaginationUtil.normalizeSort(Sort.by(Sort.Order.desc("price")));
+        assertEquals(Sort.by(Sort.Order.desc("price"), Sort.Order.desc("_id")), sort);
+
+        Sort byId = SeekPaginationUtil.normalizeSort(Sort.by(Sort.Order.asc("id"), Sort.Order.asc("name")));
+        assertEquals(Sort.by(Sort.Order.asc("_id")), byId);
+    }
+
+    @Test
+    void tokenRoundTripKeepsBsonTypes() {
+        ObjectId id = new ObjectId();
+        SeekToken token = new SeekToken("price:ASC,_id:ASC", Arrays.asList(10, id));
+
+        SeekToken decoded = SeekToken.decode(token.encode());
+        assertEquals(token, decoded);
+        assertInstanceOf(ObjectId.class, decoded.getValues().get(1));
+    }
+
+    @Test
+    void seekCriteriaRejectsTokenOfAnotherSort() {
+        Sort sort = SeekPaginationUtil.normalizeSort(Sort.by("name"));
+        SeekToken token = new SeekToken("price:ASC,_id:ASC", List.of(1, new ObjectId()));
+
+        assertThrows(FilterException.class, () -> SeekPaginationUtil.buildSeekCriteria(sort, token));
+    }
+
+    @Test
+    void seekCriteriaBuildsRangeOverSortPrefixes() {
+        Sort sort = SeekPaginationUtil.normalizeSort(Sort.by("price"));
+        ObjectId id = new ObjectId();
+        SeekToken token = new SeekToken(SeekPaginationUtil.signature(sort), List.of(5, id));
+
+        String json = SeekPaginationUtil.buildSeekCriteria(sort, token).getCriteriaObject().toJson();
+        assertTrue(json.contains("\"price\": {\"$gt\": 5}"), json);
+        assertTrue(json.contains("\"_id\": {\"$gt\""), json);
+    }
+
+    @Test
+    void descendingSlicesKeepRowsWithNullSortKey() {
+        List<Document> rows = List.of(
+                new Document("_id", 1).append("price", 30),
+                new Document("_id", 2).append("price", null),
+                new Document("_id", 3).append("price", 20),
+                new Document("_id", 4),
+                new Document("_id", 5).append("price", 30));
+        Sort sort = SeekPaginationUtil.normalizeSort(Sort.by(Sort.Order.desc("price")));
+
+        assertEquals(List.of(5, 1, 3, 4, 2), seekAll(rows, sort));
+    }
+
+    @Test
+    void ascendingSlicesStartWithRowsWithNullSortKey() {
+        List<Document> rows = List.of(
+                new Document("_id", 1).append("price", 30),
+                new Document("_id", 2).append("price", null),
+                new Document("_id", 3).append("price", 20),
+                new Document("_id", 4));
+        Sort sort = SeekPaginationUtil.normalizeSort(Sort.by(Sort.Order.asc("price")));
+
+        assertEquals(List.of(2, 4, 3, 1), seekAll(rows, sort));
+    }
+
+    @Test
+    void tokenReadsUnmappedKeysFromRawRow() {
+        Document row = new Document("_id", 7).append("customerName", "Бат");
+        Sort sort = SeekPaginationUtil.normalizeSort(Sort.by("customerName"));
+
+        SeekToken token = SeekPaginationUtil.tokenOf(row, sort, Object.class, converter());
+        assertEquals(Arrays.asList("Бат", 7), token.getValues());
+    }
+
+    // size 1-ээр бүх slice-ийг уншиж, seek criteria-г санах ойд шалгана
+    private static List<Integer> seekAll(List<Document> rows, Sort sort) {
+        MongoConverter converter = converter();
+        List<Integer> ids = new ArrayList<>();
+        SeekToken after = null;
+        for (int guard = 0; guard <= rows.size(); guard++) {
+            Criteria criteria = SeekPaginationUtil.buildSeekCriteria(sort, after);
+            List<Document> page = rows.stream()
+                    .filter(row -> criteria == null || matches(row, criteria.getCriteriaObject()))
+                    .sorted(comparator(sort))
+                    .limit(2)
+                    .toList();
+
+            SeekSlice<Document> slice = SeekPaginationUtil.toSlice(new ArrayList<>(page), sort, 1, Document.class, converter);
+            slice.getContent().forEach(row -> ids.add(row.getInteger("_id")));
+            if (!slice.isHasNext()) return ids;
+            after = slice.getNextToken();
+        }
+        return fail("slices did not terminate: " + ids);
+    }
+
+    private static Comparator<Document> comparator(Sort sort) {
+        Comparator<Document> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Document> key = Comparator.comparing((Document row) -> (Integer) row.get(order.getProperty()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            comparator = comparator.thenComparing(order.isAscending() ? key : key.reversed());
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean matches(Document row, Document criteria) {
+        for (var entry : criteria.entrySet()) {
+            boolean ok = switch (entry.getKey()) {
+                case "$or" -> ((List<Document>) entry.getValue()).stream().anyMatch(c -> matches(row, c));
+                case "$and" -> ((List<Document>) entry.getValue()).stream().allMatch(c -> matches(row, c));
+                default -> matchesField((Integer) row.get(entry.getKey()), entry.getValue());
+            };
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    private static boolean matchesField(Integer value, Object condition) {
+        if (!(condition instanceof Document ops)) return Objects.equals(value, condition);
+        for (var op : ops.entrySet()) {
+            Integer operand = (Integer) op.getValue();
+            boolean ok = switch (op.getKey()) {
+                case "$gt" -> value != null && value > operand;
+                case "$lt" -> value != null && value < operand;
+                case "$ne" -> !Objects.equals(value, operand);
+                default -> throw new IllegalArgumentException(op.getKey());
+            };
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    private static MongoConverter converter() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
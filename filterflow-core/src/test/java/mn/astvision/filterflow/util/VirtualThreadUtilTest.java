@@ -0,0 +1,45 @@
+package mn.astvision.filterflow.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class VirtualThreadUtilTest {
+
+    @Test
+    void cancelInterruptsRunningTask() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<Long> future = VirtualThreadUtil.supplyAsync(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 1L;
+        });
+
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        future.cancel(true);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    void joinRethrowsFailureUnwrapped() {
+        CompletableFuture<Long> future = VirtualThreadUtil.supplyAsync(() -> {
+            throw new IllegalStateException("count failed");
+        });
+
+        assertEquals("count failed", assertThrows(IllegalStateException.class, () -> VirtualThreadUtil.join(future)).getMessage());
+    }
+}
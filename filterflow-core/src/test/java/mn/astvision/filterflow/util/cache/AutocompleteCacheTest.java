@@ -0,0 +1,64 @@
+package mn.astvision.filterflow.util.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class AutocompleteCacheTest {
+
+    @AfterEach
+    void clear() {
+        AutocompleteCache.clear();
+    }
+
+    @Test
+    void completePageAnswersLongerPrefixes() {
+        Page<Object> page = new PageImpl<>(List.of("Bat", "Bataa", "Bold"), PageRequest.of(0, 5), 3);
+        AutocompleteCache.put("people", String.class, "name", "{}|5|true", "b", AutocompleteCache.generation("people"), page, Duration.ofMinutes(1));
+
+        assertSame(page, AutocompleteCache.get("people", String.class, "name", "{}|5|true", "b", true));
+        Page<Object> narrowed = AutocompleteCache.get("people", String.class, "name", "{}|5|true", "bata", true);
+        assertEquals(List.of("Bataa"), narrowed.getContent());
+        assertEquals(1, narrowed.getTotalElements());
+
+        assertNull(AutocompleteCache.get("people", String.class, "name", "{}|10|true", "bata", true));
+        assertNull(AutocompleteCache.get("people", String.class, "title", "{}|5|true", "bata", true));
+    }
+
+    @Test
+    void truncatedOrExpiredPagesAreNotReused() {
+        Page<Object> truncated = new PageImpl<>(List.of("Bat", "Bataa"), PageRequest.of(0, 2), 7);
+        AutocompleteCache.put("people", String.class, "name", "{}|2|false", "B", AutocompleteCache.generation("people"), truncated, Duration.ofMinutes(1));
+        assertNull(AutocompleteCache.get("people", String.class, "name", "{}|2|false", "Ba", false));
+
+        AutocompleteCache.put("people", String.class, "name", "{}|2|false", "C", AutocompleteCache.generation("people"), truncated, Duration.ZERO);
+        assertNull(AutocompleteCache.get("people", String.class, "name", "{}|2|false", "C", false));
+    }
+
+    @Test
+    void writesToTheCollectionDropItsPages() {
+        Page<Object> page = new PageImpl<>(List.of("Bat"), PageRequest.of(0, 5), 1);
+        AutocompleteCache.put("people", String.class, "name", "{}|5|true", "b", AutocompleteCache.generation("people"), page, Duration.ofMinutes(1));
+        AutocompleteCache.put("cities", String.class, "name", "{}|5|true", "b", AutocompleteCache.generation("cities"), page, Duration.ofMinutes(1));
+
+        long before = AutocompleteCache.generation("people");
+        AutocompleteCache.invalidate("people");
+
+        assertNull(AutocompleteCache.get("people", String.class, "name", "{}|5|true", "b", true));
+        assertSame(page, AutocompleteCache.get("cities", String.class, "name", "{}|5|true", "b", true));
+
+        // write-ээс өмнө эхэлсэн query-ийн үр дүн хадгалагдахгүй
+        AutocompleteCache.put("people", String.class, "name", "{}|5|true", "b", before, page, Duration.ofMinutes(1));
+        assertNull(AutocompleteCache.get("people", String.class, "name", "{}|5|true", "b", true));
+    }
+}
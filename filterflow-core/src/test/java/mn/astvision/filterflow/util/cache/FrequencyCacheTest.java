@@ -0,0 +1,54 @@
+package mn.astvision.filterflow.util.cache;
+
+import mn.astvision.filterflow.model.CacheStats;
+import mn.astvision.filterflow.util.ConversionUtil;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class FrequencyCacheTest {
+
+    @Test
+    void staysWithinBoundAndCountsEvictions() {
+        FrequencyCache<Integer, String> cache = new FrequencyCache<>("test", 100);
+        for (int i = 0; i < 1_000; i++) cache.put(i, "v" + i);
+
+        CacheStats stats = cache.stats();
+        assertEquals(100, stats.size());
+        assertEquals(900, stats.evictions());
+    }
+
+    @Test
+    void frequentKeysSurviveOneOffScan() {
+        FrequencyCache<String, String> cache = new FrequencyCache<>("test", 64);
+        for (int i = 0; i < 16; i++) cache.put("hot" + i, "hot");
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 16; i++) cache.get("hot" + i);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            cache.computeIfAbsent("once" + i, k -> "once");
+            if (i % 50 == 0) for (int h = 0; h < 16; h++) cache.get("hot" + h);
+        }
+
+        for (int i = 0; i < 16; i++) assertEquals("hot", cache.get("hot" + i), "hot" + i);
+        assertTrue(cache.stats().hitRatio() > 0);
+    }
+
+    @Test
+    void compiledConvertersKeepConversionRules() {
+        assertEquals(42L, ConversionUtil.convertToExpectedType("42", long.class));
+        assertEquals(42, ConversionUtil.convertToExpectedType(42L, Integer.class));
+        assertEquals(Boolean.TRUE, ConversionUtil.convertToExpectedType("TRUE", Boolean.class));
+        assertEquals(LocalDate.of(2024, 3, 1), ConversionUtil.convertToExpectedType("2024/03/01", LocalDate.class));
+        assertEquals(LocalDate.of(2024, 3, 2), ConversionUtil.convertToExpectedType("2024/03/02", LocalDate.class));
+        assertInstanceOf(Date.class, ConversionUtil.convertToExpectedType("2024-03-01T10:15:30Z", Date.class));
+        assertThrows(RuntimeException.class, () -> ConversionUtil.convertToExpectedType("x", Integer.class));
+    }
+}
@@ -0,0 +1,66 @@
+package mn.astvision.filterflow.util.cache;
+
+import mn.astvision.filterflow.component.executors.SummaryExecutor.AggregateOp;
+import mn.astvision.filterflow.model.FilterOptions;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class MaterializedSummaryCacheTest {
+
+    private static final Map<String, String> STORED = Map.of("amount", "amt");
+
+    @Test
+    void sumCountAndAvgFollowDeltas() {
+        Map<String, Set<AggregateOp>> ops = Map.of("amount", Set.of(AggregateOp.SUM, AggregateOp.COUNT, AggregateOp.AVG));
+        Document loaded = new Document("f0_sum", 30).append("f0_numeric", 3).append("f0_present", 4);
+        MaterializedSummaryCache.Aggregates aggregates = MaterializedSummaryCache.Aggregates.read(loaded, STORED, ops);
+
+        aggregates.add(new Document("amt", 20.5));
+        aggregates.remove(new Document("amt", 10));
+        aggregates.add(new Document("other", 1));
+        aggregates.add(new Document("amt", "n/a"));
+
+        Map<String, BigDecimal> result = aggregates.result(ops).get("amount");
+        assertEquals(0, new BigDecimal("40.5").compareTo(result.get("SUM")));
+        assertEquals(BigDecimal.valueOf(5), result.get("COUNT"));
+        assertEquals(0, new BigDecimal("13.5").compareTo(result.get("AVG")));
+        assertFalse(aggregates.dirty);
+    }
+
+    @Test
+    void minMaxRecomputeOnlyWhenTheExtremeLeaves() {
+        Map<String, Set<AggregateOp>> ops = Map.of("amount", Set.of(AggregateOp.MIN, AggregateOp.MAX));
+        Document loaded = new Document("f0_sum", 15).append("f0_numeric", 3).append("f0_present", 3).append("f0_min", 1).append("f0_max", 9);
+        MaterializedSummaryCache.Aggregates aggregates = MaterializedSummaryCache.Aggregates.read(loaded, STORED, ops);
+
+        aggregates.add(new Document("amt", 12));
+        aggregates.remove(new Document("amt", 5));
+        assertEquals(BigDecimal.valueOf(12), aggregates.result(ops).get("amount").get("MAX"));
+        assertFalse(aggregates.dirty);
+
+        aggregates.remove(new Document("amt", 1));
+        assertTrue(aggregates.dirty);
+    }
+
+    @Test
+    void onlyDeltaFriendlyOpsAreMaterialized() {
+        assertTrue(MaterializedSummaryCache.supports(Map.of("amount", Set.of(AggregateOp.SUM, AggregateOp.MAX))));
+        assertFalse(MaterializedSummaryCache.supports(Map.of("amount", Set.of(AggregateOp.SUM, AggregateOp.MEDIAN))));
+
+        FilterOptions options = FilterOptions.defaults();
+        assertFalse(MaterializedSummaryCache.isEnabled(options, Object.class));
+        options.setMaterializedSummaries(true);
+        assertTrue(MaterializedSummaryCache.isEnabled(options, Object.class));
+        options.setBypassResultCache(true);
+        assertFalse(MaterializedSummaryCache.isEnabled(options, Object.class));
+    }
+}
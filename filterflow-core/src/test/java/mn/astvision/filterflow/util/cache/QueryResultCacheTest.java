@@ -0,0 +1,89 @@
+package mn.astvision.filterflow.util.cache;
+
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.support.OfflineDatabaseFactory;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class QueryResultCacheTest {
+
+    @org.springframework.data.mongodb.core.mapping.Document("orders")
+    static class Order {
+        String id;
+    }
+
+    @Test
+    void dependenciesIncludeNestedLookups() {
+        AggregationOperation pipelineLookup = ctx -> new Document("$lookup", new Document("from", "customers")
+                .append("pipeline", List.of(new Document("$lookup", new Document("from", "regions")))));
+        List<AggregationOperation> ops = List.of(Aggregation.lookup("products", "productId", "_id", "product"), pipelineLookup,
+                ctx -> new Document("$unionWith", new Document("coll", "archive")));
+
+        assertEquals(Set.of("products", "customers", "regions", "archive"), QueryResultCache.dependenciesOf(ops));
+        assertEquals(Set.of(), QueryResultCache.dependenciesOf(List.of()));
+    }
+
+    @Test
+    void writeToJoinedCollectionDropsTheEntry() {
+        MongoTemplate template = OfflineDatabaseFactory.template();
+        AtomicInteger loads = new AtomicInteger();
+
+        QueryResultCache.clear();
+        for (int i = 0; i < 2; i++) {
+            QueryResultCache.value("count-orders", Order.class, template, Set.of("customers"), () -> (long) loads.incrementAndGet());
+        }
+        assertEquals(1, loads.get());
+
+        QueryResultCache.invalidate("customers");
+        assertEquals(2L, (long) QueryResultCache.value("count-orders", Order.class, template, Set.of("customers"), () -> (long) loads.incrementAndGet()));
+
+        QueryResultCache.invalidate("orders");
+        assertEquals(3L, (long) QueryResultCache.value("count-orders", Order.class, template, Set.of("customers"), () -> (long) loads.incrementAndGet()));
+        QueryResultCache.clear();
+    }
+
+    @Test
+    void rankingOptionsArePartOfTheKey() {
+        FilterOptions plain = FilterOptions.defaults();
+        FilterOptions ranked = FilterOptions.defaults();
+        ranked.setGlobalSearchRanked(true);
+        FilterOptions topK = FilterOptions.defaults();
+        topK.setGlobalSearchRanked(true);
+        topK.setSearchTopK(10);
+        FilterOptions weighted = FilterOptions.defaults();
+        weighted.setGlobalSearchRanked(true);
+        weighted.setSearchFieldWeights(Map.of("id", 2.0));
+
+        Set<String> keys = new HashSet<>();
+        for (FilterOptions options : List.of(plain, ranked, topK, weighted)) {
+            keys.add(QueryResultCache.keyOf(QueryResultCache.Kind.PAGE, Order.class, null, options, PageRequest.of(0, 10), null, null));
+        }
+        assertEquals(4, keys.size());
+    }
+
+    @Test
+    void collationLocaleIsPartOfTheKey() {
+        FilterOptions mongolian = FilterOptions.defaults();
+        mongolian.setCaseInsensitiveCollation("mn");
+        FilterOptions english = FilterOptions.defaults();
+        english.setCaseInsensitiveCollation("en");
+
+        assertNotEquals(QueryResultCache.keyOf(QueryResultCache.Kind.COUNT, Order.class, null, mongolian, null, null, null),
+                QueryResultCache.keyOf(QueryResultCache.Kind.COUNT, Order.class, null, english, null, null, null));
+    }
+}
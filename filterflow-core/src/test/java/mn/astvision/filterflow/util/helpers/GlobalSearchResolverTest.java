@@ -0,0 +1,79 @@
+package mn.astvision.filterflow.util.helpers;
+
+import mn.astvision.filterflow.exception.FilterException;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.FilterLogicMode;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.model.enums.GlobalSearchMode;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class GlobalSearchResolverTest {
+
+    static class Article {
+        private String title;
+        private String body;
+    }
+
+    @Test
+    void escapesKeywordByDefault() {
+        Criteria criteria = GlobalSearchResolver.buildGenericSearch("(a+)+.*", FilterOptions.defaults(), Article.class);
+
+        List<?> or = (List<?>) criteria.getCriteriaObject().get("$or");
+        Pattern pattern = (Pattern) ((Document) or.getFirst()).get("title");
+        assertTrue(pattern.matcher("x(a+)+.*y").find());
+        assertFalse(pattern.matcher("aaaa").find());
+    }
+
+    @Test
+    void rawKeywordWhenEscapingDisabled() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setGlobalSearchEscapeKeyword(false);
+
+        Criteria criteria = GlobalSearchResolver.buildGenericSearch("^ab", options, Article.class);
+
+        List<?> or = (List<?>) criteria.getCriteriaObject().get("$or");
+        assertEquals("^ab", ((Pattern) ((Document) or.getFirst()).get("title")).pattern());
+    }
+
+    @Test
+    void autoFallsBackToRegexWithoutIndexes() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setGlobalSearchMode(GlobalSearchMode.AUTO);
+
+        assertEquals(GlobalSearchMode.REGEX, GlobalSearchResolver.resolveMode(options, Article.class));
+
+        options.setGlobalSearchMode(GlobalSearchMode.TEXT);
+        assertThrows(FilterException.class, () -> GlobalSearchResolver.resolveMode(options, Article.class));
+    }
+
+    @Test
+    void prefixIsAnchoredAndLiteral() {
+        FilterOptions options = FilterOptions.defaults();
+        options.setGlobalSearchMode(GlobalSearchMode.PREFIX);
+
+        Criteria criteria = GlobalSearchResolver.buildGenericSearch("a.b", options, Article.class);
+
+        List<?> or = (List<?>) criteria.getCriteriaObject().get("$or");
+        assertEquals("^a\\.b", ((Pattern) ((Document) or.getFirst()).get("title")).pattern());
+    }
+
+    @Test
+    void escapingCannotBeTurnedOffByAControlFilter() {
+        FilterGroup filters = new FilterGroup(FilterLogicMode.AND, new FilterRequest(FilterOptions.Fields.globalSearchEscapeKeyword, FilterOperator.CONTROL, false));
+
+        assertFalse(FilterOptions.getAllowedFieldNames().contains(FilterOptions.Fields.globalSearchEscapeKeyword));
+        assertThrows(FilterException.class, () -> FilterOptions.fromFilterGroup(filters));
+    }
+}
@@ -0,0 +1,65 @@
+package mn.astvision.filterflow.util.metadata;
+
+import mn.astvision.filterflow.annotations.FilterIgnore;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import mn.astvision.filterflow.util.helpers.GlobalSearchResolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.annotation.Transient;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class EntityMetadataRegistryTest {
+
+    static class Base {
+        private String createdBy;
+    }
+
+    static class Item extends Base {
+        private String name;
+        private int quantity;
+        private List<String> tags;
+        private Map<String, Long> counters;
+        @Transient
+        private String cached;
+        @FilterIgnore
+        private String secret;
+    }
+
+    @Test
+    void resolvesOwnAndInheritedFields() {
+        EntityMetadata metadata = EntityMetadataRegistry.of(Item.class);
+
+        assertNotNull(metadata.field("createdBy"));
+        assertNull(metadata.field("missing"));
+        assertSame(metadata, EntityMetadataRegistry.of(Item.class));
+    }
+
+    @Test
+    void resolvesElementTypesAndFlags() {
+        EntityMetadata metadata = EntityMetadataRegistry.of(Item.class);
+
+        assertEquals(String.class, metadata.field("tags").elementType());
+        assertEquals(Long.class, metadata.field("counters").elementType());
+        assertTrue(metadata.field("quantity").allows(FilterOperator.BETWEEN));
+        assertFalse(metadata.field("name").allows(FilterOperator.BETWEEN));
+
+        assertTrue(metadata.field("cached").transientField());
+        assertEquals(List.of("cached"), metadata.transientFieldNames());
+        assertFalse(metadata.field("secret").isFilterable());
+        assertTrue(metadata.field("tags").searchable());
+    }
+
+    @Test
+    void globalSearchDoesNotDescendIntoJdkTypes() {
+        List<String> numeric = GlobalSearchResolver.collectNumericFields(Item.class, 4);
+
+        assertTrue(numeric.contains("quantity"));
+        assertTrue(numeric.stream().noneMatch(f -> f.startsWith("tags.")), numeric.toString());
+    }
+}
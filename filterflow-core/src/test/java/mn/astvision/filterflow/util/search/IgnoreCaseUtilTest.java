@@ -0,0 +1,55 @@
+package mn.astvision.filterflow.util.search;
+
+import mn.astvision.filterflow.annotations.IgnoreCaseIndexed;
+import mn.astvision.filterflow.model.FilterGroup;
+import mn.astvision.filterflow.model.FilterOptions;
+import mn.astvision.filterflow.model.FilterRequest;
+import mn.astvision.filterflow.model.enums.FilterOperator;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class IgnoreCaseUtilTest {
+
+    static class Customer {
+        @IgnoreCaseIndexed
+        private String email;
+        private String city;
+    }
+
+    @Test
+    void shadowFieldGetsLowerCasedValue() {
+        Document stored = new Document("email", "Bat@Mail.MN");
+        SearchKeyUtil.apply(Customer.class, stored);
+        assertEquals(new Document("email", "bat@mail.mn"), stored.get(SearchKeyUtil.LOWER_FIELD));
+
+        Criteria equals = IgnoreCaseUtil.criteria("EQUALS_IGNORE_CASE", "email", "BAT@mail.mn", FilterOptions.defaults(), Customer.class);
+        assertEquals(new Document("_lower.email", "bat@mail.mn"), equals.getCriteriaObject());
+
+        Criteria prefix = IgnoreCaseUtil.criteria("STARTS_WITH", "email", "Bat.", FilterOptions.defaults(), Customer.class);
+        assertEquals("^bat\\.", prefix.getCriteriaObject().get("_lower.email").toString());
+    }
+
+    @Test
+    void otherFieldsNeedCollationOrFallBackToRegex() {
+        FilterOptions options = FilterOptions.defaults();
+        assertNull(IgnoreCaseUtil.criteria("STARTS_WITH_CI", "city", "Ulaan", options, Customer.class));
+
+        options.setCaseInsensitiveCollation("mn");
+        Criteria prefix = IgnoreCaseUtil.criteria("STARTS_WITH_CI", "city", "Ulaan", options, Customer.class);
+        assertEquals(new Document("city", new Document("$gte", "Ulaan").append("$lt", "Ulaan\uFFFF")), prefix.getCriteriaObject());
+        assertNull(IgnoreCaseUtil.criteria("STARTS_WITH", "city", "Ulaan", options, Customer.class));
+
+        FilterGroup onCity = FilterGroup.createFromFR(List.of(new FilterRequest("city", FilterOperator.EQUALS_IGNORE_CASE, "x")));
+        FilterGroup onEmail = FilterGroup.createFromFR(List.of(new FilterRequest("email", FilterOperator.EQUALS_IGNORE_CASE, "x")));
+        assertEquals(2, IgnoreCaseUtil.collationOf(onCity, options, Customer.class).toDocument().get("strength"));
+        assertNull(IgnoreCaseUtil.collationOf(onEmail, options, Customer.class));
+    }
+}
@@ -0,0 +1,66 @@
+package mn.astvision.filterflow.util.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class NgramIndexUtilTest {
+
+    @Test
+    void splitsTokensIntoLowerCaseTrigrams() {
+        assertEquals(Set.of("ula", "laa", "aan", "ub"), NgramIndexUtil.grams("Ulaan, UB"));
+        assertEquals(Set.of("ула", "лаа", "аан"), NgramIndexUtil.grams("Улаан"));
+    }
+
+    @Test
+    void fragmentSharesAllGramsAndTypoMost() {
+        Set<String> document = NgramIndexUtil.grams("Ulaanbaatar city");
+
+        assertTrue(document.containsAll(NgramIndexUtil.grams("baatar")));
+
+        Set<String> typo = NgramIndexUtil.grams("ulaanbatar");
+        Set<String> shared = new HashSet<>(typo);
+        shared.retainAll(document);
+        assertTrue((double) shared.size() / typo.size() >= 0.6);
+    }
+
+    @Test
+    void candidatesAreResolvedOnceUntilTheIndexChanges() {
+        AtomicInteger loads = new AtomicInteger();
+        Set<String> grams = NgramIndexUtil.grams("ulaanbaatar");
+        Supplier<List<Object>> loader = () -> {
+            loads.incrementAndGet();
+            return List.of("a", "b");
+        };
+
+        NgramIndexUtil.Candidates first = NgramIndexUtil.candidates("cities", grams, 0.5, 10, loader);
+        NgramIndexUtil.Candidates second = NgramIndexUtil.candidates("cities", grams, 0.5, 10, loader);
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+
+        NgramIndexUtil.invalidateCandidates("cities");
+        NgramIndexUtil.candidates("cities", grams, 0.5, 10, loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void candidatesBeyondTheCapAreReportedAsTruncated() {
+        Set<String> grams = NgramIndexUtil.grams("darkhan");
+
+        NgramIndexUtil.Candidates capped = NgramIndexUtil.candidates("towns", grams, 0.5, 2, () -> List.of("a", "b", "c"));
+        assertEquals(List.of("a", "b"), capped.ids());
+        assertTrue(capped.truncated());
+
+        NgramIndexUtil.Candidates exact = NgramIndexUtil.candidates("towns", grams, 0.5, 3, () -> List.of("a", "b", "c"));
+        assertFalse(exact.truncated());
+    }
+}
@@ -0,0 +1,66 @@
+package mn.astvision.filterflow.util.search;
+
+import mn.astvision.filterflow.annotations.SearchWeight;
+import mn.astvision.filterflow.model.FilterOptions;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class RelevanceScoreUtilTest {
+
+    static class Product {
+        @SearchWeight(3)
+        private String name;
+        private String description;
+        @SearchWeight(0)
+        private String internalCode;
+    }
+
+    @Test
+    void weightsComeFromAnnotationAndOptionsOverrideThem() {
+        FilterOptions options = FilterOptions.defaults();
+        assertEquals(Map.of("name", 3.0, "description", 1.0, "internalCode", 0.0), RelevanceScoreUtil.fieldWeights(options, Product.class));
+
+        Map<String, Double> overrides = new LinkedHashMap<>();
+        overrides.put("description", 2.0);
+        options.setSearchFieldWeights(overrides);
+        assertEquals(2.0, RelevanceScoreUtil.fieldWeights(options, Product.class).get("description"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void scoresExactOverPrefixOverSubstringTimesWeight() {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("name", 3.0);
+        weights.put("internalCode", 0.0);
+
+        Document score = RelevanceScoreUtil.scoreExpression("a.b", weights);
+
+        List<Document> terms = (List<Document>) score.get("$add");
+        assertEquals(1, terms.size()); // 0 жинтэй талбар оноонд орохгүй
+
+        List<Object> product = (List<Object>) terms.getFirst().get("$multiply");
+        assertEquals(3.0, product.getFirst());
+
+        Document let = (Document) ((Document) product.get(1)).get("$let");
+        List<Document> branches = (List<Document>) ((Document) let.get("in")).get("$switch", Document.class).get("branches");
+        List<String> regexes = branches.stream().map(b -> b.get("case", Document.class).get("$regexMatch", Document.class).getString("regex")).toList();
+        List<Integer> scores = branches.stream().map(b -> b.getInteger("then")).toList();
+
+        assertEquals(List.of("^a\\.b$", "^a\\.b", "a\\.b"), regexes);
+        assertEquals(List.of(3, 2, 1), scores);
+    }
+
+    @Test
+    void noScoredFieldGivesConstantZero() {
+        assertEquals(new Document("$literal", 0), RelevanceScoreUtil.scoreExpression("x", Map.of("name", 0.0)));
+    }
+}
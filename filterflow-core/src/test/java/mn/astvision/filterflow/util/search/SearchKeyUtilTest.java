@@ -0,0 +1,66 @@
+package mn.astvision.filterflow.util.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class SearchKeyUtilTest {
+
+    @Test
+    void cyrillicAndLatinSpellingsShareOneKey() {
+        assertEquals("ulaanbaatar", SearchKeyUtil.normalize("Улаанбаатар"));
+        assertEquals("ulaanbaatar", SearchKeyUtil.normalize("ULAANBAATAR"));
+        assertTrue(SearchKeyUtil.keys("Хүрэлсүх").contains(SearchKeyUtil.normalize("Khurelsukh")));
+        assertTrue(SearchKeyUtil.keys("Khurelsukh").contains(SearchKeyUtil.normalize("Хүрэлсүх")));
+        assertTrue(SearchKeyUtil.keys("Цэцэг").contains(SearchKeyUtil.normalize("Tsetseg")));
+        assertTrue(SearchKeyUtil.keys("Tsetseg").contains(SearchKeyUtil.normalize("Цэцэг")));
+        assertEquals(SearchKeyUtil.normalize("Өлзий"), SearchKeyUtil.normalize("Ölzii"));
+        assertEquals("bat erdene", SearchKeyUtil.normalize("  Бат-Эрдэнэ! "));
+    }
+
+    @Test
+    void prefixesCutInsideADigraphStillMatch() {
+        List<String> batsukh = SearchKeyUtil.keys("Батсүх");
+        assertTrue(batsukh.contains("batsuh"), batsukh.toString());
+        assertTrue(matchesAny(batsukh, SearchKeyUtil.normalize("Бат")));
+        assertTrue(matchesAny(batsukh, SearchKeyUtil.normalize("Bat")));
+        assertTrue(matchesAny(batsukh, SearchKeyUtil.normalize("Batsukh")));
+
+        List<String> tsagaan = SearchKeyUtil.keys("Цагаанхад");
+        assertTrue(matchesAny(tsagaan, SearchKeyUtil.normalize("Цагаанх")));
+        assertTrue(matchesAny(tsagaan, SearchKeyUtil.normalize("T")));
+        assertTrue(matchesAny(tsagaan, SearchKeyUtil.normalize("Tsagaankh")));
+        assertTrue(matchesAny(SearchKeyUtil.keys("Khan"), SearchKeyUtil.normalize("K")));
+        assertTrue(matchesAny(SearchKeyUtil.keys("Zhargal"), SearchKeyUtil.normalize("Z")));
+    }
+
+    @Test
+    void wordsStartAtEveryWord() {
+        assertEquals(List.of("ulaan baatar hot", "baatar hot", "hot"), SearchKeyUtil.words("ulaan baatar hot"));
+    }
+
+    @Test
+    void likeAndStartsWithBecomeAnchoredKeyPrefixes() {
+        Criteria startsWith = SearchKeyUtil.keyCriteria("STARTS_WITH", "name", "Улаан");
+        assertEquals("_searchKeys.name", startsWith.getKey());
+        assertEquals("^ulaan", startsWith.getCriteriaObject().get("_searchKeys.name").toString());
+
+        assertEquals("_searchKeys.name", SearchKeyUtil.keyCriteria("LIKE", "name", "улаан*").getKey());
+        // contains нь үгийн дундаас ч олох ёстой тул regex хэвээр
+        assertNull(SearchKeyUtil.keyCriteria("LIKE", "name", "*баатар*"));
+        assertNull(SearchKeyUtil.keyCriteria("LIKE", "name", "баатар"));
+        assertNull(SearchKeyUtil.keyCriteria("LIKE", "name", "*баатар"));
+        assertNull(SearchKeyUtil.keyCriteria("LIKE", "name", "у?аан"));
+        assertNull(SearchKeyUtil.keyCriteria("STARTS_WITH", null, "x"));
+    }
+
+    private static boolean matchesAny(List<String> keys, String prefix) {
+        return keys.stream().anyMatch(key -> key.startsWith(prefix));
+    }
+}
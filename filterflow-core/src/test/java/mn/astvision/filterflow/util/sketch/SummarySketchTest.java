@@ -0,0 +1,43 @@
+package mn.astvision.filterflow.util.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zorigtbaatar
+ */
+public class SummarySketchTest {
+
+    @Test
+    void distinctCountStaysWithinErrorAndMergesAsUnion() {
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        for (int i = 0; i < 60_000; i++) left.add("user-" + i);
+        for (int i = 40_000; i < 100_000; i++) right.add("user-" + i);
+
+        assertEquals(60_000, left.estimate(), 60_000 * 0.03);
+        assertEquals(100_000, left.merge(right).estimate(), 100_000 * 0.03);
+
+        HyperLogLog numbers = new HyperLogLog();
+        numbers.add(1);
+        numbers.add(1L);
+        numbers.add(1.0);
+        numbers.add(null);
+        assertEquals(1, numbers.estimate());
+    }
+
+    @Test
+    void quantilesStayWithinRankErrorAcrossPartitions() {
+        SummarySketch left = new SummarySketch();
+        SummarySketch right = new SummarySketch();
+        for (int i = 1; i <= 100_000; i++) (i % 2 == 0 ? left : right).add(i);
+        left.add(null);
+
+        SummarySketch merged = left.merge(right);
+        assertEquals(100_000, merged.count());
+        assertEquals(50_000, merged.quantile(0.5), 100_000 * 0.02);
+        assertEquals(99_000, merged.quantile(0.99), 100_000 * 0.02);
+        assertTrue(Double.isNaN(new SummarySketch().quantile(0.5)));
+    }
+}